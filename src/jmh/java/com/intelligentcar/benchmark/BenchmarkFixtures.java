@@ -0,0 +1,83 @@
+package com.intelligentcar.benchmark;
+
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.intelligentcar.journal.CommandJournal;
+import com.intelligentcar.journal.FsyncPolicy;
+import com.intelligentcar.sensor.FilterType;
+import com.intelligentcar.sensor.SensorFilterFactory;
+import com.intelligentcar.service.CarControlService;
+import com.intelligentcar.service.DeviceSessionRegistry;
+import com.intelligentcar.service.SafetyEnvelope;
+import com.intelligentcar.service.SimulationService;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基准测试用的服务装配（不启动Spring容器，参数与application.properties默认值一致）
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static DeviceSessionRegistry deviceSessionRegistry() {
+        return new DeviceSessionRegistry(100, 20, 5, "", 1000, 65536);
+    }
+
+    /**
+     * 控制服务：命令日志关闭，只测状态更新和分发本身
+     */
+    static CarControlService carControlService() {
+        return carControlService(deviceSessionRegistry());
+    }
+
+    static CarControlService carControlService(DeviceSessionRegistry deviceSessionRegistry) {
+        SafetyEnvelope safetyEnvelope = new SafetyEnvelope(100, 200, 100, 10, 10);
+        CommandJournal commandJournal = new CommandJournal(false, "journal", 16, FsyncPolicy.NONE, 20);
+        SensorFilterFactory sensorFilterFactory = new SensorFilterFactory(
+                FilterType.MEDIAN, FilterType.EMA, FilterType.EMA, 5, 0.3, 4, 25);
+        return new CarControlService(safetyEnvelope, deviceSessionRegistry, commandJournal, sensorFilterFactory);
+    }
+
+    /**
+     * 仿真服务（不启动步进线程），enabled为false时视频走合成画面分支
+     */
+    static SimulationService simulationService(boolean enabled) {
+        return new SimulationService(carControlService(), new DefaultResourceLoader(), enabled,
+                1, 1, 8, 10, 20, "classpath:worlds/default.world", 1000, 1000, 500, 500, 90);
+    }
+
+    /**
+     * 接入一个收到命令立即确认的设备，否则未确认命令会在基准运行期间无限堆积。
+     * 设备命令按序号依次下发，确认时按收到的顺序递增序号即可，不必解析JSON
+     */
+    static void connectAckingDevice(DeviceSessionRegistry registry, String vehicleId) {
+        AtomicLong nextSeq = new AtomicLong(1);
+        WebSocketSession device = (WebSocketSession) Proxy.newProxyInstance(
+                WebSocketSession.class.getClassLoader(), new Class<?>[]{WebSocketSession.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isOpen":
+                            return true;
+                        case "getId":
+                            return "bench-device-" + vehicleId;
+                        case "getAttributes":
+                            return new HashMap<String, Object>();
+                        case "sendMessage":
+                            registry.acknowledge(vehicleId, nextSeq.getAndIncrement());
+                            return null;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+        registry.registerDevice(vehicleId, device);
+    }
+}
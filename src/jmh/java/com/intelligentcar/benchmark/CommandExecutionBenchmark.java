@@ -0,0 +1,66 @@
+package com.intelligentcar.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.intelligentcar.model.ControlCommand;
+import com.intelligentcar.service.CarControlService;
+import com.intelligentcar.service.DeviceSessionRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 命令执行：多个线程同时向同一辆车（同一把锁）或各自的车下发命令
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class CommandExecutionBenchmark {
+
+    private static final String[] COMMANDS = {"FORWARD", "LEFT", "RIGHT", "BACKWARD", "STOP"};
+
+    @State(Scope.Benchmark)
+    public static class Service {
+        DeviceSessionRegistry deviceSessionRegistry;
+        CarControlService carControlService;
+
+        @Setup
+        public void setup() {
+            deviceSessionRegistry = BenchmarkFixtures.deviceSessionRegistry();
+            carControlService = BenchmarkFixtures.carControlService(deviceSessionRegistry);
+            BenchmarkFixtures.connectAckingDevice(deviceSessionRegistry, CarControlService.DEFAULT_VEHICLE_ID);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Operator {
+        String ownVehicleId;
+        int next;
+
+        @Setup
+        public void setup(Service service) {
+            ownVehicleId = "bench-" + Thread.currentThread().getId();
+            BenchmarkFixtures.connectAckingDevice(service.deviceSessionRegistry, ownVehicleId);
+        }
+
+        ControlCommand nextCommand(String vehicleId) {
+            ControlCommand command = new ControlCommand();
+            command.setCommand(COMMANDS[next++ % COMMANDS.length]);
+            command.setSource("WEB");
+            command.setVehicleId(vehicleId);
+            return command;
+        }
+    }
+
+    @Benchmark
+    public void sharedVehicle(Service service, Operator operator) {
+        service.carControlService.executeCommand(operator.nextCommand(CarControlService.DEFAULT_VEHICLE_ID));
+    }
+
+    @Benchmark
+    public void vehiclePerThread(Service service, Operator operator) {
+        service.carControlService.executeCommand(operator.nextCommand(operator.ownVehicleId));
+    }
+}
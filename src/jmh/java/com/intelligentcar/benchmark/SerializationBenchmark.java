@@ -0,0 +1,58 @@
+package com.intelligentcar.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.intelligentcar.model.CarStatus;
+import com.intelligentcar.model.ControlCommand;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 状态与命令的序列化/解析
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final String COMMAND_JSON =
+            "{\"command\":\"FORWARD\",\"value\":\"60\",\"source\":\"WEB\",\"sessionId\":\"bench\","
+                    + "\"vehicleId\":\"car-1\",\"seq\":42,\"timestamp\":1700000000000}";
+
+    private CarStatus status;
+
+    @Setup
+    public void setup() {
+        status = new CarStatus();
+        status.setSpeed(60);
+        status.setDirection("FORWARD");
+        status.setFrontDistance(120);
+        status.setLeftDistance(45);
+        status.setRightDistance(80);
+        status.setPositionX(512.5);
+        status.setPositionY(300.25);
+        status.setHeading(90.0);
+    }
+
+    @Benchmark
+    public String statusToJson() {
+        return status.toJson();
+    }
+
+    @Benchmark
+    public Map<String, Object> statusToMap() {
+        return status.toMap();
+    }
+
+    @Benchmark
+    public void commandFromJsonAndValidate(Blackhole blackhole) {
+        ControlCommand command = ControlCommand.fromJson(COMMAND_JSON);
+        blackhole.consume(command);
+        blackhole.consume(command.isValid());
+    }
+}
@@ -0,0 +1,52 @@
+package com.intelligentcar.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.intelligentcar.metrics.CarMetrics;
+import com.intelligentcar.service.SimulatedVideoService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 视频帧生成（渲染 + JPEG编码）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VideoFrameBenchmark {
+
+    @Param({"320x240", "640x480", "1280x720"})
+    public String resolution;
+
+    // true: 仿真世界俯视图；false: 合成画面
+    @Param({"true", "false"})
+    public boolean simulation;
+
+    private SimulatedVideoService videoService;
+    private int width;
+    private int height;
+
+    @Setup
+    public void setup() {
+        videoService = new SimulatedVideoService(BenchmarkFixtures.simulationService(simulation),
+                new CarMetrics(new SimpleMeterRegistry()));
+        String[] parts = resolution.split("x");
+        width = Integer.parseInt(parts[0]);
+        height = Integer.parseInt(parts[1]);
+    }
+
+    @Benchmark
+    public byte[] generateVideoFrame() {
+        return videoService.generateVideoFrame(width, height);
+    }
+
+    @Benchmark
+    public String generateFrameWithSensorData() {
+        return videoService.generateFrameWithSensorData();
+    }
+}
@@ -0,0 +1,144 @@
+package com.intelligentcar.loadtest;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 操作端会话（/ws/control/{vehicleId}）
+ *
+ * 服务端对每一帧命令按顺序回复且只回复一条（ACK、RATE_LIMITED、EXPIRED或ERROR），
+ * 因此用发送时间的FIFO队列即可匹配应答，不依赖序号。
+ * 命令执行后服务端先回ACK再向该车所有操作端广播BROADCAST_STATUS，
+ * ACK之后本会话收到的下一条广播记为该命令的广播延迟（同车其他操作端的广播
+ * 恰好插在中间时会略微偏小）。
+ *
+ * 延迟从计划发送时刻算起，发送排队也计入，避免协调遗漏。
+ */
+class ControlSession extends LoadSession {
+
+    private final String vehicleId;
+    private final String[] commands;
+    private final int[] cumulativeWeights;
+    private final int batchSize;
+    private final Queue<Long> awaitingResponse = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> awaitingBroadcast = new ConcurrentLinkedQueue<>();
+    private long seq;
+
+    ControlSession(LoadMetrics metrics, String vehicleId, Map<String, Integer> mix, int batchSize) {
+        super(metrics, true);
+        this.vehicleId = vehicleId;
+        this.batchSize = batchSize;
+        this.commands = mix.keySet().toArray(new String[0]);
+        this.cumulativeWeights = new int[commands.length];
+        int total = 0;
+        int i = 0;
+        for (int weight : mix.values()) {
+            total += weight;
+            cumulativeWeights[i++] = total;
+        }
+    }
+
+    @Override
+    synchronized void tick() {
+        long now = System.nanoTime();
+        StringBuilder frame = new StringBuilder(batchSize > 1 ? "[" : "");
+        for (int i = 0; i < batchSize; i++) {
+            if (i > 0) {
+                frame.append(',');
+            }
+            appendCommand(frame);
+        }
+        if (batchSize > 1) {
+            frame.append(']');
+        }
+        awaitingResponse.add(now);
+        if (metrics.recording) {
+            metrics.commandsSent.addAndGet(batchSize);
+        }
+        send(frame.toString());
+    }
+
+    private void appendCommand(StringBuilder frame) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int index = 0;
+        while (cumulativeWeights[index] <= pick) {
+            index++;
+        }
+        String command = commands[index];
+        frame.append("{\"command\":\"").append(command).append('"');
+        if ("SPEED".equals(command)) {
+            frame.append(",\"value\":\"").append(20 + random.nextInt(61)).append('"');
+        }
+        frame.append(",\"vehicleId\":\"").append(vehicleId).append('"')
+                .append(",\"seq\":").append(++seq)
+                .append(",\"timestamp\":").append(System.currentTimeMillis())
+                .append('}');
+    }
+
+    @Override
+    protected void onMessage(String message, long receivedNanos) {
+        String type = typeOf(message);
+        if (type == null) {
+            return;
+        }
+        boolean recording = metrics.recording;
+        switch (type) {
+            case "ACK": {
+                Long sentAt = awaitingResponse.poll();
+                if (sentAt != null && recording) {
+                    metrics.commandAck.recordNanos(receivedNanos - sentAt);
+                    metrics.commandsAcked.addAndGet(batchSize);
+                }
+                if (sentAt != null && message.contains("\"EXECUTED\"")) {
+                    awaitingBroadcast.add(sentAt);
+                }
+                break;
+            }
+            case "BROADCAST_STATUS": {
+                Long sentAt = awaitingBroadcast.poll();
+                if (recording) {
+                    metrics.broadcasts.incrementAndGet();
+                    if (sentAt != null) {
+                        metrics.commandBroadcast.recordNanos(receivedNanos - sentAt);
+                    }
+                }
+                break;
+            }
+            case "RATE_LIMITED":
+                awaitingResponse.poll();
+                if (recording) {
+                    metrics.rateLimited.incrementAndGet();
+                }
+                break;
+            case "EXPIRED":
+                awaitingResponse.poll();
+                if (recording) {
+                    metrics.expired.incrementAndGet();
+                }
+                break;
+            case "ERROR":
+                awaitingResponse.poll();
+                if (recording) {
+                    metrics.errors.incrementAndGet();
+                }
+                break;
+            case "PING": {
+                // 时钟同步：带回serverTime，服务端据此估计时钟偏差和命令截止时间
+                int key = message.indexOf("\"serverTime\"");
+                int start = message.indexOf(':', key) + 1;
+                int end = start;
+                while (end < message.length() && Character.isDigit(message.charAt(end))) {
+                    end++;
+                }
+                send("{\"type\":\"PONG\",\"serverTime\":" + message.substring(start, end)
+                        + ",\"clientTime\":" + System.currentTimeMillis() + "}");
+                break;
+            }
+            default:
+                break;
+        }
+    }
+}
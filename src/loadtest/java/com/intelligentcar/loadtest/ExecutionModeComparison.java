@@ -0,0 +1,239 @@
+package com.intelligentcar.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行模式对比基准（platform / virtual）
+ *
+ * 对每种模式各启动一个服务端进程（--car.execution.mode=...），按阶梯逐步增加并发会话数，
+ * 每级跑一轮压测并抓取服务端线程数和堆内存，直到握手失败率或p99延迟超过上限为止，
+ * 最后一个达标的阶梯即该模式的最大并发会话数。结果写入一个JSON报告。
+ *
+ * 用法（先 mvn package 打出可执行jar，用Java 21运行才能启用virtual模式）：
+ *   mvn -Ploadtest compile exec:java -Dloadtest.main=com.intelligentcar.loadtest.ExecutionModeComparison
+ *       -Dexec.args="--jar=target/intelligent-car-1.0.0.jar --steps=1000,2000,5000,10000
+ *       --jvm-args=-Xmx1g --duration=30 --warmup=5"
+ *
+ * 每级会话按基础配置中 operators:viewers:video 的比例分配；其余参数与LoadTestTool相同。
+ */
+public final class ExecutionModeComparison {
+
+    private ExecutionModeComparison() {
+    }
+
+    private static final class Options {
+        String jar;
+        List<String> modes = List.of("platform", "virtual");
+        List<Integer> steps = List.of(500, 1000, 2000, 5000, 10000);
+        int serverPort = 18080;
+        int managementPort = 18081;
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<String> jvmArgs = new ArrayList<>();
+        List<String> serverArgs = new ArrayList<>();
+        double maxFailureRatio = 0.01;
+        double p99LimitMs = 1000;
+        long startupTimeoutSec = 90;
+        String out = "execution-mode-report.json";
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options();
+        List<String> loadArgs = new ArrayList<>();
+        for (String arg : args) {
+            String key = arg.contains("=") ? arg.substring(0, arg.indexOf('=')) : arg;
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "";
+            switch (key) {
+                case "--jar": options.jar = value; break;
+                case "--modes": options.modes = Arrays.asList(value.split(",")); break;
+                case "--steps": options.steps = parseSteps(value); break;
+                case "--server-port": options.serverPort = Integer.parseInt(value); break;
+                case "--management-port": options.managementPort = Integer.parseInt(value); break;
+                case "--java": options.java = value; break;
+                case "--jvm-args": options.jvmArgs = splitArgs(value); break;
+                case "--server-args": options.serverArgs = splitArgs(value); break;
+                case "--max-failure-ratio": options.maxFailureRatio = Double.parseDouble(value); break;
+                case "--p99-limit-ms": options.p99LimitMs = Double.parseDouble(value); break;
+                case "--startup-timeout": options.startupTimeoutSec = Long.parseLong(value); break;
+                case "--out": options.out = value; break;
+                default: loadArgs.add(arg);
+            }
+        }
+        LoadTestConfig base;
+        try {
+            base = LoadTestConfig.parse(loadArgs.toArray(new String[0]));
+            if (options.jar == null || !new File(options.jar).isFile()) {
+                throw new IllegalArgumentException("需要用 --jar 指定可执行jar（先执行 mvn package）");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        base.port = options.serverPort;
+        base.metricsUrl = "http://127.0.0.1:" + options.managementPort + "/actuator/prometheus";
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", LocalDateTime.now().toString());
+        report.put("java", options.java);
+        report.put("jvmArgs", options.jvmArgs);
+        report.put("serverArgs", options.serverArgs);
+        report.put("steps", options.steps);
+        report.put("maxFailureRatio", options.maxFailureRatio);
+        report.put("p99LimitMs", options.p99LimitMs);
+        report.put("baseConfig", base.toMap());
+        Map<String, Object> modes = new LinkedHashMap<>();
+        for (String mode : options.modes) {
+            modes.put(mode, runMode(mode.trim(), options, base));
+        }
+        report.put("modes", modes);
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(new File(options.out), report);
+        System.out.println("报告已写入: " + options.out);
+        System.exit(0);
+    }
+
+    /**
+     * 启动一种模式的服务端，逐级加压直到不达标
+     */
+    private static Map<String, Object> runMode(String mode, Options options, LoadTestConfig base) throws Exception {
+        Map<String, Object> result = new LinkedHashMap<>();
+        Process server = startServer(mode, options);
+        try {
+            awaitHealthy(options);
+            result.put("idle", ServerMetrics.scrape(base.metricsUrl));
+            List<Map<String, Object>> steps = new ArrayList<>();
+            int maxPassed = 0;
+            for (int total : options.steps) {
+                LoadTestConfig config = scaled(base, total);
+                System.out.println("[" + mode + "] 阶梯 " + total + " 个会话");
+                Map<String, Object> run = LoadTestTool.run(config);
+                Map<String, Object> step = summarize(total, run, options);
+                steps.add(step);
+                if (!(Boolean) step.get("passed")) {
+                    break;
+                }
+                maxPassed = total;
+                // 让上一级的连接关闭完再开始下一级
+                TimeUnit.SECONDS.sleep(3);
+            }
+            result.put("steps", steps);
+            result.put("maxConcurrentSessions", maxPassed);
+        } finally {
+            server.destroy();
+            if (!server.waitFor(15, TimeUnit.SECONDS)) {
+                server.destroyForcibly();
+            }
+        }
+        return result;
+    }
+
+    private static Process startServer(String mode, Options options) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(options.java);
+        command.addAll(options.jvmArgs);
+        command.add("-jar");
+        command.add(options.jar);
+        command.add("--car.execution.mode=" + mode);
+        command.add("--server.port=" + options.serverPort);
+        command.add("--management.server.port=" + options.managementPort);
+        command.addAll(options.serverArgs);
+        File log = new File("execution-mode-" + mode + ".log");
+        System.out.println("[" + mode + "] 启动服务端，日志: " + log.getPath());
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+    }
+
+    private static void awaitHealthy(Options options) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        URI health = URI.create("http://127.0.0.1:" + options.managementPort + "/actuator/health");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.startupTimeoutSec);
+        while (System.nanoTime() < deadline) {
+            try {
+                HttpResponse<Void> response = client.send(HttpRequest.newBuilder(health).build(),
+                        HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return;
+                }
+            } catch (java.io.IOException e) {
+                // 还没起来
+            }
+            TimeUnit.MILLISECONDS.sleep(500);
+        }
+        throw new IllegalStateException("服务端在 " + options.startupTimeoutSec + " 秒内没有就绪");
+    }
+
+    /**
+     * 按基础配置的比例把总会话数分给三类端点
+     */
+    private static LoadTestConfig scaled(LoadTestConfig base, int total) {
+        LoadTestConfig config = base.copy();
+        int weight = Math.max(1, base.operators + base.viewers + base.videoViewers);
+        config.operators = (int) ((long) total * base.operators / weight);
+        config.videoViewers = (int) ((long) total * base.videoViewers / weight);
+        config.viewers = total - config.operators - config.videoViewers;
+        return config;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> summarize(int total, Map<String, Object> run, Options options) {
+        Map<String, Object> sessions = (Map<String, Object>) run.get("sessions");
+        Map<String, Object> latency = (Map<String, Object>) run.get("latency");
+        long opened = ((Number) sessions.get("opened")).longValue();
+        long failed = ((Number) sessions.get("failed")).longValue();
+        double ackP99 = p99(latency.get("commandToAck"));
+        double statusP99 = p99(latency.get("statusRequestToResponse"));
+        double failureRatio = total == 0 ? 0 : (double) failed / total;
+
+        Map<String, Object> step = new LinkedHashMap<>();
+        step.put("sessions", total);
+        step.put("opened", opened);
+        step.put("failed", failed);
+        step.put("commandToAckP99Ms", ackP99);
+        step.put("statusResponseP99Ms", statusP99);
+        step.put("server", run.get("server"));
+        step.put("passed", failureRatio <= options.maxFailureRatio
+                && ackP99 <= options.p99LimitMs && statusP99 <= options.p99LimitMs);
+        return step;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double p99(Object summary) {
+        return ((Number) ((Map<String, Object>) summary).get("p99Ms")).doubleValue();
+    }
+
+    private static List<Integer> parseSteps(String value) {
+        List<Integer> steps = new ArrayList<>();
+        for (String part : value.split(",")) {
+            steps.add(Integer.parseInt(part.trim()));
+        }
+        return steps;
+    }
+
+    private static List<String> splitArgs(String value) {
+        List<String> list = new ArrayList<>();
+        for (String part : value.trim().split("\\s+")) {
+            if (!part.isEmpty()) {
+                list.add(part);
+            }
+        }
+        return list;
+    }
+}
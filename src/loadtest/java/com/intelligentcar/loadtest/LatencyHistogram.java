@@ -0,0 +1,94 @@
+package com.intelligentcar.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁对数线性直方图（微秒）
+ *
+ * 0~63微秒每微秒一个桶，之后每个2的幂区间再分32个子桶，相对误差约3%。
+ * 桶是一个AtomicLongArray，记录只需一次原子加，上千个会话同时记录也不争锁。
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR = 64;
+    private static final int SUB_BUCKETS = 32;
+    private static final int SUB_BITS = 5;
+    private static final int FIRST_EXPONENT = 6;
+    private static final int BUCKETS = LINEAR + (Long.SIZE - FIRST_EXPONENT) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void recordNanos(long nanos) {
+        recordMicros(Math.max(0, nanos / 1000));
+    }
+
+    public void recordMicros(long micros) {
+        counts.incrementAndGet(index(micros));
+        total.incrementAndGet();
+        sum.addAndGet(micros);
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    public long getCount() {
+        return total.get();
+    }
+
+    /**
+     * 百分位（微秒，取桶下界）
+     */
+    public long percentileMicros(double percentile) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return lowerBound(i);
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * 汇总为毫秒（报告用）
+     */
+    public Map<String, Object> summary() {
+        long count = total.get();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", count);
+        map.put("meanMs", count == 0 ? 0 : sum.get() / 1000.0 / count);
+        map.put("p50Ms", percentileMicros(50) / 1000.0);
+        map.put("p90Ms", percentileMicros(90) / 1000.0);
+        map.put("p99Ms", percentileMicros(99) / 1000.0);
+        map.put("p999Ms", percentileMicros(99.9) / 1000.0);
+        map.put("maxMs", max.get() / 1000.0);
+        return map;
+    }
+
+    private static int index(long micros) {
+        if (micros < LINEAR) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + (exponent - FIRST_EXPONENT) * SUB_BUCKETS + sub;
+    }
+
+    private static long lowerBound(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int exponent = (index - LINEAR) / SUB_BUCKETS + FIRST_EXPONENT;
+        int sub = (index - LINEAR) % SUB_BUCKETS;
+        return (1L << exponent) + ((long) sub << (exponent - SUB_BITS));
+    }
+}
@@ -0,0 +1,81 @@
+package com.intelligentcar.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 全部会话共享的计数和直方图。预热期间（recording为false）只计连接数，不记延迟和吞吐
+ */
+public class LoadMetrics {
+
+    volatile boolean recording;
+
+    final LatencyHistogram commandAck = new LatencyHistogram();
+    final LatencyHistogram commandBroadcast = new LatencyHistogram();
+    final LatencyHistogram statusResponse = new LatencyHistogram();
+    final LatencyHistogram videoInterArrival = new LatencyHistogram();
+    final LatencyHistogram videoJitter = new LatencyHistogram();
+    final LatencyHistogram handshake = new LatencyHistogram();
+
+    final AtomicLong sessionsOpened = new AtomicLong();
+    final AtomicLong sessionsFailed = new AtomicLong();
+    final AtomicLong sessionsClosed = new AtomicLong();
+
+    final AtomicLong commandsSent = new AtomicLong();
+    final AtomicLong commandsAcked = new AtomicLong();
+    final AtomicLong rateLimited = new AtomicLong();
+    final AtomicLong expired = new AtomicLong();
+    final AtomicLong errors = new AtomicLong();
+    final AtomicLong sendFailures = new AtomicLong();
+    final AtomicLong broadcasts = new AtomicLong();
+    final AtomicLong statusRequests = new AtomicLong();
+    final AtomicLong videoFrames = new AtomicLong();
+    final AtomicLong messagesReceived = new AtomicLong();
+    final AtomicLong bytesReceived = new AtomicLong();
+
+    Map<String, Object> toMap(double measuredSeconds) {
+        Map<String, Object> sessions = new LinkedHashMap<>();
+        sessions.put("opened", sessionsOpened.get());
+        sessions.put("failed", sessionsFailed.get());
+        sessions.put("closedEarly", sessionsClosed.get());
+        sessions.put("handshake", handshake.summary());
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("commandToAck", commandAck.summary());
+        latency.put("commandToBroadcast", commandBroadcast.summary());
+        latency.put("statusRequestToResponse", statusResponse.summary());
+
+        Map<String, Object> video = new LinkedHashMap<>();
+        video.put("frames", videoFrames.get());
+        video.put("interArrival", videoInterArrival.summary());
+        video.put("jitter", videoJitter.summary());
+
+        Map<String, Object> counters = new LinkedHashMap<>();
+        counters.put("commandsSent", commandsSent.get());
+        counters.put("commandsAcked", commandsAcked.get());
+        counters.put("rateLimited", rateLimited.get());
+        counters.put("expired", expired.get());
+        counters.put("errors", errors.get());
+        counters.put("sendFailures", sendFailures.get());
+        counters.put("broadcastsReceived", broadcasts.get());
+        counters.put("statusRequests", statusRequests.get());
+        counters.put("messagesReceived", messagesReceived.get());
+        counters.put("bytesReceived", bytesReceived.get());
+
+        Map<String, Object> throughput = new LinkedHashMap<>();
+        throughput.put("commandsSentPerSec", commandsSent.get() / measuredSeconds);
+        throughput.put("commandsAckedPerSec", commandsAcked.get() / measuredSeconds);
+        throughput.put("messagesReceivedPerSec", messagesReceived.get() / measuredSeconds);
+        throughput.put("megabytesReceivedPerSec", bytesReceived.get() / measuredSeconds / (1024 * 1024));
+        throughput.put("videoFramesPerSec", videoFrames.get() / measuredSeconds);
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("sessions", sessions);
+        map.put("latency", latency);
+        map.put("video", video);
+        map.put("counters", counters);
+        map.put("throughput", throughput);
+        return map;
+    }
+}
@@ -0,0 +1,133 @@
+package com.intelligentcar.loadtest;
+
+import java.net.http.WebSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 一个压测WebSocket会话
+ *
+ * JDK WebSocket不允许并发发送，发送串成一条CompletableFuture链；
+ * 分片到达的文本消息拼接完整后交给onMessage（视频会话只需要前缀和长度，可关闭拼接）。
+ */
+abstract class LoadSession implements WebSocket.Listener {
+
+    protected final LoadMetrics metrics;
+    private final boolean accumulate;
+    private final StringBuilder buffer = new StringBuilder();
+    private long partialLength;
+    private String partialPrefix;
+
+    private volatile WebSocket webSocket;
+    private CompletableFuture<?> sendChain = CompletableFuture.completedFuture(null);
+
+    LoadSession(LoadMetrics metrics, boolean accumulate) {
+        this.metrics = metrics;
+        this.accumulate = accumulate;
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        this.webSocket = webSocket;
+        webSocket.request(1);
+        onOpened();
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        if (accumulate) {
+            buffer.append(data);
+        } else if (partialPrefix == null) {
+            partialPrefix = data.length() > 64 ? data.subSequence(0, 64).toString() : data.toString();
+        }
+        partialLength += data.length();
+        if (last) {
+            long now = System.nanoTime();
+            long length = partialLength;
+            String message = accumulate ? buffer.toString() : partialPrefix;
+            buffer.setLength(0);
+            partialLength = 0;
+            partialPrefix = null;
+            if (metrics.recording) {
+                metrics.messagesReceived.incrementAndGet();
+                metrics.bytesReceived.addAndGet(length);
+            }
+            try {
+                onMessage(message, now);
+            } catch (Exception e) {
+                metrics.errors.incrementAndGet();
+            }
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        metrics.sessionsClosed.incrementAndGet();
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        metrics.errors.incrementAndGet();
+    }
+
+    /**
+     * 排队发送，前一条失败不影响后续
+     */
+    protected synchronized void send(String text) {
+        WebSocket ws = webSocket;
+        if (ws == null) {
+            return;
+        }
+        sendChain = sendChain.handle((ignored, error) -> null)
+                .thenCompose(ignored -> ws.sendText(text, true))
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        metrics.sendFailures.incrementAndGet();
+                    }
+                });
+    }
+
+    boolean isOpen() {
+        WebSocket ws = webSocket;
+        return ws != null && !ws.isOutputClosed() && !ws.isInputClosed();
+    }
+
+    void close() {
+        WebSocket ws = webSocket;
+        if (ws != null) {
+            ws.sendClose(WebSocket.NORMAL_CLOSURE, "load test finished");
+        }
+    }
+
+    /**
+     * 连接建立后调用（在WebSocket回调线程上）
+     */
+    protected void onOpened() {
+    }
+
+    /**
+     * 每个定时周期调用一次（发送命令或请求）
+     */
+    abstract void tick();
+
+    /**
+     * 一条完整消息到达
+     */
+    protected abstract void onMessage(String message, long receivedNanos) throws Exception;
+
+    /**
+     * 消息类型：找到 "type":"..." 即可，不做完整JSON解析
+     */
+    static String typeOf(String message) {
+        int key = message.indexOf("\"type\"");
+        if (key < 0) {
+            return null;
+        }
+        int start = message.indexOf('"', message.indexOf(':', key) + 1);
+        int end = start < 0 ? -1 : message.indexOf('"', start + 1);
+        return end < 0 ? null : message.substring(start + 1, end);
+    }
+}
@@ -0,0 +1,124 @@
+package com.intelligentcar.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 压测参数（--key=value）
+ */
+public class LoadTestConfig {
+
+    String host = "localhost";
+    int port = 8080;
+    int operators = 100;          // /ws/control 会话数
+    int viewers = 100;            // /ws/status 会话数
+    int videoViewers = 10;        // /ws/video 会话数
+    int vehicles = 1;             // 会话依次分配到 car-1..car-N
+    double commandRate = 5;       // 每个操作端每秒命令数
+    int batchSize = 1;            // 大于1时以JSON数组成批发送
+    double statusRate = 1;        // 每个状态端每秒GET_STATUS次数
+    long durationSec = 60;        // 测量时长
+    long warmupSec = 5;           // 连接建立后先跑这么久不计入结果
+    long rampUpSec = 10;          // 在这段时间内均匀建立全部连接
+    int maxPendingHandshakes = 200;
+    int threads = Runtime.getRuntime().availableProcessors() * 2;
+    String out = "loadtest-report.json";
+    // 服务端Prometheus地址，设置后报告附带服务端线程数和内存
+    String metricsUrl;
+    // 命令权重
+    Map<String, Integer> mix = parseMix("FORWARD:30,LEFT:15,RIGHT:15,BACKWARD:10,STOP:20,SPEED:10");
+
+    static LoadTestConfig parse(String[] args) {
+        LoadTestConfig config = new LoadTestConfig();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("无法识别的参数: " + arg);
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (key) {
+                case "host": config.host = value; break;
+                case "port": config.port = Integer.parseInt(value); break;
+                case "operators": config.operators = Integer.parseInt(value); break;
+                case "viewers": config.viewers = Integer.parseInt(value); break;
+                case "video": config.videoViewers = Integer.parseInt(value); break;
+                case "vehicles": config.vehicles = Math.max(1, Integer.parseInt(value)); break;
+                case "rate": config.commandRate = Double.parseDouble(value); break;
+                case "batch-size": config.batchSize = Math.max(1, Integer.parseInt(value)); break;
+                case "status-rate": config.statusRate = Double.parseDouble(value); break;
+                case "duration": config.durationSec = Long.parseLong(value); break;
+                case "warmup": config.warmupSec = Long.parseLong(value); break;
+                case "ramp-up": config.rampUpSec = Long.parseLong(value); break;
+                case "max-pending-handshakes": config.maxPendingHandshakes = Integer.parseInt(value); break;
+                case "threads": config.threads = Integer.parseInt(value); break;
+                case "out": config.out = value; break;
+                case "metrics-url": config.metricsUrl = value; break;
+                case "mix": config.mix = parseMix(value); break;
+                default: throw new IllegalArgumentException("未知参数: --" + key);
+            }
+        }
+        return config;
+    }
+
+    /**
+     * 解析命令权重，如 FORWARD:30,STOP:20
+     */
+    static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            int weight = kv.length > 1 ? Integer.parseInt(kv[1]) : 1;
+            if (weight > 0) {
+                mix.put(kv[0].trim().toUpperCase(), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("命令权重为空: " + spec);
+        }
+        return mix;
+    }
+
+    String vehicleId(int index) {
+        return "car-" + (index % vehicles + 1);
+    }
+
+    LoadTestConfig copy() {
+        LoadTestConfig copy = new LoadTestConfig();
+        copy.host = host;
+        copy.port = port;
+        copy.operators = operators;
+        copy.viewers = viewers;
+        copy.videoViewers = videoViewers;
+        copy.vehicles = vehicles;
+        copy.commandRate = commandRate;
+        copy.batchSize = batchSize;
+        copy.statusRate = statusRate;
+        copy.durationSec = durationSec;
+        copy.warmupSec = warmupSec;
+        copy.rampUpSec = rampUpSec;
+        copy.maxPendingHandshakes = maxPendingHandshakes;
+        copy.threads = threads;
+        copy.out = out;
+        copy.metricsUrl = metricsUrl;
+        copy.mix = mix;
+        return copy;
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("host", host);
+        map.put("port", port);
+        map.put("operators", operators);
+        map.put("viewers", viewers);
+        map.put("videoViewers", videoViewers);
+        map.put("vehicles", vehicles);
+        map.put("commandRate", commandRate);
+        map.put("batchSize", batchSize);
+        map.put("statusRate", statusRate);
+        map.put("durationSec", durationSec);
+        map.put("warmupSec", warmupSec);
+        map.put("rampUpSec", rampUpSec);
+        map.put("mix", mix);
+        return map;
+    }
+}
@@ -0,0 +1,212 @@
+package com.intelligentcar.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket压测工具
+ *
+ * 对本机实例同时打开大量 /ws/control、/ws/status、/ws/video 会话：操作端按权重随机下发命令，
+ * 状态端定时查询，视频端接收推流。预热结束后开始统计，测量期结束后把延迟百分位、
+ * 视频帧间隔抖动和吞吐写成JSON报告。只允许连接本机地址。
+ *
+ * 用法：mvn -Ploadtest compile exec:java -Dexec.args="--operators=1000 --viewers=2000 --video=50
+ *      --vehicles=10 --rate=5 --mix=FORWARD:30,STOP:20,SPEED:10 --duration=60 --out=report.json"
+ *
+ * 注意服务端的准入控制（car.admission.*）会限制单会话和单车的命令速率，
+ * 测服务端极限时应调高这些配置，否则结果主要反映限流。
+ */
+public final class LoadTestTool {
+
+    private LoadTestTool() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config;
+        try {
+            config = LoadTestConfig.parse(args);
+            requireLocal(config.host);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        Map<String, Object> report = run(config);
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(new File(config.out), report);
+        System.out.println(mapper.writeValueAsString(report.get("latency")));
+        System.out.println("报告已写入: " + config.out);
+        System.exit(0);
+    }
+
+    /**
+     * 执行一轮压测并返回报告；配置了--metrics-url时附带测量结束时的服务端JVM指标
+     */
+    static Map<String, Object> run(LoadTestConfig config) throws Exception {
+        requireLocal(config.host);
+        LoadMetrics metrics = new LoadMetrics();
+        ExecutorService ioExecutor = Executors.newFixedThreadPool(config.threads, daemon("loadtest-io"));
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(
+                Math.max(2, config.threads / 2), daemon("loadtest-tick"));
+        HttpClient client = HttpClient.newBuilder()
+                .executor(ioExecutor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        String base = "ws://" + config.host + ":" + config.port;
+        List<LoadSession> sessions = new ArrayList<>();
+        List<URI> uris = new ArrayList<>();
+        for (int i = 0; i < config.operators; i++) {
+            sessions.add(new ControlSession(metrics, config.vehicleId(i), config.mix, config.batchSize));
+            uris.add(URI.create(base + "/ws/control/" + config.vehicleId(i)));
+        }
+        for (int i = 0; i < config.viewers; i++) {
+            sessions.add(new StatusSession(metrics));
+            uris.add(URI.create(base + "/ws/status/" + config.vehicleId(i)));
+        }
+        for (int i = 0; i < config.videoViewers; i++) {
+            sessions.add(new VideoSession(metrics));
+            uris.add(URI.create(base + "/ws/video"));
+        }
+
+        System.out.println("建立 " + sessions.size() + " 个会话，爬坡 " + config.rampUpSec + " 秒");
+        connectAll(client, sessions, uris, config, metrics);
+        scheduleTicks(scheduler, sessions, config);
+
+        System.out.println("已连接 " + metrics.sessionsOpened.get() + "，失败 " + metrics.sessionsFailed.get()
+                + "；预热 " + config.warmupSec + " 秒");
+        TimeUnit.SECONDS.sleep(config.warmupSec);
+
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        metrics.recording = true;
+        System.out.println("开始测量 " + config.durationSec + " 秒");
+        TimeUnit.SECONDS.sleep(config.durationSec);
+        metrics.recording = false;
+        double measuredSeconds = (System.nanoTime() - start) / 1e9;
+        Map<String, Object> server = config.metricsUrl == null ? null : ServerMetrics.scrape(config.metricsUrl);
+
+        scheduler.shutdownNow();
+        for (LoadSession session : sessions) {
+            session.close();
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", startedAt.toString());
+        report.put("measuredSeconds", measuredSeconds);
+        report.put("config", config.toMap());
+        report.putAll(metrics.toMap(measuredSeconds));
+        if (server != null) {
+            report.put("server", server);
+        }
+
+        ioExecutor.shutdownNow();
+        return report;
+    }
+
+    /**
+     * 在爬坡时间内均匀发起握手，同时进行中的握手数有上限
+     */
+    private static void connectAll(HttpClient client, List<LoadSession> sessions, List<URI> uris,
+                                   LoadTestConfig config, LoadMetrics metrics) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(config.maxPendingHandshakes);
+        long intervalNanos = sessions.isEmpty() ? 0 : TimeUnit.SECONDS.toNanos(config.rampUpSec) / sessions.size();
+        long next = System.nanoTime();
+        for (int i = 0; i < sessions.size(); i++) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            next += intervalNanos;
+            inFlight.acquire();
+            long begin = System.nanoTime();
+            client.newWebSocketBuilder()
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .buildAsync(uris.get(i), sessions.get(i))
+                    .whenComplete((ws, error) -> {
+                        inFlight.release();
+                        if (error != null) {
+                            metrics.sessionsFailed.incrementAndGet();
+                        } else {
+                            metrics.sessionsOpened.incrementAndGet();
+                            metrics.handshake.recordNanos(System.nanoTime() - begin);
+                        }
+                    });
+        }
+        // 等最后一批握手完成
+        inFlight.acquire(config.maxPendingHandshakes);
+        inFlight.release(config.maxPendingHandshakes);
+    }
+
+    /**
+     * 为每个会话按配置速率安排定时任务，初始相位随机，避免所有会话同一时刻发送
+     */
+    private static void scheduleTicks(ScheduledExecutorService scheduler, List<LoadSession> sessions,
+                                      LoadTestConfig config) {
+        for (LoadSession session : sessions) {
+            double rate;
+            if (session instanceof ControlSession) {
+                rate = config.commandRate;
+            } else if (session instanceof StatusSession) {
+                rate = config.statusRate;
+            } else {
+                continue;
+            }
+            if (rate <= 0) {
+                continue;
+            }
+            long periodNanos = (long) (1e9 / rate);
+            long initialDelay = ThreadLocalRandom.current().nextLong(periodNanos);
+            scheduler.scheduleAtFixedRate(() -> {
+                if (session.isOpen()) {
+                    session.tick();
+                }
+            }, initialDelay, periodNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 只允许压本机：回环地址或本机网卡上的地址
+     */
+    static void requireLocal(String host) {
+        try {
+            InetAddress address = InetAddress.getByName(host);
+            if (address.isLoopbackAddress() || address.isAnyLocalAddress()
+                    || NetworkInterface.getByInetAddress(address) != null) {
+                return;
+            }
+        } catch (Exception e) {
+            throw new IllegalArgumentException("无法解析主机: " + host);
+        }
+        throw new IllegalArgumentException("压测只能针对本机实例: " + host);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package com.intelligentcar.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 从服务端 /actuator/prometheus 抓取线程数和内存占用，用于对比不同执行模式的资源开销
+ */
+final class ServerMetrics {
+
+    private ServerMetrics() {
+    }
+
+    static Map<String, Object> scrape(String url) throws IOException, InterruptedException {
+        URI uri = URI.create(url);
+        LoadTestTool.requireLocal(uri.getHost());
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(10)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("抓取指标失败: HTTP " + response.statusCode());
+        }
+        String body = response.body();
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("liveThreads", (long) sum(body, "jvm_threads_live_threads", null));
+        map.put("peakThreads", (long) sum(body, "jvm_threads_peak_threads", null));
+        map.put("heapUsedMb", sum(body, "jvm_memory_used_bytes", "area=\"heap\"") / (1024 * 1024));
+        map.put("heapCommittedMb", sum(body, "jvm_memory_committed_bytes", "area=\"heap\"") / (1024 * 1024));
+        map.put("nonHeapUsedMb", sum(body, "jvm_memory_used_bytes", "area=\"nonheap\"") / (1024 * 1024));
+        map.put("websocketSessions", (long) sum(body, "car_websocket_sessions", null));
+        map.put("sessionTaskRejected", (long) sum(body, "car_session_task_rejected_total", null));
+        map.put("processCpuUsage", sum(body, "process_cpu_usage", null));
+        return map;
+    }
+
+    /**
+     * 对同名（可按标签片段过滤）的所有样本求和
+     */
+    private static double sum(String body, String name, String labelFilter) {
+        double total = 0;
+        for (String line : body.split("\n")) {
+            if (line.startsWith("#") || !line.startsWith(name)) {
+                continue;
+            }
+            int nameEnd = name.length();
+            if (line.length() <= nameEnd || (line.charAt(nameEnd) != '{' && line.charAt(nameEnd) != ' ')) {
+                continue;
+            }
+            if (labelFilter != null && !line.contains(labelFilter)) {
+                continue;
+            }
+            try {
+                total += Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+            } catch (NumberFormatException e) {
+                // 忽略NaN等非数值样本
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,37 @@
+package com.intelligentcar.loadtest;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 状态端会话（/ws/status/{vehicleId}），定时发送GET_STATUS，测请求到STATUS_UPDATE的延迟。
+ * 连接时服务端主动推送的一条初始状态没有对应请求，直接忽略
+ */
+class StatusSession extends LoadSession {
+
+    private final Queue<Long> awaitingResponse = new ConcurrentLinkedQueue<>();
+
+    StatusSession(LoadMetrics metrics) {
+        super(metrics, true);
+    }
+
+    @Override
+    void tick() {
+        awaitingResponse.add(System.nanoTime());
+        if (metrics.recording) {
+            metrics.statusRequests.incrementAndGet();
+        }
+        send("GET_STATUS");
+    }
+
+    @Override
+    protected void onMessage(String message, long receivedNanos) {
+        if (!"STATUS_UPDATE".equals(typeOf(message))) {
+            return;
+        }
+        Long sentAt = awaitingResponse.poll();
+        if (sentAt != null && metrics.recording) {
+            metrics.statusResponse.recordNanos(receivedNanos - sentAt);
+        }
+    }
+}
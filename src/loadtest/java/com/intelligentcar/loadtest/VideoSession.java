@@ -0,0 +1,45 @@
+package com.intelligentcar.loadtest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 视频端会话（/ws/video），连接后发送start，记录帧间隔和相对标称间隔的抖动。
+ * 帧内容不拼接，只看前缀和长度
+ */
+class VideoSession extends LoadSession {
+
+    // 服务端按66ms间隔推帧（约15fps）
+    static final long NOMINAL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(66);
+
+    private long lastFrameNanos;
+
+    VideoSession(LoadMetrics metrics) {
+        super(metrics, false);
+    }
+
+    @Override
+    protected void onOpened() {
+        send("start");
+    }
+
+    @Override
+    void tick() {
+        // 帧由服务端推送，不需要定时发送
+    }
+
+    @Override
+    protected void onMessage(String message, long receivedNanos) {
+        if (!"video_frame".equals(typeOf(message))) {
+            return;
+        }
+        long previous = lastFrameNanos;
+        lastFrameNanos = receivedNanos;
+        if (previous == 0 || !metrics.recording) {
+            return;
+        }
+        long interval = receivedNanos - previous;
+        metrics.videoFrames.incrementAndGet();
+        metrics.videoInterArrival.recordNanos(interval);
+        metrics.videoJitter.recordNanos(Math.abs(interval - NOMINAL_INTERVAL_NANOS));
+    }
+}
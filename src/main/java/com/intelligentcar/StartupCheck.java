@@ -1,6 +1,8 @@
 // src/main/java/com/intelligentcar/StartupCheck.java
 package com.intelligentcar;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationListener;
 import org.springframework.stereotype.Component;
@@ -14,9 +16,11 @@ import java.io.File;
 @Component
 public class StartupCheck implements ApplicationListener<ApplicationReadyEvent> {
 
+    private static final Logger log = LoggerFactory.getLogger(StartupCheck.class);
+
     @Override
     public void onApplicationEvent(ApplicationReadyEvent event) {
-        System.out.println("执行启动检查...");
+        log.info("执行启动检查...");
 
         // 检查必要目录
         checkDirectories();
@@ -24,7 +28,7 @@ public class StartupCheck implements ApplicationListener<ApplicationReadyEvent>
         // 检查配置文件
         checkConfiguration();
 
-        System.out.println("启动检查完成！");
+        log.info("启动检查完成！");
     }
 
     private void checkDirectories() {
@@ -38,33 +42,33 @@ public class StartupCheck implements ApplicationListener<ApplicationReadyEvent>
             File directory = new File(dir);
             if (!directory.exists()) {
                 if (directory.mkdirs()) {
-                    System.out.println("创建目录: " + directory.getAbsolutePath());
+                    log.info("创建目录: {}", directory.getAbsolutePath());
                 } else {
-                    System.out.println("无法创建目录: " + directory.getAbsolutePath());
+                    log.warn("无法创建目录: {}", directory.getAbsolutePath());
                 }
             }
         }
     }
 
     private void checkConfiguration() {
-        System.out.println("检查系统配置...");
+        log.info("检查系统配置...");
 
         // 检查Java版本
         String javaVersion = System.getProperty("java.version");
-        System.out.println("Java版本: " + javaVersion);
+        log.info("Java版本: {}", javaVersion);
 
         // 检查操作系统
         String osName = System.getProperty("os.name");
         String osVersion = System.getProperty("os.version");
-        System.out.println("操作系统: " + osName + " " + osVersion);
+        log.info("操作系统: {} {}", osName, osVersion);
 
         // 检查可用内存
         Runtime runtime = Runtime.getRuntime();
         long maxMemory = runtime.maxMemory() / (1024 * 1024);
         long totalMemory = runtime.totalMemory() / (1024 * 1024);
         long freeMemory = runtime.freeMemory() / (1024 * 1024);
-        System.out.println("最大内存: " + maxMemory + "MB");
-        System.out.println("已分配内存: " + totalMemory + "MB");
-        System.out.println("可用内存: " + freeMemory + "MB");
+        log.info("最大内存: {}MB", maxMemory);
+        log.info("已分配内存: {}MB", totalMemory);
+        log.info("可用内存: {}MB", freeMemory);
     }
 }
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.intelligentcar.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 线程执行模式（car.execution.mode）
+ *
+ * - platform：默认，请求处理和会话任务都在固定数量的平台线程上执行
+ * - virtual：Tomcat请求处理、MVC异步流（MJPEG）和会话任务改为每个任务一个虚拟线程，
+ *   阻塞在发送或上游读取上时不占用载体线程，并发会话数不再受线程数限制
+ *
+ * 项目按Java 17编译，虚拟线程API通过反射调用；运行时低于Java 21时回退到platform并告警。
+ */
+@Component
+public class ExecutionMode {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionMode.class);
+
+    // Thread.ofVirtual().name(prefix, 0).factory() 与 Executors.newThreadPerTaskExecutor(factory)
+    private static final MethodHandle OF_VIRTUAL;
+    private static final MethodHandle BUILDER_NAME;
+    private static final MethodHandle BUILDER_FACTORY;
+    private static final MethodHandle NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle name = null;
+        MethodHandle factory = null;
+        MethodHandle perTask = null;
+        if (Runtime.version().feature() >= 21) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                Class<?> virtualBuilderClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+                ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(virtualBuilderClass));
+                name = lookup.findVirtual(builderClass, "name",
+                        MethodType.methodType(builderClass, String.class, long.class));
+                factory = lookup.findVirtual(builderClass, "factory", MethodType.methodType(ThreadFactory.class));
+                perTask = lookup.findStatic(Executors.class, "newThreadPerTaskExecutor",
+                        MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+            } catch (ReflectiveOperationException e) {
+                ofVirtual = null;
+            }
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = name;
+        BUILDER_FACTORY = factory;
+        NEW_THREAD_PER_TASK_EXECUTOR = perTask;
+    }
+
+    public enum Mode {
+        PLATFORM, VIRTUAL
+    }
+
+    private final Mode mode;
+
+    public ExecutionMode(@Value("${car.execution.mode:platform}") String configured) {
+        Mode requested = Mode.valueOf(configured.trim().toUpperCase());
+        if (requested == Mode.VIRTUAL && !isVirtualThreadSupported()) {
+            log.warn("虚拟线程需要Java 21及以上，当前运行时为 {}，回退到platform模式", Runtime.version());
+            requested = Mode.PLATFORM;
+        }
+        this.mode = requested;
+        log.info("线程执行模式: {}", mode.name().toLowerCase());
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public boolean isVirtual() {
+        return mode == Mode.VIRTUAL;
+    }
+
+    /**
+     * 每个任务一个虚拟线程的执行器，线程名为 prefix+序号；只能在virtual模式下调用
+     */
+    public ExecutorService newVirtualThreadPerTaskExecutor(String prefix) {
+        if (!isVirtual()) {
+            throw new IllegalStateException("当前不是virtual模式");
+        }
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(virtualThreadFactory(prefix));
+        } catch (Throwable e) {
+            throw new IllegalStateException("创建虚拟线程执行器失败", e);
+        }
+    }
+
+    private static ThreadFactory virtualThreadFactory(String prefix) throws Throwable {
+        Object builder = OF_VIRTUAL.invoke();
+        builder = BUILDER_NAME.invoke(builder, prefix, 0L);
+        return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return OF_VIRTUAL != null;
+    }
+}
@@ -0,0 +1,40 @@
+package com.intelligentcar.config;
+
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * virtual模式下把Tomcat请求处理和MVC异步响应（MJPEG推流的StreamingResponseBody）切到虚拟线程
+ *
+ * Tomcat的执行器对所有连接器生效，包括8081管理端口；WebSocket消息回调也在这些线程上执行。
+ */
+@Configuration
+public class ExecutionModeConfig implements WebMvcConfigurer {
+
+    private final ExecutionMode executionMode;
+
+    public ExecutionModeConfig(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (executionMode.isVirtual()) {
+                protocolHandler.setExecutor(executionMode.newVirtualThreadPerTaskExecutor("http-virtual-"));
+            }
+        };
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        if (executionMode.isVirtual()) {
+            configurer.setTaskExecutor(new TaskExecutorAdapter(
+                    executionMode.newVirtualThreadPerTaskExecutor("mvc-async-virtual-")));
+        }
+    }
+}
@@ -4,6 +4,7 @@ package com.intelligentcar.config;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
@@ -11,6 +12,11 @@ import org.springframework.web.socket.server.support.HttpSessionHandshakeInterce
 
 import com.intelligentcar.websocket.CarCommandHandler;
 import com.intelligentcar.websocket.CarStatusHandler;
+import com.intelligentcar.websocket.DeviceCommandHandler;
+import com.intelligentcar.websocket.DeviceHandshakeInterceptor;
+import com.intelligentcar.websocket.SessionLifecycleDecorator;
+import com.intelligentcar.websocket.SessionRegistry;
+import com.intelligentcar.websocket.VehicleHandshakeInterceptor;
 import com.intelligentcar.websocket.VideoStreamHandler;
 
 @Configuration
@@ -21,37 +27,71 @@ public class WebSocketConfig implements WebSocketConfigurer {
     @Autowired
     private com.intelligentcar.service.CarControlService carControlService;
 
+    @Autowired
+    private com.intelligentcar.service.DeviceSessionRegistry deviceSessionRegistry;
+
+    @Autowired
+    private com.intelligentcar.service.CommandDeadlinePolicy commandDeadlinePolicy;
+
+    @Autowired
+    private com.intelligentcar.service.AdmissionControlService admissionControlService;
+
+    @Autowired
+    private com.intelligentcar.metrics.CarMetrics carMetrics;
+
+    @Autowired
+    private SessionRegistry sessionRegistry;
+
     // 注入VideoStreamHandler
     @Autowired
     private VideoStreamHandler videoStreamHandler;
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        // 小车控制WebSocket
-        registry.addHandler(carCommandHandler(), "/ws/control")
-                .addInterceptors(new HttpSessionHandshakeInterceptor())
+        // 小车控制WebSocket（/ws/control/{vehicleId}，不带ID为默认小车）
+        registry.addHandler(registered(carCommandHandler(), SessionRegistry.ENDPOINT_CONTROL), "/ws/control", "/ws/control/*")
+                .addInterceptors(new HttpSessionHandshakeInterceptor(),
+                        new VehicleHandshakeInterceptor("/ws/control", carControlService))
                 .setAllowedOriginPatterns("*");
 
-        // 小车状态WebSocket
-        registry.addHandler(carStatusHandler(), "/ws/status")
-                .addInterceptors(new HttpSessionHandshakeInterceptor())
+        // 小车状态WebSocket（/ws/status/{vehicleId}）
+        registry.addHandler(registered(carStatusHandler(), SessionRegistry.ENDPOINT_STATUS), "/ws/status", "/ws/status/*")
+                .addInterceptors(new HttpSessionHandshakeInterceptor(),
+                        new VehicleHandshakeInterceptor("/ws/status", carControlService))
+                .setAllowedOriginPatterns("*");
+
+        // 小车硬件设备WebSocket（/ws/device/{vehicleId}），与操作端分开，握手时校验设备令牌
+        registry.addHandler(deviceCommandHandler(), "/ws/device", "/ws/device/*")
+                .addInterceptors(new VehicleHandshakeInterceptor("/ws/device"),
+                        new DeviceHandshakeInterceptor(deviceSessionRegistry))
                 .setAllowedOriginPatterns("*");
 
         // 视频流WebSocket
-        registry.addHandler(videoStreamHandler, "/ws/video")
+        registry.addHandler(registered(videoStreamHandler, SessionRegistry.ENDPOINT_VIDEO), "/ws/video")
                 .addInterceptors(new HttpSessionHandshakeInterceptor())
                 .setAllowedOriginPatterns("*");
     }
 
+    // 操作端会话统一登记（心跳、空闲驱逐、/actuator/sessions诊断），设备连接由DeviceSessionRegistry管理
+    private WebSocketHandler registered(WebSocketHandler handler, String endpoint) {
+        return new SessionLifecycleDecorator(handler, sessionRegistry, endpoint);
+    }
+
     // 声明CarCommandHandler为Bean
     @Bean
     public CarCommandHandler carCommandHandler() {
-        return new CarCommandHandler(carControlService);
+        return new CarCommandHandler(carControlService, commandDeadlinePolicy, admissionControlService, carMetrics);
+    }
+
+    // 声明DeviceCommandHandler为Bean
+    @Bean
+    public DeviceCommandHandler deviceCommandHandler() {
+        return new DeviceCommandHandler(carControlService, deviceSessionRegistry);
     }
 
     // 声明CarStatusHandler为Bean
     @Bean
     public CarStatusHandler carStatusHandler() {
-        return new CarStatusHandler(carControlService);
+        return new CarStatusHandler(carControlService, carMetrics);
     }
 }
\ No newline at end of file
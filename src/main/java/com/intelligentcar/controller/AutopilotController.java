@@ -0,0 +1,53 @@
+package com.intelligentcar.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.intelligentcar.model.AutopilotRoute;
+import com.intelligentcar.service.AutopilotService;
+import com.intelligentcar.service.CarControlService;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/autopilot")
+public class AutopilotController {
+
+    private final AutopilotService autopilotService;
+
+    public AutopilotController(AutopilotService autopilotService) {
+        this.autopilotService = autopilotService;
+    }
+
+    /**
+     * 下发自动驾驶路线（航点或定时动作）
+     */
+    @PostMapping("/route")
+    public ResponseEntity<?> startRoute(@RequestBody AutopilotRoute route,
+                                        @RequestParam(required = false) String vehicleId) {
+        try {
+            return ResponseEntity.ok(autopilotService.startRoute(CarControlService.resolveVehicleId(vehicleId), route));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("路线无效: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 取消自动驾驶并停车
+     */
+    @PostMapping("/cancel")
+    public ResponseEntity<String> cancel(@RequestParam(required = false) String vehicleId) {
+        boolean cancelled = autopilotService.cancel(CarControlService.resolveVehicleId(vehicleId));
+        return ResponseEntity.ok(cancelled ? "自动驾驶已取消" : "没有运行中的自动驾驶");
+    }
+
+    /**
+     * 获取自动驾驶状态
+     */
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getStatus(@RequestParam(required = false) String vehicleId) {
+        Map<String, Object> status = autopilotService.getStatus(CarControlService.resolveVehicleId(vehicleId));
+        return status == null ? ResponseEntity.status(HttpStatus.NOT_FOUND).build() : ResponseEntity.ok(status);
+    }
+}
@@ -4,26 +4,62 @@ package com.intelligentcar.controller;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 
+import com.intelligentcar.exception.CommandRejectedException;
+import com.intelligentcar.exception.UnknownVehicleException;
+import com.intelligentcar.metrics.CarMetrics;
 import com.intelligentcar.model.CarStatus;
+import com.intelligentcar.model.ControlCommand;
+import com.intelligentcar.service.AdmissionControlService;
 import com.intelligentcar.service.CarControlService;
+import com.intelligentcar.service.CollisionAvoidanceService;
+import com.intelligentcar.service.CommandDeadlinePolicy;
+import com.intelligentcar.service.DeviceSessionRegistry;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/car")
 public class CarController {
 
     private final CarControlService carControlService;
+    private final CollisionAvoidanceService collisionAvoidanceService;
+    private final DeviceSessionRegistry deviceSessionRegistry;
+    private final CommandDeadlinePolicy commandDeadlinePolicy;
+    private final AdmissionControlService admissionControlService;
+    private final CarMetrics metrics;
 
-    public CarController(CarControlService carControlService) {
+    public CarController(CarControlService carControlService,
+                         CollisionAvoidanceService collisionAvoidanceService,
+                         DeviceSessionRegistry deviceSessionRegistry,
+                         CommandDeadlinePolicy commandDeadlinePolicy,
+                         AdmissionControlService admissionControlService,
+                         CarMetrics metrics) {
         this.carControlService = carControlService;
+        this.collisionAvoidanceService = collisionAvoidanceService;
+        this.deviceSessionRegistry = deviceSessionRegistry;
+        this.commandDeadlinePolicy = commandDeadlinePolicy;
+        this.admissionControlService = admissionControlService;
+        this.metrics = metrics;
     }
 
     /**
      * 获取小车状态
      */
     @GetMapping("/status")
-    public ResponseEntity<CarStatus> getCarStatus() {
-        CarStatus status = carControlService.getCurrentStatus();
+    public ResponseEntity<CarStatus> getCarStatus(@RequestParam(required = false) String vehicleId,
+                                                  HttpServletRequest request) {
+        String targetId = CarControlService.resolveVehicleId(vehicleId);
+        requireVehicle(targetId);
+        if (!admissionControlService.tryAdmit(restClientKey(request), targetId, AdmissionControlService.Kind.QUERY)) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        CarStatus status = carControlService.getCurrentStatus(targetId);
         return ResponseEntity.ok(status);
     }
 
@@ -32,22 +68,92 @@ public class CarController {
      */
     @PostMapping("/control")
     public ResponseEntity<String> controlCar(@RequestParam String command,
-                                             @RequestParam(required = false) String value) {
+                                             @RequestParam(required = false) String value,
+                                             @RequestParam(required = false) String vehicleId,
+                                             HttpServletRequest request) {
+        long start = System.nanoTime();
+        String targetId = CarControlService.resolveVehicleId(vehicleId);
+        requireVehicle(targetId);
+        if ("STOP".equalsIgnoreCase(command) || "EMERGENCY_STOP".equalsIgnoreCase(command)) {
+            admissionControlService.recordExempt();
+        } else if (!admissionControlService.tryAdmit(restClientKey(request), targetId, AdmissionControlService.Kind.DRIVE)) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body("命令被限流: " + command);
+        }
         try {
-            carControlService.executeCommand(command, value);
+            ControlCommand controlCommand = new ControlCommand();
+            controlCommand.setCommand(command);
+            controlCommand.setValue(value);
+            controlCommand.setVehicleId(targetId);
+            carControlService.executeCommand(controlCommand);
+            metrics.recordCommand(CarMetrics.TRANSPORT_REST, command, System.nanoTime() - start);
             return ResponseEntity.ok("命令执行成功: " + command);
+        } catch (CommandRejectedException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("命令被拒绝: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("命令执行失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 批量发送控制命令：JSON数组，按顺序原子执行（任一条被拒绝则整批不执行）
+     */
+    @PostMapping(value = "/control", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> controlCarBatch(@RequestBody List<ControlCommand> commands,
+                                                  @RequestParam(required = false) String vehicleId,
+                                                  HttpServletRequest request) {
+        long start = System.nanoTime();
+        String targetId = CarControlService.resolveVehicleId(vehicleId);
+        requireVehicle(targetId);
+        // 先校验请求本身，客户端错误回400，不消耗令牌
+        if (commands.isEmpty() || commands.size() > CarControlService.MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().body("批量命令条数应为1~" + CarControlService.MAX_BATCH_SIZE);
+        }
+        int drivePermits = 0;
+        for (ControlCommand command : commands) {
+            if (!command.isValid()) {
+                return ResponseEntity.badRequest().body("无效的命令: " + command.getCommand());
+            }
+            if (command.getVehicleId() != null && !command.getVehicleId().equals(targetId)) {
+                return ResponseEntity.badRequest().body("命令目标小车与请求不一致: " + command.getVehicleId());
+            }
+            command.setVehicleId(targetId);
+            if (!command.isStopCommand()) {
+                drivePermits++;
+            }
+        }
+        int maxPermits = admissionControlService.getMaxPermits(AdmissionControlService.Kind.DRIVE);
+        if (drivePermits > maxPermits) {
+            return ResponseEntity.badRequest().body("批量行驶命令最多" + maxPermits + "条");
+        }
+        if (drivePermits > 0 && !admissionControlService.tryAdmit(restClientKey(request), targetId,
+                AdmissionControlService.Kind.DRIVE, drivePermits)) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body("批量命令被限流");
+        }
+        try {
+            carControlService.executeBatch(targetId, commands);
+            metrics.recordCommand(CarMetrics.TRANSPORT_REST, "BATCH", System.nanoTime() - start);
+            return ResponseEntity.ok("批量命令执行成功: " + commands.size() + "条");
+        } catch (CommandRejectedException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("批量命令被拒绝: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("批量命令执行失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 紧急停止
      */
     @PostMapping("/emergency-stop")
-    public ResponseEntity<String> emergencyStop() {
-        carControlService.emergencyStop();
+    public ResponseEntity<String> emergencyStop(@RequestParam(required = false) String vehicleId) {
+        String targetId = CarControlService.resolveVehicleId(vehicleId);
+        requireVehicle(targetId);
+        carControlService.emergencyStop(targetId);
         return ResponseEntity.ok("紧急停止指令已发送");
     }
 
@@ -55,8 +161,64 @@ public class CarController {
      * 获取连接状态
      */
     @GetMapping("/connection-status")
-    public ResponseEntity<String> getConnectionStatus() {
-        boolean isConnected = carControlService.isConnected();
+    public ResponseEntity<String> getConnectionStatus(@RequestParam(required = false) String vehicleId) {
+        boolean isConnected = vehicleId == null ? carControlService.isConnected() : carControlService.isConnected(vehicleId);
         return ResponseEntity.ok(isConnected ? "已连接" : "未连接");
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取所有小车ID
+     */
+    @GetMapping("/vehicles")
+    public ResponseEntity<Set<String>> getVehicles() {
+        return ResponseEntity.ok(carControlService.getVehicleIds());
+    }
+
+    /**
+     * 获取防碰撞安全环路统计
+     */
+    @GetMapping("/safety")
+    public ResponseEntity<Map<String, Object>> getSafetyStats() {
+        return ResponseEntity.ok(collisionAvoidanceService.getStats());
+    }
+
+    /**
+     * 获取硬件设备通道统计（命令序号、确认和重传）
+     */
+    @GetMapping("/devices")
+    public ResponseEntity<Map<String, Object>> getDeviceStats() {
+        return ResponseEntity.ok(deviceSessionRegistry.getStats());
+    }
+
+    /**
+     * 获取准入控制统计（放行、限流拒绝）
+     */
+    @GetMapping("/admission")
+    public ResponseEntity<Map<String, Object>> getAdmissionStats() {
+        return ResponseEntity.ok(admissionControlService.getStats());
+    }
+
+    /**
+     * 未知小车直接返回404，不占用准入令牌，也不会新建小车
+     */
+    private void requireVehicle(String vehicleId) {
+        if (!carControlService.hasVehicle(vehicleId)) {
+            throw new UnknownVehicleException(vehicleId);
+        }
+    }
+
+    /**
+     * REST客户端以来源地址作为限流会话
+     */
+    private static String restClientKey(HttpServletRequest request) {
+        return "rest:" + request.getRemoteAddr();
+    }
+
+    /**
+     * 获取命令过期丢弃统计
+     */
+    @GetMapping("/commands/expired")
+    public ResponseEntity<Map<String, Object>> getExpiredCommandStats() {
+        return ResponseEntity.ok(commandDeadlinePolicy.getStats());
+    }
+}
@@ -0,0 +1,29 @@
+package com.intelligentcar.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.intelligentcar.journal.CommandJournal;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/journal")
+public class JournalController {
+
+    private final CommandJournal commandJournal;
+
+    public JournalController(CommandJournal commandJournal) {
+        this.commandJournal = commandJournal;
+    }
+
+    /**
+     * 获取命令日志统计（记录数、字节数、刷盘次数）
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getJournalStats() {
+        return ResponseEntity.ok(commandJournal.getStats());
+    }
+}
@@ -0,0 +1,57 @@
+package com.intelligentcar.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.intelligentcar.service.OccupancyMapService;
+
+import java.io.IOException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/map")
+public class MapController {
+
+    private final OccupancyMapService occupancyMapService;
+
+    public MapController(OccupancyMapService occupancyMapService) {
+        this.occupancyMapService = occupancyMapService;
+    }
+
+    /**
+     * 获取一块地图的PNG图像
+     */
+    @GetMapping(value = "/tile/{tx}/{ty}.png", produces = MediaType.IMAGE_PNG_VALUE)
+    public ResponseEntity<byte[]> getTile(@PathVariable int tx, @PathVariable int ty,
+                                          @RequestParam(required = false) String vehicleId) throws IOException {
+        byte[] png = occupancyMapService.renderTilePng(vehicleId, tx, ty);
+        return png == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(png);
+    }
+
+    /**
+     * 获取指定版本之后的地图增量（二进制）
+     */
+    @GetMapping(value = "/delta", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> getDelta(@RequestParam(defaultValue = "0") long since,
+                                           @RequestParam(required = false) String vehicleId) throws IOException {
+        return ResponseEntity.ok(occupancyMapService.delta(vehicleId, since));
+    }
+
+    /**
+     * 获取建图统计
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats(@RequestParam(required = false) String vehicleId) {
+        return ResponseEntity.ok(occupancyMapService.getStats(vehicleId));
+    }
+
+    /**
+     * 清空地图
+     */
+    @PostMapping("/clear")
+    public ResponseEntity<String> clear(@RequestParam(required = false) String vehicleId) {
+        occupancyMapService.clear(vehicleId);
+        return ResponseEntity.ok("地图已清空");
+    }
+}
@@ -0,0 +1,55 @@
+package com.intelligentcar.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.intelligentcar.model.CarStatus;
+import com.intelligentcar.service.SimulationService;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/simulation")
+public class SimulationController {
+
+    private final SimulationService simulationService;
+
+    public SimulationController(SimulationService simulationService) {
+        this.simulationService = simulationService;
+    }
+
+    /**
+     * 获取仿真小车的实际状态
+     */
+    @GetMapping("/status")
+    public ResponseEntity<CarStatus> getSimulatedStatus(@RequestParam(required = false) String vehicleId) {
+        CarStatus status = simulationService.getSimulatedStatus(vehicleId);
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
+
+    /**
+     * 获取仿真小车ID列表
+     */
+    @GetMapping("/vehicles")
+    public ResponseEntity<List<String>> getVehicles() {
+        return ResponseEntity.ok(simulationService.getVehicleIds());
+    }
+
+    /**
+     * 获取仿真统计
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(simulationService.getStats());
+    }
+
+    /**
+     * 把仿真小车放回出生点
+     */
+    @PostMapping("/reset")
+    public ResponseEntity<String> reset(@RequestParam(required = false) String vehicleId) {
+        simulationService.resetVehicle(vehicleId);
+        return ResponseEntity.ok("仿真小车已复位");
+    }
+}
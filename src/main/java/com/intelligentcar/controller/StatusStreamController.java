@@ -0,0 +1,41 @@
+package com.intelligentcar.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import com.intelligentcar.service.StatusStreamService;
+
+/**
+ * 只读状态订阅（Server-Sent Events），供看板、监控脚本等不需要控制的客户端使用
+ */
+@RestController
+@RequestMapping("/api/car")
+public class StatusStreamController {
+
+    private final StatusStreamService statusStreamService;
+
+    public StatusStreamController(StatusStreamService statusStreamService) {
+        this.statusStreamService = statusStreamService;
+    }
+
+    /**
+     * 订阅小车状态。事件id为状态版本号，浏览器EventSource重连时自动带上Last-Event-ID，
+     * 只补发断开期间错过的版本
+     */
+    @GetMapping(value = "/status/stream", produces = "text/event-stream")
+    public ResponseEntity<ResponseBodyEmitter> streamStatus(
+            @RequestParam(required = false) String vehicleId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return ResponseEntity.ok()
+                .contentType(StatusStreamService.EVENT_STREAM_UTF8)
+                .cacheControl(CacheControl.noStore())
+                .header("X-Accel-Buffering", "no")
+                .body(statusStreamService.subscribe(vehicleId, lastEventId));
+    }
+}
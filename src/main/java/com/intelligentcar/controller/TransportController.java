@@ -0,0 +1,35 @@
+package com.intelligentcar.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.intelligentcar.transport.SimulatedUdpCar;
+import com.intelligentcar.transport.UdpVehicleTransport;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/transport")
+public class TransportController {
+
+    private final UdpVehicleTransport udpVehicleTransport;
+    private final SimulatedUdpCar simulatedUdpCar;
+
+    public TransportController(UdpVehicleTransport udpVehicleTransport, SimulatedUdpCar simulatedUdpCar) {
+        this.udpVehicleTransport = udpVehicleTransport;
+        this.simulatedUdpCar = simulatedUdpCar;
+    }
+
+    /**
+     * 获取UDP传输统计
+     */
+    @GetMapping("/udp")
+    public ResponseEntity<Map<String, Object>> getUdpStats() {
+        Map<String, Object> stats = new HashMap<>(udpVehicleTransport.getStats());
+        stats.put("simulatedCar", simulatedUdpCar.getStats());
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -1,7 +1,10 @@
 // src/main/java/com/intelligentcar/controller/VideoStreamController.java
 package com.intelligentcar.controller;
 
+import com.intelligentcar.logging.LogSampler;
 import com.intelligentcar.service.SimulatedVideoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -19,6 +22,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
 @CrossOrigin(origins = "*")
 public class VideoStreamController {
 
+    private static final Logger log = LoggerFactory.getLogger(VideoStreamController.class);
+    private static final LogSampler STREAM_ERROR_SAMPLER = new LogSampler(1, 5);
+
     @Autowired
     private SimulatedVideoService videoService;
 
@@ -59,7 +65,11 @@ public class VideoStreamController {
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                 } catch (Exception e) {
-                    e.printStackTrace();
+                    // 多为客户端断开，采样记录，不打堆栈
+                    long skipped = STREAM_ERROR_SAMPLER.acquire();
+                    if (skipped >= 0) {
+                        log.warn("MJPEG推流中断: {}{}", e.toString(), LogSampler.suffix(skipped));
+                    }
                 } finally {
                     streaming.set(false);
                 }
@@ -0,0 +1,19 @@
+package com.intelligentcar.exception;
+
+/**
+ * 命令被拒绝异常
+ * 用于在命令入口处拒绝违反安全约束或准入规则的控制命令
+ */
+public class CommandRejectedException extends RuntimeException {
+
+    private final String command;
+
+    public CommandRejectedException(String command, String reason) {
+        super(reason);
+        this.command = command;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+}
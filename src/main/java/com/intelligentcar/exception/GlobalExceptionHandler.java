@@ -30,6 +30,28 @@ public class GlobalExceptionHandler {
                 e.getMessage());
     }
 
+    /**
+     * 处理未知小车异常
+     */
+    @ExceptionHandler(UnknownVehicleException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ResponseEntity<Map<String, Object>> handleUnknownVehicle(UnknownVehicleException e) {
+        return createErrorResponse(HttpStatus.NOT_FOUND,
+                "unknown vehicle",
+                e.getMessage());
+    }
+
+    /**
+     * 处理命令被拒绝异常
+     */
+    @ExceptionHandler(CommandRejectedException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ResponseEntity<Map<String, Object>> handleCommandRejected(CommandRejectedException e) {
+        return createErrorResponse(HttpStatus.CONFLICT,
+                "命令被拒绝",
+                e.getMessage());
+    }
+
     /**
      * 处理所有其他异常
      */
@@ -0,0 +1,19 @@
+package com.intelligentcar.exception;
+
+/**
+ * 未知小车异常
+ * 请求的小车ID既不是仿真小车，也没有配置或注册过设备
+ */
+public class UnknownVehicleException extends RuntimeException {
+
+    private final String vehicleId;
+
+    public UnknownVehicleException(String vehicleId) {
+        super("未知小车: " + vehicleId);
+        this.vehicleId = vehicleId;
+    }
+
+    public String getVehicleId() {
+        return vehicleId;
+    }
+}
@@ -0,0 +1,310 @@
+package com.intelligentcar.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.intelligentcar.model.CarStatus;
+import com.intelligentcar.model.ControlCommand;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * 只追加的命令日志
+ *
+ * 每条被接受的命令连同执行后的状态版本写入内存映射的段文件，写入只是一次内存拷贝；
+ * 段写满后滚动到下一个文件。落盘按FsyncPolicy：GROUP模式由后台线程按间隔
+ * 把期间的所有记录一次force，多条命令分摊一次fsync。
+ *
+ * append在小车锁内调用，因此同一辆车的记录顺序与执行顺序一致。append从不等待磁盘：
+ * 日志锁内只记下待刷盘的区间，force由刷盘线程在日志锁之外执行；写满的段交给刷盘线程，
+ * 刷完后再关闭。ALWAYS模式下每条记录写完立即唤醒刷盘线程，而不是在调用线程上刷盘。
+ */
+@Service
+public class CommandJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(CommandJournal.class);
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final FsyncPolicy fsyncPolicy;
+    private final long groupCommitMs;
+
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int segmentIndex;
+    // 当前段中已交给刷盘的位置，之后到position()之间是待刷盘的区间
+    private int flushedPosition;
+    // 已滚动出去、还没刷盘和关闭的段
+    private final List<DirtyRange> retired = new ArrayList<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private ScheduledExecutorService flusher;
+
+    // 统计
+    private long records;
+    private long bytes;
+    private long segments;
+    private long forces;
+    private long failures;
+    private long lastForceNanos;
+
+    public CommandJournal(@Value("${car.journal.enabled:true}") boolean enabled,
+                          @Value("${car.journal.dir:journal}") String directory,
+                          @Value("${car.journal.segment-size-mb:16}") int segmentSizeMb,
+                          @Value("${car.journal.fsync:GROUP}") FsyncPolicy fsyncPolicy,
+                          @Value("${car.journal.group-commit-ms:20}") long groupCommitMs) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+        this.fsyncPolicy = fsyncPolicy;
+        this.groupCommitMs = groupCommitMs;
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (!enabled) {
+            log.info("命令日志已禁用");
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            segmentIndex = lastSegmentIndex(directory);
+            openNextSegment();
+        } catch (IOException e) {
+            log.error("命令日志打开失败，已停用: {}", e.getMessage());
+            buffer = null;
+            return;
+        }
+        if (fsyncPolicy != FsyncPolicy.NONE) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "journal-group-commit");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (fsyncPolicy == FsyncPolicy.GROUP) {
+            flusher.scheduleWithFixedDelay(this::flush, groupCommitMs, groupCommitMs, TimeUnit.MILLISECONDS);
+        }
+        log.info("命令日志: {}, 刷盘策略: {}", directory.toAbsolutePath(), fsyncPolicy);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        synchronized (this) {
+            buffer = null;
+            closeChannel(channel);
+            channel = null;
+        }
+    }
+
+    /**
+     * 追加一条命令记录，status为命令执行后的状态
+     */
+    public void append(ControlCommand command, CarStatus status) {
+        if (!enabled) {
+            return;
+        }
+        long wallMillis = System.currentTimeMillis();
+        long monoNanos = System.nanoTime();
+        byte[][] strings = {
+                JournalFormat.utf8(command.getVehicleId()),
+                JournalFormat.utf8(command.getCommand()),
+                JournalFormat.utf8(command.getValue()),
+                JournalFormat.utf8(command.getSource()),
+                JournalFormat.utf8(command.getSessionId()),
+                JournalFormat.utf8(status.getDirection())};
+        int size = JournalFormat.RECORD_HEADER_SIZE + JournalFormat.maxBodySize(strings);
+
+        synchronized (this) {
+            if (buffer == null) {
+                return;
+            }
+            try {
+                if (buffer.remaining() < size) {
+                    retireSegment();
+                    openNextSegment();
+                }
+                int before = buffer.position();
+                JournalFormat.writeRecord(buffer, crc, wallMillis, monoNanos, command, status, strings);
+                records++;
+                bytes += buffer.position() - before;
+            } catch (IOException | RuntimeException e) {
+                failures++;
+                log.warn("写命令日志失败: {}", e.getMessage());
+                return;
+            }
+        }
+        if (fsyncPolicy == FsyncPolicy.ALWAYS && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    /**
+     * 把上次刷盘以来的记录落盘。日志锁内只取出待刷盘的区间，force在锁外执行，
+     * 持有小车锁的append不会被磁盘拖住
+     */
+    private void flush() {
+        flushRequested.set(false);
+        List<DirtyRange> pending;
+        synchronized (this) {
+            pending = new ArrayList<>(retired);
+            retired.clear();
+            if (buffer != null && buffer.position() > flushedPosition) {
+                pending.add(new DirtyRange(buffer, null, flushedPosition, buffer.position()));
+                flushedPosition = buffer.position();
+            }
+        }
+        for (DirtyRange range : pending) {
+            long start = System.nanoTime();
+            boolean forced = false;
+            try {
+                range.buffer.force(range.from, range.to - range.from);
+                forced = true;
+            } catch (RuntimeException e) {
+                log.warn("命令日志刷盘失败: {}", e.getMessage());
+            }
+            closeChannel(range.channel);
+            long elapsed = System.nanoTime() - start;
+            synchronized (this) {
+                if (forced) {
+                    forces++;
+                    lastForceNanos = elapsed;
+                } else {
+                    failures++;
+                }
+            }
+        }
+    }
+
+    /**
+     * 段写满：未刷盘的部分连同文件一起交给刷盘线程，NONE模式下直接关闭
+     */
+    private void retireSegment() {
+        if (fsyncPolicy == FsyncPolicy.NONE) {
+            closeChannel(channel);
+        } else {
+            retired.add(new DirtyRange(buffer, channel, flushedPosition, buffer.position()));
+        }
+        channel = null;
+        buffer = null;
+    }
+
+    private void openNextSegment() throws IOException {
+        segmentIndex++;
+        Path file = directory.resolve(JournalFormat.segmentName(segmentIndex));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        JournalFormat.writeSegmentHeader(buffer, System.currentTimeMillis());
+        buffer.position(JournalFormat.SEGMENT_HEADER_SIZE);
+        // 段头也要刷盘
+        flushedPosition = 0;
+        segments++;
+    }
+
+    private static void closeChannel(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("关闭命令日志段失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 一段待刷盘的区间[from, to)；channel不为空时是已滚动出去的段，刷完后关闭
+     */
+    private static final class DirtyRange {
+
+        final MappedByteBuffer buffer;
+        final FileChannel channel;
+        final int from;
+        final int to;
+
+        DirtyRange(MappedByteBuffer buffer, FileChannel channel, int from, int to) {
+            this.buffer = buffer;
+            this.channel = channel;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * 目录中已有段文件的最大编号，新进程从下一个编号开始写，不改写旧段
+     */
+    static int lastSegmentIndex(Path directory) throws IOException {
+        int last = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                JournalFormat.SEGMENT_PREFIX + "*" + JournalFormat.SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                String digits = name.substring(JournalFormat.SEGMENT_PREFIX.length(),
+                        name.length() - JournalFormat.SEGMENT_SUFFIX.length());
+                try {
+                    last = Math.max(last, Integer.parseInt(digits));
+                } catch (NumberFormatException ignored) {
+                    // 非日志段文件
+                }
+            }
+        }
+        return last;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 日志统计
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled && buffer != null);
+        stats.put("directory", directory.toAbsolutePath().toString());
+        stats.put("fsyncPolicy", fsyncPolicy.name());
+        stats.put("currentSegment", JournalFormat.segmentName(segmentIndex));
+        stats.put("records", records);
+        stats.put("bytes", bytes);
+        stats.put("segmentsOpened", segments);
+        stats.put("forces", forces);
+        stats.put("lastForceMicros", lastForceNanos / 1000);
+        stats.put("failures", failures);
+        return stats;
+    }
+}
@@ -0,0 +1,16 @@
+package com.intelligentcar.journal;
+
+/**
+ * 日志刷盘策略
+ */
+public enum FsyncPolicy {
+
+    /** 只写入映射内存，由操作系统决定何时落盘（进程崩溃不丢，掉电可能丢） */
+    NONE,
+
+    /** 组提交：后台线程按固定间隔把期间写入的所有记录一次刷盘 */
+    GROUP,
+
+    /** 每条记录写完立即唤醒刷盘线程，调用方不等待刷盘完成 */
+    ALWAYS
+}
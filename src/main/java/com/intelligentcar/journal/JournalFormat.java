@@ -0,0 +1,154 @@
+package com.intelligentcar.journal;
+
+import com.intelligentcar.model.CarStatus;
+import com.intelligentcar.model.ControlCommand;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * 命令日志二进制格式
+ *
+ * 段文件头（16字节）：魔数 int 'ICJL'，版本 short，保留 short，创建时间 long（毫秒）
+ *
+ * 记录：长度 int（记录体字节数），CRC32 int（记录体），记录体：
+ *   墙钟时间 long（毫秒），单调时间 long（纳秒），状态版本 long，
+ *   小车ID、命令、命令值、来源、会话ID（各为 short长度 + UTF-8字节，长度-1表示null），
+ *   序号 long，速度 int，方向（字符串），X、Y、航向 double
+ *
+ * 长度为0表示段内数据结束（映射文件未写部分全为0）；CRC不符视为写到一半的尾记录。
+ */
+final class JournalFormat {
+
+    static final int MAGIC = 0x49434A4C; // "ICJL"
+    static final short VERSION = 1;
+    static final int SEGMENT_HEADER_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = 8;
+    static final String SEGMENT_PREFIX = "journal-";
+    static final String SEGMENT_SUFFIX = ".log";
+
+    private JournalFormat() {
+    }
+
+    static String segmentName(int index) {
+        return String.format("%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+    }
+
+    static void writeSegmentHeader(ByteBuffer buffer, long createdMillis) {
+        buffer.putInt(0, MAGIC);
+        buffer.putShort(4, VERSION);
+        buffer.putShort(6, (short) 0);
+        buffer.putLong(8, createdMillis);
+    }
+
+    static boolean checkSegmentHeader(ByteBuffer buffer) {
+        return buffer.limit() >= SEGMENT_HEADER_SIZE && buffer.getInt(0) == MAGIC && buffer.getShort(4) == VERSION;
+    }
+
+    /**
+     * 记录体长度上界，用于判断段内剩余空间
+     */
+    static int maxBodySize(byte[]... strings) {
+        int size = 8 + 8 + 8 + 8 + 4 + 8 * 3;
+        for (byte[] s : strings) {
+            size += 2 + (s == null ? 0 : s.length);
+        }
+        return size;
+    }
+
+    static byte[] utf8(String s) {
+        if (s == null) {
+            return null;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        return bytes.length > Short.MAX_VALUE ? java.util.Arrays.copyOf(bytes, Short.MAX_VALUE) : bytes;
+    }
+
+    /**
+     * 在buffer当前位置写入一条完整记录，调用方保证空间足够
+     */
+    static void writeRecord(ByteBuffer buffer, CRC32 crc, long wallMillis, long monoNanos,
+                            ControlCommand command, CarStatus status, byte[][] strings) {
+        int start = buffer.position();
+        buffer.position(start + RECORD_HEADER_SIZE);
+        buffer.putLong(wallMillis);
+        buffer.putLong(monoNanos);
+        buffer.putLong(status.getVersion());
+        for (int i = 0; i < 5; i++) {
+            putString(buffer, strings[i]);
+        }
+        buffer.putLong(command.getSeq() == null ? -1 : command.getSeq());
+        buffer.putInt(status.getSpeed() == null ? 0 : status.getSpeed());
+        putString(buffer, strings[5]);
+        buffer.putDouble(status.getPositionX() == null ? Double.NaN : status.getPositionX());
+        buffer.putDouble(status.getPositionY() == null ? Double.NaN : status.getPositionY());
+        buffer.putDouble(status.getHeading() == null ? Double.NaN : status.getHeading());
+        int end = buffer.position();
+
+        ByteBuffer body = buffer.duplicate();
+        body.position(start + RECORD_HEADER_SIZE).limit(end);
+        crc.reset();
+        crc.update(body);
+        buffer.putInt(start + 4, (int) crc.getValue());
+        // 长度最后写：读取端看到非0长度时记录体已完整
+        buffer.putInt(start, end - start - RECORD_HEADER_SIZE);
+    }
+
+    /**
+     * 从buffer当前位置读一条记录，到达数据末尾或尾记录损坏时返回null
+     */
+    static JournalRecord readRecord(ByteBuffer buffer, CRC32 crc) {
+        if (buffer.remaining() < RECORD_HEADER_SIZE) {
+            return null;
+        }
+        int start = buffer.position();
+        int length = buffer.getInt(start);
+        if (length <= 0 || length > buffer.remaining() - RECORD_HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer body = buffer.duplicate();
+        body.position(start + RECORD_HEADER_SIZE).limit(start + RECORD_HEADER_SIZE + length);
+        crc.reset();
+        crc.update(body.duplicate());
+        if ((int) crc.getValue() != buffer.getInt(start + 4)) {
+            return null;
+        }
+        long wall = body.getLong();
+        long mono = body.getLong();
+        long version = body.getLong();
+        String vehicleId = getString(body);
+        String command = getString(body);
+        String value = getString(body);
+        String source = getString(body);
+        String sessionId = getString(body);
+        long seq = body.getLong();
+        int speed = body.getInt();
+        String direction = getString(body);
+        double x = body.getDouble();
+        double y = body.getDouble();
+        double heading = body.getDouble();
+        buffer.position(start + RECORD_HEADER_SIZE + length);
+        return new JournalRecord(wall, mono, version, vehicleId, command, value, source, sessionId, seq,
+                speed, direction, x, y, heading);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,91 @@
+package com.intelligentcar.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 按顺序读取目录（或单个段文件）中的命令日志记录
+ */
+public class JournalReader implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalReader.class);
+
+    private final List<Path> segments;
+    private final CRC32 crc = new CRC32();
+    private int nextSegment;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    public JournalReader(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            segments = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(path,
+                    JournalFormat.SEGMENT_PREFIX + "*" + JournalFormat.SEGMENT_SUFFIX)) {
+                stream.forEach(segments::add);
+            }
+            // 段编号定长补零，按文件名排序即为写入顺序
+            Collections.sort(segments);
+        } else {
+            segments = List.of(path);
+        }
+    }
+
+    /**
+     * 下一条记录，全部读完返回null
+     */
+    public JournalRecord next() throws IOException {
+        while (true) {
+            if (buffer != null) {
+                JournalRecord record = JournalFormat.readRecord(buffer, crc);
+                if (record != null) {
+                    return record;
+                }
+                closeSegment();
+            }
+            if (nextSegment >= segments.size()) {
+                return null;
+            }
+            openSegment(segments.get(nextSegment++));
+        }
+    }
+
+    private void openSegment(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (!JournalFormat.checkSegmentHeader(buffer)) {
+            log.warn("跳过无效的日志段: {}", file);
+            closeSegment();
+            return;
+        }
+        buffer.position(JournalFormat.SEGMENT_HEADER_SIZE);
+    }
+
+    private void closeSegment() throws IOException {
+        buffer = null;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+    }
+}
@@ -0,0 +1,64 @@
+package com.intelligentcar.journal;
+
+/**
+ * 一条命令日志记录（读取端使用，写入端直接编码，不构造本对象）
+ */
+public class JournalRecord {
+
+    private final long wallTimeMillis;
+    private final long monotonicNanos;
+    private final long statusVersion;
+    private final String vehicleId;
+    private final String command;
+    private final String value;
+    private final String source;
+    private final String sessionId;
+    private final long seq;
+    private final int speed;
+    private final String direction;
+    private final double positionX;
+    private final double positionY;
+    private final double heading;
+
+    public JournalRecord(long wallTimeMillis, long monotonicNanos, long statusVersion, String vehicleId,
+                         String command, String value, String source, String sessionId, long seq,
+                         int speed, String direction, double positionX, double positionY, double heading) {
+        this.wallTimeMillis = wallTimeMillis;
+        this.monotonicNanos = monotonicNanos;
+        this.statusVersion = statusVersion;
+        this.vehicleId = vehicleId;
+        this.command = command;
+        this.value = value;
+        this.source = source;
+        this.sessionId = sessionId;
+        this.seq = seq;
+        this.speed = speed;
+        this.direction = direction;
+        this.positionX = positionX;
+        this.positionY = positionY;
+        this.heading = heading;
+    }
+
+    public long getWallTimeMillis() { return wallTimeMillis; }
+    public long getMonotonicNanos() { return monotonicNanos; }
+    public long getStatusVersion() { return statusVersion; }
+    public String getVehicleId() { return vehicleId; }
+    public String getCommand() { return command; }
+    public String getValue() { return value; }
+    public String getSource() { return source; }
+    public String getSessionId() { return sessionId; }
+    /** 会话内命令序号，-1表示无 */
+    public long getSeq() { return seq; }
+    public int getSpeed() { return speed; }
+    public String getDirection() { return direction; }
+    /** 位姿，NaN表示命令执行时没有位姿数据 */
+    public double getPositionX() { return positionX; }
+    public double getPositionY() { return positionY; }
+    public double getHeading() { return heading; }
+
+    @Override
+    public String toString() {
+        return String.format("JournalRecord{v=%d, vehicle='%s', command='%s', value='%s', source='%s', session='%s', seq=%d}",
+                statusVersion, vehicleId, command, value, source, sessionId, seq);
+    }
+}
@@ -0,0 +1,214 @@
+package com.intelligentcar.journal;
+
+import com.intelligentcar.model.ControlCommand;
+import com.intelligentcar.simulation.VehicleParameters;
+import com.intelligentcar.simulation.VehicleSimulator;
+import com.intelligentcar.simulation.World;
+import com.intelligentcar.simulation.WorldLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 命令日志回放工具
+ *
+ * 把日志中的命令按记录的时间间隔喂给运动学仿真，仿真时间由日志驱动而不是挂钟，
+ * 默认以最快速度回放（--speed=N 时按N倍速）。相同日志、相同世界得到相同的最终位姿，
+ * 可用于事故复盘和性能回归的固定输入。
+ *
+ * 用法：java -cp target/intelligent-car-1.0.0.jar -Dloader.main=com.intelligentcar.journal.JournalReplayTool
+ *      org.springframework.boot.loader.PropertiesLauncher
+ *      &lt;日志目录或段文件&gt; [--world=classpath:worlds/default.world] [--speed=0] [--verbose]
+ */
+public final class JournalReplayTool {
+
+    private static final long STEP_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    // 最后一条命令之后继续推进的仿真时间，让小车停稳
+    private static final long SETTLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private JournalReplayTool() {
+    }
+
+    /**
+     * 单辆车的回放状态
+     */
+    private static final class ReplayVehicle {
+        final VehicleSimulator simulator;
+        final long startOffsetNanos;
+        long firstVersion = -1;
+        long lastVersion = -1;
+        long versionGaps;
+        long commands;
+
+        ReplayVehicle(VehicleSimulator simulator, long startOffsetNanos) {
+            this.simulator = simulator;
+            this.startOffsetNanos = startOffsetNanos;
+        }
+
+        void advanceTo(long offsetNanos) {
+            long target = offsetNanos - startOffsetNanos;
+            long elapsed = target - simulator.getSimTimeNanos();
+            if (elapsed > 0) {
+                simulator.advance(elapsed, Integer.MAX_VALUE);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("用法: JournalReplayTool <日志目录或段文件> [--world=...] [--speed=N] [--verbose]");
+            System.exit(2);
+        }
+        Path journal = Paths.get(args[0]);
+        String worldSpec = "classpath:worlds/default.world";
+        double speed = 0;
+        boolean verbose = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--world=")) {
+                worldSpec = args[i].substring("--world=".length());
+            } else if (args[i].startsWith("--speed=")) {
+                speed = Double.parseDouble(args[i].substring("--speed=".length()));
+            } else if ("--verbose".equals(args[i])) {
+                verbose = true;
+            }
+        }
+
+        World world = loadWorld(worldSpec);
+        Map<String, ReplayVehicle> vehicles = new LinkedHashMap<>();
+        long firstMono = Long.MIN_VALUE;
+        long lastOffset = 0;
+        long records = 0;
+        long wallStart = System.nanoTime();
+
+        try (JournalReader reader = new JournalReader(journal)) {
+            JournalRecord record;
+            while ((record = reader.next()) != null) {
+                if (firstMono == Long.MIN_VALUE) {
+                    firstMono = record.getMonotonicNanos();
+                }
+                // 不同进程写的段单调时钟不连续：回退或前跳超过1小时时重新定基准，
+                // 把这一条接在上一条之后，之后的记录按新基准保持原有间隔
+                long offset = record.getMonotonicNanos() - firstMono;
+                if (offset < lastOffset || offset - lastOffset > TimeUnit.HOURS.toNanos(1)) {
+                    firstMono = record.getMonotonicNanos() - lastOffset;
+                    offset = lastOffset;
+                }
+                lastOffset = offset;
+
+                if (speed > 0) {
+                    long due = wallStart + (long) (offset / speed);
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                }
+
+                for (ReplayVehicle vehicle : vehicles.values()) {
+                    vehicle.advanceTo(offset);
+                }
+                ReplayVehicle vehicle = vehicles.get(record.getVehicleId());
+                if (vehicle == null) {
+                    vehicle = new ReplayVehicle(spawn(world, record), offset);
+                    vehicles.put(record.getVehicleId(), vehicle);
+                }
+                track(vehicle, record);
+                vehicle.simulator.applyCommand(toCommand(record));
+                records++;
+                if (verbose) {
+                    System.out.printf("%10.3fs %s%n", offset / 1e9, record);
+                }
+            }
+            System.out.println("日志段: " + reader.getSegmentCount());
+        }
+
+        for (ReplayVehicle vehicle : vehicles.values()) {
+            vehicle.advanceTo(lastOffset + SETTLE_NANOS);
+        }
+        long wallNanos = System.nanoTime() - wallStart;
+
+        double spanSeconds = lastOffset / 1e9;
+        System.out.printf("回放记录: %d 条, 小车: %d 辆, 日志跨度: %.3fs, 回放耗时: %.1fms, 加速比: %.0fx%n",
+                records, vehicles.size(), spanSeconds, wallNanos / 1e6,
+                wallNanos > 0 ? (lastOffset + SETTLE_NANOS) / (double) wallNanos : 0);
+        long digest = 17;
+        for (Map.Entry<String, ReplayVehicle> entry : vehicles.entrySet()) {
+            ReplayVehicle vehicle = entry.getValue();
+            VehicleSimulator simulator = vehicle.simulator;
+            System.out.printf("  %s: 命令 %d, 状态版本 %d~%d (不连续 %d 处), 终点 (%.1f, %.1f) 航向 %.1f°, 碰撞 %d%n",
+                    entry.getKey(), vehicle.commands, vehicle.firstVersion, vehicle.lastVersion, vehicle.versionGaps,
+                    simulator.getX(), simulator.getY(), Math.toDegrees(simulator.getHeading()),
+                    simulator.getCollisionCount());
+            digest = 31 * digest + Double.hashCode(simulator.getX());
+            digest = 31 * digest + Double.hashCode(simulator.getY());
+            digest = 31 * digest + Double.hashCode(simulator.getHeading());
+        }
+        System.out.printf("终态摘要: %016x%n", digest);
+    }
+
+    /**
+     * 记录状态版本，版本号跳跃说明两条命令之间有传感器或位姿更新，不是日志缺失
+     */
+    private static void track(ReplayVehicle vehicle, JournalRecord record) {
+        if (vehicle.firstVersion < 0) {
+            vehicle.firstVersion = record.getStatusVersion();
+        } else if (record.getStatusVersion() != vehicle.lastVersion + 1) {
+            vehicle.versionGaps++;
+        }
+        vehicle.lastVersion = record.getStatusVersion();
+        vehicle.commands++;
+    }
+
+    /**
+     * 以小车第一条记录中的位姿（没有时用世界起点）创建仿真
+     */
+    private static VehicleSimulator spawn(World world, JournalRecord record) {
+        VehicleSimulator simulator = new VehicleSimulator(VehicleParameters.defaults(), world, STEP_NANOS);
+        if (!Double.isNaN(record.getPositionX()) && !Double.isNaN(record.getPositionY())) {
+            double heading = Double.isNaN(record.getHeading()) ? 0 : Math.toRadians(record.getHeading());
+            simulator.reset(record.getPositionX(), record.getPositionY(), heading);
+        } else {
+            double[] start = world.getStartPose();
+            if (start != null) {
+                simulator.reset(start[0], start[1], start[2]);
+            } else {
+                simulator.reset(world.getWidth() / 2, world.getHeight() / 2, Math.PI / 2);
+            }
+        }
+        return simulator;
+    }
+
+    private static ControlCommand toCommand(JournalRecord record) {
+        ControlCommand command = new ControlCommand();
+        command.setCommand(record.getCommand());
+        command.setValue(record.getValue());
+        command.setSource(record.getSource());
+        command.setSessionId(record.getSessionId());
+        command.setVehicleId(record.getVehicleId());
+        command.setTimestamp(record.getWallTimeMillis());
+        if (record.getSeq() >= 0) {
+            command.setSeq(record.getSeq());
+        }
+        return command;
+    }
+
+    private static World loadWorld(String spec) throws IOException {
+        if (spec.startsWith("classpath:")) {
+            String resource = spec.substring("classpath:".length());
+            try (InputStream in = JournalReplayTool.class.getClassLoader().getResourceAsStream(resource)) {
+                if (in == null) {
+                    throw new IOException("找不到世界文件: " + spec);
+                }
+                return WorldLoader.load(in);
+            }
+        }
+        try (InputStream in = Files.newInputStream(Paths.get(spec))) {
+            return WorldLoader.load(in);
+        }
+    }
+}
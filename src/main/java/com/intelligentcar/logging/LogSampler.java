@@ -0,0 +1,52 @@
+package com.intelligentcar.logging;
+
+import com.intelligentcar.service.TokenBucket;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 逐条消息日志的限速器
+ *
+ * 每个调用点一个实例，用令牌桶限制每秒输出的条数，超出的只计数不输出；
+ * 下一条放行的日志带上期间省略的条数。调用方先判断日志级别，级别关闭时连令牌都不取：
+ *
+ * <pre>
+ * if (log.isDebugEnabled()) {
+ *     long skipped = sampler.acquire();
+ *     if (skipped >= 0) {
+ *         log.debug("收到消息: {}{}", payload, LogSampler.suffix(skipped));
+ *     }
+ * }
+ * </pre>
+ */
+public class LogSampler {
+
+    private final TokenBucket bucket;
+    private final AtomicLong suppressed = new AtomicLong();
+
+    /**
+     * @param perSecond 每秒最多输出的条数
+     * @param burst     允许的突发条数
+     */
+    public LogSampler(double perSecond, int burst) {
+        this.bucket = new TokenBucket(perSecond, burst);
+    }
+
+    /**
+     * 放行时返回上次放行以来被省略的条数，不放行时返回-1
+     */
+    public long acquire() {
+        if (bucket.tryAcquire()) {
+            return suppressed.getAndSet(0);
+        }
+        suppressed.incrementAndGet();
+        return -1;
+    }
+
+    /**
+     * 日志后缀，说明省略了多少条
+     */
+    public static String suffix(long skipped) {
+        return skipped > 0 ? "（此前省略 " + skipped + " 条）" : "";
+    }
+}
@@ -0,0 +1,254 @@
+package com.intelligentcar.mapping;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分块对数几率占据栅格（一辆车一张图）
+ *
+ * 栅格按 TILE_SIZE×TILE_SIZE 分块，块在第一次被射线经过时才分配，
+ * 数据存放在float数组中（对数几率，0为未知）。块数达到上限时淘汰最久未访问的块。
+ *
+ * 每条测距射线用Amanatides-Woo网格遍历，只更新射线经过的格子：
+ * 沿途格子记一次"空闲"，命中点所在格子记一次"占据"；读数达到量程视为未命中，
+ * 整条射线都记空闲。连续格子大多落在同一块内，缓存上一个块以省去哈希查找。
+ *
+ * 全图有一个版本号，每条射线加一；每个块记录最后修改时的版本，
+ * 增量输出只包含指定版本之后改过的块。
+ */
+public class OccupancyGrid {
+
+    public static final int TILE_SIZE = 64;
+    private static final int TILE_CELLS = TILE_SIZE * TILE_SIZE;
+
+    // 增量流格式
+    public static final int DELTA_MAGIC = 0x4F474431; // "OGD1"
+    // 未知格子的编码，其余为占据概率×254
+    public static final int UNKNOWN_CELL = 255;
+
+    private final double resolution;
+    private final int maxTiles;
+    private final float hitLogOdds;
+    private final float missLogOdds;
+    private final float clampLogOdds;
+
+    private final LinkedHashMap<Long, Tile> tiles;
+    private Tile lastTile;
+    private long version;
+    private long evictions;
+    private long raysIntegrated;
+    private long cellsUpdated;
+
+    /**
+     * @param resolution   每格边长（厘米）
+     * @param maxTiles     内存中最多保留的块数
+     * @param hitLogOdds   命中一次增加的对数几率（>0）
+     * @param missLogOdds  经过一次减少的对数几率（>0）
+     * @param clampLogOdds 对数几率的绝对值上限，防止长期不变的格子再也翻不过来
+     */
+    public OccupancyGrid(double resolution, int maxTiles, float hitLogOdds, float missLogOdds, float clampLogOdds) {
+        if (resolution <= 0 || maxTiles < 1) {
+            throw new IllegalArgumentException("栅格分辨率和块数上限必须大于0");
+        }
+        this.resolution = resolution;
+        this.maxTiles = maxTiles;
+        this.hitLogOdds = hitLogOdds;
+        this.missLogOdds = missLogOdds;
+        this.clampLogOdds = clampLogOdds;
+        this.tiles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest) {
+                if (size() > OccupancyGrid.this.maxTiles) {
+                    if (eldest.getValue() == lastTile) {
+                        lastTile = null;
+                    }
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 积分一条测距射线
+     *
+     * @param ox       传感器位置X（厘米）
+     * @param oy       传感器位置Y（厘米）
+     * @param angle    射线方向（弧度，0为X轴正方向，逆时针为正）
+     * @param distance 测得距离，小于等于0为无读数
+     * @param maxRange 量程，读数不小于量程视为未命中
+     */
+    public synchronized void integrateRay(double ox, double oy, double angle, double distance, double maxRange) {
+        if (distance <= 0) {
+            return;
+        }
+        boolean hit = distance < maxRange;
+        double length = Math.min(distance, maxRange);
+        double dx = Math.cos(angle);
+        double dy = Math.sin(angle);
+
+        // 以格子为单位的坐标
+        double sx = ox / resolution;
+        double sy = oy / resolution;
+        double ex = sx + dx * length / resolution;
+        double ey = sy + dy * length / resolution;
+        int cx = (int) Math.floor(sx);
+        int cy = (int) Math.floor(sy);
+        int endX = (int) Math.floor(ex);
+        int endY = (int) Math.floor(ey);
+
+        int stepX = dx > 0 ? 1 : -1;
+        int stepY = dy > 0 ? 1 : -1;
+        double tDeltaX = dx == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dx);
+        double tDeltaY = dy == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dy);
+        double tMaxX = dx == 0 ? Double.POSITIVE_INFINITY
+                : (dx > 0 ? cx + 1 - sx : sx - cx) * tDeltaX;
+        double tMaxY = dy == 0 ? Double.POSITIVE_INFINITY
+                : (dy > 0 ? cy + 1 - sy : sy - cy) * tDeltaY;
+
+        version++;
+        raysIntegrated++;
+        // 曼哈顿距离是遍历步数的上界，防止浮点误差导致越过终点后不停
+        int remaining = Math.abs(endX - cx) + Math.abs(endY - cy);
+        while (remaining-- > 0) {
+            update(cx, cy, -missLogOdds);
+            if (tMaxX < tMaxY) {
+                cx += stepX;
+                tMaxX += tDeltaX;
+            } else {
+                cy += stepY;
+                tMaxY += tDeltaY;
+            }
+        }
+        update(endX, endY, hit ? hitLogOdds : -missLogOdds);
+    }
+
+    private void update(int cx, int cy, float delta) {
+        int tx = Math.floorDiv(cx, TILE_SIZE);
+        int ty = Math.floorDiv(cy, TILE_SIZE);
+        Tile tile = lastTile;
+        if (tile == null || tile.tx != tx || tile.ty != ty) {
+            tile = tiles.get(key(tx, ty));
+            if (tile == null) {
+                tile = new Tile(tx, ty);
+                tiles.put(key(tx, ty), tile);
+            }
+            lastTile = tile;
+        }
+        int index = Math.floorMod(cy, TILE_SIZE) * TILE_SIZE + Math.floorMod(cx, TILE_SIZE);
+        float value = tile.logOdds[index] + delta;
+        tile.logOdds[index] = Math.max(-clampLogOdds, Math.min(clampLogOdds, value));
+        tile.version = version;
+        cellsUpdated++;
+    }
+
+    /**
+     * 某一块的格子编码（行优先，第0行为y最小的一行），块不存在返回null
+     */
+    public synchronized byte[] encodeTile(int tx, int ty) {
+        Tile tile = tiles.get(key(tx, ty));
+        return tile == null ? null : encode(tile);
+    }
+
+    /**
+     * 写出 sinceVersion 之后改过的块
+     *
+     * 格式（大端）：int magic, long 当前版本, float 分辨率, int 块边长, int 块数,
+     * 之后每块：int tx, int ty, long 块版本, byte[块边长²] 格子编码。
+     * 被淘汰的块不会出现在增量中，客户端保留它最后一次收到的内容。
+     *
+     * @return 当前版本，作为下一次请求的sinceVersion
+     */
+    public long writeDelta(long sinceVersion, DataOutputStream out) throws IOException {
+        List<Tile> changed = new ArrayList<>();
+        List<byte[]> cells = new ArrayList<>();
+        long current;
+        synchronized (this) {
+            current = version;
+            for (Tile tile : tiles.values()) {
+                if (tile.version > sinceVersion) {
+                    changed.add(tile);
+                    cells.add(encode(tile));
+                }
+            }
+        }
+        out.writeInt(DELTA_MAGIC);
+        out.writeLong(current);
+        out.writeFloat((float) resolution);
+        out.writeInt(TILE_SIZE);
+        out.writeInt(changed.size());
+        for (int i = 0; i < changed.size(); i++) {
+            Tile tile = changed.get(i);
+            out.writeInt(tile.tx);
+            out.writeInt(tile.ty);
+            out.writeLong(tile.version);
+            out.write(cells.get(i));
+        }
+        return current;
+    }
+
+    /**
+     * 清空地图（版本号不回退，客户端的增量游标仍然有效）
+     */
+    public synchronized void clear() {
+        tiles.clear();
+        lastTile = null;
+        version++;
+    }
+
+    public double getResolution() { return resolution; }
+
+    public synchronized long getVersion() { return version; }
+
+    public synchronized int getTileCount() { return tiles.size(); }
+
+    public synchronized long getEvictions() { return evictions; }
+
+    public synchronized long getRaysIntegrated() { return raysIntegrated; }
+
+    public synchronized long getCellsUpdated() { return cellsUpdated; }
+
+    /**
+     * 每个块占用的字节数（不含对象头）
+     */
+    public static long tileBytes() {
+        return (long) TILE_CELLS * Float.BYTES;
+    }
+
+    // 在持有锁时调用
+    private static byte[] encode(Tile tile) {
+        byte[] cells = new byte[TILE_CELLS];
+        float[] logOdds = tile.logOdds;
+        for (int i = 0; i < TILE_CELLS; i++) {
+            float l = logOdds[i];
+            if (l == 0) {
+                cells[i] = (byte) UNKNOWN_CELL;
+            } else {
+                double p = 1 - 1 / (1 + Math.exp(l));
+                cells[i] = (byte) Math.round(p * 254);
+            }
+        }
+        return cells;
+    }
+
+    private static long key(int tx, int ty) {
+        return ((long) tx << 32) | (ty & 0xFFFFFFFFL);
+    }
+
+    private static final class Tile {
+        final int tx;
+        final int ty;
+        final float[] logOdds = new float[TILE_CELLS];
+        long version;
+
+        Tile(int tx, int ty) {
+            this.tx = tx;
+            this.ty = ty;
+        }
+    }
+}
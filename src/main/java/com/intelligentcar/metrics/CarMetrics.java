@@ -0,0 +1,122 @@
+package com.intelligentcar.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热路径上的计时器和计数器
+ *
+ * 所有Meter在启动时创建好放在字段或不可变Map里，每条消息只做一次Map查找和一次
+ * Timer.record（无锁累加），不经过MeterRegistry的注册查找。
+ * 命令类型是固定集合，未知类型归到OTHER，标签基数有界。
+ */
+@Component
+public class CarMetrics {
+
+    public static final String TRANSPORT_WEBSOCKET = "websocket";
+    public static final String TRANSPORT_REST = "rest";
+
+    private static final String[] COMMAND_TYPES = {
+            "FORWARD", "BACKWARD", "LEFT", "RIGHT", "STOP", "SPEED", "EMERGENCY_STOP", "BATCH", "OTHER"
+    };
+
+    private final Map<String, Map<String, Timer>> commandTimers = new HashMap<>();
+    private final Timer ackLatency;
+    private final Timer controlBroadcast;
+    private final Timer statusBroadcast;
+    private final Timer frameRender;
+    private final Timer frameEncode;
+    private final Timer frameSend;
+    private final Counter framesDropped;
+
+    public CarMetrics(MeterRegistry registry) {
+        for (String transport : new String[]{TRANSPORT_WEBSOCKET, TRANSPORT_REST}) {
+            Map<String, Timer> timers = new HashMap<>();
+            for (String type : COMMAND_TYPES) {
+                timers.put(type, Timer.builder("car.command.latency")
+                        .description("命令从收到到执行完成的耗时")
+                        .tag("command", type)
+                        .tag("transport", transport)
+                        .publishPercentileHistogram()
+                        .register(registry));
+            }
+            commandTimers.put(transport, timers);
+        }
+        ackLatency = Timer.builder("car.command.ack.latency")
+                .description("命令从收到到确认发出的耗时")
+                .publishPercentileHistogram()
+                .register(registry);
+        controlBroadcast = Timer.builder("car.status.broadcast")
+                .description("一次状态广播扇出到所有会话的耗时")
+                .tag("endpoint", "control")
+                .register(registry);
+        statusBroadcast = Timer.builder("car.status.broadcast")
+                .description("一次状态广播扇出到所有会话的耗时")
+                .tag("endpoint", "status")
+                .register(registry);
+        frameRender = Timer.builder("car.video.frame")
+                .description("视频帧各阶段耗时")
+                .tag("stage", "render")
+                .register(registry);
+        frameEncode = Timer.builder("car.video.frame")
+                .description("视频帧各阶段耗时")
+                .tag("stage", "encode")
+                .register(registry);
+        frameSend = Timer.builder("car.video.frame")
+                .description("视频帧各阶段耗时")
+                .tag("stage", "send")
+                .register(registry);
+        framesDropped = Counter.builder("car.video.frames.dropped")
+                .description("上一帧还没发完而跳过的帧")
+                .register(registry);
+    }
+
+    /**
+     * 记录一条命令（计数即命令速率）
+     */
+    public void recordCommand(String transport, String command, long nanos) {
+        Map<String, Timer> timers = commandTimers.get(transport);
+        Timer timer = command == null ? null : timers.get(command);
+        if (timer == null) {
+            String type = command == null ? "OTHER" : command.toUpperCase(Locale.ROOT);
+            timer = timers.getOrDefault(type, timers.get("OTHER"));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordAck(long nanos) {
+        ackLatency.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordControlBroadcast(long nanos) {
+        controlBroadcast.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordStatusBroadcast(long nanos) {
+        statusBroadcast.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFrameRender(long nanos) {
+        frameRender.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFrameEncode(long nanos) {
+        frameEncode.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFrameSend(long nanos) {
+        frameSend.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFrameDropped() {
+        framesDropped.increment();
+    }
+}
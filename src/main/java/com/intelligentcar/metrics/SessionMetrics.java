@@ -0,0 +1,108 @@
+package com.intelligentcar.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.stereotype.Component;
+
+import com.intelligentcar.scheduler.SessionScheduler;
+import com.intelligentcar.service.CarControlService;
+import com.intelligentcar.service.DeviceSessionRegistry;
+import com.intelligentcar.service.StatusStreamService;
+import com.intelligentcar.websocket.CarStatusHandler;
+import com.intelligentcar.websocket.SessionRegistry;
+import com.intelligentcar.websocket.VideoStreamHandler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 会话数和设备通道指标
+ *
+ * 全部是抓取时才计算的Gauge/函数式Meter，直接读取各组件已有的计数，消息路径上没有额外开销。
+ * WebSocket发送是同步的，没有应用层发送队列；真正的出站队列是设备通道中等待确认的命令，
+ * 以总数和最慢设备的积压量暴露。
+ */
+@Component
+public class SessionMetrics {
+
+    public SessionMetrics(MeterRegistry registry, CarControlService carControlService,
+                          CarStatusHandler carStatusHandler, VideoStreamHandler videoStreamHandler,
+                          DeviceSessionRegistry deviceSessionRegistry, SessionRegistry sessionRegistry,
+                          SessionScheduler sessionScheduler, StatusStreamService statusStreamService) {
+        Gauge.builder("car.websocket.sessions", carControlService, CarControlService::getActiveConnections)
+                .description("活动WebSocket会话数")
+                .tag("endpoint", "control")
+                .register(registry);
+        Gauge.builder("car.websocket.sessions", carStatusHandler, CarStatusHandler::getStatusListenerCount)
+                .description("活动WebSocket会话数")
+                .tag("endpoint", "status")
+                .register(registry);
+        Gauge.builder("car.websocket.sessions", videoStreamHandler, VideoStreamHandler::getSessionCount)
+                .description("活动WebSocket会话数")
+                .tag("endpoint", "video")
+                .register(registry);
+        Gauge.builder("car.websocket.sessions", deviceSessionRegistry, DeviceSessionRegistry::getConnectedDeviceCount)
+                .description("活动WebSocket会话数")
+                .tag("endpoint", "device")
+                .register(registry);
+        Gauge.builder("car.video.streams", videoStreamHandler, VideoStreamHandler::getStreamingCount)
+                .description("正在推流的视频会话数")
+                .register(registry);
+        Gauge.builder("car.vehicles", carControlService, service -> service.getVehicleIds().size())
+                .description("已知小车数")
+                .register(registry);
+
+        Gauge.builder("car.device.pending", deviceSessionRegistry, DeviceSessionRegistry::getTotalPending)
+                .description("所有设备通道中等待确认的命令数")
+                .register(registry);
+        Gauge.builder("car.device.pending.max", deviceSessionRegistry, DeviceSessionRegistry::getMaxPending)
+                .description("积压最多的设备通道中等待确认的命令数")
+                .register(registry);
+        FunctionTimer.builder("car.device.ack", deviceSessionRegistry,
+                        DeviceSessionRegistry::getAckedCount, DeviceSessionRegistry::getTotalAckNanos,
+                        TimeUnit.NANOSECONDS)
+                .description("设备命令从首次发送到收到确认的耗时")
+                .register(registry);
+        FunctionCounter.builder("car.device.sent", deviceSessionRegistry, DeviceSessionRegistry::getSentCount)
+                .description("下发给设备的命令数")
+                .register(registry);
+        FunctionCounter.builder("car.device.retransmits", deviceSessionRegistry, DeviceSessionRegistry::getRetransmitCount)
+                .description("设备命令重传次数")
+                .register(registry);
+        FunctionCounter.builder("car.device.dropped", deviceSessionRegistry, DeviceSessionRegistry::getDroppedCount)
+                .description("重传耗尽后放弃的设备命令数")
+                .register(registry);
+
+        FunctionCounter.builder("car.websocket.pings", sessionRegistry, SessionRegistry::getPingCount)
+                .description("发给空闲会话的心跳Ping数")
+                .register(registry);
+        FunctionCounter.builder("car.websocket.evictions", sessionRegistry, SessionRegistry::getEvictionCount)
+                .description("因空闲超时或心跳失败被驱逐的会话数")
+                .register(registry);
+
+        Gauge.builder("car.session.tasks", sessionScheduler, SessionScheduler::getActiveTaskCount)
+                .description("会话调度器中的活动任务数（推帧、心跳）")
+                .register(registry);
+        Gauge.builder("car.session.queue", sessionScheduler, SessionScheduler::getQueueSize)
+                .description("会话调度器工作队列中等待执行的任务数")
+                .register(registry);
+        FunctionCounter.builder("car.session.task.runs", sessionScheduler, SessionScheduler::getRunCount)
+                .description("会话任务执行次数")
+                .register(registry);
+        FunctionCounter.builder("car.session.task.rejected", sessionScheduler, SessionScheduler::getRejectedCount)
+                .description("工作队列已满而跳过的任务周期数")
+                .register(registry);
+
+        Gauge.builder("car.sse.subscribers", statusStreamService, StatusStreamService::getSubscriberCount)
+                .description("状态SSE订阅者数")
+                .register(registry);
+        FunctionCounter.builder("car.sse.resumes", statusStreamService, StatusStreamService::getResumedCount)
+                .description("带Last-Event-ID重连且只补发错过版本的次数")
+                .register(registry);
+        FunctionCounter.builder("car.sse.snapshots", statusStreamService, StatusStreamService::getSnapshotCount)
+                .description("发送完整状态快照的次数")
+                .register(registry);
+    }
+}
@@ -0,0 +1,185 @@
+package com.intelligentcar.metrics;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个WebSocket会话的诊断计数
+ *
+ * 计数都是LongAdder，广播线程、推帧线程和消息线程同时更新时各写各的槽，不争同一个缓存行；
+ * 只有读取诊断时才汇总。发送耗时记在对数直方图里（每个2的幂区间8个子桶，相对误差约12%），
+ * 用来估算p99。
+ */
+public class SessionStats {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // 超过约67秒的发送都记在最后一个桶
+    private static final int MAX_EXPONENT = 26;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final String sessionId;
+    private final String endpoint;
+    private final String vehicleId;
+    private final String remoteAddress;
+    private final long connectedAtMillis;
+
+    private final LongAdder messagesIn = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder messagesOut = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder sendsInFlight = new LongAdder();
+    private final LongAdder sendNanos = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+    private final LongAdder framesDropped = new LongAdder();
+    private final LongAdder pongs = new LongAdder();
+    // 发送耗时分散在各个桶上，并发发送时也很少落在同一个桶，用原子数组省内存
+    private final AtomicLongArray sendBuckets = new AtomicLongArray(BUCKETS);
+
+    private volatile long lastActivityMillis;
+    // 最近一次收到消息（含Pong）的时刻，空闲检测只看入站
+    private volatile long lastInboundMillis;
+
+    public SessionStats(String sessionId, String endpoint, String vehicleId, String remoteAddress) {
+        this.sessionId = sessionId;
+        this.endpoint = endpoint;
+        this.vehicleId = vehicleId;
+        this.remoteAddress = remoteAddress;
+        this.connectedAtMillis = System.currentTimeMillis();
+        this.lastActivityMillis = connectedAtMillis;
+        this.lastInboundMillis = connectedAtMillis;
+    }
+
+    public void recordInbound(int bytes) {
+        messagesIn.increment();
+        bytesIn.add(bytes);
+        long now = System.currentTimeMillis();
+        lastActivityMillis = now;
+        lastInboundMillis = now;
+    }
+
+    /**
+     * 收到心跳回应，只刷新入站时间
+     */
+    public void recordPong() {
+        pongs.increment();
+        lastInboundMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * 开始一次发送，返回开始时刻
+     */
+    public long beginSend() {
+        sendsInFlight.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * 结束一次发送
+     */
+    public void endSend(long startNanos, int bytes, boolean success) {
+        long nanos = System.nanoTime() - startNanos;
+        sendsInFlight.decrement();
+        if (!success) {
+            sendFailures.increment();
+            return;
+        }
+        messagesOut.increment();
+        bytesOut.add(bytes);
+        sendNanos.add(nanos);
+        sendBuckets.incrementAndGet(index(nanos / 1000));
+        lastActivityMillis = System.currentTimeMillis();
+    }
+
+    public void recordFrameDropped(long frames) {
+        framesDropped.add(frames);
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public long getLastInboundMillis() {
+        return lastInboundMillis;
+    }
+
+    /**
+     * 诊断快照
+     */
+    public Map<String, Object> snapshot() {
+        long now = System.currentTimeMillis();
+        long sent = messagesOut.sum();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("sessionId", sessionId);
+        map.put("endpoint", endpoint);
+        map.put("vehicleId", vehicleId);
+        map.put("remoteAddress", remoteAddress);
+        map.put("connectedAt", Instant.ofEpochMilli(connectedAtMillis).toString());
+        map.put("messagesIn", messagesIn.sum());
+        map.put("bytesIn", bytesIn.sum());
+        map.put("messagesOut", sent);
+        map.put("bytesOut", bytesOut.sum());
+        map.put("sendsInFlight", Math.max(0, sendsInFlight.sum()));
+        map.put("sendFailures", sendFailures.sum());
+        map.put("framesDropped", framesDropped.sum());
+        map.put("sendAvgMs", sent == 0 ? 0 : sendNanos.sum() / 1e6 / sent);
+        map.put("sendP99Ms", percentileMicros(99) / 1000.0);
+        map.put("lastActivity", Instant.ofEpochMilli(lastActivityMillis).toString());
+        map.put("idleMs", now - lastActivityMillis);
+        map.put("inboundIdleMs", now - lastInboundMillis);
+        map.put("pongs", pongs.sum());
+        return map;
+    }
+
+    /**
+     * 发送耗时百分位（微秒，取桶上界）
+     */
+    long percentileMicros(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = sendBuckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    private static int index(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) Math.max(0, micros);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (micros >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BITS) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index + 1;
+        }
+        int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BITS;
+        int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return (1L << exponent) + ((long) (sub + 1) << (exponent - SUB_BITS));
+    }
+}
@@ -0,0 +1,45 @@
+package com.intelligentcar.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import com.intelligentcar.websocket.SessionRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 会话诊断端点（只在本机管理端口上暴露）
+ *
+ * GET /actuator/sessions?endpoint=video  列出活动会话
+ * GET /actuator/sessions/{sessionId}      单个会话
+ */
+@Component
+@Endpoint(id = "sessions")
+public class SessionsEndpoint {
+
+    private final SessionRegistry sessionRegistry;
+
+    public SessionsEndpoint(SessionRegistry sessionRegistry) {
+        this.sessionRegistry = sessionRegistry;
+    }
+
+    @ReadOperation
+    public Map<String, Object> sessions(@Nullable String endpoint) {
+        List<Map<String, Object>> sessions = sessionRegistry.snapshot(endpoint);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", sessions.size());
+        result.put("sessions", sessions);
+        return result;
+    }
+
+    @ReadOperation
+    public Map<String, Object> session(@Selector String sessionId) {
+        SessionStats stats = sessionRegistry.getStats(sessionId);
+        return stats == null ? null : stats.snapshot();
+    }
+}
@@ -0,0 +1,70 @@
+package com.intelligentcar.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 自动驾驶路线：航点序列或定时动作序列（二选一，航点优先）
+ */
+public class AutopilotRoute {
+
+    // 航点（厘米，世界坐标）
+    private List<Waypoint> waypoints = new ArrayList<>();
+    // 定时动作
+    private List<Maneuver> maneuvers = new ArrayList<>();
+
+    private Integer speed;         // 巡航速度（0-100），为空时用默认值
+    private Double toleranceCm;    // 到达航点的判定半径，为空时用默认值
+
+    public List<Waypoint> getWaypoints() { return waypoints; }
+    public void setWaypoints(List<Waypoint> waypoints) { this.waypoints = waypoints; }
+
+    public List<Maneuver> getManeuvers() { return maneuvers; }
+    public void setManeuvers(List<Maneuver> maneuvers) { this.maneuvers = maneuvers; }
+
+    public Integer getSpeed() { return speed; }
+    public void setSpeed(Integer speed) { this.speed = speed; }
+
+    public Double getToleranceCm() { return toleranceCm; }
+    public void setToleranceCm(Double toleranceCm) { this.toleranceCm = toleranceCm; }
+
+    public boolean hasWaypoints() {
+        return waypoints != null && !waypoints.isEmpty();
+    }
+
+    public boolean hasManeuvers() {
+        return maneuvers != null && !maneuvers.isEmpty();
+    }
+
+    /**
+     * 航点
+     */
+    public static class Waypoint {
+        private double x;
+        private double y;
+
+        public double getX() { return x; }
+        public void setX(double x) { this.x = x; }
+
+        public double getY() { return y; }
+        public void setY(double y) { this.y = y; }
+    }
+
+    /**
+     * 定时动作：执行命令并保持指定时长
+     */
+    public static class Maneuver {
+        private String command;    // FORWARD, BACKWARD, LEFT, RIGHT, STOP, SPEED
+        private String value;      // 命令值（SPEED时为速度）
+        private long durationMs;   // 保持时长
+
+        public String getCommand() { return command; }
+        public void setCommand(String command) { this.command = command; }
+
+        public String getValue() { return value; }
+        public void setValue(String value) { this.value = value; }
+
+        public long getDurationMs() { return durationMs; }
+        public void setDurationMs(long durationMs) { this.durationMs = durationMs; }
+    }
+}
@@ -21,6 +21,16 @@ public class CarStatus {
     private Integer leftDistance;   // 左侧距离（厘米）
     private Integer rightDistance;  // 右侧距离（厘米）
 
+    // 传感器原始读数（上面三项为滤波后的值）
+    private Integer rawFrontDistance;
+    private Integer rawLeftDistance;
+    private Integer rawRightDistance;
+
+    // 位姿（仿真或定位模块提供）
+    private Double positionX;       // X坐标（厘米）
+    private Double positionY;       // Y坐标（厘米）
+    private Double heading;         // 航向角（度，0为X轴正方向，逆时针为正）
+
     // 系统状态
     private Integer batteryLevel;   // 电池电量（0-100）
     private Double cpuTemperature;  // CPU温度
@@ -30,6 +40,9 @@ public class CarStatus {
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime timestamp;
 
+    // 状态版本号，每次修改递增
+    private long version;
+
     // 构造方法
     public CarStatus() {
         this.speed = 0;
@@ -38,6 +51,9 @@ public class CarStatus {
         this.frontDistance = 0;
         this.leftDistance = 0;
         this.rightDistance = 0;
+        this.rawFrontDistance = 0;
+        this.rawLeftDistance = 0;
+        this.rawRightDistance = 0;
         this.batteryLevel = 100;
         this.cpuTemperature = 25.0;
         this.wifiSignal = "强";
@@ -66,6 +82,24 @@ public class CarStatus {
     public Integer getRightDistance() { return rightDistance; }
     public void setRightDistance(Integer rightDistance) { this.rightDistance = rightDistance; }
 
+    public Integer getRawFrontDistance() { return rawFrontDistance; }
+    public void setRawFrontDistance(Integer rawFrontDistance) { this.rawFrontDistance = rawFrontDistance; }
+
+    public Integer getRawLeftDistance() { return rawLeftDistance; }
+    public void setRawLeftDistance(Integer rawLeftDistance) { this.rawLeftDistance = rawLeftDistance; }
+
+    public Integer getRawRightDistance() { return rawRightDistance; }
+    public void setRawRightDistance(Integer rawRightDistance) { this.rawRightDistance = rawRightDistance; }
+
+    public Double getPositionX() { return positionX; }
+    public void setPositionX(Double positionX) { this.positionX = positionX; }
+
+    public Double getPositionY() { return positionY; }
+    public void setPositionY(Double positionY) { this.positionY = positionY; }
+
+    public Double getHeading() { return heading; }
+    public void setHeading(Double heading) { this.heading = heading; }
+
     public Integer getBatteryLevel() { return batteryLevel; }
     public void setBatteryLevel(Integer batteryLevel) { this.batteryLevel = batteryLevel; }
 
@@ -78,6 +112,14 @@ public class CarStatus {
     public LocalDateTime getTimestamp() { return timestamp; }
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
 
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    /**
+     * 版本号加一，返回新版本
+     */
+    public long nextVersion() { return ++version; }
+
     /**
      * 转换为JSON字符串
      */
@@ -102,10 +144,17 @@ public class CarStatus {
         map.put("frontDistance", frontDistance);
         map.put("leftDistance", leftDistance);
         map.put("rightDistance", rightDistance);
+        map.put("rawFrontDistance", rawFrontDistance);
+        map.put("rawLeftDistance", rawLeftDistance);
+        map.put("rawRightDistance", rawRightDistance);
+        map.put("positionX", positionX);
+        map.put("positionY", positionY);
+        map.put("heading", heading);
         map.put("batteryLevel", batteryLevel);
         map.put("cpuTemperature", cpuTemperature);
         map.put("wifiSignal", wifiSignal);
         map.put("timestamp", timestamp);
+        map.put("version", version);
         return map;
     }
 
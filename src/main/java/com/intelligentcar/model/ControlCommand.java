@@ -18,15 +18,20 @@ public class ControlCommand {
     private String value;    // 命令值（如速度值）
 
     // 来源信息
-    private String source;   // WEB, MOBILE, AUTOMATIC
+    private String source;   // WEB, MOBILE, AUTOMATIC, SAFETY
     private String sessionId;// 会话ID
+    private String vehicleId;// 目标小车ID（为空时为默认小车）
+    private Long seq;        // 会话内命令序号（从1递增，为空时不做去重）
 
-    // 时间戳 - 改为 Long 类型以兼容前端毫秒时间戳
+    // 客户端发出时间（毫秒时间戳），客户端没有带时为空
     private Long timestamp;
 
+    // 截止时间（服务器时钟毫秒），由服务端根据时间戳和时钟偏移计算
+    @JsonIgnore
+    private Long expiresAt;
+
     // 构造方法
     public ControlCommand() {
-        this.timestamp = System.currentTimeMillis();  // 使用当前毫秒时间戳
         this.source = "WEB";
     }
 
@@ -43,9 +48,28 @@ public class ControlCommand {
     public String getSessionId() { return sessionId; }
     public void setSessionId(String sessionId) { this.sessionId = sessionId; }
 
+    public String getVehicleId() { return vehicleId; }
+    public void setVehicleId(String vehicleId) { this.vehicleId = vehicleId; }
+
+    public Long getSeq() { return seq; }
+    public void setSeq(Long seq) { this.seq = seq; }
+
     public Long getTimestamp() { return timestamp; }
     public void setTimestamp(Long timestamp) { this.timestamp = timestamp; }
 
+    @JsonIgnore
+    public Long getExpiresAt() { return expiresAt; }
+    @JsonIgnore
+    public void setExpiresAt(Long expiresAt) { this.expiresAt = expiresAt; }
+
+    /**
+     * 是否为停止类命令（STOP / EMERGENCY_STOP），这类命令永不丢弃
+     */
+    @JsonIgnore
+    public boolean isStopCommand() {
+        return "STOP".equalsIgnoreCase(command) || "EMERGENCY_STOP".equalsIgnoreCase(command);
+    }
+
     /**
      * 获取 LocalDateTime 类型的时间（可选，用于需要时间格式的场合）
      */
@@ -95,6 +119,8 @@ public class ControlCommand {
         map.put("value", value);
         map.put("source", source);
         map.put("sessionId", sessionId);
+        map.put("vehicleId", vehicleId);
+        map.put("seq", seq);
         map.put("timestamp", timestamp);
         map.put("localDateTime", getLocalDateTime());  // 添加转换后的时间
         return map;
@@ -117,7 +143,7 @@ public class ControlCommand {
 
     @Override
     public String toString() {
-        return String.format("ControlCommand{command='%s', value='%s', source='%s', time=%s}",
-                command, value, source, getLocalDateTime());
+        return String.format("ControlCommand{vehicle='%s', command='%s', value='%s', source='%s', time=%s}",
+                vehicleId, command, value, source, getLocalDateTime());
     }
 }
\ No newline at end of file
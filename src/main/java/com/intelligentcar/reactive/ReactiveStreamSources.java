@@ -0,0 +1,176 @@
+package com.intelligentcar.reactive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import com.intelligentcar.model.CarStatus;
+import com.intelligentcar.service.CarControlService;
+import com.intelligentcar.service.SimulatedVideoService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 响应式推流的共享数据源
+ *
+ * 状态：每辆车一个热流，由CarControlService的状态观察者在小车锁内写入快照，
+ * 出锁后序列化一次，所有订阅者共享同一个JSON字符串；序列化跟不上时只保留最新快照。
+ * 视频：按帧间隔渲染一次，所有订阅者共享同一帧，没有订阅者时停止渲染。
+ * 单个订阅者的背压（onBackpressureLatest）由调用方加在各自的流上，慢订阅者只丢自己的旧数据。
+ */
+@Component
+@Profile("reactive")
+public class ReactiveStreamSources {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveStreamSources.class);
+
+    private static final int FRAME_WIDTH = 640;
+    private static final int FRAME_HEIGHT = 480;
+    private static final byte[] MJPEG_PART_HEADER =
+            "\r\n--frame\r\nContent-Type: image/jpeg\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final CarControlService carControlService;
+    private final ObjectMapper objectMapper;
+    private final Map<String, StatusChannel> statusChannels = new ConcurrentHashMap<>();
+    private final Flux<String> sensorFrames;
+    private final Flux<byte[]> mjpegFrames;
+
+    public ReactiveStreamSources(CarControlService carControlService, SimulatedVideoService videoService,
+                                 @Value("${car.reactive.frame-interval-ms:66}") long frameIntervalMs) {
+        this.carControlService = carControlService;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+
+        Duration interval = Duration.ofMillis(frameIntervalMs);
+        // 渲染慢于帧间隔时丢掉多出的tick，不补帧
+        this.sensorFrames = Flux.interval(interval)
+                .onBackpressureDrop()
+                .map(tick -> videoService.generateFrameWithSensorData())
+                .publish()
+                .refCount();
+        this.mjpegFrames = Flux.interval(interval)
+                .onBackpressureDrop()
+                .map(tick -> mjpegPart(videoService.generateVideoFrame(FRAME_WIDTH, FRAME_HEIGHT)))
+                .publish()
+                .refCount();
+
+        carControlService.addStatusObserver(this::onStatusChanged);
+    }
+
+    /**
+     * 小车是否已登记，未知小车不建状态热流
+     */
+    public boolean hasVehicle(String vehicleId) {
+        return carControlService.hasVehicle(vehicleId);
+    }
+
+    /**
+     * 某辆车的状态推送（STATUS_BROADCAST），热流，订阅之后的变化才会收到
+     */
+    public Flux<String> statusUpdates(String vehicleId) {
+        String id = CarControlService.resolveVehicleId(vehicleId);
+        return statusChannels.computeIfAbsent(id, StatusChannel::new).updates;
+    }
+
+    /**
+     * 某辆车的当前状态
+     */
+    public String currentStatus(String vehicleId, String type) {
+        String id = CarControlService.resolveVehicleId(vehicleId);
+        return toJson(id, type, carControlService.getCurrentStatus(id).toMap());
+    }
+
+    /**
+     * 连接欢迎消息，与/ws/status相同
+     */
+    public String welcome(String vehicleId) {
+        Map<String, Object> welcomeMsg = new HashMap<>();
+        welcomeMsg.put("type", "STATUS_WELCOME");
+        welcomeMsg.put("message", "已连接到状态更新服务");
+        welcomeMsg.put("vehicleId", CarControlService.resolveVehicleId(vehicleId));
+        welcomeMsg.put("timestamp", LocalDateTime.now());
+        return write(welcomeMsg);
+    }
+
+    /**
+     * 带传感器数据的视频帧（JSON），与/ws/video的帧格式相同
+     */
+    public Flux<String> sensorFrames() {
+        return sensorFrames;
+    }
+
+    /**
+     * MJPEG分段（含分隔线和段头），直接写入multipart/x-mixed-replace响应
+     */
+    public Flux<byte[]> mjpegFrames() {
+        return mjpegFrames;
+    }
+
+    /**
+     * 在小车锁内调用：没有订阅者时什么都不做，有订阅者时只取快照，序列化在锁外
+     */
+    private void onStatusChanged(String vehicleId, CarStatus status) {
+        StatusChannel channel = statusChannels.get(vehicleId);
+        if (channel != null && channel.sink.currentSubscriberCount() > 0) {
+            // 同一辆车的写入都在小车锁内，不会并发
+            channel.sink.tryEmitNext(status.toMap());
+        }
+    }
+
+    private String toJson(String vehicleId, String type, Map<String, Object> statusMap) {
+        statusMap.put("type", type);
+        statusMap.put("vehicleId", vehicleId);
+        statusMap.put("timestamp", LocalDateTime.now());
+        return write(statusMap);
+    }
+
+    private String write(Map<String, Object> message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            log.warn("序列化推送消息失败: {}", e.getMessage());
+            return "{}";
+        }
+    }
+
+    private static byte[] mjpegPart(byte[] jpeg) {
+        byte[] part = new byte[MJPEG_PART_HEADER.length + jpeg.length];
+        System.arraycopy(MJPEG_PART_HEADER, 0, part, 0, MJPEG_PART_HEADER.length);
+        System.arraycopy(jpeg, 0, part, MJPEG_PART_HEADER.length, jpeg.length);
+        return part;
+    }
+
+    /**
+     * 单辆车的状态热流
+     */
+    private final class StatusChannel {
+
+        final Sinks.Many<Map<String, Object>> sink = Sinks.many().multicast().directBestEffort();
+        final Flux<String> updates;
+
+        StatusChannel(String vehicleId) {
+            this.updates = sink.asFlux()
+                    // 出锁：序列化线程一次只取一个快照，积压时只留最新的
+                    .onBackpressureLatest()
+                    .publishOn(Schedulers.parallel(), 1)
+                    .map(snapshot -> toJson(vehicleId, "STATUS_BROADCAST", snapshot))
+                    .publish()
+                    .refCount();
+        }
+    }
+}
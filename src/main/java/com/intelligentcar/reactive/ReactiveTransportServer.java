@@ -0,0 +1,162 @@
+package com.intelligentcar.reactive;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.http.websocket.WebsocketInbound;
+import reactor.netty.http.websocket.WebsocketOutbound;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 响应式推流传输（reactive profile）
+ *
+ * 在独立端口上用Reactor Netty提供 /ws/status、/ws/status/{vehicleId}、/ws/video 和
+ * /api/video/stream（MJPEG），消息格式与Servlet端点相同。发送不占线程：Netty通道不可写时
+ * 停止向上游请求数据，慢订阅者的流上是onBackpressureLatest，只保留最新一条状态或一帧画面，
+ * 不会拖慢其他订阅者，也不会在服务端堆积。控制端点（/ws/control、/ws/device）仍只在Servlet端口上。
+ */
+@Component
+@Profile("reactive")
+public class ReactiveTransportServer {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveTransportServer.class);
+
+    private static final String MJPEG_CONTENT_TYPE = "multipart/x-mixed-replace; boundary=frame";
+
+    private final ReactiveStreamSources sources;
+    private final int port;
+
+    private final AtomicInteger statusSubscribers = new AtomicInteger();
+    private final AtomicInteger videoSubscribers = new AtomicInteger();
+    private final AtomicInteger mjpegSubscribers = new AtomicInteger();
+    private final AtomicLong connectionIds = new AtomicLong();
+
+    private DisposableServer server;
+
+    public ReactiveTransportServer(ReactiveStreamSources sources, MeterRegistry registry,
+                                   @Value("${car.reactive.port:8082}") int port) {
+        this.sources = sources;
+        this.port = port;
+        Gauge.builder("car.reactive.subscribers", statusSubscribers, AtomicInteger::get)
+                .description("响应式推流的订阅者数")
+                .tag("stream", "status")
+                .register(registry);
+        Gauge.builder("car.reactive.subscribers", videoSubscribers, AtomicInteger::get)
+                .description("响应式推流的订阅者数")
+                .tag("stream", "video")
+                .register(registry);
+        Gauge.builder("car.reactive.subscribers", mjpegSubscribers, AtomicInteger::get)
+                .description("响应式推流的订阅者数")
+                .tag("stream", "mjpeg")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        server = HttpServer.create()
+                .port(port)
+                .route(routes -> routes
+                        .get("/ws/status", (request, response) ->
+                                response.sendWebsocket((in, out) -> statusStream(null, in, out)))
+                        .get("/ws/status/{vehicleId}", (request, response) -> {
+                            String vehicleId = request.param("vehicleId");
+                            if (!sources.hasVehicle(vehicleId)) {
+                                return response.status(404).send();
+                            }
+                            return response.sendWebsocket((in, out) -> statusStream(vehicleId, in, out));
+                        })
+                        .get("/ws/video", (request, response) ->
+                                response.sendWebsocket(this::videoStream))
+                        .get("/api/video/stream", (request, response) -> mjpegStream(response)))
+                .bindNow();
+        log.info("响应式推流已启动，端口: {}", server.port());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    /**
+     * 状态推送：欢迎消息和当前状态，之后是状态变化；客户端发GET_STATUS时回当前状态
+     */
+    private Mono<Void> statusStream(String vehicleId, WebsocketInbound in, WebsocketOutbound out) {
+        Flux<String> requested = in.receive().asString()
+                .filter("GET_STATUS"::equals)
+                .map(request -> sources.currentStatus(vehicleId, "STATUS_UPDATE"));
+        Flux<String> updates = sources.statusUpdates(vehicleId).onBackpressureLatest();
+        Flux<String> messages = Flux.merge(1, requested, updates)
+                .startWith(sources.welcome(vehicleId), sources.currentStatus(vehicleId, "STATUS_UPDATE"))
+                .takeUntilOther(in.receiveCloseStatus())
+                .doOnSubscribe(subscription -> statusSubscribers.incrementAndGet())
+                .doFinally(signal -> statusSubscribers.decrementAndGet());
+        return out.sendString(messages).then();
+    }
+
+    /**
+     * 视频帧推送，协议与/ws/video相同：start/stop开关推流，ping回pong
+     */
+    private Mono<Void> videoStream(WebsocketInbound in, WebsocketOutbound out) {
+        String connectionId = "reactive-" + connectionIds.incrementAndGet();
+        // 推流开关，只由这条连接的入站线程写入
+        Sinks.Many<Boolean> streaming = Sinks.many().replay().latest();
+        Flux<String> replies = in.receive().asString()
+                .flatMap(payload -> Mono.justOrEmpty(handleVideoCommand(payload, streaming)));
+        Flux<String> frames = streaming.asFlux()
+                .distinctUntilChanged()
+                .switchMap(on -> on ? sources.sensorFrames().onBackpressureLatest() : Flux.empty());
+        Flux<String> messages = Flux.merge(1, replies, frames)
+                .startWith("{\"type\":\"welcome\",\"message\":\"视频流连接已建立\",\"sessionId\":\"" + connectionId + "\"}")
+                .takeUntilOther(in.receiveCloseStatus())
+                .doOnSubscribe(subscription -> videoSubscribers.incrementAndGet())
+                .doFinally(signal -> videoSubscribers.decrementAndGet());
+        return out.sendString(messages).then();
+    }
+
+    private static String handleVideoCommand(String payload, Sinks.Many<Boolean> streaming) {
+        if ("start".equals(payload)) {
+            streaming.tryEmitNext(true);
+            return "{\"type\":\"control\",\"status\":\"streaming_started\"}";
+        } else if ("stop".equals(payload)) {
+            streaming.tryEmitNext(false);
+            return "{\"type\":\"control\",\"status\":\"streaming_stopped\"}";
+        } else if (payload.startsWith("fps:")) {
+            return "{\"type\":\"control\",\"message\":\"FPS调整命令已接收\"}";
+        } else if ("ping".equals(payload)) {
+            return "{\"type\":\"pong\",\"timestamp\":" + System.currentTimeMillis() + "}";
+        }
+        return null;
+    }
+
+    /**
+     * MJPEG流：所有订阅者共享同一帧，慢客户端只拿到最新帧
+     */
+    private Mono<Void> mjpegStream(HttpServerResponse response) {
+        Flux<byte[]> frames = sources.mjpegFrames()
+                .onBackpressureLatest()
+                .doOnSubscribe(subscription -> mjpegSubscribers.incrementAndGet())
+                .doFinally(signal -> mjpegSubscribers.decrementAndGet());
+        return response.header("Content-Type", MJPEG_CONTENT_TYPE)
+                .header("Access-Control-Allow-Origin", "*")
+                .sendByteArray(frames)
+                .then();
+    }
+}
@@ -0,0 +1,218 @@
+package com.intelligentcar.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.intelligentcar.config.ExecutionMode;
+import com.intelligentcar.logging.LogSampler;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 会话周期任务调度器（推帧、心跳等）
+ *
+ * 所有定时点都挂在同一个时间轮上，到期后交给固定大小、有界队列的工作线程池执行，
+ * 时间轮线程本身只做入队。周期任务在一次执行结束后才挂下一次，同一任务不会并发执行，
+ * 执行慢于周期时跳过错过的周期，不会补发一串。工作队列满时本周期跳过并计数。
+ *
+ * virtual执行模式下每次执行一个虚拟线程，阻塞在发送上不占用载体线程；
+ * 同时执行的任务数由信号量限制（car.session.scheduler.virtual-max-concurrency）。
+ */
+@Component
+public class SessionScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionScheduler.class);
+    private static final LogSampler ERROR_SAMPLER = new LogSampler(1, 5);
+
+    private final TimingWheel wheel;
+    private final ExecutorService workers;
+    // virtual模式下限制同时执行的任务数，platform模式为null（由线程数和有界队列限制）
+    private final Semaphore virtualPermits;
+    private final int virtualMaxConcurrency;
+
+    private final AtomicLong activeTasks = new AtomicLong();
+    private final AtomicLong runCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    public SessionScheduler(@Value("${car.session.scheduler.tick-ms:10}") long tickMs,
+                            @Value("${car.session.scheduler.wheel-size:512}") int wheelSize,
+                            @Value("${car.session.scheduler.workers:8}") int workerThreads,
+                            @Value("${car.session.scheduler.queue-capacity:10000}") int queueCapacity,
+                            @Value("${car.session.scheduler.virtual-max-concurrency:10000}") int virtualMaxConcurrency,
+                            ExecutionMode executionMode) {
+        this.virtualMaxConcurrency = virtualMaxConcurrency;
+        if (executionMode.isVirtual()) {
+            this.workers = executionMode.newVirtualThreadPerTaskExecutor("session-worker-");
+            this.virtualPermits = new Semaphore(virtualMaxConcurrency);
+        } else {
+            AtomicInteger threadIndex = new AtomicInteger();
+            this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), r -> {
+                        Thread thread = new Thread(r, "session-worker-" + threadIndex.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            this.virtualPermits = null;
+        }
+        // 到期回调只是把任务交给工作线程，直接在时间轮线程上执行
+        this.wheel = new TimingWheel("session-wheel", tickMs, TimeUnit.MILLISECONDS, wheelSize, Runnable::run);
+    }
+
+    @PostConstruct
+    public void start() {
+        wheel.start();
+        if (virtualPermits != null) {
+            log.info("会话调度器已启动，虚拟线程，最大并发: {}", virtualMaxConcurrency);
+        } else {
+            log.info("会话调度器已启动，工作线程: {}", ((ThreadPoolExecutor) workers).getCorePoolSize());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        wheel.stop();
+        workers.shutdownNow();
+    }
+
+    /**
+     * 固定频率执行，返回可取消的句柄
+     */
+    public SessionTask scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("period必须为正数");
+        }
+        return submit(task, initialDelay, unit.toNanos(period), unit);
+    }
+
+    /**
+     * 延迟执行一次
+     */
+    public SessionTask schedule(Runnable task, long delay, TimeUnit unit) {
+        return submit(task, delay, 0, unit);
+    }
+
+    public long getActiveTaskCount() {
+        return activeTasks.get();
+    }
+
+    public long getRunCount() {
+        return runCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * platform模式下为排队等待的任务数，virtual模式下为正在执行的任务数
+     */
+    public int getQueueSize() {
+        if (virtualPermits != null) {
+            return virtualMaxConcurrency - virtualPermits.availablePermits();
+        }
+        return ((ThreadPoolExecutor) workers).getQueue().size();
+    }
+
+    private SessionTask submit(Runnable task, long delay, long periodNanos, TimeUnit unit) {
+        SessionTask handle = new SessionTask(this, task, periodNanos,
+                System.nanoTime() + unit.toNanos(Math.max(0, delay)));
+        activeTasks.incrementAndGet();
+        arm(handle);
+        return handle;
+    }
+
+    private void arm(SessionTask handle) {
+        long delay = handle.nextRunNanos - System.nanoTime();
+        handle.timeout = wheel.newTimeout(() -> dispatch(handle), Math.max(0, delay), TimeUnit.NANOSECONDS);
+        // cancel()可能在赋值之前读到旧的timeout
+        if (handle.isCancelled()) {
+            handle.timeout.cancel();
+        }
+    }
+
+    private void dispatch(SessionTask handle) {
+        if (handle.isCancelled()) {
+            return;
+        }
+        if (virtualPermits != null && !virtualPermits.tryAcquire()) {
+            rejectedCount.incrementAndGet();
+            reschedule(handle);
+            return;
+        }
+        try {
+            workers.execute(() -> run(handle));
+        } catch (RejectedExecutionException e) {
+            if (virtualPermits != null) {
+                virtualPermits.release();
+            }
+            rejectedCount.incrementAndGet();
+            reschedule(handle);
+        }
+    }
+
+    private void run(SessionTask handle) {
+        try {
+            runOnce(handle);
+        } finally {
+            if (virtualPermits != null) {
+                virtualPermits.release();
+            }
+        }
+    }
+
+    private void runOnce(SessionTask handle) {
+        if (handle.isCancelled()) {
+            return;
+        }
+        try {
+            handle.task.run();
+        } catch (RuntimeException e) {
+            failedCount.incrementAndGet();
+            long skipped = ERROR_SAMPLER.acquire();
+            if (skipped >= 0) {
+                log.warn("会话任务执行异常: {}{}", e.getMessage(), LogSampler.suffix(skipped));
+            }
+        } finally {
+            runCount.incrementAndGet();
+            reschedule(handle);
+        }
+    }
+
+    private void reschedule(SessionTask handle) {
+        if (handle.periodNanos == 0) {
+            handle.finish();
+            return;
+        }
+        if (handle.isCancelled()) {
+            return;
+        }
+        long now = System.nanoTime();
+        long next = handle.nextRunNanos + handle.periodNanos;
+        if (next <= now) {
+            // 跳过错过的周期，保持原来的相位
+            next += ((now - next) / handle.periodNanos + 1) * handle.periodNanos;
+        }
+        handle.nextRunNanos = next;
+        arm(handle);
+    }
+
+    void taskFinished() {
+        activeTasks.decrementAndGet();
+    }
+}
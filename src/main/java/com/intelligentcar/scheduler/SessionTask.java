@@ -0,0 +1,51 @@
+package com.intelligentcar.scheduler;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * SessionScheduler中任务的句柄
+ *
+ * cancel()之后不会再开始新的执行；正在执行的那一次会跑完。
+ */
+public final class SessionTask {
+
+    private final SessionScheduler scheduler;
+    final Runnable task;
+    // 0表示一次性任务
+    final long periodNanos;
+    private final AtomicBoolean done = new AtomicBoolean();
+    private volatile boolean cancelled;
+
+    volatile long nextRunNanos;
+    volatile TimingWheel.Timeout timeout;
+
+    SessionTask(SessionScheduler scheduler, Runnable task, long periodNanos, long firstRunNanos) {
+        this.scheduler = scheduler;
+        this.task = task;
+        this.periodNanos = periodNanos;
+        this.nextRunNanos = firstRunNanos;
+    }
+
+    public void cancel() {
+        cancelled = true;
+        TimingWheel.Timeout current = timeout;
+        if (current != null) {
+            current.cancel();
+        }
+        finish();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isPeriodic() {
+        return periodNanos > 0;
+    }
+
+    void finish() {
+        if (done.compareAndSet(false, true)) {
+            scheduler.taskFinished();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.intelligentcar.sensor;
+
+/**
+ * 指数移动平均：y = y + α(x - y)
+ *
+ * 第一个样本直接作为初值，避免从0开始爬升。
+ */
+public class EmaFilter implements SensorFilter {
+
+    private final double alpha;
+    private double value;
+    private boolean initialized;
+
+    public EmaFilter(double alpha) {
+        if (alpha <= 0 || alpha > 1) {
+            throw new IllegalArgumentException("EMA系数必须在(0, 1]内: " + alpha);
+        }
+        this.alpha = alpha;
+    }
+
+    @Override
+    public double update(double sample) {
+        if (!initialized) {
+            value = sample;
+            initialized = true;
+        } else {
+            value += alpha * (sample - value);
+        }
+        return value;
+    }
+
+    @Override
+    public void reset() {
+        initialized = false;
+    }
+}
@@ -0,0 +1,19 @@
+package com.intelligentcar.sensor;
+
+/**
+ * 传感器滤波器类型
+ */
+public enum FilterType {
+
+    /** 不滤波，直接输出原始值 */
+    NONE,
+
+    /** 滑动窗口中值，去除孤立尖峰 */
+    MEDIAN,
+
+    /** 指数移动平均，平滑随机噪声 */
+    EMA,
+
+    /** 一维卡尔曼滤波（常值模型），按过程/测量噪声自适应增益 */
+    KALMAN
+}
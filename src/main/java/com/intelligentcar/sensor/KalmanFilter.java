@@ -0,0 +1,47 @@
+package com.intelligentcar.sensor;
+
+/**
+ * 一维卡尔曼滤波（常值模型）
+ *
+ * 预测：P = P + Q
+ * 更新：K = P / (P + R)，x = x + K(z - x)，P = (1 - K)P
+ *
+ * Q为过程噪声方差（距离真实变化有多快），R为测量噪声方差（传感器有多吵）。
+ * 稳态时等价于增益自适应的EMA：读数突然大幅变化时不会像中值那样整窗延迟。
+ */
+public class KalmanFilter implements SensorFilter {
+
+    private final double processNoise;
+    private final double measurementNoise;
+    private double estimate;
+    private double errorCovariance;
+    private boolean initialized;
+
+    public KalmanFilter(double processNoise, double measurementNoise) {
+        if (processNoise <= 0 || measurementNoise <= 0) {
+            throw new IllegalArgumentException("卡尔曼噪声方差必须大于0");
+        }
+        this.processNoise = processNoise;
+        this.measurementNoise = measurementNoise;
+    }
+
+    @Override
+    public double update(double sample) {
+        if (!initialized) {
+            estimate = sample;
+            errorCovariance = measurementNoise;
+            initialized = true;
+            return estimate;
+        }
+        errorCovariance += processNoise;
+        double gain = errorCovariance / (errorCovariance + measurementNoise);
+        estimate += gain * (sample - estimate);
+        errorCovariance *= 1 - gain;
+        return estimate;
+    }
+
+    @Override
+    public void reset() {
+        initialized = false;
+    }
+}
@@ -0,0 +1,64 @@
+package com.intelligentcar.sensor;
+
+/**
+ * 滑动窗口中值滤波
+ *
+ * 环形数组保存窗口内样本的到达顺序，另一个数组保持同一批样本有序。
+ * 每个样本先从有序数组中删掉被挤出的旧值，再插入新值，中值即有序数组的中间元素。
+ * 窗口大小固定且很小（默认5），每个样本的代价是常数次数组移动，不分配对象。
+ */
+public class MedianFilter implements SensorFilter {
+
+    private final double[] ring;
+    private final double[] sorted;
+    private int head;
+    private int count;
+
+    public MedianFilter(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("中值窗口必须大于0: " + windowSize);
+        }
+        this.ring = new double[windowSize];
+        this.sorted = new double[windowSize];
+    }
+
+    @Override
+    public double update(double sample) {
+        if (count == ring.length) {
+            removeSorted(ring[head]);
+        } else {
+            count++;
+        }
+        ring[head] = sample;
+        head = (head + 1) % ring.length;
+        insertSorted(sample);
+
+        int mid = (count - 1) >> 1;
+        return (count & 1) == 1 ? sorted[mid] : (sorted[mid] + sorted[mid + 1]) / 2;
+    }
+
+    @Override
+    public void reset() {
+        head = 0;
+        count = 0;
+    }
+
+    // 有序数组中当前有效长度为count-1（新样本尚未插入）
+    private void insertSorted(double value) {
+        int i = count - 1;
+        while (i > 0 && sorted[i - 1] > value) {
+            sorted[i] = sorted[i - 1];
+            i--;
+        }
+        sorted[i] = value;
+    }
+
+    // 删除一个等于value的元素，有序数组当前长度为count
+    private void removeSorted(double value) {
+        int i = 0;
+        while (i < count - 1 && sorted[i] != value) {
+            i++;
+        }
+        System.arraycopy(sorted, i + 1, sorted, i, count - 1 - i);
+    }
+}
@@ -0,0 +1,20 @@
+package com.intelligentcar.sensor;
+
+/**
+ * 单路传感器的增量滤波器
+ *
+ * 每来一个样本调用一次update，返回滤波后的值。实现只使用创建时分配的基本类型数组，
+ * 每个样本的处理不分配对象。非线程安全，由调用方在小车锁内调用。
+ */
+public interface SensorFilter {
+
+    /**
+     * 输入一个样本，返回当前滤波值
+     */
+    double update(double sample);
+
+    /**
+     * 清空历史，下一个样本重新初始化
+     */
+    void reset();
+}
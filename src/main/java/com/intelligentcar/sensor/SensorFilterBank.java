@@ -0,0 +1,54 @@
+package com.intelligentcar.sensor;
+
+/**
+ * 一辆车的前/左/右三路距离滤波器
+ *
+ * 读数小于等于0表示该路没有有效读数，原样输出且不进入滤波器，
+ * 以免把"无读数"平滑成一个虚假的近距离。
+ */
+public class SensorFilterBank {
+
+    private final SensorFilter front;
+    private final SensorFilter left;
+    private final SensorFilter right;
+
+    /**
+     * @param front 为null表示该路不滤波
+     */
+    public SensorFilterBank(SensorFilter front, SensorFilter left, SensorFilter right) {
+        this.front = front;
+        this.left = left;
+        this.right = right;
+    }
+
+    public int filterFront(int raw) {
+        return apply(front, raw);
+    }
+
+    public int filterLeft(int raw) {
+        return apply(left, raw);
+    }
+
+    public int filterRight(int raw) {
+        return apply(right, raw);
+    }
+
+    public void reset() {
+        if (front != null) {
+            front.reset();
+        }
+        if (left != null) {
+            left.reset();
+        }
+        if (right != null) {
+            right.reset();
+        }
+    }
+
+    private static int apply(SensorFilter filter, int raw) {
+        if (filter == null || raw <= 0) {
+            return raw;
+        }
+        return (int) Math.round(filter.update(raw));
+    }
+}
@@ -0,0 +1,59 @@
+package com.intelligentcar.sensor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 按配置为每辆车创建距离滤波器组
+ *
+ * 前/左/右可分别选择 NONE / MEDIAN / EMA / KALMAN，参数全车共用。
+ */
+@Component
+public class SensorFilterFactory {
+
+    private final FilterType frontType;
+    private final FilterType leftType;
+    private final FilterType rightType;
+    private final int medianWindow;
+    private final double emaAlpha;
+    private final double kalmanProcessNoise;
+    private final double kalmanMeasurementNoise;
+
+    public SensorFilterFactory(@Value("${car.sensor.filter.front:MEDIAN}") FilterType frontType,
+                               @Value("${car.sensor.filter.left:EMA}") FilterType leftType,
+                               @Value("${car.sensor.filter.right:EMA}") FilterType rightType,
+                               @Value("${car.sensor.filter.median-window:5}") int medianWindow,
+                               @Value("${car.sensor.filter.ema-alpha:0.3}") double emaAlpha,
+                               @Value("${car.sensor.filter.kalman-process-noise:4}") double kalmanProcessNoise,
+                               @Value("${car.sensor.filter.kalman-measurement-noise:25}") double kalmanMeasurementNoise) {
+        this.frontType = frontType;
+        this.leftType = leftType;
+        this.rightType = rightType;
+        this.medianWindow = medianWindow;
+        this.emaAlpha = emaAlpha;
+        this.kalmanProcessNoise = kalmanProcessNoise;
+        this.kalmanMeasurementNoise = kalmanMeasurementNoise;
+        // 启动时校验参数，而不是等第一辆车上线
+        newBank();
+    }
+
+    /**
+     * 新建一组滤波器（每辆车一组，状态互不共享）
+     */
+    public SensorFilterBank newBank() {
+        return new SensorFilterBank(create(frontType), create(leftType), create(rightType));
+    }
+
+    private SensorFilter create(FilterType type) {
+        switch (type) {
+            case MEDIAN:
+                return new MedianFilter(medianWindow);
+            case EMA:
+                return new EmaFilter(emaAlpha);
+            case KALMAN:
+                return new KalmanFilter(kalmanProcessNoise, kalmanMeasurementNoise);
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.intelligentcar.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.intelligentcar.scheduler.SessionScheduler;
+import com.intelligentcar.scheduler.SessionTask;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 命令准入控制
+ *
+ * 每个会话（WebSocket会话或REST客户端地址）和每台小车各有两只令牌桶：
+ * 行驶命令一只、状态查询一只。会话桶和小车桶都有令牌才放行，
+ * 因此单个失控客户端既不能耗尽自己的配额之外的资源，多个客户端合起来也压不垮一台车。
+ * 小车桶拒绝时归还已从会话桶取出的令牌，被拒绝的请求不消耗会话配额。
+ * 停止和紧急停止不经过准入控制。
+ * 批量命令按条数扣令牌，超过getMaxPermits()的批次永远攒不够令牌，调用方应当作请求错误拒绝。
+ *
+ * WebSocket会话关闭时移除其会话桶；REST客户端没有关闭事件，由会话调度器定期清理
+ * 空闲超过回满时间的会话桶——这时桶一定已满，删掉后重建没有区别。
+ */
+@Service
+public class AdmissionControlService {
+
+    public enum Kind {
+        DRIVE, QUERY
+    }
+
+    private final double sessionDriveRate;
+    private final int sessionDriveBurst;
+    private final double sessionQueryRate;
+    private final int sessionQueryBurst;
+    private final double vehicleDriveRate;
+    private final int vehicleDriveBurst;
+    private final double vehicleQueryRate;
+    private final int vehicleQueryBurst;
+
+    private final Map<String, SessionBuckets> sessionBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket[]> vehicleBuckets = new ConcurrentHashMap<>();
+
+    // 统计：[种类][0=会话桶拒绝,1=小车桶拒绝]
+    private final LongAdder[][] rejected = new LongAdder[Kind.values().length][2];
+    private final LongAdder[] admitted = new LongAdder[Kind.values().length];
+    private final LongAdder exempt = new LongAdder();
+
+    private final SessionScheduler sessionScheduler;
+    private final long idleExpiryNanos;
+    private SessionTask expiryTask;
+
+    public AdmissionControlService(
+            SessionScheduler sessionScheduler,
+            @Value("${car.admission.session.drive-rate:20}") double sessionDriveRate,
+            @Value("${car.admission.session.drive-burst:10}") int sessionDriveBurst,
+            @Value("${car.admission.session.query-rate:10}") double sessionQueryRate,
+            @Value("${car.admission.session.query-burst:10}") int sessionQueryBurst,
+            @Value("${car.admission.vehicle.drive-rate:50}") double vehicleDriveRate,
+            @Value("${car.admission.vehicle.drive-burst:20}") int vehicleDriveBurst,
+            @Value("${car.admission.vehicle.query-rate:50}") double vehicleQueryRate,
+            @Value("${car.admission.vehicle.query-burst:50}") int vehicleQueryBurst) {
+        this.sessionDriveRate = sessionDriveRate;
+        this.sessionDriveBurst = sessionDriveBurst;
+        this.sessionQueryRate = sessionQueryRate;
+        this.sessionQueryBurst = sessionQueryBurst;
+        this.vehicleDriveRate = vehicleDriveRate;
+        this.vehicleDriveBurst = vehicleDriveBurst;
+        this.vehicleQueryRate = vehicleQueryRate;
+        this.vehicleQueryBurst = vehicleQueryBurst;
+        this.sessionScheduler = sessionScheduler;
+        // 会话桶从空到满的最长时间
+        this.idleExpiryNanos = (long) (1e9 * Math.max(Math.max(1, sessionDriveBurst) / sessionDriveRate,
+                Math.max(1, sessionQueryBurst) / sessionQueryRate));
+        for (Kind kind : Kind.values()) {
+            admitted[kind.ordinal()] = new LongAdder();
+            rejected[kind.ordinal()][0] = new LongAdder();
+            rejected[kind.ordinal()][1] = new LongAdder();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        long periodMs = Math.max(1000, TimeUnit.NANOSECONDS.toMillis(idleExpiryNanos));
+        expiryTask = sessionScheduler.scheduleAtFixedRate(this::expireIdleSessions,
+                periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (expiryTask != null) {
+            expiryTask.cancel();
+        }
+    }
+
+    /**
+     * 申请准入，会话桶和小车桶各取一个令牌
+     */
+    public boolean tryAdmit(String sessionKey, String vehicleId, Kind kind) {
+        return tryAdmit(sessionKey, vehicleId, kind, 1);
+    }
+
+    /**
+     * 申请准入多个令牌（批量命令），要么全部放行要么全部拒绝
+     */
+    public boolean tryAdmit(String sessionKey, String vehicleId, Kind kind, int permits) {
+        SessionBuckets session = sessionBuckets.computeIfAbsent(sessionKey, k -> new SessionBuckets(
+                new TokenBucket(sessionDriveRate, sessionDriveBurst),
+                new TokenBucket(sessionQueryRate, sessionQueryBurst)));
+        session.lastUsedNanos = System.nanoTime();
+        TokenBucket sessionBucket = session.buckets[kind.ordinal()];
+        if (!sessionBucket.tryAcquire(permits)) {
+            rejected[kind.ordinal()][0].increment();
+            return false;
+        }
+        TokenBucket[] vehicle = vehicleBuckets.computeIfAbsent(vehicleId, k -> new TokenBucket[] {
+                new TokenBucket(vehicleDriveRate, vehicleDriveBurst),
+                new TokenBucket(vehicleQueryRate, vehicleQueryBurst)});
+        if (!vehicle[kind.ordinal()].tryAcquire(permits)) {
+            sessionBucket.release(permits);
+            rejected[kind.ordinal()][1].increment();
+            return false;
+        }
+        admitted[kind.ordinal()].add(permits);
+        return true;
+    }
+
+    /**
+     * 单次申请能放行的最多令牌数：会话桶和小车桶容量中较小的一个
+     */
+    public int getMaxPermits(Kind kind) {
+        return kind == Kind.DRIVE
+                ? Math.max(1, Math.min(sessionDriveBurst, vehicleDriveBurst))
+                : Math.max(1, Math.min(sessionQueryBurst, vehicleQueryBurst));
+    }
+
+    /**
+     * 记录一次免检放行（停止类命令）
+     */
+    public void recordExempt() {
+        exempt.increment();
+    }
+
+    /**
+     * 会话结束时释放其令牌桶
+     */
+    public void removeSession(String sessionKey) {
+        sessionBuckets.remove(sessionKey);
+    }
+
+    /**
+     * 清理空闲超过回满时间的会话桶（主要是REST客户端）
+     */
+    void expireIdleSessions() {
+        long now = System.nanoTime();
+        sessionBuckets.values().removeIf(session -> now - session.lastUsedNanos > idleExpiryNanos);
+    }
+
+    /**
+     * 准入统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        for (Kind kind : Kind.values()) {
+            Map<String, Long> counts = new HashMap<>();
+            counts.put("admitted", admitted[kind.ordinal()].sum());
+            counts.put("rejectedBySession", rejected[kind.ordinal()][0].sum());
+            counts.put("rejectedByVehicle", rejected[kind.ordinal()][1].sum());
+            stats.put(kind.name().toLowerCase(), counts);
+        }
+        stats.put("exempt", exempt.sum());
+        stats.put("trackedSessions", sessionBuckets.size());
+        return stats;
+    }
+
+    /**
+     * 单个会话的两只令牌桶（按Kind序号）和最近使用时间
+     */
+    private static final class SessionBuckets {
+
+        final TokenBucket[] buckets;
+        volatile long lastUsedNanos;
+
+        SessionBuckets(TokenBucket drive, TokenBucket query) {
+            this.buckets = new TokenBucket[] {drive, query};
+            this.lastUsedNanos = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.intelligentcar.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.intelligentcar.exception.CommandRejectedException;
+import com.intelligentcar.exception.UnknownVehicleException;
+import com.intelligentcar.model.AutopilotRoute;
+import com.intelligentcar.model.CarStatus;
+import com.intelligentcar.model.ControlCommand;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 服务端自动驾驶
+ *
+ * 按航点或定时动作在服务端闭环执行：每个调度周期读取小车最新状态（位姿、传感器），
+ * 计算应发的命令，以 source=AUTOMATIC 走正常的命令管线（安全包络、命令日志、设备下发）。
+ * 反应延迟从浏览器往返降为一个调度周期。
+ *
+ * 除安全环路限速（SAFETY）外，任何非AUTOMATIC来源的命令（操作员命令、紧急停止）都会立即接管：
+ * 执行观察者在小车锁内把计划标记为PREEMPTED，自动驾驶的命令带着"计划仍在运行"的前提条件执行，不会覆盖操作员。
+ */
+@Service
+public class AutopilotService {
+
+    private static final Logger log = LoggerFactory.getLogger(AutopilotService.class);
+
+    public static final String SOURCE_AUTOMATIC = "AUTOMATIC";
+    private static final String SESSION_ID = "autopilot";
+
+    // 航向误差超过此值原地转向，小于回正值直行（滞回，避免左右抖动）
+    private static final double TURN_START_DEG = 15;
+    private static final double TURN_STOP_DEG = 5;
+    // 接近最后一个航点时的减速距离（判定半径的倍数）和速度
+    private static final double APPROACH_FACTOR = 3;
+    private static final int APPROACH_SPEED = 25;
+    // FORWARD命令执行后小车的速度
+    private static final int FORWARD_COMMAND_SPEED = CarControlService.DEFAULT_FORWARD_SPEED;
+
+    public enum State {
+        RUNNING, COMPLETED, PREEMPTED, BLOCKED, FAILED, CANCELLED
+    }
+
+    private final CarControlService carControlService;
+    private final long tickMs;
+    private final int defaultSpeed;
+    private final double defaultToleranceCm;
+
+    private final Map<String, Plan> plans = new ConcurrentHashMap<>();
+    private ScheduledExecutorService executor;
+
+    public AutopilotService(CarControlService carControlService,
+                            @Value("${car.autopilot.tick-ms:50}") long tickMs,
+                            @Value("${car.autopilot.default-speed:40}") int defaultSpeed,
+                            @Value("${car.autopilot.tolerance-cm:20}") double defaultToleranceCm) {
+        this.carControlService = carControlService;
+        this.tickMs = tickMs;
+        this.defaultSpeed = defaultSpeed;
+        this.defaultToleranceCm = defaultToleranceCm;
+    }
+
+    @PostConstruct
+    public void start() {
+        carControlService.addExecutionObserver(this::onCommandExecuted);
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "autopilot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 为小车启动一条路线，替换该车正在执行的计划
+     */
+    public Map<String, Object> startRoute(String vehicleId, AutopilotRoute route) {
+        if (!carControlService.hasVehicle(vehicleId)) {
+            throw new UnknownVehicleException(vehicleId);
+        }
+        if (route == null || (!route.hasWaypoints() && !route.hasManeuvers())) {
+            throw new IllegalArgumentException("路线中没有航点或动作");
+        }
+        if (!route.hasWaypoints()) {
+            for (AutopilotRoute.Maneuver maneuver : route.getManeuvers()) {
+                ControlCommand probe = new ControlCommand();
+                probe.setCommand(maneuver.getCommand());
+                if (!probe.isValid() || maneuver.getDurationMs() < 0) {
+                    throw new IllegalArgumentException("无效的动作: " + maneuver.getCommand());
+                }
+            }
+        }
+        int speed = route.getSpeed() != null ? Math.max(1, Math.min(100, route.getSpeed())) : defaultSpeed;
+        double tolerance = route.getToleranceCm() != null ? route.getToleranceCm() : defaultToleranceCm;
+        if (!(tolerance > 0)) {
+            throw new IllegalArgumentException("到达判定半径必须大于0: " + tolerance);
+        }
+        Plan plan = new Plan(vehicleId, route, speed, tolerance);
+        Plan previous = plans.put(vehicleId, plan);
+        if (previous != null) {
+            previous.finish(State.CANCELLED, "被新路线替换");
+        }
+        return plan.toMap();
+    }
+
+    /**
+     * 取消小车的自动驾驶并停车
+     */
+    public boolean cancel(String vehicleId) {
+        Plan plan = plans.get(vehicleId);
+        if (plan == null || !plan.finish(State.CANCELLED, "操作员取消")) {
+            return false;
+        }
+        sendStop(vehicleId);
+        return true;
+    }
+
+    /**
+     * 计划状态，没有计划时返回null
+     */
+    public Map<String, Object> getStatus(String vehicleId) {
+        Plan plan = plans.get(vehicleId);
+        return plan == null ? null : plan.toMap();
+    }
+
+    public boolean isActive(String vehicleId) {
+        Plan plan = plans.get(vehicleId);
+        return plan != null && plan.isRunning();
+    }
+
+    /**
+     * 执行观察者：非自动命令即接管（在小车锁内调用，只做状态切换）。
+     * 安全环路限速只压低速度，不接管；之后超出包络的命令会被拒绝，计划转为BLOCKED
+     */
+    private void onCommandExecuted(ControlCommand command) {
+        if (SOURCE_AUTOMATIC.equals(command.getSource())
+                || CarControlService.SOURCE_SAFETY.equals(command.getSource())) {
+            return;
+        }
+        Plan plan = plans.get(command.getVehicleId());
+        if (plan != null) {
+            plan.finish(State.PREEMPTED, "操作员命令: " + command.getCommand());
+        }
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        for (Plan plan : plans.values()) {
+            if (!plan.isRunning()) {
+                continue;
+            }
+            try {
+                if (plan.route.hasWaypoints()) {
+                    stepWaypoints(plan);
+                } else {
+                    stepManeuvers(plan, now);
+                }
+                plan.ticks++;
+            } catch (CommandRejectedException e) {
+                if (plan.finish(State.BLOCKED, "命令被拒绝: " + e.getMessage())) {
+                    sendStop(plan.vehicleId);
+                }
+            } catch (Exception e) {
+                if (plan.finish(State.FAILED, e.getMessage())) {
+                    sendStop(plan.vehicleId);
+                }
+            }
+        }
+    }
+
+    /**
+     * 航点跟踪：航向误差大时原地转向，对准后直行，到达判定半径内切换下一个航点
+     */
+    private void stepWaypoints(Plan plan) {
+        CarStatus status = carControlService.getCurrentStatus(plan.vehicleId);
+        Double x = status.getPositionX();
+        Double y = status.getPositionY();
+        Double heading = status.getHeading();
+        if (x == null || y == null || heading == null) {
+            if (plan.finish(State.FAILED, "小车没有位姿数据")) {
+                sendStop(plan.vehicleId);
+            }
+            return;
+        }
+
+        List<AutopilotRoute.Waypoint> waypoints = plan.route.getWaypoints();
+        AutopilotRoute.Waypoint target = waypoints.get(plan.index);
+        double distance = Math.hypot(target.getX() - x, target.getY() - y);
+        while (distance <= plan.tolerance) {
+            plan.index++;
+            if (plan.index >= waypoints.size()) {
+                if (plan.finish(State.COMPLETED, null)) {
+                    sendStop(plan.vehicleId);
+                }
+                return;
+            }
+            target = waypoints.get(plan.index);
+            distance = Math.hypot(target.getX() - x, target.getY() - y);
+        }
+
+        double bearing = Math.toDegrees(Math.atan2(target.getY() - y, target.getX() - x));
+        double error = normalizeDegrees(bearing - heading);
+        boolean turning = "LEFT".equals(plan.lastCommand) || "RIGHT".equals(plan.lastCommand);
+        double threshold = turning ? TURN_STOP_DEG : TURN_START_DEG;
+
+        if (Math.abs(error) > threshold) {
+            // 航向角逆时针为正：误差为正向左转
+            issue(plan, error > 0 ? "LEFT" : "RIGHT", null);
+            return;
+        }
+        boolean lastWaypoint = plan.index == waypoints.size() - 1;
+        int speed = lastWaypoint && distance < plan.tolerance * APPROACH_FACTOR
+                ? Math.min(plan.speed, APPROACH_SPEED) : plan.speed;
+        if (!"FORWARD".equals(plan.lastCommand) && !"SPEED".equals(plan.lastCommand)) {
+            if (!issue(plan, "FORWARD", null)) {
+                return;
+            }
+            plan.lastSpeed = FORWARD_COMMAND_SPEED;
+        }
+        if (plan.lastSpeed != speed) {
+            issue(plan, "SPEED", String.valueOf(speed));
+            plan.lastSpeed = speed;
+        }
+    }
+
+    /**
+     * 定时动作：按时长依次执行，全部结束后停车
+     */
+    private void stepManeuvers(Plan plan, long now) {
+        List<AutopilotRoute.Maneuver> maneuvers = plan.route.getManeuvers();
+        if (plan.index >= 0 && now - plan.stepStartNanos < TimeUnit.MILLISECONDS.toNanos(maneuvers.get(plan.index).getDurationMs())) {
+            return;
+        }
+        plan.index++;
+        if (plan.index >= maneuvers.size()) {
+            if (plan.finish(State.COMPLETED, null)) {
+                sendStop(plan.vehicleId);
+            }
+            return;
+        }
+        AutopilotRoute.Maneuver maneuver = maneuvers.get(plan.index);
+        plan.stepStartNanos = now;
+        issue(plan, maneuver.getCommand().toUpperCase(), maneuver.getValue());
+    }
+
+    /**
+     * 以计划仍在运行为前提下发命令，相同命令不重复下发
+     */
+    private boolean issue(Plan plan, String command, String value) {
+        if (command.equals(plan.lastCommand) && value == null) {
+            return true;
+        }
+        ControlCommand controlCommand = automaticCommand(plan.vehicleId, command, value);
+        if (!carControlService.executeCommandIf(controlCommand, plan::isRunning)) {
+            return false;
+        }
+        plan.lastCommand = command;
+        plan.commandsIssued++;
+        return true;
+    }
+
+    private void sendStop(String vehicleId) {
+        try {
+            carControlService.executeCommand(automaticCommand(vehicleId, "STOP", null));
+        } catch (Exception e) {
+            log.error("自动驾驶停车失败: {}", e.getMessage());
+        }
+    }
+
+    private static ControlCommand automaticCommand(String vehicleId, String command, String value) {
+        ControlCommand controlCommand = new ControlCommand();
+        controlCommand.setCommand(command);
+        controlCommand.setValue(value);
+        controlCommand.setSource(SOURCE_AUTOMATIC);
+        controlCommand.setSessionId(SESSION_ID);
+        controlCommand.setVehicleId(vehicleId);
+        return controlCommand;
+    }
+
+    private static double normalizeDegrees(double degrees) {
+        double d = degrees % 360;
+        if (d > 180) {
+            d -= 360;
+        } else if (d < -180) {
+            d += 360;
+        }
+        return d;
+    }
+
+    /**
+     * 一辆车的执行计划，index等游标只由调度线程修改
+     */
+    private static final class Plan {
+        final String vehicleId;
+        final AutopilotRoute route;
+        final int speed;
+        final double tolerance;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final AtomicReference<State> state = new AtomicReference<>(State.RUNNING);
+        volatile String reason;
+        volatile int index;
+        volatile String lastCommand;
+        int lastSpeed = -1;
+        long stepStartNanos;
+        volatile long ticks;
+        volatile long commandsIssued;
+
+        Plan(String vehicleId, AutopilotRoute route, int speed, double tolerance) {
+            this.vehicleId = vehicleId;
+            this.route = route;
+            this.speed = speed;
+            this.tolerance = tolerance;
+            this.index = route.hasWaypoints() ? 0 : -1;
+        }
+
+        boolean isRunning() {
+            return state.get() == State.RUNNING;
+        }
+
+        /**
+         * 结束计划，只有第一次结束生效
+         */
+        boolean finish(State finalState, String finishReason) {
+            if (state.compareAndSet(State.RUNNING, finalState)) {
+                reason = finishReason;
+                return true;
+            }
+            return false;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("vehicleId", vehicleId);
+            map.put("state", state.get().name());
+            map.put("mode", route.hasWaypoints() ? "WAYPOINTS" : "MANEUVERS");
+            map.put("index", index);
+            map.put("total", route.hasWaypoints() ? route.getWaypoints().size() : route.getManeuvers().size());
+            map.put("speed", speed);
+            map.put("toleranceCm", tolerance);
+            map.put("lastCommand", lastCommand);
+            map.put("reason", reason);
+            map.put("ticks", ticks);
+            map.put("commandsIssued", commandsIssued);
+            map.put("startedAt", startedAt);
+            return map;
+        }
+    }
+}
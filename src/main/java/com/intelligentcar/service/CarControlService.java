@@ -1,100 +1,390 @@
 // src/main/java/com/intelligentcar/service/CarControlService.java
 package com.intelligentcar.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 
+import com.intelligentcar.exception.CommandRejectedException;
+import com.intelligentcar.exception.UnknownVehicleException;
+import com.intelligentcar.journal.CommandJournal;
+import com.intelligentcar.logging.LogSampler;
 import com.intelligentcar.model.CarStatus;
+import com.intelligentcar.sensor.SensorFilterBank;
+import com.intelligentcar.sensor.SensorFilterFactory;
 import com.intelligentcar.websocket.CarCommandHandler;
 import com.intelligentcar.model.ControlCommand;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+/**
+ * 小车控制服务
+ *
+ * 所有状态、会话和命令均按小车ID分片存放，路由到单辆车为一次哈希查找。
+ * 不带vehicleId的方法作用于默认小车，兼容单车部署。
+ * 小车分片只由仿真、设备注册和配置（registerVehicle）创建；其余方法遇到未知ID抛出
+ * UnknownVehicleException，不会因为调用方传入任意ID而新建分片。
+ */
 @Service
 public class CarControlService {
 
-    private CarStatus currentStatus;
-    private Map<String, WebSocketSession> controlSessions = new ConcurrentHashMap<>();
-    private boolean isConnected = false;
-    private LocalDateTime lastConnectionTime;
+    private static final Logger log = LoggerFactory.getLogger(CarControlService.class);
+    private static final LogSampler SEND_ERROR_SAMPLER = new LogSampler(1, 5);
+
+    public static final String DEFAULT_VEHICLE_ID = "car-1";
+
+    // 默认前进/后退速度（FORWARD/BACKWARD命令不带速度，仿真和自动驾驶也以此为准）
+    public static final int DEFAULT_FORWARD_SPEED = 50;
+    public static final int DEFAULT_BACKWARD_SPEED = 30;
+
+    // 安全环路限速命令的来源
+    public static final String SOURCE_SAFETY = "SAFETY";
+
+    // 单批命令上限
+    public static final int MAX_BATCH_SIZE = 100;
+
+    private final Map<String, VehicleContext> vehicles = new ConcurrentHashMap<>();
+    // 操作端会话属性：为true时接收命令回显
+    public static final String COMMAND_ECHO_ATTRIBUTE = "commandEcho";
+
+    private final SafetyEnvelope safetyEnvelope;
+    private final DeviceSessionRegistry deviceSessionRegistry;
+    private final CommandJournal commandJournal;
+    private final SensorFilterFactory sensorFilterFactory;
+    private final List<Consumer<ControlCommand>> executionObservers = new CopyOnWriteArrayList<>();
+    private final List<BiConsumer<String, CarStatus>> sensorObservers = new CopyOnWriteArrayList<>();
+    private final List<BiConsumer<String, CarStatus>> statusObservers = new CopyOnWriteArrayList<>();
+
+    public CarControlService(SafetyEnvelope safetyEnvelope, DeviceSessionRegistry deviceSessionRegistry,
+                             CommandJournal commandJournal, SensorFilterFactory sensorFilterFactory) {
+        this.safetyEnvelope = safetyEnvelope;
+        this.deviceSessionRegistry = deviceSessionRegistry;
+        this.commandJournal = commandJournal;
+        this.sensorFilterFactory = sensorFilterFactory;
+        // 默认小车始终存在
+        registerVehicle(DEFAULT_VEHICLE_ID);
+    }
+
+    /**
+     * 规范化小车ID，空值视为默认小车
+     */
+    public static String resolveVehicleId(String vehicleId) {
+        return vehicleId == null || vehicleId.isBlank() ? DEFAULT_VEHICLE_ID : vehicleId;
+    }
 
-    public CarControlService() {
-        // 初始化小车状态
-        this.currentStatus = new CarStatus();
-        this.currentStatus.setSpeed(0);
-        this.currentStatus.setDirection("STOP");
-        this.currentStatus.setFrontDistance(0);
-        this.currentStatus.setLeftDistance(0);
-        this.currentStatus.setRightDistance(0);
-        this.currentStatus.setBatteryLevel(100);
-        this.currentStatus.setTimestamp(LocalDateTime.now());
+    /**
+     * 登记一辆小车（已存在时不变），只供仿真、设备注册和配置加载调用
+     */
+    public void registerVehicle(String vehicleId) {
+        vehicles.computeIfAbsent(resolveVehicleId(vehicleId),
+                id -> new VehicleContext(id, sensorFilterFactory.newBank()));
+    }
+
+    /**
+     * 小车是否已登记
+     */
+    public boolean hasVehicle(String vehicleId) {
+        return vehicles.containsKey(resolveVehicleId(vehicleId));
+    }
+
+    private VehicleContext vehicle(String vehicleId) {
+        String id = resolveVehicleId(vehicleId);
+        VehicleContext vehicle = vehicles.get(id);
+        if (vehicle == null) {
+            throw new UnknownVehicleException(id);
+        }
+        return vehicle;
     }
 
     /**
      * 注册控制会话
      */
-    public void registerControlSession(String sessionId, WebSocketSession session) {
-        controlSessions.put(sessionId, session);
-        isConnected = true;
-        lastConnectionTime = LocalDateTime.now();
+    public void registerControlSession(String vehicleId, String sessionId, WebSocketSession session) {
+        VehicleContext vehicle = vehicle(vehicleId);
+        vehicle.getControlSessions().put(sessionId, session);
+        vehicle.setLastConnectionTime(LocalDateTime.now());
     }
 
     /**
      * 移除控制会话
      */
-    public void removeControlSession(String sessionId) {
-        controlSessions.remove(sessionId);
-        if (controlSessions.isEmpty()) {
-            isConnected = false;
+    public void removeControlSession(String vehicleId, String sessionId) {
+        VehicleContext vehicle = vehicles.get(resolveVehicleId(vehicleId));
+        if (vehicle != null) {
+            vehicle.getControlSessions().remove(sessionId);
         }
     }
 
     /**
-     * 执行控制命令
+     * 注册状态监听会话
+     */
+    public void registerStatusSession(String vehicleId, String sessionId, WebSocketSession session) {
+        vehicle(vehicleId).getStatusSessions().put(sessionId, session);
+    }
+
+    /**
+     * 移除状态监听会话
+     */
+    public void removeStatusSession(String vehicleId, String sessionId) {
+        VehicleContext vehicle = vehicles.get(resolveVehicleId(vehicleId));
+        if (vehicle != null) {
+            vehicle.getStatusSessions().remove(sessionId);
+        }
+    }
+
+    /**
+     * 小车的控制会话
+     */
+    public Collection<WebSocketSession> getControlSessions(String vehicleId) {
+        return vehicle(vehicleId).getControlSessions().values();
+    }
+
+    /**
+     * 小车的状态监听会话
+     */
+    public Collection<WebSocketSession> getStatusSessions(String vehicleId) {
+        return vehicle(vehicleId).getStatusSessions().values();
+    }
+
+    /**
+     * 某个操作端（客户端ID）在该车上的命令序号窗口，跨重连保留
+     */
+    public SequenceWindow getSequenceWindow(String vehicleId, String clientId) {
+        return vehicle(vehicleId).getSequenceWindow(clientId);
+    }
+
+    /**
+     * 注册下发命令监听器（如仿真小车），与该车的WebSocket硬件连接收到相同的命令
+     */
+    public void addCommandListener(String vehicleId, Consumer<ControlCommand> listener) {
+        vehicle(vehicleId).getCommandListeners().add(listener);
+    }
+
+    /**
+     * 执行控制命令（默认小车）
      */
     public void executeCommand(String command, String value) {
         ControlCommand controlCommand = new ControlCommand();
         controlCommand.setCommand(command);
         controlCommand.setValue(value);
+        executeCommand(controlCommand);
+    }
+
+    /**
+     * 执行控制命令，按命令中的vehicleId路由到单辆小车
+     */
+    public void executeCommand(ControlCommand controlCommand) {
+        executeCommandIf(controlCommand, null);
+    }
+
+    /**
+     * 在小车锁内先检查前提条件，成立才执行命令。
+     * 供自动驾驶等后台命令源使用：操作员命令与条件检查在同一把锁上串行，不会被抢先的旧命令覆盖
+     *
+     * @return 条件不成立未执行时返回false
+     */
+    public boolean executeCommandIf(ControlCommand controlCommand, BooleanSupplier precondition) {
+        VehicleContext vehicle = vehicle(controlCommand.getVehicleId());
+        controlCommand.setVehicleId(vehicle.getVehicleId());
+        synchronized (vehicle) {
+            if (precondition != null && !precondition.getAsBoolean()) {
+                return false;
+            }
+
+            // 入口安全检查：拒绝违反安全包络的前进命令
+            checkSafetyEnvelope(vehicle.getStatus(), controlCommand);
 
-        // 更新小车状态
-        updateCarStatus(controlCommand);
+            // 更新小车状态并记入命令日志
+            updateCarStatus(vehicle.getStatus(), controlCommand);
+            commandJournal.append(controlCommand, vehicle.getStatus());
+            notifyExecutionObservers(controlCommand);
+            notifyStatusObservers(vehicle);
+            vehicle.getOutbound().add(controlCommand);
+        }
+        // 出锁后发送给该车的硬件设备和订阅回显的操作端
+        flushOutbound(vehicle);
+        return true;
+    }
 
-        // 通过WebSocket发送给所有连接的客户端（包括硬件）
-        sendCommandToAll(controlCommand);
+    /**
+     * 注册命令执行观察者（所有小车），在小车锁内、命令下发前调用，实现必须非阻塞
+     */
+    public void addExecutionObserver(Consumer<ControlCommand> observer) {
+        executionObservers.add(observer);
     }
 
     /**
-     * 紧急停止
+     * 注册传感器观察者（所有小车），每次带位姿的遥测写入后在小车锁内调用，
+     * 此时状态中的读数与位姿来自同一次上报；不带位姿的读数（设备只报距离）不回调
+     */
+    public void addSensorObserver(BiConsumer<String, CarStatus> observer) {
+        sensorObservers.add(observer);
+    }
+
+    /**
+     * 注册状态观察者（所有小车），每次状态版本号增加后在小车锁内调用，实现必须非阻塞。
+     * 需要在锁外使用的数据应在回调里取快照（如toMap）
+     */
+    public void addStatusObserver(BiConsumer<String, CarStatus> observer) {
+        statusObservers.add(observer);
+    }
+
+    private void notifyExecutionObservers(ControlCommand command) {
+        for (Consumer<ControlCommand> observer : executionObservers) {
+            observer.accept(command);
+        }
+    }
+
+    private void notifyStatusObservers(VehicleContext vehicle) {
+        for (BiConsumer<String, CarStatus> observer : statusObservers) {
+            observer.accept(vehicle.getVehicleId(), vehicle.getStatus());
+        }
+    }
+
+    /**
+     * 批量执行命令：在小车锁内按顺序先全部做安全检查和状态推演，
+     * 任一条被拒绝则恢复状态、整批不下发；全部通过后再依次下发
+     */
+    public void executeBatch(String vehicleId, List<ControlCommand> commands) {
+        if (commands.size() > MAX_BATCH_SIZE) {
+            throw new CommandRejectedException("BATCH", "批量命令超过" + MAX_BATCH_SIZE + "条");
+        }
+        VehicleContext vehicle = vehicle(vehicleId);
+        synchronized (vehicle) {
+            CarStatus status = vehicle.getStatus();
+            String direction = status.getDirection();
+            int speed = status.getSpeed();
+            LocalDateTime timestamp = status.getTimestamp();
+            long version = status.getVersion();
+            try {
+                for (ControlCommand command : commands) {
+                    checkSafetyEnvelope(status, command);
+                    updateCarStatus(status, command);
+                }
+            } finally {
+                // 推演结束后恢复，通过时再逐条正式执行，每条命令各有自己的状态版本和日志记录
+                status.setDirection(direction);
+                status.setSpeed(speed);
+                status.setTimestamp(timestamp);
+                status.setVersion(version);
+            }
+            for (ControlCommand command : commands) {
+                updateCarStatus(status, command);
+                commandJournal.append(command, status);
+                notifyExecutionObservers(command);
+                notifyStatusObservers(vehicle);
+                vehicle.getOutbound().add(command);
+            }
+        }
+        flushOutbound(vehicle);
+    }
+
+    /**
+     * 紧急停止（默认小车）
      */
     public void emergencyStop() {
+        emergencyStop(DEFAULT_VEHICLE_ID);
+    }
+
+    /**
+     * 紧急停止
+     */
+    public void emergencyStop(String vehicleId) {
+        VehicleContext vehicle = vehicle(vehicleId);
         ControlCommand emergencyCommand = new ControlCommand();
         emergencyCommand.setCommand("EMERGENCY_STOP");
+        emergencyCommand.setVehicleId(vehicle.getVehicleId());
 
-        // 更新状态
-        currentStatus.setSpeed(0);
-        currentStatus.setDirection("STOP");
-
+        synchronized (vehicle) {
+            // 更新状态
+            vehicle.getStatus().setSpeed(0);
+            vehicle.getStatus().setDirection("STOP");
+            vehicle.getStatus().nextVersion();
+            commandJournal.append(emergencyCommand, vehicle.getStatus());
+            notifyExecutionObservers(emergencyCommand);
+            notifyStatusObservers(vehicle);
+            vehicle.getOutbound().add(emergencyCommand);
+        }
         // 发送紧急停止命令
-        sendCommandToAll(emergencyCommand);
+        flushOutbound(vehicle);
+    }
+
+    /**
+     * 限制前进速度（由安全环路调用，不经过客户端往返）
+     */
+    public void clampSpeed(String vehicleId, int maxSpeed) {
+        VehicleContext vehicle = vehicle(vehicleId);
+        synchronized (vehicle) {
+            CarStatus status = vehicle.getStatus();
+            if (status.getSpeed() <= maxSpeed) {
+                return;
+            }
+            ControlCommand speedCommand = new ControlCommand();
+            speedCommand.setCommand("SPEED");
+            speedCommand.setValue(String.valueOf(maxSpeed));
+            speedCommand.setSource(SOURCE_SAFETY);
+            speedCommand.setVehicleId(vehicle.getVehicleId());
+
+            status.setSpeed(maxSpeed);
+            status.setTimestamp(LocalDateTime.now());
+            status.nextVersion();
+            commandJournal.append(speedCommand, status);
+            notifyExecutionObservers(speedCommand);
+            notifyStatusObservers(vehicle);
+            vehicle.getOutbound().add(speedCommand);
+        }
+        flushOutbound(vehicle);
+    }
+
+    /**
+     * 检查命令执行后的状态是否在安全包络内
+     */
+    private void checkSafetyEnvelope(CarStatus status, ControlCommand command) {
+        String cmd = command.getCommand() == null ? "" : command.getCommand().toUpperCase();
+        int targetSpeed;
+        if ("FORWARD".equals(cmd)) {
+            targetSpeed = DEFAULT_FORWARD_SPEED;
+        } else if ("SPEED".equals(cmd) && "FORWARD".equals(status.getDirection()) && command.getValue() != null) {
+            targetSpeed = Integer.parseInt(command.getValue());
+        } else {
+            return;
+        }
+
+        int frontDistance = SafetyEnvelope.frontDistanceForSafety(status);
+        if (!safetyEnvelope.isForwardAllowed(targetSpeed, frontDistance)) {
+            throw new CommandRejectedException(cmd, String.format(
+                    "前方距离%dcm不足，速度%d需要停车距离%.0fcm",
+                    frontDistance, targetSpeed, safetyEnvelope.stoppingDistanceCm(targetSpeed)));
+        }
     }
 
     /**
      * 更新小车状态
      */
-    private void updateCarStatus(ControlCommand command) {
+    private void updateCarStatus(CarStatus currentStatus, ControlCommand command) {
         switch (command.getCommand().toUpperCase()) {
             case "FORWARD":
                 currentStatus.setDirection("FORWARD");
-                currentStatus.setSpeed(50); // 默认速度值
+                currentStatus.setSpeed(DEFAULT_FORWARD_SPEED); // 默认速度值
                 break;
             case "BACKWARD":
                 currentStatus.setDirection("BACKWARD");
-                currentStatus.setSpeed(30);
+                currentStatus.setSpeed(DEFAULT_BACKWARD_SPEED);
                 break;
             case "LEFT":
                 currentStatus.setDirection("LEFT");
@@ -113,52 +403,178 @@ public class CarControlService {
                 break;
         }
         currentStatus.setTimestamp(LocalDateTime.now());
+        currentStatus.nextVersion();
     }
 
     /**
-     * 发送命令给所有连接
+     * 在小车锁外按执行顺序发送待下发命令。
+     * 同一时刻只有一个线程发送，其他线程入队后直接返回，发送阻塞不会占住小车锁；
+     * 释放sendLock后再检查一次队列，避免刚入队的命令无人发送
      */
-    private void sendCommandToAll(ControlCommand command) {
-        TextMessage message = new TextMessage(command.toJson());
-        for (WebSocketSession session : controlSessions.values()) {
-            if (session.isOpen()) {
+    private void flushOutbound(VehicleContext vehicle) {
+        while (!vehicle.getOutbound().isEmpty() && vehicle.getSendLock().tryLock()) {
+            try {
+                ControlCommand command;
+                while ((command = vehicle.getOutbound().poll()) != null) {
+                    sendCommandToVehicle(vehicle, command);
+                }
+            } finally {
+                vehicle.getSendLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * 发送命令给该车：仿真监听器、带序号确认的硬件设备通道，
+     * 以及订阅了命令回显的操作端
+     */
+    private void sendCommandToVehicle(VehicleContext vehicle, ControlCommand command) {
+        for (Consumer<ControlCommand> listener : vehicle.getCommandListeners()) {
+            listener.accept(command);
+        }
+
+        deviceSessionRegistry.send(vehicle.getVehicleId(), command);
+
+        TextMessage message = null;
+        for (WebSocketSession session : vehicle.getControlSessions().values()) {
+            if (session.isOpen() && Boolean.TRUE.equals(session.getAttributes().get(COMMAND_ECHO_ATTRIBUTE))) {
+                if (message == null) {
+                    message = new TextMessage(command.toJson());
+                }
                 try {
                     session.sendMessage(message);
-                } catch (IOException e) {
-                    System.err.println("发送命令失败: " + e.getMessage());
+                } catch (IOException | SessionLimitExceededException e) {
+                    // 超出发送时限或缓冲上限的会话已被关闭，不影响其他会话
+                    long skipped = SEND_ERROR_SAMPLER.acquire();
+                    if (skipped >= 0) {
+                        log.warn("发送命令失败: {}{}", e.getMessage(), LogSampler.suffix(skipped));
+                    }
                 }
             }
         }
     }
 
     /**
-     * 获取当前状态
+     * 获取当前状态（默认小车）
      */
     public CarStatus getCurrentStatus() {
-        return currentStatus;
+        return getCurrentStatus(DEFAULT_VEHICLE_ID);
+    }
+
+    /**
+     * 获取当前状态
+     */
+    public CarStatus getCurrentStatus(String vehicleId) {
+        return vehicle(vehicleId).getStatus();
     }
 
     /**
-     * 更新传感器数据
+     * 在小车锁内读取状态：读到的版本与状态观察者看到的版本序列之间没有缺口
      */
-    public void updateSensorData(int frontDistance, int leftDistance, int rightDistance) {
-        currentStatus.setFrontDistance(frontDistance);
-        currentStatus.setLeftDistance(leftDistance);
-        currentStatus.setRightDistance(rightDistance);
-        currentStatus.setTimestamp(LocalDateTime.now());
+    public <T> T readStatus(String vehicleId, Function<CarStatus, T> reader) {
+        VehicleContext vehicle = vehicle(vehicleId);
+        synchronized (vehicle) {
+            return reader.apply(vehicle.getStatus());
+        }
+    }
+
+    /**
+     * 更新传感器数据（不带位姿的设备上报）
+     */
+    public void updateSensorData(String vehicleId, int frontDistance, int leftDistance, int rightDistance) {
+        updateTelemetry(vehicleId, frontDistance, leftDistance, rightDistance, Double.NaN, Double.NaN, Double.NaN);
+    }
+
+    /**
+     * 更新一次遥测：原始读数经该车的滤波器组，原始值和滤波值连同位姿在同一把锁内写入，
+     * 只产生一个状态版本。界面和自动驾驶使用滤波值，安全判断取原始值和滤波值中较近的一个。
+     * x为NaN表示本次没有位姿。读数和位姿都没有变化时不增加版本、不通知状态观察者，
+     * 静止的小车不会持续产生状态推送；传感器观察者每次带位姿的读数都会收到
+     */
+    public void updateTelemetry(String vehicleId, int frontDistance, int leftDistance, int rightDistance,
+                                double x, double y, double heading) {
+        VehicleContext vehicle = vehicle(vehicleId);
+        synchronized (vehicle) {
+            CarStatus status = vehicle.getStatus();
+            SensorFilterBank filters = vehicle.getSensorFilters();
+            int front = filters.filterFront(frontDistance);
+            int left = filters.filterLeft(leftDistance);
+            int right = filters.filterRight(rightDistance);
+            boolean hasPose = !Double.isNaN(x);
+            boolean changed = !Objects.equals(status.getRawFrontDistance(), frontDistance)
+                    || !Objects.equals(status.getRawLeftDistance(), leftDistance)
+                    || !Objects.equals(status.getRawRightDistance(), rightDistance)
+                    || !Objects.equals(status.getFrontDistance(), front)
+                    || !Objects.equals(status.getLeftDistance(), left)
+                    || !Objects.equals(status.getRightDistance(), right)
+                    || (hasPose && (!Objects.equals(status.getPositionX(), x)
+                            || !Objects.equals(status.getPositionY(), y)
+                            || !Objects.equals(status.getHeading(), heading)));
+
+            status.setRawFrontDistance(frontDistance);
+            status.setRawLeftDistance(leftDistance);
+            status.setRawRightDistance(rightDistance);
+            status.setFrontDistance(front);
+            status.setLeftDistance(left);
+            status.setRightDistance(right);
+            if (hasPose) {
+                status.setPositionX(x);
+                status.setPositionY(y);
+                status.setHeading(heading);
+            }
+            if (changed) {
+                status.setTimestamp(LocalDateTime.now());
+                status.nextVersion();
+            }
+
+            if (hasPose) {
+                for (BiConsumer<String, CarStatus> observer : sensorObservers) {
+                    observer.accept(vehicle.getVehicleId(), status);
+                }
+            }
+            if (changed) {
+                notifyStatusObservers(vehicle);
+            }
+        }
     }
 
     /**
-     * 检查连接状态
+     * 所有已知小车ID
+     */
+    public Set<String> getVehicleIds() {
+        return vehicles.keySet();
+    }
+
+    /**
+     * 检查连接状态（任意小车的硬件设备或仿真小车在线即为已连接）
      */
     public boolean isConnected() {
-        return isConnected;
+        for (String vehicleId : vehicles.keySet()) {
+            if (isConnected(vehicleId)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * 获取活动连接数
+     * 检查指定小车的硬件设备或仿真小车是否在线
+     */
+    public boolean isConnected(String vehicleId) {
+        String id = resolveVehicleId(vehicleId);
+        VehicleContext vehicle = vehicles.get(id);
+        return deviceSessionRegistry.isDeviceConnected(id)
+                || (vehicle != null && !vehicle.getCommandListeners().isEmpty());
+    }
+
+    /**
+     * 获取活动操作端连接数
      */
     public int getActiveConnections() {
-        return controlSessions.size();
+        int count = 0;
+        for (VehicleContext vehicle : vehicles.values()) {
+            count += vehicle.getControlSessions().size();
+        }
+        return count;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package com.intelligentcar.service;
+
+/**
+ * 单个会话的客户端时钟偏移估计
+ *
+ * 主动采样：服务器发PING(serverTime=s0)，客户端回PONG(s0, clientTime=c)，服务器在s1收到，
+ * rtt = s1 - s0，offset = c - (s0 + rtt/2)。保留RTT最小的样本（误差上界为rtt/2），
+ * 样本过旧时接受新样本以跟踪时钟漂移。
+ *
+ * 被动兜底：尚无PING样本时，用观察到的 max(客户端时间戳 - 服务器接收时间)，
+ * 相当于假设最快到达的那条命令没有排队延迟（延迟越小，差值越大）。
+ *
+ * offset为"客户端时钟 - 服务器时钟"，单位毫秒。
+ */
+public class ClockOffsetEstimator {
+
+    private static final long SAMPLE_MAX_AGE_MS = 60_000;
+
+    private long bestRtt = Long.MAX_VALUE;
+    private long pingOffset;
+    private long pingSampleTime;
+    private boolean hasPingSample;
+    private long lastPingSentAt = Long.MIN_VALUE / 2;
+
+    private long passiveOffset = Long.MIN_VALUE;
+
+    /**
+     * 记录一次PING/PONG往返
+     */
+    public synchronized void addPingSample(long serverSendMs, long clientMs, long serverReceiveMs) {
+        long rtt = serverReceiveMs - serverSendMs;
+        if (rtt < 0) {
+            return;
+        }
+        boolean stale = serverReceiveMs - pingSampleTime > SAMPLE_MAX_AGE_MS;
+        if (!hasPingSample || rtt <= bestRtt || stale) {
+            bestRtt = rtt;
+            pingOffset = clientMs - (serverSendMs + rtt / 2);
+            pingSampleTime = serverReceiveMs;
+            hasPingSample = true;
+        }
+    }
+
+    /**
+     * 记录一条命令的客户端时间戳（被动样本）
+     */
+    public synchronized void addCommandSample(long clientMs, long serverReceiveMs) {
+        passiveOffset = Math.max(passiveOffset, clientMs - serverReceiveMs);
+    }
+
+    /**
+     * 把客户端时间换算为服务器时间
+     */
+    public synchronized long toServerTime(long clientMs) {
+        return clientMs - getOffset();
+    }
+
+    public synchronized long getOffset() {
+        if (hasPingSample) {
+            return pingOffset;
+        }
+        return passiveOffset == Long.MIN_VALUE ? 0 : passiveOffset;
+    }
+
+    public synchronized boolean hasPingSample() {
+        return hasPingSample;
+    }
+
+    /**
+     * 是否需要发起新的PING（不回应PING的客户端每个间隔也只探测一次）
+     */
+    public synchronized boolean needsPing(long nowMs, long intervalMs) {
+        if (nowMs - lastPingSentAt <= intervalMs) {
+            return false;
+        }
+        return !hasPingSample || nowMs - pingSampleTime > intervalMs;
+    }
+
+    public synchronized void markPingSent(long nowMs) {
+        lastPingSentAt = nowMs;
+    }
+
+    public synchronized long getBestRtt() {
+        return hasPingSample ? bestRtt : -1;
+    }
+}
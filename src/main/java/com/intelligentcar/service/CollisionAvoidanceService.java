@@ -0,0 +1,171 @@
+package com.intelligentcar.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.intelligentcar.model.CarStatus;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 服务端防碰撞安全环路
+ *
+ * 在独立的高优先级线程上以固定频率评估每辆小车的最新传感器快照：
+ * 1. 前方距离小于当前速度的停车距离时限速
+ * 2. 限速后仍低于最小限速值时直接紧急停止
+ * 整个决策不依赖任何客户端往返，并记录每次决策延迟和调度抖动。
+ */
+@Service
+public class CollisionAvoidanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(CollisionAvoidanceService.class);
+
+    private final CarControlService carControlService;
+    private final SafetyEnvelope safetyEnvelope;
+    private final long tickPeriodNanos;
+    private final boolean enabled;
+
+    private ScheduledExecutorService safetyExecutor;
+    private long nextExpectedTick;
+
+    // 统计数据
+    private final AtomicLong tickCount = new AtomicLong();
+    private final AtomicLong overrunCount = new AtomicLong();
+    private final AtomicLong emergencyStopCount = new AtomicLong();
+    private final AtomicLong clampCount = new AtomicLong();
+    private final AtomicLong lastLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxJitterNanos = new AtomicLong();
+
+    public CollisionAvoidanceService(CarControlService carControlService,
+                                     SafetyEnvelope safetyEnvelope,
+                                     @Value("${car.safety.tick-ms:20}") long tickMs,
+                                     @Value("${car.safety.enabled:true}") boolean enabled) {
+        this.carControlService = carControlService;
+        this.safetyEnvelope = safetyEnvelope;
+        this.tickPeriodNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("防碰撞安全环路已禁用");
+            return;
+        }
+        safetyExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "collision-avoidance");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MAX_PRIORITY);
+            return thread;
+        });
+        nextExpectedTick = System.nanoTime();
+        safetyExecutor.scheduleAtFixedRate(this::tick, 0, tickPeriodNanos, TimeUnit.NANOSECONDS);
+        log.info("防碰撞安全环路已启动，周期: {}ms", TimeUnit.NANOSECONDS.toMillis(tickPeriodNanos));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (safetyExecutor != null) {
+            safetyExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 单次安全评估
+     */
+    void tick() {
+        long start = System.nanoTime();
+
+        // 调度抖动：实际开始时间相对期望时间的偏差
+        long jitter = start - nextExpectedTick;
+        nextExpectedTick += tickPeriodNanos;
+        if (jitter > tickPeriodNanos) {
+            overrunCount.incrementAndGet();
+            // 落后超过一个周期时重新对齐，避免连续补跑
+            nextExpectedTick = start + tickPeriodNanos;
+        }
+        maxJitterNanos.accumulateAndGet(Math.max(0, jitter), Math::max);
+
+        for (String vehicleId : carControlService.getVehicleIds()) {
+            try {
+                // 在小车锁内取快照，方向、速度和距离来自同一个状态版本
+                evaluate(vehicleId, carControlService.readStatus(vehicleId, Snapshot::new));
+            } catch (Exception e) {
+                log.error("安全环路评估异常[{}]", vehicleId, e);
+            }
+        }
+
+        long latency = System.nanoTime() - start;
+        tickCount.incrementAndGet();
+        lastLatencyNanos.set(latency);
+        totalLatencyNanos.addAndGet(latency);
+        maxLatencyNanos.accumulateAndGet(latency, Math::max);
+    }
+
+    private void evaluate(String vehicleId, Snapshot snapshot) {
+        if (!snapshot.forward) {
+            return;
+        }
+        int speed = snapshot.speed;
+        int frontDistance = snapshot.frontDistance;
+        if (speed <= 0 || safetyEnvelope.isForwardAllowed(speed, frontDistance)) {
+            return;
+        }
+
+        int safeSpeed = safetyEnvelope.maxSafeSpeed(frontDistance);
+        if (safeSpeed < safetyEnvelope.getMinClampSpeed()) {
+            carControlService.emergencyStop(vehicleId);
+            emergencyStopCount.incrementAndGet();
+            log.warn("安全环路触发紧急停止[{}]: 前方{}cm, 速度{}", vehicleId, frontDistance, speed);
+        } else {
+            carControlService.clampSpeed(vehicleId, safeSpeed);
+            clampCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 获取安全环路统计
+     */
+    public Map<String, Object> getStats() {
+        long ticks = tickCount.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("tickPeriodMs", TimeUnit.NANOSECONDS.toMillis(tickPeriodNanos));
+        stats.put("ticks", ticks);
+        stats.put("overruns", overrunCount.get());
+        stats.put("emergencyStops", emergencyStopCount.get());
+        stats.put("speedClamps", clampCount.get());
+        stats.put("lastDecisionMicros", lastLatencyNanos.get() / 1000.0);
+        stats.put("avgDecisionMicros", ticks > 0 ? totalLatencyNanos.get() / 1000.0 / ticks : 0.0);
+        stats.put("maxDecisionMicros", maxLatencyNanos.get() / 1000.0);
+        stats.put("maxJitterMicros", maxJitterNanos.get() / 1000.0);
+        return stats;
+    }
+
+    /**
+     * 安全评估用到的状态字段
+     */
+    private static final class Snapshot {
+
+        final boolean forward;
+        final int speed;
+        final int frontDistance;
+
+        Snapshot(CarStatus status) {
+            this.forward = "FORWARD".equals(status.getDirection());
+            this.speed = status.getSpeed();
+            this.frontDistance = SafetyEnvelope.frontDistanceForSafety(status);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.intelligentcar.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.intelligentcar.model.ControlCommand;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 控制命令过期策略
+ *
+ * 截止时间 = 客户端时间戳（换算到服务器时钟）+ TTL；客户端没有带时间戳时按服务端收到时间计算。
+ * 过期的行驶命令在进入CarControlService之前丢弃，停止类命令永远执行。
+ */
+@Component
+public class CommandDeadlinePolicy {
+
+    private final long ttlMs;
+    private final long pingIntervalMs;
+    private final LongAdder expiredTotal = new LongAdder();
+    private final Map<String, LongAdder> expiredByCommand = new ConcurrentHashMap<>();
+
+    public CommandDeadlinePolicy(@Value("${car.command.ttl-ms:500}") long ttlMs,
+                                 @Value("${car.command.clock-ping-interval-ms:10000}") long pingIntervalMs) {
+        this.ttlMs = ttlMs;
+        this.pingIntervalMs = pingIntervalMs;
+    }
+
+    /**
+     * 计算并写入命令的截止时间（服务器时钟）
+     *
+     * @param receivedAt 服务端收到命令的时间，无客户端时间戳时以此为起点
+     */
+    public void assignDeadline(ControlCommand command, ClockOffsetEstimator clock, long receivedAt) {
+        if (command.getTimestamp() == null) {
+            command.setExpiresAt(receivedAt + ttlMs);
+            return;
+        }
+        long clientMs = command.getTimestamp();
+        command.setExpiresAt((clock == null ? clientMs : clock.toServerTime(clientMs)) + ttlMs);
+    }
+
+    /**
+     * 判断命令是否应因过期被丢弃，并计数
+     */
+    public boolean shouldDiscard(ControlCommand command, long nowMs) {
+        if (command.isStopCommand() || command.getExpiresAt() == null || nowMs <= command.getExpiresAt()) {
+            return false;
+        }
+        expiredTotal.increment();
+        expiredByCommand.computeIfAbsent(command.getCommand().toUpperCase(), c -> new LongAdder()).increment();
+        return true;
+    }
+
+    public long getPingIntervalMs() {
+        return pingIntervalMs;
+    }
+
+    public long getExpiredTotal() {
+        return expiredTotal.sum();
+    }
+
+    /**
+     * 过期统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Long> byCommand = new HashMap<>();
+        expiredByCommand.forEach((command, count) -> byCommand.put(command, count.sum()));
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("ttlMs", ttlMs);
+        stats.put("expiredTotal", expiredTotal.sum());
+        stats.put("expiredByCommand", byCommand);
+        return stats;
+    }
+}
@@ -0,0 +1,390 @@
+package com.intelligentcar.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import com.intelligentcar.logging.LogSampler;
+import com.intelligentcar.model.ControlCommand;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 小车硬件设备会话注册表
+ *
+ * 每辆车最多一个设备连接（/ws/device/{vehicleId}），与浏览器操作端分开。
+ * 设备握手时须带上 car.device.tokens 中为该车配置的令牌，未配置令牌的小车不接受设备连接；
+ * 已有设备在线时拒绝新的连接，不会踢掉正在使用的连接。
+ * 下发给设备的命令带单调递增序号，设备回复 {"type":"ACK","seq":n} 确认；
+ * 超过确认超时仍未确认的命令会被重传，超过最大重传次数后放弃并计数。
+ * 没有设备在线的小车（如仿真小车、UDP小车）不排队；设备断线时未确认的命令作废并计入放弃数，
+ * 重连后不会重放断线前的旧命令。
+ * 登记的设备连接包一层ConcurrentWebSocketSessionDecorator，超过发送时限或缓冲上限的设备连接
+ * 被直接关闭，下发和重传不会卡在一个写不动的连接上。
+ */
+@Service
+public class DeviceSessionRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceSessionRegistry.class);
+    private static final LogSampler SEND_ERROR_SAMPLER = new LogSampler(1, 5);
+    private static final LogSampler DROP_SAMPLER = new LogSampler(1, 5);
+
+    private final Map<String, DeviceChannel> channels = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> deviceTokens = new HashMap<>();
+    private final ObjectMapper objectMapper;
+    private final long ackTimeoutNanos;
+    private final long retransmitCheckMs;
+    private final int maxRetries;
+    private final int sendTimeLimitMs;
+    private final int sendBufferSizeLimit;
+
+    private ScheduledExecutorService retransmitExecutor;
+
+    // 统计数据
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong ackedCount = new AtomicLong();
+    private final AtomicLong retransmitCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong totalAckNanos = new AtomicLong();
+    private final AtomicLong maxAckNanos = new AtomicLong();
+
+    public DeviceSessionRegistry(@Value("${car.device.ack-timeout-ms:100}") long ackTimeoutMs,
+                                 @Value("${car.device.retransmit-check-ms:20}") long retransmitCheckMs,
+                                 @Value("${car.device.max-retries:5}") int maxRetries,
+                                 @Value("${car.device.tokens:}") String tokens,
+                                 @Value("${car.device.send-time-limit-ms:1000}") int sendTimeLimitMs,
+                                 @Value("${car.device.send-buffer-size-limit:65536}") int sendBufferSizeLimit) {
+        this.ackTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(ackTimeoutMs);
+        this.retransmitCheckMs = retransmitCheckMs;
+        this.maxRetries = maxRetries;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        parseTokens(tokens);
+    }
+
+    /**
+     * 解析 "car-2=令牌,car-3=令牌"
+     */
+    private void parseTokens(String tokens) {
+        if (tokens == null || tokens.isBlank()) {
+            return;
+        }
+        for (String entry : tokens.split(",")) {
+            int eq = entry.indexOf('=');
+            if (eq <= 0 || eq == entry.length() - 1) {
+                continue;
+            }
+            deviceTokens.put(entry.substring(0, eq).trim(),
+                    entry.substring(eq + 1).trim().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 校验设备令牌（定长比较），该车未配置令牌时一律拒绝
+     */
+    public boolean authenticate(String vehicleId, String token) {
+        byte[] expected = deviceTokens.get(vehicleId);
+        return expected != null && token != null
+                && MessageDigest.isEqual(expected, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @PostConstruct
+    public void start() {
+        retransmitExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "device-retransmit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retransmitExecutor.scheduleAtFixedRate(this::retransmitExpired,
+                retransmitCheckMs, retransmitCheckMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (retransmitExecutor != null) {
+            retransmitExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 设备上线，返回带发送限制的包装会话，之后往设备发消息都要经过它。
+     * 该车已有设备在线时不替换，返回null，由调用方关闭新连接
+     */
+    public WebSocketSession registerDevice(String vehicleId, WebSocketSession session) {
+        DeviceChannel channel = channels.computeIfAbsent(vehicleId, DeviceChannel::new);
+        synchronized (channel) {
+            WebSocketSession current = channel.session;
+            if (current != null && current.isOpen() && !current.getId().equals(session.getId())) {
+                return null;
+            }
+            channel.session = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, sendBufferSizeLimit);
+            return channel.session;
+        }
+    }
+
+    /**
+     * 设备下线（只有当前连接断开时才清除），未确认的命令作废
+     */
+    public void removeDevice(String vehicleId, WebSocketSession session) {
+        DeviceChannel channel = channels.get(vehicleId);
+        if (channel != null) {
+            synchronized (channel) {
+                WebSocketSession current = channel.session;
+                if (current != null && current.getId().equals(session.getId())) {
+                    channel.session = null;
+                    droppedCount.addAndGet(channel.pending.size());
+                    channel.pending.clear();
+                }
+            }
+        }
+    }
+
+    public boolean isDeviceConnected(String vehicleId) {
+        DeviceChannel channel = channels.get(vehicleId);
+        WebSocketSession session = channel == null ? null : channel.session;
+        return session != null && session.isOpen();
+    }
+
+    public boolean isAnyDeviceConnected() {
+        for (String vehicleId : channels.keySet()) {
+            if (isDeviceConnected(vehicleId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 分配序号并下发命令，返回序号；该车没有设备在线时不排队，返回-1
+     */
+    public long send(String vehicleId, ControlCommand command) {
+        DeviceChannel channel = channels.get(vehicleId);
+        if (channel == null) {
+            return -1;
+        }
+        synchronized (channel) {
+            if (channel.session == null) {
+                return -1;
+            }
+            long seq = channel.nextSeq++;
+            Map<String, Object> envelope = command.toMap();
+            envelope.remove("localDateTime");
+            envelope.put("type", "COMMAND");
+            envelope.put("seq", seq);
+            String json;
+            try {
+                json = objectMapper.writeValueAsString(envelope);
+            } catch (IOException e) {
+                log.error("序列化设备命令失败: {}", e.getMessage());
+                return -1;
+            }
+            PendingCommand pending = new PendingCommand(seq, json);
+            channel.pending.put(seq, pending);
+            sentCount.incrementAndGet();
+            transmit(channel, pending, false);
+            return seq;
+        }
+    }
+
+    /**
+     * 处理设备确认
+     */
+    public void acknowledge(String vehicleId, long seq) {
+        DeviceChannel channel = channels.get(vehicleId);
+        if (channel == null) {
+            return;
+        }
+        PendingCommand pending = channel.pending.remove(seq);
+        if (pending != null) {
+            long rtt = System.nanoTime() - pending.firstSentNanos;
+            ackedCount.incrementAndGet();
+            totalAckNanos.addAndGet(rtt);
+            maxAckNanos.accumulateAndGet(rtt, Math::max);
+        }
+    }
+
+    /**
+     * 重传超过确认超时的命令
+     */
+    private void retransmitExpired() {
+        long now = System.nanoTime();
+        for (DeviceChannel channel : channels.values()) {
+            if (channel.pending.isEmpty()) {
+                continue;
+            }
+            synchronized (channel) {
+                Iterator<PendingCommand> it = channel.pending.values().iterator();
+                while (it.hasNext()) {
+                    PendingCommand pending = it.next();
+                    if (now - pending.lastSentNanos < ackTimeoutNanos) {
+                        continue;
+                    }
+                    if (pending.attempts > maxRetries) {
+                        it.remove();
+                        droppedCount.incrementAndGet();
+                        long skipped = DROP_SAMPLER.acquire();
+                        if (skipped >= 0) {
+                            log.warn("设备命令未确认，放弃重传[{}] seq={}{}", channel.vehicleId, pending.seq,
+                                    LogSampler.suffix(skipped));
+                        }
+                        continue;
+                    }
+                    transmit(channel, pending, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * 发送到当前设备连接（调用方持有channel锁）
+     */
+    private void transmit(DeviceChannel channel, PendingCommand pending, boolean retransmit) {
+        pending.lastSentNanos = System.nanoTime();
+        pending.attempts++;
+        WebSocketSession session = channel.session;
+        if (session == null || !session.isOpen()) {
+            return;
+        }
+        if (retransmit) {
+            retransmitCount.incrementAndGet();
+        }
+        try {
+            session.sendMessage(new TextMessage(pending.json));
+        } catch (IOException | SessionLimitExceededException e) {
+            long skipped = SEND_ERROR_SAMPLER.acquire();
+            if (skipped >= 0) {
+                log.warn("发送设备命令失败[{}]: {}{}", channel.vehicleId, e.getMessage(), LogSampler.suffix(skipped));
+            }
+        }
+    }
+
+    /**
+     * 未确认命令数
+     */
+    public int getPendingCount(String vehicleId) {
+        DeviceChannel channel = channels.get(vehicleId);
+        return channel == null ? 0 : channel.pending.size();
+    }
+
+    /**
+     * 所有小车未确认命令总数
+     */
+    public int getTotalPending() {
+        int pending = 0;
+        for (DeviceChannel channel : channels.values()) {
+            pending += channel.pending.size();
+        }
+        return pending;
+    }
+
+    /**
+     * 单辆车最大的未确认命令数（最慢的设备）
+     */
+    public int getMaxPending() {
+        int max = 0;
+        for (DeviceChannel channel : channels.values()) {
+            max = Math.max(max, channel.pending.size());
+        }
+        return max;
+    }
+
+    public int getConnectedDeviceCount() {
+        int connected = 0;
+        for (DeviceChannel channel : channels.values()) {
+            if (channel.session != null && channel.session.isOpen()) {
+                connected++;
+            }
+        }
+        return connected;
+    }
+
+    public long getSentCount() { return sentCount.get(); }
+
+    public long getAckedCount() { return ackedCount.get(); }
+
+    public long getRetransmitCount() { return retransmitCount.get(); }
+
+    public long getDroppedCount() { return droppedCount.get(); }
+
+    public long getTotalAckNanos() { return totalAckNanos.get(); }
+
+    /**
+     * 设备通道统计
+     */
+    public Map<String, Object> getStats() {
+        long acked = ackedCount.get();
+        int pending = 0;
+        int connected = 0;
+        for (DeviceChannel channel : channels.values()) {
+            pending += channel.pending.size();
+            if (channel.session != null && channel.session.isOpen()) {
+                connected++;
+            }
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("connectedDevices", connected);
+        stats.put("sent", sentCount.get());
+        stats.put("acked", acked);
+        stats.put("pending", pending);
+        stats.put("retransmits", retransmitCount.get());
+        stats.put("dropped", droppedCount.get());
+        stats.put("avgAckMillis", acked > 0 ? totalAckNanos.get() / 1e6 / acked : 0.0);
+        stats.put("maxAckMillis", maxAckNanos.get() / 1e6);
+        stats.put("ackTimeoutMs", TimeUnit.NANOSECONDS.toMillis(ackTimeoutNanos));
+        return stats;
+    }
+
+    /**
+     * 单辆车的设备通道
+     */
+    private static class DeviceChannel {
+        private final String vehicleId;
+        private final ConcurrentSkipListMap<Long, PendingCommand> pending = new ConcurrentSkipListMap<>();
+        private volatile WebSocketSession session;
+        private long nextSeq = 1;
+
+        DeviceChannel(String vehicleId) {
+            this.vehicleId = vehicleId;
+        }
+    }
+
+    /**
+     * 等待确认的命令
+     */
+    private static class PendingCommand {
+        private final long seq;
+        private final String json;
+        private final long firstSentNanos;
+        private long lastSentNanos;
+        private int attempts;
+
+        PendingCommand(long seq, String json) {
+            this.seq = seq;
+            this.json = json;
+            this.firstSentNanos = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.intelligentcar.service;
+
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.intelligentcar.mapping.OccupancyGrid;
+import com.intelligentcar.model.CarStatus;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 占据栅格建图
+ *
+ * 每次小车上报带位姿的遥测时（在该车的锁内，读数与位姿来自同一次上报），把前/左/右三条射线
+ * 从传感器位置积分进该车的占据栅格。只有带位姿的小车才建图。
+ * 积分用原始读数：滤波值带有之前位置的读数，和当前位姿对不上，会把障碍物拖出拖影；
+ * 单次读数的噪声由对数几率的多次累积平均掉。
+ * 地图以PNG块或二进制增量流提供给前端。
+ */
+@Service
+public class OccupancyMapService {
+
+    private final CarControlService carControlService;
+    private final boolean enabled;
+    private final double resolutionCm;
+    private final int maxTiles;
+    private final double sensorOffsetCm;
+    private final double maxRangeCm;
+    private final float hitLogOdds;
+    private final float missLogOdds;
+    private final float clampLogOdds;
+
+    private final Map<String, OccupancyGrid> grids = new ConcurrentHashMap<>();
+
+    public OccupancyMapService(CarControlService carControlService,
+                               @Value("${car.mapping.enabled:true}") boolean enabled,
+                               @Value("${car.mapping.resolution-cm:5}") double resolutionCm,
+                               @Value("${car.mapping.max-tiles:256}") int maxTiles,
+                               @Value("${car.mapping.sensor-offset-cm:10}") double sensorOffsetCm,
+                               @Value("${car.mapping.max-range-cm:400}") double maxRangeCm,
+                               @Value("${car.mapping.hit-log-odds:0.85}") float hitLogOdds,
+                               @Value("${car.mapping.miss-log-odds:0.4}") float missLogOdds,
+                               @Value("${car.mapping.clamp-log-odds:3.5}") float clampLogOdds) {
+        this.carControlService = carControlService;
+        this.enabled = enabled;
+        this.resolutionCm = resolutionCm;
+        this.maxTiles = maxTiles;
+        this.sensorOffsetCm = sensorOffsetCm;
+        this.maxRangeCm = maxRangeCm;
+        this.hitLogOdds = hitLogOdds;
+        this.missLogOdds = missLogOdds;
+        this.clampLogOdds = clampLogOdds;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            carControlService.addSensorObserver(this::integrate);
+        }
+    }
+
+    /**
+     * 把一次距离读数积分进地图（距离从车身边缘起算，传感器位于车身中心偏移sensorOffset处）
+     */
+    void integrate(String vehicleId, CarStatus status) {
+        Double x = status.getPositionX();
+        Double y = status.getPositionY();
+        Double heading = status.getHeading();
+        if (x == null || y == null || heading == null) {
+            return;
+        }
+        OccupancyGrid grid = grid(vehicleId);
+        double theta = Math.toRadians(heading);
+        integrateRay(grid, x, y, theta, status.getRawFrontDistance());
+        integrateRay(grid, x, y, theta + Math.PI / 2, status.getRawLeftDistance());
+        integrateRay(grid, x, y, theta - Math.PI / 2, status.getRawRightDistance());
+    }
+
+    private void integrateRay(OccupancyGrid grid, double x, double y, double angle, Integer distance) {
+        if (distance == null) {
+            return;
+        }
+        double ox = x + Math.cos(angle) * sensorOffsetCm;
+        double oy = y + Math.sin(angle) * sensorOffsetCm;
+        grid.integrateRay(ox, oy, angle, distance, maxRangeCm);
+    }
+
+    private OccupancyGrid grid(String vehicleId) {
+        return grids.computeIfAbsent(CarControlService.resolveVehicleId(vehicleId),
+                id -> new OccupancyGrid(resolutionCm, maxTiles, hitLogOdds, missLogOdds, clampLogOdds));
+    }
+
+    /**
+     * 渲染一块为灰度PNG：占据为黑，空闲为白，未知为中灰；图像上方为y大的一侧。
+     * 块不存在时返回null
+     */
+    public byte[] renderTilePng(String vehicleId, int tx, int ty) throws IOException {
+        OccupancyGrid grid = grids.get(CarControlService.resolveVehicleId(vehicleId));
+        byte[] cells = grid == null ? null : grid.encodeTile(tx, ty);
+        if (cells == null) {
+            return null;
+        }
+        int size = OccupancyGrid.TILE_SIZE;
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        for (int row = 0; row < size; row++) {
+            int imageRow = size - 1 - row;
+            for (int col = 0; col < size; col++) {
+                int cell = cells[row * size + col] & 0xFF;
+                int gray = cell == OccupancyGrid.UNKNOWN_CELL ? 128 : 255 - cell * 255 / 254;
+                pixels[imageRow * size + col] = (byte) gray;
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * sinceVersion之后改过的块（二进制增量，格式见OccupancyGrid.writeDelta）
+     */
+    public byte[] delta(String vehicleId, long sinceVersion) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        grid(vehicleId).writeDelta(sinceVersion, out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 清空小车的地图
+     */
+    public void clear(String vehicleId) {
+        OccupancyGrid grid = grids.get(CarControlService.resolveVehicleId(vehicleId));
+        if (grid != null) {
+            grid.clear();
+        }
+    }
+
+    /**
+     * 建图统计
+     */
+    public Map<String, Object> getStats(String vehicleId) {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("resolutionCm", resolutionCm);
+        stats.put("tileSize", OccupancyGrid.TILE_SIZE);
+        stats.put("maxTiles", maxTiles);
+        OccupancyGrid grid = grids.get(CarControlService.resolveVehicleId(vehicleId));
+        if (grid != null) {
+            stats.put("version", grid.getVersion());
+            stats.put("tiles", grid.getTileCount());
+            stats.put("memoryBytes", grid.getTileCount() * OccupancyGrid.tileBytes());
+            stats.put("evictions", grid.getEvictions());
+            stats.put("raysIntegrated", grid.getRaysIntegrated());
+            stats.put("cellsUpdated", grid.getCellsUpdated());
+        }
+        return stats;
+    }
+}
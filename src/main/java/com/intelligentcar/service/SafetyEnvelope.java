@@ -0,0 +1,98 @@
+package com.intelligentcar.service;
+
+import com.intelligentcar.model.CarStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 安全包络计算
+ *
+ * 根据速度计算停车距离：反应距离 + 制动距离 + 安全余量，
+ * 即 d = v·t + v²/(2a) + margin。
+ * 速度单位为百分比（0-100），通过最大速度换算为 cm/s。
+ * 距离读数小于等于0视为无有效读数，不做限制。
+ * 安全判断用原始读数和滤波值中较近的一个：中值滤波会把突然出现的障碍物压住几个采样，
+ * 滤波值只给界面和自动驾驶用。
+ */
+@Component
+public class SafetyEnvelope {
+
+    private final double maxSpeedCmPerSec;
+    private final double decelerationCmPerSec2;
+    private final double reactionTimeSec;
+    private final double marginCm;
+    private final int minClampSpeed;
+
+    public SafetyEnvelope(@Value("${car.safety.max-speed-cm-per-sec:100}") double maxSpeedCmPerSec,
+                          @Value("${car.safety.deceleration-cm-per-sec2:200}") double decelerationCmPerSec2,
+                          @Value("${car.safety.reaction-time-ms:100}") long reactionTimeMs,
+                          @Value("${car.safety.margin-cm:10}") double marginCm,
+                          @Value("${car.safety.min-clamp-speed:10}") int minClampSpeed) {
+        this.maxSpeedCmPerSec = maxSpeedCmPerSec;
+        this.decelerationCmPerSec2 = decelerationCmPerSec2;
+        this.reactionTimeSec = reactionTimeMs / 1000.0;
+        this.marginCm = marginCm;
+        this.minClampSpeed = minClampSpeed;
+    }
+
+    /**
+     * 指定速度下的停车距离（厘米）
+     */
+    public double stoppingDistanceCm(int speedPercent) {
+        double v = toCmPerSec(speedPercent);
+        return v * reactionTimeSec + v * v / (2 * decelerationCmPerSec2) + marginCm;
+    }
+
+    /**
+     * 给定前方距离下允许的最大速度（百分比）
+     * 由 v·t + v²/(2a) = d - margin 解出 v
+     */
+    public int maxSafeSpeed(int frontDistanceCm) {
+        if (frontDistanceCm <= 0) {
+            return 100;
+        }
+        double usable = frontDistanceCm - marginCm;
+        if (usable <= 0) {
+            return 0;
+        }
+        double a = decelerationCmPerSec2;
+        double t = reactionTimeSec;
+        double v = a * (-t + Math.sqrt(t * t + 2 * usable / a));
+        int percent = (int) Math.floor(v / maxSpeedCmPerSec * 100);
+        return Math.max(0, Math.min(100, percent));
+    }
+
+    /**
+     * 前进命令是否在安全包络内
+     */
+    public boolean isForwardAllowed(int speedPercent, int frontDistanceCm) {
+        return frontDistanceCm <= 0 || speedPercent <= maxSafeSpeed(frontDistanceCm);
+    }
+
+    /**
+     * 用于安全判断的前方距离：原始读数和滤波值中较近的有效读数，都无效时为0
+     */
+    public static int frontDistanceForSafety(CarStatus status) {
+        return nearest(status.getRawFrontDistance(), status.getFrontDistance());
+    }
+
+    private static int nearest(Integer raw, Integer filtered) {
+        int a = raw == null ? 0 : raw;
+        int b = filtered == null ? 0 : filtered;
+        if (a <= 0) {
+            return Math.max(0, b);
+        }
+        return b <= 0 ? a : Math.min(a, b);
+    }
+
+    /**
+     * 低于该速度时不再限速，直接紧急停止
+     */
+    public int getMinClampSpeed() {
+        return minClampSpeed;
+    }
+
+    private double toCmPerSec(int speedPercent) {
+        return Math.max(0, speedPercent) * maxSpeedCmPerSec / 100.0;
+    }
+}
@@ -0,0 +1,93 @@
+package com.intelligentcar.service;
+
+/**
+ * 命令序号滑动窗口（单个操作端、单个小车）
+ *
+ * 以最大已见序号为窗口右沿，用一个64位位图记录右沿往前64个序号是否已处理，
+ * 判重、判乱序都是O(1)，不为每条命令建表项。
+ *
+ * - 新序号（大于右沿）：执行，窗口右移
+ * - 窗口内已见的序号：重复，不执行
+ * - 窗口内未见的序号：乱序迟到，已被更新的命令取代；行驶命令不执行，停止命令仍执行
+ * - 落在窗口左侧的序号：过旧，不执行
+ * - 小于1的序号：同过旧处理，不参与窗口计算（避免差值溢出后改写位图）
+ *
+ * 被取代的序号也记为已处理，因此"最大连续已处理序号"在乱序后仍能前进，
+ * 客户端重连或超时重试时从该序号之后续发即可。
+ *
+ * 筛查时在copy()上试算，命令真正执行（或确定被取代）之后才在本窗口上登记；
+ * 被拒绝、过期或限流的命令不登记，客户端可以用同一序号重发。
+ */
+public class SequenceWindow {
+
+    public static final int WINDOW_SIZE = Long.SIZE;
+
+    public enum Verdict {
+        NEW, DUPLICATE, SUPERSEDED, STALE
+    }
+
+    // 最大已见序号，0表示尚未收到（序号从1开始）
+    private long highest;
+    // 第i位表示序号 highest - i 已处理
+    private long bitmap;
+    // 最大连续已处理序号
+    private long contiguous;
+
+    /**
+     * 判定并登记一个序号
+     */
+    public synchronized Verdict accept(long seq) {
+        if (seq < 1) {
+            return Verdict.STALE;
+        }
+        if (seq > highest) {
+            long shift = seq - highest;
+            bitmap = shift >= WINDOW_SIZE ? 1L : (bitmap << shift) | 1L;
+            highest = seq;
+            advanceContiguous();
+            return Verdict.NEW;
+        }
+        long offset = highest - seq;
+        if (offset >= WINDOW_SIZE) {
+            return Verdict.STALE;
+        }
+        long mask = 1L << offset;
+        if ((bitmap & mask) != 0) {
+            return Verdict.DUPLICATE;
+        }
+        bitmap |= mask;
+        advanceContiguous();
+        return Verdict.SUPERSEDED;
+    }
+
+    /**
+     * 推进连续序号，滑出窗口的空洞视为永久丢失
+     */
+    private void advanceContiguous() {
+        if (highest - contiguous > WINDOW_SIZE) {
+            contiguous = highest - WINDOW_SIZE;
+        }
+        while (contiguous < highest && (bitmap & (1L << (highest - contiguous - 1))) != 0) {
+            contiguous++;
+        }
+    }
+
+    /**
+     * 当前状态的副本，用于试算一批序号而不影响本窗口
+     */
+    public synchronized SequenceWindow copy() {
+        SequenceWindow copy = new SequenceWindow();
+        copy.highest = highest;
+        copy.bitmap = bitmap;
+        copy.contiguous = contiguous;
+        return copy;
+    }
+
+    public synchronized long getHighestContiguous() {
+        return contiguous;
+    }
+
+    public synchronized long getHighest() {
+        return highest;
+    }
+}
@@ -2,8 +2,17 @@
 package com.intelligentcar.service;
 
 import org.springframework.stereotype.Service;
+
+import com.intelligentcar.metrics.CarMetrics;
+import com.intelligentcar.simulation.SensorReading;
+import com.intelligentcar.simulation.VehicleSimulator;
+import com.intelligentcar.simulation.World;
+
 import javax.imageio.ImageIO;
 import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -13,15 +22,39 @@ import java.util.Random;
 @Service
 public class SimulatedVideoService {
 
+    // 俯视跟车视角比例（像素/厘米）
+    private static final double VIEW_SCALE = 0.8;
+
+    private final SimulationService simulationService;
+    private final CarMetrics metrics;
     private final Random random = new Random();
     private int frameCount = 0;
     private long lastFrameTime = System.currentTimeMillis();
     private boolean isRecording = false;
 
+    public SimulatedVideoService(SimulationService simulationService, CarMetrics metrics) {
+        this.simulationService = simulationService;
+        this.metrics = metrics;
+    }
+
     /**
-     * 生成模拟视频帧
+     * 生成模拟视频帧（渲染和JPEG编码分别计时）
      */
     public byte[] generateVideoFrame(int width, int height) {
+        long start = System.nanoTime();
+        BufferedImage image = simulationService.isEnabled()
+                ? renderWorldView(width, height) : renderSyntheticView(width, height);
+        long rendered = System.nanoTime();
+        byte[] jpeg = encodeJpeg(image);
+        metrics.recordFrameRender(rendered - start);
+        metrics.recordFrameEncode(System.nanoTime() - rendered);
+        return jpeg;
+    }
+
+    /**
+     * 仿真关闭时的合成画面
+     */
+    private BufferedImage renderSyntheticView(int width, int height) {
         BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
         Graphics2D g2d = image.createGraphics();
 
@@ -89,7 +122,103 @@ public class SimulatedVideoService {
 
         g2d.dispose();
         frameCount++;
+        return image;
+    }
+
+    /**
+     * 根据仿真世界渲染俯视跟车视角：小车位于画面下方中央，车头朝上
+     */
+    private BufferedImage renderWorldView(int width, int height) {
+        VehicleSimulator simulator = simulationService.getSimulator();
+        World world = simulationService.getWorld();
+        double carX = simulator.getX();
+        double carY = simulator.getY();
+        double heading = simulator.getHeading();
+        SensorReading reading = simulator.readSensors();
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setColor(new Color(50, 50, 50));
+        g2d.fillRect(0, 0, width, height);
+
+        int screenX = width / 2;
+        int screenY = height - 60;
+
+        // 世界坐标 -> 屏幕坐标：平移到小车、旋转使航向朝上、翻转y轴
+        AffineTransform screen = g2d.getTransform();
+        g2d.translate(screenX, screenY);
+        g2d.scale(VIEW_SCALE, -VIEW_SCALE);
+        g2d.rotate(Math.PI / 2 - heading);
+        g2d.translate(-carX, -carY);
+        g2d.setStroke(new BasicStroke((float) (3 / VIEW_SCALE)));
+
+        // 只查询可视范围内的网格
+        double radius = Math.hypot(width, height) / VIEW_SCALE;
+        world.visitRect(carX - radius, carY - radius, carX + radius, carY + radius, new World.ShapeVisitor() {
+            @Override
+            public void segment(double x1, double y1, double x2, double y2) {
+                g2d.setColor(new Color(255, 100, 100));
+                g2d.draw(new Line2D.Double(x1, y1, x2, y2));
+            }
+
+            @Override
+            public void circle(double cx, double cy, double r) {
+                g2d.setColor(new Color(255, 180, 80));
+                g2d.fill(new Ellipse2D.Double(cx - r, cy - r, r * 2, r * 2));
+            }
+        });
+
+        // 车队中的其他仿真小车
+        double body = simulator.getParams().getBodyRadius();
+        g2d.setColor(new Color(180, 120, 255));
+        for (String otherId : simulationService.getVehicleIds()) {
+            VehicleSimulator other = simulationService.getSimulator(otherId);
+            if (other != simulator && Math.abs(other.getX() - carX) < radius && Math.abs(other.getY() - carY) < radius) {
+                g2d.fill(new Ellipse2D.Double(other.getX() - body, other.getY() - body, body * 2, body * 2));
+            }
+        }
+
+        // 超声波射线
+        g2d.setColor(Color.GREEN);
+        g2d.setStroke(new BasicStroke((float) (1 / VIEW_SCALE)));
+        drawRay(g2d, carX, carY, heading, reading.getFront() + body);
+        drawRay(g2d, carX, carY, heading + Math.PI / 2, reading.getLeft() + body);
+        drawRay(g2d, carX, carY, heading - Math.PI / 2, reading.getRight() + body);
+        g2d.setTransform(screen);
+
+        // 小车
+        int carSize = (int) (body * 2 * VIEW_SCALE);
+        g2d.setColor(new Color(100, 200, 255));
+        g2d.fillRect(screenX - carSize / 2, screenY - carSize / 2, carSize, carSize);
+
+        // 叠加信息
+        g2d.setColor(Color.GREEN);
+        g2d.drawString(String.format("前方距离: %.0fcm  左: %.0fcm  右: %.0fcm",
+                reading.getFront(), reading.getLeft(), reading.getRight()), 20, 30);
+        g2d.drawString(String.format("当前速度: %.0fcm/s", Math.abs(simulator.getVelocity())), 20, 60);
+        g2d.drawString(String.format("位置: (%.0f, %.0f)  航向: %.0f°", carX, carY, Math.toDegrees(heading)), 20, 90);
+
+        g2d.setColor(Color.YELLOW);
+        g2d.drawString("仿真时间: " + String.format("%.2fs", simulator.getSimTimeNanos() / 1e9), 20, height - 20);
+
+        if (isRecording) {
+            g2d.setColor(Color.RED);
+            g2d.fillOval(width - 40, 10, 10, 10);
+            g2d.setColor(Color.WHITE);
+            g2d.drawString("录制中", width - 80, 20);
+        }
+
+        g2d.dispose();
+        frameCount++;
+        return image;
+    }
 
+    private void drawRay(Graphics2D g2d, double x, double y, double angle, double length) {
+        g2d.draw(new Line2D.Double(x, y, x + Math.cos(angle) * length, y + Math.sin(angle) * length));
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) {
         try {
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
             ImageIO.write(image, "JPEG", baos);
@@ -116,10 +245,20 @@ public class SimulatedVideoService {
         byte[] frame = generateVideoFrame(width, height);
         String base64Frame = Base64.getEncoder().encodeToString(frame);
 
-        // 模拟传感器数据
-        double leftDistance = 50 + 20 * Math.sin(frameCount * 0.05);
-        double rightDistance = 50 + 20 * Math.cos(frameCount * 0.05);
-        double frontDistance = 100 - (frameCount % 100);
+        // 传感器数据：仿真启用时来自世界射线检测，否则为模拟波形
+        double leftDistance;
+        double rightDistance;
+        double frontDistance;
+        if (simulationService.isEnabled()) {
+            SensorReading reading = simulationService.getSimulator().readSensors();
+            leftDistance = reading.getLeft();
+            rightDistance = reading.getRight();
+            frontDistance = reading.getFront();
+        } else {
+            leftDistance = 50 + 20 * Math.sin(frameCount * 0.05);
+            rightDistance = 50 + 20 * Math.cos(frameCount * 0.05);
+            frontDistance = 100 - (frameCount % 100);
+        }
 
         return String.format(
                 "{\"type\":\"video_frame\",\"frame\":\"%s\",\"sensors\":{\"left\":%.1f,\"right\":%.1f,\"front\":%.1f}}",
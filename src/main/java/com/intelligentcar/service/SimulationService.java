@@ -0,0 +1,289 @@
+package com.intelligentcar.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import com.intelligentcar.model.CarStatus;
+import com.intelligentcar.simulation.FleetSimulationScheduler;
+import com.intelligentcar.simulation.SensorReading;
+import com.intelligentcar.simulation.VehicleParameters;
+import com.intelligentcar.simulation.VehicleSimulator;
+import com.intelligentcar.simulation.World;
+import com.intelligentcar.simulation.WorldLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 仿真车队服务
+ *
+ * 每辆仿真小车作为一辆"虚拟硬件"接入CarControlService：接收下发给它的控制命令，
+ * 按挂钟时间实时推进运动学仿真，并把位姿和传感器读数回写到小车状态。
+ * 多辆车在ForkJoinPool上并行步进，共享同一个只读世界。
+ */
+@Service
+public class SimulationService {
+
+    private static final Logger log = LoggerFactory.getLogger(SimulationService.class);
+
+    private static final int MAX_CATCH_UP_STEPS = 50;
+    private static final double SPAWN_SPACING_CM = 100;
+
+    private final CarControlService carControlService;
+    private final World world;
+    private final boolean enabled;
+    private final long tickMs;
+    private final int parallelism;
+    private final int batchSize;
+    private final double startX;
+    private final double startY;
+    private final double startHeading;
+
+    // 小车ID -> 仿真器（保持插入顺序，第一辆为默认小车）
+    private final Map<String, VehicleSimulator> simulators = new LinkedHashMap<>();
+    private final Map<String, double[]> spawnPoses = new HashMap<>();
+    private final List<String> vehicleIds = new ArrayList<>();
+
+    private ForkJoinPool stepPool;
+    private FleetSimulationScheduler scheduler;
+    private ScheduledExecutorService simulationExecutor;
+    private long lastTickNanos;
+
+    public SimulationService(CarControlService carControlService,
+                             ResourceLoader resourceLoader,
+                             @Value("${car.simulation.enabled:true}") boolean enabled,
+                             @Value("${car.simulation.vehicle-count:1}") int vehicleCount,
+                             @Value("${car.simulation.parallelism:0}") int parallelism,
+                             @Value("${car.simulation.batch-size:8}") int batchSize,
+                             @Value("${car.simulation.step-ms:10}") long stepMs,
+                             @Value("${car.simulation.tick-ms:20}") long tickMs,
+                             @Value("${car.simulation.world-file:}") String worldFile,
+                             @Value("${car.simulation.arena-width-cm:1000}") double arenaWidth,
+                             @Value("${car.simulation.arena-height-cm:1000}") double arenaHeight,
+                             @Value("${car.simulation.start-x-cm:500}") double startX,
+                             @Value("${car.simulation.start-y-cm:500}") double startY,
+                             @Value("${car.simulation.start-heading-deg:90}") double startHeadingDeg) {
+        this.carControlService = carControlService;
+        this.enabled = enabled;
+        this.tickMs = tickMs;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.batchSize = batchSize;
+        this.world = loadWorld(resourceLoader, worldFile, arenaWidth, arenaHeight);
+
+        // 世界文件中的起始位姿优先
+        double[] startPose = world.getStartPose();
+        this.startX = startPose != null ? startPose[0] : startX;
+        this.startY = startPose != null ? startPose[1] : startY;
+        this.startHeading = startPose != null ? startPose[2] : Math.toRadians(startHeadingDeg);
+
+        long stepNanos = TimeUnit.MILLISECONDS.toNanos(stepMs);
+        List<double[]> poses = spawnPoses(Math.max(1, vehicleCount));
+        for (int i = 0; i < poses.size(); i++) {
+            String vehicleId = i == 0 ? CarControlService.DEFAULT_VEHICLE_ID : "car-" + (i + 1);
+            VehicleSimulator simulator = new VehicleSimulator(VehicleParameters.defaults(), world, stepNanos);
+            double[] pose = poses.get(i);
+            simulator.reset(pose[0], pose[1], pose[2]);
+            simulators.put(vehicleId, simulator);
+            spawnPoses.put(vehicleId, pose);
+            vehicleIds.add(vehicleId);
+        }
+    }
+
+    /**
+     * 加载世界文件，未配置或加载失败时使用只有围墙的空场地
+     */
+    private static World loadWorld(ResourceLoader resourceLoader, String worldFile,
+                                   double arenaWidth, double arenaHeight) {
+        if (worldFile != null && !worldFile.isBlank()) {
+            Resource resource = resourceLoader.getResource(worldFile);
+            try (InputStream in = resource.getInputStream()) {
+                World loaded = WorldLoader.load(in);
+                log.info("加载仿真世界: {}, 线段: {}, 圆: {}", worldFile, loaded.getSegmentCount(),
+                        loaded.getCircleCount());
+                return loaded;
+            } catch (IOException e) {
+                log.warn("加载仿真世界失败，使用空场地: {}", e.getMessage());
+            }
+        }
+        return World.builder(arenaWidth, arenaHeight).build();
+    }
+
+    /**
+     * 生成出生位姿：第一辆在起点，其余在网格点上挑选四周有足够空间的位置
+     */
+    private List<double[]> spawnPoses(int count) {
+        List<double[]> poses = new ArrayList<>();
+        poses.add(new double[]{startX, startY, startHeading});
+        double clearance = VehicleParameters.defaults().getBodyRadius() * 3;
+        Random random = new Random(42);
+        for (double y = SPAWN_SPACING_CM / 2; y < world.getHeight() && poses.size() < count; y += SPAWN_SPACING_CM) {
+            for (double x = SPAWN_SPACING_CM / 2; x < world.getWidth() && poses.size() < count; x += SPAWN_SPACING_CM) {
+                if (Math.hypot(x - startX, y - startY) < SPAWN_SPACING_CM || !isClear(x, y, clearance)) {
+                    continue;
+                }
+                poses.add(new double[]{x, y, random.nextDouble() * 2 * Math.PI - Math.PI});
+            }
+        }
+        if (poses.size() < count) {
+            log.warn("仿真世界空间不足，只生成了 {} 辆小车", poses.size());
+        }
+        return poses;
+    }
+
+    private boolean isClear(double x, double y, double clearance) {
+        if (world.isInsideObstacle(x, y)) {
+            return false;
+        }
+        for (int i = 0; i < 8; i++) {
+            if (world.raycast(x, y, i * Math.PI / 4, clearance) < clearance) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("仿真小车已禁用");
+            return;
+        }
+        for (Map.Entry<String, VehicleSimulator> entry : simulators.entrySet()) {
+            carControlService.registerVehicle(entry.getKey());
+            carControlService.addCommandListener(entry.getKey(), entry.getValue()::applyCommand);
+        }
+
+        stepPool = new ForkJoinPool(parallelism);
+        scheduler = new FleetSimulationScheduler(new ArrayList<>(simulators.values()), stepPool,
+                batchSize, MAX_CATCH_UP_STEPS, (index, simulator) -> publish(vehicleIds.get(index), simulator));
+
+        simulationExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "vehicle-simulation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lastTickNanos = System.nanoTime();
+        simulationExecutor.scheduleAtFixedRate(this::tick, 0, tickMs, TimeUnit.MILLISECONDS);
+        log.info("仿真车队已启动: {} 辆，并行度: {}", simulators.size(), parallelism);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (simulationExecutor != null) {
+            simulationExecutor.shutdownNow();
+        }
+        if (stepPool != null) {
+            stepPool.shutdownNow();
+        }
+    }
+
+    private void tick() {
+        try {
+            long now = System.nanoTime();
+            scheduler.tick(now - lastTickNanos);
+            lastTickNanos = now;
+        } catch (Exception e) {
+            log.error("仿真步进异常", e);
+        }
+    }
+
+    /**
+     * 把仿真输出回写到小车状态（在ForkJoin工作线程上执行，只锁该车的分片）
+     */
+    private void publish(String vehicleId, VehicleSimulator simulator) {
+        SensorReading reading = simulator.readSensors();
+        carControlService.updateTelemetry(vehicleId,
+                (int) Math.round(reading.getFront()),
+                (int) Math.round(reading.getLeft()),
+                (int) Math.round(reading.getRight()),
+                simulator.getX(), simulator.getY(), Math.toDegrees(simulator.getHeading()));
+    }
+
+    /**
+     * 把小车放回出生点
+     */
+    public void resetVehicle(String vehicleId) {
+        VehicleSimulator simulator = getSimulator(vehicleId);
+        double[] pose = spawnPoses.get(CarControlService.resolveVehicleId(vehicleId));
+        if (simulator != null && pose != null) {
+            simulator.reset(pose[0], pose[1], pose[2]);
+        }
+    }
+
+    /**
+     * 仿真输出的小车状态（实际速度而非命令速度），非仿真小车返回null
+     */
+    public CarStatus getSimulatedStatus(String vehicleId) {
+        VehicleSimulator simulator = getSimulator(vehicleId);
+        return simulator == null ? null : simulator.toCarStatus();
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * 默认小车的仿真器
+     */
+    public VehicleSimulator getSimulator() {
+        return simulators.get(CarControlService.DEFAULT_VEHICLE_ID);
+    }
+
+    public VehicleSimulator getSimulator(String vehicleId) {
+        return simulators.get(CarControlService.resolveVehicleId(vehicleId));
+    }
+
+    public List<String> getVehicleIds() {
+        return vehicleIds;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 仿真统计
+     */
+    public Map<String, Object> getStats() {
+        long steps = 0;
+        long collisions = 0;
+        double simTime = 0;
+        for (VehicleSimulator simulator : simulators.values()) {
+            steps += simulator.getStepCount();
+            collisions += simulator.getCollisionCount();
+            simTime = Math.max(simTime, simulator.getSimTimeNanos() / 1e9);
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("vehicles", simulators.size());
+        stats.put("simTimeSeconds", simTime);
+        stats.put("steps", steps);
+        stats.put("collisions", collisions);
+        if (scheduler != null) {
+            stats.put("parallelism", scheduler.getParallelism());
+            stats.put("ticks", scheduler.getTickCount());
+            stats.put("lastTickMicros", scheduler.getLastTickNanos() / 1000.0);
+            stats.put("avgTickMicros", scheduler.getAvgTickNanos() / 1000.0);
+            stats.put("maxTickMicros", scheduler.getMaxTickNanos() / 1000.0);
+            stats.put("lastWorstCarStepMicros", scheduler.getLastWorstStepNanos() / 1000.0);
+            stats.put("maxWorstCarStepMicros", scheduler.getMaxWorstStepNanos() / 1000.0);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,398 @@
+package com.intelligentcar.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import com.intelligentcar.exception.UnknownVehicleException;
+import com.intelligentcar.logging.LogSampler;
+import com.intelligentcar.model.CarStatus;
+import com.intelligentcar.scheduler.SessionScheduler;
+import com.intelligentcar.scheduler.SessionTask;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 状态SSE推送
+ *
+ * 每辆车一个有界环，记录最近ring-size个状态版本。小车锁内只取快照，事件文本在第一次发送时
+ * 编码成字节，之后所有订阅者原样写出同一个数组。事件id就是状态版本号：客户端带Last-Event-ID
+ * 重连时，版本仍在环内就只补发错过的版本；已被覆盖或id无效（如服务重启后）则发一次完整快照。
+ * 环在某辆车第一次有人订阅时创建，之后一直记录，订阅者全部断开期间的变化也能补发。
+ * 一次遥测（读数加位姿）只占一个版本，读数不变的静止小车不产生版本；环的容量至少能装下
+ * 两个重连间隔内按遥测频率产生的版本，按建议间隔重连的客户端不会因环被覆盖而退回快照。
+ *
+ * 每个订阅者一个会话调度器上的周期任务，按flush-interval把积压的事件合并成一次写出，
+ * 慢客户端只会跳过周期，不会占住其他订阅者。长时间没有事件时发注释行保活，写失败即移除。
+ */
+@Service
+public class StatusStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(StatusStreamService.class);
+    private static final LogSampler SEND_ERROR_SAMPLER = new LogSampler(1, 5);
+
+    public static final MediaType EVENT_STREAM_UTF8 = new MediaType("text", "event-stream", StandardCharsets.UTF_8);
+
+    private static final String EVENT_STATUS = "status";
+    private static final String EVENT_SNAPSHOT = "snapshot";
+    private static final byte[] KEEPALIVE = ": keepalive\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final CarControlService carControlService;
+    private final SessionScheduler sessionScheduler;
+    private final ObjectMapper objectMapper;
+    private final int ringSize;
+    private final long flushIntervalMs;
+    private final long keepaliveMs;
+    private final byte[] retryLine;
+
+    private final Map<String, StatusRing> rings = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong resumedCount = new AtomicLong();
+    private final AtomicLong snapshotCount = new AtomicLong();
+
+    public StatusStreamService(CarControlService carControlService, SessionScheduler sessionScheduler,
+                               @Value("${car.sse.ring-size:256}") int ringSize,
+                               @Value("${car.sse.flush-interval-ms:100}") long flushIntervalMs,
+                               @Value("${car.sse.keepalive-ms:15000}") long keepaliveMs,
+                               @Value("${car.sse.retry-ms:3000}") long retryMs,
+                               @Value("${car.simulation.tick-ms:20}") long telemetryIntervalMs) {
+        this.carControlService = carControlService;
+        this.sessionScheduler = sessionScheduler;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.ringSize = (int) Math.max(ringSize, 2 * retryMs / Math.max(1, telemetryIntervalMs));
+        if (this.ringSize > ringSize) {
+            log.info("状态SSE版本环按重连间隔{}ms和遥测周期{}ms扩大到{}", retryMs, telemetryIntervalMs, this.ringSize);
+        }
+        this.flushIntervalMs = flushIntervalMs;
+        this.keepaliveMs = keepaliveMs;
+        this.retryLine = ("retry: " + retryMs + "\n\n").getBytes(StandardCharsets.UTF_8);
+        carControlService.addStatusObserver(this::onStatusChanged);
+    }
+
+    /**
+     * 订阅某辆车的状态
+     *
+     * @param lastEventId 客户端最后收到的事件id（Last-Event-ID），没有时为null
+     */
+    public ResponseBodyEmitter subscribe(String vehicleId, String lastEventId) {
+        String id = CarControlService.resolveVehicleId(vehicleId);
+        // 未知小车不建环，也不会新建小车
+        if (!carControlService.hasVehicle(id)) {
+            throw new UnknownVehicleException(id);
+        }
+        // 0表示不超时，连接由客户端断开或保活写失败结束
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(0L);
+        Subscriber subscriber = new Subscriber(id, ring(id), emitter, parseEventId(lastEventId));
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        subscribers.add(subscriber);
+        subscriber.task = sessionScheduler.scheduleAtFixedRate(() -> deliver(subscriber),
+                0, flushIntervalMs, TimeUnit.MILLISECONDS);
+        // 登记任务之前连接可能已经结束
+        if (subscriber.closed) {
+            subscriber.task.cancel();
+        }
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * 带Last-Event-ID重连、只补发了错过版本的次数
+     */
+    public long getResumedCount() {
+        return resumedCount.get();
+    }
+
+    /**
+     * 发送完整快照的次数：新连接、重连时版本已不在环内，或订阅者落后超过一整环
+     */
+    public long getSnapshotCount() {
+        return snapshotCount.get();
+    }
+
+    /**
+     * 取得或创建小车的版本环。创建和放入第一个版本都在小车锁内完成，
+     * 与状态观察者的写入串行，环里的版本没有缺口
+     */
+    private StatusRing ring(String vehicleId) {
+        StatusRing existing = rings.get(vehicleId);
+        if (existing != null) {
+            return existing;
+        }
+        return carControlService.readStatus(vehicleId, status -> rings.computeIfAbsent(vehicleId, id -> {
+            StatusRing ring = new StatusRing(id, ringSize);
+            ring.append(status.getVersion(), status.toMap());
+            return ring;
+        }));
+    }
+
+    /**
+     * 在小车锁内调用，只对有人订阅过的车取快照
+     */
+    private void onStatusChanged(String vehicleId, CarStatus status) {
+        StatusRing ring = rings.get(vehicleId);
+        if (ring != null) {
+            ring.append(status.getVersion(), status.toMap());
+        }
+    }
+
+    /**
+     * 把订阅者还没收到的事件合并成一次写出
+     */
+    private void deliver(Subscriber subscriber) {
+        if (subscriber.closed) {
+            return;
+        }
+        Batch batch = new Batch();
+        boolean first = subscriber.first;
+        if (first) {
+            batch.add(retryLine);
+        }
+        StatusRing ring = subscriber.ring;
+        if (first || subscriber.cursor != ring.latest().version) {
+            if (ring.appendSince(subscriber, batch)) {
+                if (first && subscriber.resuming) {
+                    resumedCount.incrementAndGet();
+                }
+            } else {
+                Entry latest = ring.latest();
+                batch.add(latest.snapshotFrame());
+                subscriber.cursor = latest.version;
+                snapshotCount.incrementAndGet();
+            }
+        }
+        subscriber.first = false;
+
+        long now = System.currentTimeMillis();
+        if (batch.isEmpty()) {
+            if (now - subscriber.lastSendMillis < keepaliveMs) {
+                return;
+            }
+            batch.add(KEEPALIVE);
+        }
+        try {
+            subscriber.emitter.send(batch.bytes(), MediaType.APPLICATION_OCTET_STREAM);
+            subscriber.lastSendMillis = now;
+        } catch (IOException | IllegalStateException e) {
+            long skipped = SEND_ERROR_SAMPLER.acquire();
+            if (skipped >= 0) {
+                log.warn("状态SSE发送失败[{}]: {}{}", subscriber.vehicleId, e.getMessage(), LogSampler.suffix(skipped));
+            }
+            remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribers.remove(subscriber);
+        SessionTask task = subscriber.task;
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
+    private static long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 单个SSE连接
+     */
+    private static final class Subscriber {
+
+        final String vehicleId;
+        final StatusRing ring;
+        final ResponseBodyEmitter emitter;
+        // 连接时带了有效的Last-Event-ID
+        final boolean resuming;
+        volatile SessionTask task;
+        volatile boolean closed;
+        // 以下字段只由该订阅者的周期任务访问，任务不会并发执行
+        // 已发送的最大版本号，-1表示还没有发过
+        long cursor;
+        boolean first = true;
+        long lastSendMillis;
+
+        Subscriber(String vehicleId, StatusRing ring, ResponseBodyEmitter emitter, long cursor) {
+            this.vehicleId = vehicleId;
+            this.ring = ring;
+            this.emitter = emitter;
+            this.cursor = cursor;
+            this.resuming = cursor >= 0;
+            this.lastSendMillis = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 一次写出的内容：只有一段时直接写共享数组，多段时才拼接
+     */
+    private static final class Batch {
+
+        private byte[] single;
+        private ByteArrayOutputStream buffer;
+
+        void add(byte[] bytes) {
+            if (buffer != null) {
+                buffer.writeBytes(bytes);
+            } else if (single == null) {
+                single = bytes;
+            } else {
+                buffer = new ByteArrayOutputStream(single.length + bytes.length);
+                buffer.writeBytes(single);
+                buffer.writeBytes(bytes);
+                single = null;
+            }
+        }
+
+        boolean isEmpty() {
+            return single == null && buffer == null;
+        }
+
+        byte[] bytes() {
+            return buffer != null ? buffer.toByteArray() : single;
+        }
+    }
+
+    /**
+     * 一个状态版本，JSON和事件文本第一次用到时生成，之后所有订阅者共享
+     */
+    private final class Entry {
+
+        final long sequence;
+        final long version;
+        private final String vehicleId;
+        private final Map<String, Object> snapshot;
+        // 并发时可能生成两次，结果相同，无需加锁
+        private volatile String json;
+        private volatile byte[] statusFrame;
+
+        Entry(long sequence, long version, String vehicleId, Map<String, Object> snapshot) {
+            this.sequence = sequence;
+            this.version = version;
+            this.vehicleId = vehicleId;
+            this.snapshot = snapshot;
+        }
+
+        byte[] statusFrame() {
+            byte[] frame = statusFrame;
+            if (frame == null) {
+                frame = frame(EVENT_STATUS);
+                statusFrame = frame;
+            }
+            return frame;
+        }
+
+        byte[] snapshotFrame() {
+            return frame(EVENT_SNAPSHOT);
+        }
+
+        private byte[] frame(String event) {
+            return ("id: " + version + "\nevent: " + event + "\ndata: " + json() + "\n\n")
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+
+        private String json() {
+            String value = json;
+            if (value == null) {
+                Map<String, Object> message = new HashMap<>(snapshot);
+                message.put("vehicleId", vehicleId);
+                try {
+                    value = objectMapper.writeValueAsString(message);
+                } catch (JsonProcessingException e) {
+                    value = "{}";
+                }
+                json = value;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * 单辆车的有界版本环：写入只在小车锁内，读取无锁，读到被覆盖的槽按序号识别
+     */
+    private final class StatusRing {
+
+        private final String vehicleId;
+        private final AtomicReferenceArray<Entry> entries;
+        // 已写入的总条数
+        private volatile long count;
+
+        StatusRing(String vehicleId, int capacity) {
+            this.vehicleId = vehicleId;
+            this.entries = new AtomicReferenceArray<>(capacity);
+        }
+
+        void append(long version, Map<String, Object> snapshot) {
+            long sequence = count;
+            entries.set(slot(sequence), new Entry(sequence, version, vehicleId, snapshot));
+            count = sequence + 1;
+        }
+
+        Entry latest() {
+            return entries.get(slot(count - 1));
+        }
+
+        /**
+         * 追加订阅者错过的版本并推进游标；游标不在环内时返回false，由调用方发快照
+         */
+        boolean appendSince(Subscriber subscriber, Batch batch) {
+            long cursor = subscriber.cursor;
+            if (cursor < 0) {
+                return false;
+            }
+            long end = count;
+            long start = Math.max(0, end - entries.length());
+            Entry oldest = entries.get(slot(start));
+            Entry newest = entries.get(slot(end - 1));
+            // 版本号连续：游标必须在[最老版本-1, 最新版本]之间，否则中间有缺口或来自重启前
+            if (oldest.sequence != start || cursor < oldest.version - 1 || cursor > newest.version) {
+                return false;
+            }
+            for (long sequence = start; sequence < end; sequence++) {
+                Entry entry = entries.get(slot(sequence));
+                if (entry.sequence != sequence) {
+                    // 读的过程中被覆盖，说明落后超过一整环
+                    return false;
+                }
+                if (entry.version > cursor) {
+                    batch.add(entry.statusFrame());
+                    subscriber.cursor = entry.version;
+                }
+            }
+            return true;
+        }
+
+        private int slot(long sequence) {
+            return (int) (sequence % entries.length());
+        }
+    }
+}
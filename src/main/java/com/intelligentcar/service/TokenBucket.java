@@ -0,0 +1,72 @@
+package com.intelligentcar.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶
+ *
+ * 以"理论到达时间"（GCRA）表示桶状态：每取一个令牌，理论到达时间后移一个发放间隔；
+ * 理论到达时间超前当前时间超过 突发容量×间隔 时桶已空。整个状态是一个AtomicLong，
+ * 取令牌只需一次CAS，不加锁、不分配对象。
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final int burst;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param ratePerSecond 每秒补充的令牌数
+     * @param burst         桶容量（允许的突发量）
+     */
+    public TokenBucket(double ratePerSecond, int burst) {
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.burst = Math.max(1, burst);
+        this.burstNanos = intervalNanos * this.burst;
+        this.theoreticalArrival = new AtomicLong(System.nanoTime() - burstNanos);
+    }
+
+    /**
+     * 尝试取一个令牌
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * 尝试一次取多个令牌，要么全取到，要么一个不取。
+     * 每个令牌都按全价计；超过桶容量的请求永远攒不够，直接拒绝
+     */
+    public boolean tryAcquire(int permits) {
+        if (permits > burst) {
+            return false;
+        }
+        long cost = intervalNanos * permits;
+        long now = System.nanoTime();
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long next = Math.max(tat, now - burstNanos) + cost;
+            if (next - now > 0) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 归还tryAcquire(permits)取到的令牌（同一请求的另一只桶拒绝时）
+     */
+    public void release(int permits) {
+        theoreticalArrival.addAndGet(-intervalNanos * permits);
+    }
+
+    /**
+     * 桶容量，也是单次请求能取的最多令牌数
+     */
+    public int getBurst() {
+        return burst;
+    }
+}
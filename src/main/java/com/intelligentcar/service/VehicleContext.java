@@ -0,0 +1,92 @@
+package com.intelligentcar.service;
+
+import org.springframework.web.socket.WebSocketSession;
+
+import com.intelligentcar.model.CarStatus;
+import com.intelligentcar.model.ControlCommand;
+import com.intelligentcar.sensor.SensorFilterBank;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 单辆小车的全部状态（一个分片）
+ *
+ * 每辆车的状态修改只在自己的锁上同步，不同小车之间互不竞争。
+ */
+class VehicleContext {
+
+    // 每辆车保留序号窗口的操作端数
+    private static final int MAX_SEQUENCE_WINDOWS = 256;
+
+    private final String vehicleId;
+    private final CarStatus status;
+    private final SensorFilterBank sensorFilters;
+    private final Map<String, WebSocketSession> controlSessions = new ConcurrentHashMap<>();
+    private final Map<String, WebSocketSession> statusSessions = new ConcurrentHashMap<>();
+    private final List<Consumer<ControlCommand>> commandListeners = new CopyOnWriteArrayList<>();
+    // 操作端序号窗口，按客户端ID保存，重连后仍然有效；按最近使用淘汰，访问时锁住map本身
+    private final Map<String, SequenceWindow> sequenceWindows = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SequenceWindow> eldest) {
+            return size() > MAX_SEQUENCE_WINDOWS;
+        }
+    };
+    // 待下发命令：在小车锁内按执行顺序入队，出锁后持有sendLock的线程按序发送
+    private final Queue<ControlCommand> outbound = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock sendLock = new ReentrantLock();
+    private volatile LocalDateTime lastConnectionTime;
+
+    VehicleContext(String vehicleId, SensorFilterBank sensorFilters) {
+        this.vehicleId = vehicleId;
+        this.sensorFilters = sensorFilters;
+        this.status = new CarStatus();
+        this.status.setSpeed(0);
+        this.status.setDirection("STOP");
+        this.status.setFrontDistance(0);
+        this.status.setLeftDistance(0);
+        this.status.setRightDistance(0);
+        this.status.setBatteryLevel(100);
+        this.status.setTimestamp(LocalDateTime.now());
+    }
+
+    String getVehicleId() { return vehicleId; }
+
+    /**
+     * 小车状态，修改时需持有本对象的锁
+     */
+    CarStatus getStatus() { return status; }
+
+    /**
+     * 距离滤波器，使用时需持有本对象的锁
+     */
+    SensorFilterBank getSensorFilters() { return sensorFilters; }
+
+    Map<String, WebSocketSession> getControlSessions() { return controlSessions; }
+
+    Map<String, WebSocketSession> getStatusSessions() { return statusSessions; }
+
+    List<Consumer<ControlCommand>> getCommandListeners() { return commandListeners; }
+
+    Queue<ControlCommand> getOutbound() { return outbound; }
+
+    ReentrantLock getSendLock() { return sendLock; }
+
+    SequenceWindow getSequenceWindow(String clientId) {
+        synchronized (sequenceWindows) {
+            return sequenceWindows.computeIfAbsent(clientId, id -> new SequenceWindow());
+        }
+    }
+
+    LocalDateTime getLastConnectionTime() { return lastConnectionTime; }
+
+    void setLastConnectionTime(LocalDateTime lastConnectionTime) { this.lastConnectionTime = lastConnectionTime; }
+}
@@ -1,6 +1,8 @@
 // src/main/java/com/intelligentcar/service/VideoStreamService.java
 package com.intelligentcar.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
@@ -18,6 +20,8 @@ import java.time.format.DateTimeFormatter;
 @Service
 public class VideoStreamService {
 
+    private static final Logger log = LoggerFactory.getLogger(VideoStreamService.class);
+
     // 小车视频流的IP地址和端口（需要根据实际情况配置）
     private static final String CAR_VIDEO_URL = "http://192.168.4.1:81/stream";
     private static final String SNAPSHOT_URL = "http://192.168.4.1:80/capture";
@@ -74,7 +78,7 @@ public class VideoStreamService {
             }
 
         } catch (Exception e) {
-            System.err.println("视频流转发失败: " + e.getMessage());
+            log.warn("视频流转发失败: {}", e.getMessage());
             // 返回错误图片
             returnErrorImage(response);
         } finally {
@@ -108,7 +112,7 @@ public class VideoStreamService {
 
             return new UrlResource(tempFile.toUri());
         } catch (Exception e) {
-            System.err.println("获取快照失败: " + e.getMessage());
+            log.warn("获取快照失败: {}", e.getMessage());
             // 返回默认图片
             return getDefaultImage();
         }
@@ -128,7 +132,7 @@ public class VideoStreamService {
 
             recordingStream = new FileOutputStream(recordingFile);
             isRecording = true;
-            System.out.println("开始录制: " + fileName);
+            log.info("开始录制: {}", fileName);
         }
     }
 
@@ -139,7 +143,7 @@ public class VideoStreamService {
         if (isRecording && recordingStream != null) {
             recordingStream.close();
             isRecording = false;
-            System.out.println("停止录制，文件保存至: " + recordingFile.getAbsolutePath());
+            log.info("停止录制，文件保存至: {}", recordingFile.getAbsolutePath());
         }
     }
 
@@ -0,0 +1,14 @@
+package com.intelligentcar.simulation;
+
+/**
+ * 可被测距传感器射线检测的环境
+ */
+public interface DistanceField {
+
+    /**
+     * 从(x, y)沿angle方向发射射线，返回命中距离；未命中返回maxRange
+     *
+     * @param angle 弧度，0为x轴正方向，逆时针为正
+     */
+    double raycast(double x, double y, double angle, double maxRange);
+}
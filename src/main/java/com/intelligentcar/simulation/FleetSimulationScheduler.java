@@ -0,0 +1,115 @@
+package com.intelligentcar.simulation;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 多车并行仿真调度器
+ *
+ * 每个tick把小车按区间二分成子任务提交到ForkJoinPool，由工作窃取自动均衡负载。
+ * 所有小车共享同一个只读World快照做射线检测，无需加锁；
+ * 每辆车的仿真状态只被一个子任务访问。
+ *
+ * 统计每个tick的墙钟耗时和最慢单车步进耗时，用于观察随核数的扩展性。
+ */
+public class FleetSimulationScheduler {
+
+    /**
+     * 单车步进完成后的回调（用于发布状态），在工作线程上调用
+     */
+    public interface StepListener {
+        void onStepped(int index, VehicleSimulator simulator);
+    }
+
+    private final List<VehicleSimulator> simulators;
+    private final ForkJoinPool pool;
+    private final int batchSize;
+    private final int maxCatchUpSteps;
+    private final StepListener listener;
+
+    private final AtomicLong tickCount = new AtomicLong();
+    private final AtomicLong lastTickNanos = new AtomicLong();
+    private final AtomicLong maxTickNanos = new AtomicLong();
+    private final AtomicLong totalTickNanos = new AtomicLong();
+    private final AtomicLong lastWorstStepNanos = new AtomicLong();
+    private final AtomicLong maxWorstStepNanos = new AtomicLong();
+
+    public FleetSimulationScheduler(List<VehicleSimulator> simulators, ForkJoinPool pool,
+                                    int batchSize, int maxCatchUpSteps, StepListener listener) {
+        this.simulators = List.copyOf(simulators);
+        this.pool = pool;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxCatchUpSteps = maxCatchUpSteps;
+        this.listener = listener;
+    }
+
+    /**
+     * 所有小车消耗同一段流逝时间，返回本tick墙钟耗时（纳秒）
+     */
+    public long tick(long elapsedNanos) {
+        long start = System.nanoTime();
+        long worstStep = simulators.isEmpty() ? 0
+                : pool.invoke(new StepTask(0, simulators.size(), elapsedNanos));
+        long wall = System.nanoTime() - start;
+
+        tickCount.incrementAndGet();
+        lastTickNanos.set(wall);
+        totalTickNanos.addAndGet(wall);
+        maxTickNanos.accumulateAndGet(wall, Math::max);
+        lastWorstStepNanos.set(worstStep);
+        maxWorstStepNanos.accumulateAndGet(worstStep, Math::max);
+        return wall;
+    }
+
+    /**
+     * 区间[from, to)的小车步进任务，返回区间内最慢单车耗时
+     */
+    private class StepTask extends RecursiveTask<Long> {
+        private final int from;
+        private final int to;
+        private final long elapsedNanos;
+
+        StepTask(int from, int to, long elapsedNanos) {
+            this.from = from;
+            this.to = to;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= batchSize) {
+                long worst = 0;
+                for (int i = from; i < to; i++) {
+                    long begin = System.nanoTime();
+                    VehicleSimulator simulator = simulators.get(i);
+                    simulator.advance(elapsedNanos, maxCatchUpSteps);
+                    if (listener != null) {
+                        listener.onStepped(i, simulator);
+                    }
+                    worst = Math.max(worst, System.nanoTime() - begin);
+                }
+                return worst;
+            }
+            int mid = (from + to) >>> 1;
+            StepTask left = new StepTask(from, mid, elapsedNanos);
+            left.fork();
+            long right = new StepTask(mid, to, elapsedNanos).compute();
+            return Math.max(left.join(), right);
+        }
+    }
+
+    public List<VehicleSimulator> getSimulators() { return simulators; }
+    public int getParallelism() { return pool.getParallelism(); }
+    public long getTickCount() { return tickCount.get(); }
+    public long getLastTickNanos() { return lastTickNanos.get(); }
+    public long getMaxTickNanos() { return maxTickNanos.get(); }
+    public long getLastWorstStepNanos() { return lastWorstStepNanos.get(); }
+    public long getMaxWorstStepNanos() { return maxWorstStepNanos.get(); }
+
+    public double getAvgTickNanos() {
+        long ticks = tickCount.get();
+        return ticks > 0 ? (double) totalTickNanos.get() / ticks : 0;
+    }
+}
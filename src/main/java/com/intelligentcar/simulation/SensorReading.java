@@ -0,0 +1,32 @@
+package com.intelligentcar.simulation;
+
+/**
+ * 一次超声波传感器读数（厘米）
+ *
+ * 下游（安全包络、滤波器）把小于等于0的距离当作"无读数"，所以贴住或穿入障碍物时
+ * 报告CONTACT_DISTANCE_CM，而不是0。
+ */
+public class SensorReading {
+
+    // 接触障碍物时报告的距离
+    public static final double CONTACT_DISTANCE_CM = 1;
+
+    private final double front;
+    private final double left;
+    private final double right;
+
+    public SensorReading(double front, double left, double right) {
+        this.front = front;
+        this.left = left;
+        this.right = right;
+    }
+
+    public double getFront() { return front; }
+    public double getLeft() { return left; }
+    public double getRight() { return right; }
+
+    @Override
+    public String toString() {
+        return String.format("SensorReading{front=%.1f, left=%.1f, right=%.1f}", front, left, right);
+    }
+}
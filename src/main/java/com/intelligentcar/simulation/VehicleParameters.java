@@ -0,0 +1,47 @@
+package com.intelligentcar.simulation;
+
+/**
+ * 小车运动学参数（不可变）
+ *
+ * 长度单位为厘米，时间单位为秒。
+ */
+public class VehicleParameters {
+
+    private final double maxSpeed;          // 最大速度（cm/s），对应速度百分比100
+    private final double maxAcceleration;   // 最大加速度（cm/s²）
+    private final double maxDeceleration;   // 常规制动减速度（cm/s²）
+    private final double emergencyDeceleration; // 紧急制动减速度（cm/s²）
+    private final double minTurnRadius;     // 最小转弯半径（cm）
+    private final double turnSpeed;         // 静止时转向使用的爬行速度（cm/s）
+    private final double sensorRange;       // 超声波最大量程（cm）
+    private final double bodyRadius;        // 车身外接圆半径（cm），用于碰撞和传感器安装位置
+
+    public VehicleParameters(double maxSpeed, double maxAcceleration, double maxDeceleration,
+                             double emergencyDeceleration, double minTurnRadius,
+                             double turnSpeed, double sensorRange, double bodyRadius) {
+        this.maxSpeed = maxSpeed;
+        this.maxAcceleration = maxAcceleration;
+        this.maxDeceleration = maxDeceleration;
+        this.emergencyDeceleration = emergencyDeceleration;
+        this.minTurnRadius = minTurnRadius;
+        this.turnSpeed = turnSpeed;
+        this.sensorRange = sensorRange;
+        this.bodyRadius = bodyRadius;
+    }
+
+    /**
+     * 默认参数：与安全包络的默认配置保持一致
+     */
+    public static VehicleParameters defaults() {
+        return new VehicleParameters(100, 150, 200, 400, 30, 15, 400, 10);
+    }
+
+    public double getMaxSpeed() { return maxSpeed; }
+    public double getMaxAcceleration() { return maxAcceleration; }
+    public double getMaxDeceleration() { return maxDeceleration; }
+    public double getEmergencyDeceleration() { return emergencyDeceleration; }
+    public double getMinTurnRadius() { return minTurnRadius; }
+    public double getTurnSpeed() { return turnSpeed; }
+    public double getSensorRange() { return sensorRange; }
+    public double getBodyRadius() { return bodyRadius; }
+}
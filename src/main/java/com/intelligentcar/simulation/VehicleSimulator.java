@@ -0,0 +1,250 @@
+package com.intelligentcar.simulation;
+
+import com.intelligentcar.model.CarStatus;
+import com.intelligentcar.model.ControlCommand;
+import com.intelligentcar.service.CarControlService;
+
+import java.time.LocalDateTime;
+
+/**
+ * 固定步长小车运动学仿真引擎
+ *
+ * 仿真时间与挂钟时间解耦：
+ * - step() 前进一个固定步长
+ * - advance(elapsedNanos) 按累加器消耗真实流逝时间，用于实时运行
+ * - runFor(seconds) 以最快速度推进指定仿真时间，用于测试和基准
+ *
+ * 运动模型：速度受加/减速度限制，转向时角速度 = v / 最小转弯半径。
+ * 坐标单位为厘米，航向为弧度（0为x轴正方向，逆时针为正）。
+ */
+public class VehicleSimulator {
+
+    private final VehicleParameters params;
+    private final long stepNanos;
+    private final double dt;
+    private DistanceField field;
+
+    // 运动状态
+    private double x;
+    private double y;
+    private double heading;
+    private double velocity;
+
+    // 当前控制输入
+    private int gear;           // 1前进，-1后退，0停止
+    private int steering;       // 1左转，-1右转，0直行
+    private int speedPercent;
+    private boolean emergency;
+    private String direction = "STOP";
+
+    // 仿真时钟
+    private long simTimeNanos;
+    private long accumulatorNanos;
+    private long stepCount;
+    private long collisionCount;
+
+    public VehicleSimulator(VehicleParameters params, DistanceField field, long stepNanos) {
+        this.params = params;
+        this.field = field;
+        this.stepNanos = stepNanos;
+        this.dt = stepNanos / 1_000_000_000.0;
+    }
+
+    /**
+     * 放置小车
+     */
+    public synchronized void reset(double x, double y, double heading) {
+        this.x = x;
+        this.y = y;
+        this.heading = heading;
+        this.velocity = 0;
+        this.gear = 0;
+        this.steering = 0;
+        this.speedPercent = 0;
+        this.emergency = false;
+        this.direction = "STOP";
+    }
+
+    /**
+     * 应用控制命令（只改变输入，状态在下一步生效）
+     */
+    public synchronized void applyCommand(ControlCommand command) {
+        if (command == null || command.getCommand() == null) {
+            return;
+        }
+        String cmd = command.getCommand().toUpperCase();
+        switch (cmd) {
+            case "FORWARD":
+                gear = 1;
+                steering = 0;
+                speedPercent = CarControlService.DEFAULT_FORWARD_SPEED;
+                emergency = false;
+                break;
+            case "BACKWARD":
+                gear = -1;
+                steering = 0;
+                speedPercent = CarControlService.DEFAULT_BACKWARD_SPEED;
+                emergency = false;
+                break;
+            case "LEFT":
+                steering = 1;
+                gear = gear == 0 ? 1 : gear;
+                emergency = false;
+                break;
+            case "RIGHT":
+                steering = -1;
+                gear = gear == 0 ? 1 : gear;
+                emergency = false;
+                break;
+            case "STOP":
+                gear = 0;
+                steering = 0;
+                speedPercent = 0;
+                break;
+            case "EMERGENCY_STOP":
+                gear = 0;
+                steering = 0;
+                speedPercent = 0;
+                emergency = true;
+                break;
+            case "SPEED":
+                if (command.getValue() != null) {
+                    speedPercent = Math.max(0, Math.min(100, Integer.parseInt(command.getValue())));
+                }
+                break;
+            default:
+                return;
+        }
+        direction = "EMERGENCY_STOP".equals(cmd) ? "STOP" : ("SPEED".equals(cmd) ? direction : cmd);
+    }
+
+    /**
+     * 前进一个固定步长
+     */
+    public synchronized void step() {
+        double target = targetVelocity();
+
+        // 加速度限制：速度幅值增大时用加速度，减小时用制动减速度
+        boolean speedingUp = Math.abs(target) > Math.abs(velocity) && Math.signum(target) * Math.signum(velocity) >= 0;
+        double limit = speedingUp ? params.getMaxAcceleration()
+                : (emergency ? params.getEmergencyDeceleration() : params.getMaxDeceleration());
+        double dv = Math.max(-limit * dt, Math.min(limit * dt, target - velocity));
+        velocity += dv;
+
+        // 转弯半径约束下的角速度，用中点航向积分位置
+        double yawRate = steering * velocity / params.getMinTurnRadius();
+        double midHeading = heading + yawRate * dt / 2;
+        double travel = velocity * dt;
+
+        // 碰撞检测：沿运动方向的可用距离不足时停在接触点
+        if (travel != 0) {
+            double moveAngle = travel > 0 ? midHeading : midHeading + Math.PI;
+            double probe = Math.abs(travel) + params.getBodyRadius();
+            double hit = field.raycast(x, y, moveAngle, probe);
+            if (hit < probe) {
+                travel = Math.signum(travel) * Math.max(0, hit - params.getBodyRadius());
+                velocity = 0;
+                collisionCount++;
+            }
+        }
+
+        x += travel * Math.cos(midHeading);
+        y += travel * Math.sin(midHeading);
+        heading = normalizeAngle(heading + yawRate * dt);
+
+        simTimeNanos += stepNanos;
+        stepCount++;
+    }
+
+    /**
+     * 消耗流逝的真实时间，按固定步长推进
+     *
+     * @param maxSteps 单次最多步数，防止落后时无限追赶
+     * @return 实际执行的步数
+     */
+    public synchronized int advance(long elapsedNanos, int maxSteps) {
+        accumulatorNanos += elapsedNanos;
+        int steps = 0;
+        while (accumulatorNanos >= stepNanos && steps < maxSteps) {
+            step();
+            accumulatorNanos -= stepNanos;
+            steps++;
+        }
+        if (steps == maxSteps) {
+            accumulatorNanos = 0;
+        }
+        return steps;
+    }
+
+    /**
+     * 以最快速度推进指定仿真时间（不依赖挂钟）
+     */
+    public synchronized void runFor(double seconds) {
+        long steps = Math.round(seconds / dt);
+        for (long i = 0; i < steps; i++) {
+            step();
+        }
+    }
+
+    /**
+     * 读取前/左/右超声波传感器（从车身边缘起算，接触时为CONTACT_DISTANCE_CM）
+     */
+    public synchronized SensorReading readSensors() {
+        double range = params.getSensorRange() + params.getBodyRadius();
+        double r = params.getBodyRadius();
+        double front = field.raycast(x, y, heading, range) - r;
+        double left = field.raycast(x, y, heading + Math.PI / 2, range) - r;
+        double right = field.raycast(x, y, heading - Math.PI / 2, range) - r;
+        // 贴墙时报告最小正距离，不能报0（下游的"无读数"）
+        double contact = SensorReading.CONTACT_DISTANCE_CM;
+        return new SensorReading(Math.max(contact, front), Math.max(contact, left), Math.max(contact, right));
+    }
+
+    /**
+     * 输出为CarStatus
+     */
+    public synchronized CarStatus toCarStatus() {
+        SensorReading reading = readSensors();
+        CarStatus status = new CarStatus();
+        status.setSpeed((int) Math.round(Math.abs(velocity) / params.getMaxSpeed() * 100));
+        status.setDirection(direction);
+        status.setFrontDistance((int) Math.round(reading.getFront()));
+        status.setLeftDistance((int) Math.round(reading.getLeft()));
+        status.setRightDistance((int) Math.round(reading.getRight()));
+        status.setPositionX(x);
+        status.setPositionY(y);
+        status.setHeading(Math.toDegrees(heading));
+        status.setTimestamp(LocalDateTime.now());
+        return status;
+    }
+
+    private double targetVelocity() {
+        if (gear == 0) {
+            return 0;
+        }
+        double speed = speedPercent / 100.0 * params.getMaxSpeed();
+        if (speed == 0 && steering != 0) {
+            speed = params.getTurnSpeed();
+        }
+        return gear * speed;
+    }
+
+    private static double normalizeAngle(double angle) {
+        while (angle > Math.PI) angle -= 2 * Math.PI;
+        while (angle <= -Math.PI) angle += 2 * Math.PI;
+        return angle;
+    }
+
+    public synchronized void setField(DistanceField field) { this.field = field; }
+    public synchronized DistanceField getField() { return field; }
+
+    public synchronized double getX() { return x; }
+    public synchronized double getY() { return y; }
+    public synchronized double getHeading() { return heading; }
+    public synchronized double getVelocity() { return velocity; }
+    public synchronized long getSimTimeNanos() { return simTimeNanos; }
+    public synchronized long getStepCount() { return stepCount; }
+    public synchronized long getCollisionCount() { return collisionCount; }
+    public long getStepNanos() { return stepNanos; }
+    public VehicleParameters getParams() { return params; }
+}
@@ -0,0 +1,348 @@
+package com.intelligentcar.simulation;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 二维障碍物世界（构建后只读，可被多个线程同时射线检测）
+ *
+ * 几何体只有两种：线段（墙、方块的边）和圆形障碍物。
+ * 空间索引为均匀网格，以CSR形式存储在原始数组中：
+ * cellStart[c]..cellStart[c+1] 是格子c在cellItems中的区间，
+ * 条目 >= 0 为线段编号，< 0 为圆编号 (-id - 1)。
+ *
+ * 射线检测用Amanatides-Woo网格遍历，只访问射线经过的格子，
+ * 命中后在越过命中点所在格子时提前退出，开销与障碍物总数无关。
+ */
+public class World implements DistanceField {
+
+    private final double width;
+    private final double height;
+    private final double cellSize;
+    private final int cellsX;
+    private final int cellsY;
+
+    // 线段（结构数组）
+    private final double[] segX1, segY1, segX2, segY2;
+    // 圆
+    private final double[] circleX, circleY, circleR;
+    // 方块的包围盒（只用于内部判定，射线检测走边线段）
+    private final double[] boxes;
+
+    // 网格索引
+    private final int[] cellStart;
+    private final int[] cellItems;
+
+    // 起始位姿（来自世界文件，可为空）
+    private final double[] startPose;
+
+    private World(Builder b) {
+        this.width = b.width;
+        this.height = b.height;
+        this.cellSize = b.cellSize;
+        this.cellsX = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.cellsY = Math.max(1, (int) Math.ceil(height / cellSize));
+        this.startPose = b.startPose;
+        this.boxes = b.boxes.stream().mapToDouble(Double::doubleValue).toArray();
+
+        int segCount = b.segments.size() / 4;
+        segX1 = new double[segCount];
+        segY1 = new double[segCount];
+        segX2 = new double[segCount];
+        segY2 = new double[segCount];
+        for (int i = 0; i < segCount; i++) {
+            segX1[i] = b.segments.get(i * 4);
+            segY1[i] = b.segments.get(i * 4 + 1);
+            segX2[i] = b.segments.get(i * 4 + 2);
+            segY2[i] = b.segments.get(i * 4 + 3);
+        }
+        int circleCount = b.circles.size() / 3;
+        circleX = new double[circleCount];
+        circleY = new double[circleCount];
+        circleR = new double[circleCount];
+        for (int i = 0; i < circleCount; i++) {
+            circleX[i] = b.circles.get(i * 3);
+            circleY[i] = b.circles.get(i * 3 + 1);
+            circleR[i] = b.circles.get(i * 3 + 2);
+        }
+
+        // 两遍构建CSR：先计数再填充
+        int cellCount = cellsX * cellsY;
+        cellStart = new int[cellCount + 1];
+        forEachItemCell((item, cell) -> cellStart[cell + 1]++);
+        for (int c = 0; c < cellCount; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        cellItems = new int[cellStart[cellCount]];
+        int[] fill = new int[cellCount];
+        forEachItemCell((item, cell) -> cellItems[cellStart[cell] + fill[cell]++] = item);
+    }
+
+    private interface ItemCellVisitor {
+        void visit(int item, int cell);
+    }
+
+    /**
+     * 遍历每个几何体覆盖的格子（按包围盒）
+     */
+    private void forEachItemCell(ItemCellVisitor visitor) {
+        for (int i = 0; i < segX1.length; i++) {
+            visitBounds(i, Math.min(segX1[i], segX2[i]), Math.min(segY1[i], segY2[i]),
+                    Math.max(segX1[i], segX2[i]), Math.max(segY1[i], segY2[i]), visitor);
+        }
+        for (int i = 0; i < circleX.length; i++) {
+            visitBounds(-i - 1, circleX[i] - circleR[i], circleY[i] - circleR[i],
+                    circleX[i] + circleR[i], circleY[i] + circleR[i], visitor);
+        }
+    }
+
+    private void visitBounds(int item, double minX, double minY, double maxX, double maxY, ItemCellVisitor visitor) {
+        int cx0 = cellX(minX), cx1 = cellX(maxX);
+        int cy0 = cellY(minY), cy1 = cellY(maxY);
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                visitor.visit(item, cy * cellsX + cx);
+            }
+        }
+    }
+
+    private int cellX(double x) {
+        return Math.max(0, Math.min(cellsX - 1, (int) Math.floor(x / cellSize)));
+    }
+
+    private int cellY(double y) {
+        return Math.max(0, Math.min(cellsY - 1, (int) Math.floor(y / cellSize)));
+    }
+
+    @Override
+    public double raycast(double x, double y, double angle, double maxRange) {
+        double dx = Math.cos(angle);
+        double dy = Math.sin(angle);
+
+        int cx = cellX(x);
+        int cy = cellY(y);
+        int stepX = dx > 0 ? 1 : (dx < 0 ? -1 : 0);
+        int stepY = dy > 0 ? 1 : (dy < 0 ? -1 : 0);
+
+        // 到下一条格线的参数距离，以及每跨一格的参数增量
+        double tMaxX = stepX == 0 ? Double.POSITIVE_INFINITY
+                : ((stepX > 0 ? (cx + 1) * cellSize : cx * cellSize) - x) / dx;
+        double tMaxY = stepY == 0 ? Double.POSITIVE_INFINITY
+                : ((stepY > 0 ? (cy + 1) * cellSize : cy * cellSize) - y) / dy;
+        double tDeltaX = stepX == 0 ? Double.POSITIVE_INFINITY : cellSize / Math.abs(dx);
+        double tDeltaY = stepY == 0 ? Double.POSITIVE_INFINITY : cellSize / Math.abs(dy);
+
+        double best = maxRange;
+        while (true) {
+            int cell = cy * cellsX + cx;
+            for (int k = cellStart[cell], end = cellStart[cell + 1]; k < end; k++) {
+                int item = cellItems[k];
+                double t = item >= 0 ? intersectSegment(item, x, y, dx, dy) : intersectCircle(-item - 1, x, y, dx, dy);
+                if (t < best) {
+                    best = t;
+                }
+            }
+
+            // 命中点落在当前格子内，后续格子不可能更近
+            double cellExit = Math.min(tMaxX, tMaxY);
+            if (best <= cellExit || cellExit > maxRange) {
+                return best;
+            }
+            if (tMaxX < tMaxY) {
+                cx += stepX;
+                tMaxX += tDeltaX;
+            } else {
+                cy += stepY;
+                tMaxY += tDeltaY;
+            }
+            if (cx < 0 || cx >= cellsX || cy < 0 || cy >= cellsY) {
+                return best;
+            }
+        }
+    }
+
+    /**
+     * 射线与线段求交，返回射线参数t，未命中返回正无穷
+     */
+    private double intersectSegment(int i, double ox, double oy, double dx, double dy) {
+        double ex = segX2[i] - segX1[i];
+        double ey = segY2[i] - segY1[i];
+        double denom = dx * ey - dy * ex;
+        if (Math.abs(denom) < 1e-12) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double wx = segX1[i] - ox;
+        double wy = segY1[i] - oy;
+        double t = (wx * ey - wy * ex) / denom;
+        double u = (wx * dy - wy * dx) / denom;
+        return t >= 0 && u >= 0 && u <= 1 ? t : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * 射线与圆求交（起点在圆内时返回0）
+     */
+    private double intersectCircle(int i, double ox, double oy, double dx, double dy) {
+        double fx = ox - circleX[i];
+        double fy = oy - circleY[i];
+        double r = circleR[i];
+        double c = fx * fx + fy * fy - r * r;
+        if (c <= 0) {
+            return 0;
+        }
+        double b = fx * dx + fy * dy;
+        double disc = b * b - c;
+        if (b > 0 || disc < 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return -b - Math.sqrt(disc);
+    }
+
+    /**
+     * 可视区域内几何体的访问者
+     */
+    public interface ShapeVisitor {
+        void segment(double x1, double y1, double x2, double y2);
+        void circle(double cx, double cy, double r);
+    }
+
+    /**
+     * 访问与矩形区域相交的格子中的几何体（每个几何体只访问一次）
+     */
+    public void visitRect(double minX, double minY, double maxX, double maxY, ShapeVisitor visitor) {
+        BitSet seenSegments = new BitSet(segX1.length);
+        BitSet seenCircles = new BitSet(circleX.length);
+        int cx0 = cellX(minX), cx1 = cellX(maxX);
+        int cy0 = cellY(minY), cy1 = cellY(maxY);
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int cell = cy * cellsX + cx;
+                for (int k = cellStart[cell], end = cellStart[cell + 1]; k < end; k++) {
+                    int item = cellItems[k];
+                    if (item >= 0) {
+                        if (!seenSegments.get(item)) {
+                            seenSegments.set(item);
+                            visitor.segment(segX1[item], segY1[item], segX2[item], segY2[item]);
+                        }
+                    } else {
+                        int c = -item - 1;
+                        if (!seenCircles.get(c)) {
+                            seenCircles.set(c);
+                            visitor.circle(circleX[c], circleY[c], circleR[c]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 点是否位于方块或圆形障碍物内部（线性扫描，仅用于放置小车等低频场合）
+     */
+    public boolean isInsideObstacle(double x, double y) {
+        for (int i = 0; i < boxes.length; i += 4) {
+            if (x >= boxes[i] && x <= boxes[i + 2] && y >= boxes[i + 1] && y <= boxes[i + 3]) {
+                return true;
+            }
+        }
+        for (int i = 0; i < circleX.length; i++) {
+            if (Math.hypot(x - circleX[i], y - circleY[i]) <= circleR[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public double getWidth() { return width; }
+    public double getHeight() { return height; }
+    public double getCellSize() { return cellSize; }
+    public int getSegmentCount() { return segX1.length; }
+    public int getCircleCount() { return circleX.length; }
+
+    /**
+     * 世界文件中的起始位姿 {x, y, 航向弧度}，未指定时为null
+     */
+    public double[] getStartPose() {
+        return startPose == null ? null : startPose.clone();
+    }
+
+    public static Builder builder(double width, double height) {
+        return new Builder(width, height);
+    }
+
+    /**
+     * 世界构建器：先收集几何体，build()时一次性建立网格索引
+     */
+    public static class Builder {
+        private final double width;
+        private final double height;
+        private double cellSize = 50;
+        private boolean border = true;
+        private double[] startPose;
+        private final List<Double> segments = new ArrayList<>();
+        private final List<Double> circles = new ArrayList<>();
+        private final List<Double> boxes = new ArrayList<>();
+
+        private Builder(double width, double height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        public Builder cellSize(double cellSize) {
+            this.cellSize = cellSize;
+            return this;
+        }
+
+        /**
+         * 是否自动添加四周围墙（默认添加）
+         */
+        public Builder border(boolean border) {
+            this.border = border;
+            return this;
+        }
+
+        public Builder start(double x, double y, double headingRad) {
+            this.startPose = new double[]{x, y, headingRad};
+            return this;
+        }
+
+        public Builder wall(double x1, double y1, double x2, double y2) {
+            segments.add(x1);
+            segments.add(y1);
+            segments.add(x2);
+            segments.add(y2);
+            return this;
+        }
+
+        /**
+         * 轴对齐方块，以四条边线段存储
+         */
+        public Builder box(double x, double y, double w, double h) {
+            boxes.add(Math.min(x, x + w));
+            boxes.add(Math.min(y, y + h));
+            boxes.add(Math.max(x, x + w));
+            boxes.add(Math.max(y, y + h));
+            wall(x, y, x + w, y);
+            wall(x + w, y, x + w, y + h);
+            wall(x + w, y + h, x, y + h);
+            return wall(x, y + h, x, y);
+        }
+
+        public Builder circle(double cx, double cy, double r) {
+            circles.add(cx);
+            circles.add(cy);
+            circles.add(r);
+            return this;
+        }
+
+        public World build() {
+            if (border) {
+                wall(0, 0, width, 0);
+                wall(width, 0, width, height);
+                wall(width, height, 0, height);
+                wall(0, height, 0, 0);
+            }
+            return new World(this);
+        }
+    }
+}
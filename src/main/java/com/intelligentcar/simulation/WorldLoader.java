@@ -0,0 +1,89 @@
+package com.intelligentcar.simulation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 世界文件加载器
+ *
+ * 文本格式，每行一条指令，#开头为注释，单位厘米/度：
+ * <pre>
+ * size   1000 1000          场地宽高（必须在几何体之前）
+ * cell   50                 网格边长
+ * border false              不自动添加四周围墙
+ * start  500 500 90         起始位置和航向
+ * wall   x1 y1 x2 y2        墙（线段）
+ * box    x y w h            轴对齐方块
+ * circle cx cy r            圆形障碍物
+ * </pre>
+ */
+public final class WorldLoader {
+
+    private WorldLoader() {
+    }
+
+    public static World load(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        World.Builder builder = null;
+        String line;
+        int lineNo = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            String[] parts = line.split("\\s+");
+            String directive = parts[0].toLowerCase();
+            try {
+                if ("size".equals(directive)) {
+                    builder = World.builder(num(parts, 1), num(parts, 2));
+                    continue;
+                }
+                if (builder == null) {
+                    throw new IOException("第" + lineNo + "行: 必须先用size指定场地大小");
+                }
+                switch (directive) {
+                    case "cell":
+                        builder.cellSize(num(parts, 1));
+                        break;
+                    case "border":
+                        builder.border(Boolean.parseBoolean(parts[1]));
+                        break;
+                    case "start":
+                        builder.start(num(parts, 1), num(parts, 2), Math.toRadians(num(parts, 3)));
+                        break;
+                    case "wall":
+                        builder.wall(num(parts, 1), num(parts, 2), num(parts, 3), num(parts, 4));
+                        break;
+                    case "box":
+                        builder.box(num(parts, 1), num(parts, 2), num(parts, 3), num(parts, 4));
+                        break;
+                    case "circle":
+                        builder.circle(num(parts, 1), num(parts, 2), num(parts, 3));
+                        break;
+                    default:
+                        throw new IOException("第" + lineNo + "行: 未知指令 " + parts[0]);
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException("第" + lineNo + "行: 参数错误 - " + line, e);
+            }
+        }
+        if (builder == null) {
+            throw new IOException("世界文件为空或缺少size指令");
+        }
+        return builder.build();
+    }
+
+    private static double num(String[] parts, int index) {
+        return Double.parseDouble(parts[index]);
+    }
+}
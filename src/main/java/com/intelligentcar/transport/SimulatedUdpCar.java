@@ -0,0 +1,195 @@
+package com.intelligentcar.transport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.intelligentcar.model.ControlCommand;
+import com.intelligentcar.service.SimulationService;
+import com.intelligentcar.simulation.SensorReading;
+import com.intelligentcar.simulation.VehicleParameters;
+import com.intelligentcar.simulation.VehicleSimulator;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本机UDP仿真小车
+ *
+ * 行为与真实小车固件一致：监听UDP命令报文，所有命令按序号最新优先——
+ * 比已执行序号旧的命令（包括迟到的停止命令）丢弃，同一序号的冗余副本只执行一次；
+ * 按固定周期推进自己的运动学仿真并上报传感器报文。
+ * 用于在一台Linux主机上端到端测试UDP传输。
+ */
+@Service
+public class SimulatedUdpCar {
+
+    private static final Logger log = LoggerFactory.getLogger(SimulatedUdpCar.class);
+
+    private final SimulationService simulationService;
+    private final boolean enabled;
+    private final String vehicleId;
+    private final int port;
+    private final InetSocketAddress serverAddress;
+    private final long sensorRateMs;
+
+    private VehicleSimulator simulator;
+    private DatagramChannel channel;
+    private ScheduledExecutorService stepExecutor;
+    private long lastStepNanos;
+    private int lastSeq;
+    private boolean hasSeq;
+    private int sensorSeq;
+
+    // 统计数据
+    private final AtomicLong commandsApplied = new AtomicLong();
+    private final AtomicLong staleCommandsDropped = new AtomicLong();
+    private final AtomicLong duplicateCommands = new AtomicLong();
+
+    public SimulatedUdpCar(SimulationService simulationService,
+                           @Value("${car.transport.udp.simulated-car.enabled:false}") boolean enabled,
+                           @Value("${car.transport.udp.simulated-car.vehicle-id:udp-car}") String vehicleId,
+                           @Value("${car.transport.udp.simulated-car.port:9871}") int port,
+                           @Value("${car.transport.udp.simulated-car.server-host:127.0.0.1}") String serverHost,
+                           @Value("${car.transport.udp.bind-port:9870}") int serverPort,
+                           @Value("${car.transport.udp.simulated-car.sensor-rate-ms:50}") long sensorRateMs) {
+        this.simulationService = simulationService;
+        this.enabled = enabled;
+        this.vehicleId = vehicleId;
+        this.port = port;
+        this.serverAddress = new InetSocketAddress(serverHost, serverPort);
+        this.sensorRateMs = sensorRateMs;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        simulator = new VehicleSimulator(VehicleParameters.defaults(), simulationService.getWorld(),
+                TimeUnit.MILLISECONDS.toNanos(10));
+        double[] pose = simulationService.getWorld().getStartPose();
+        if (pose != null) {
+            simulator.reset(pose[0], pose[1], pose[2]);
+        } else {
+            simulator.reset(simulationService.getWorld().getWidth() / 2, simulationService.getWorld().getHeight() / 2, 0);
+        }
+
+        channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress("127.0.0.1", port));
+
+        Thread receiver = new Thread(this::receiveLoop, "udp-sim-car-" + vehicleId);
+        receiver.setDaemon(true);
+        receiver.start();
+
+        stepExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "udp-sim-car-step");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lastStepNanos = System.nanoTime();
+        stepExecutor.scheduleAtFixedRate(this::stepAndReport, 0, sensorRateMs, TimeUnit.MILLISECONDS);
+        log.info("UDP仿真小车已启动: {}, 端口: {}", vehicleId, port);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (stepExecutor != null) {
+            stepExecutor.shutdownNow();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void receiveLoop() {
+        ByteBuffer buf = ByteBuffer.allocate(UdpPacketCodec.MAX_PACKET_SIZE);
+        while (channel.isOpen()) {
+            try {
+                buf.clear();
+                channel.receive(buf);
+                buf.flip();
+                if (UdpPacketCodec.readHeader(buf) != UdpPacketCodec.TYPE_COMMAND) {
+                    continue;
+                }
+                int seq = buf.getInt();
+                byte code = buf.get();
+                int value = buf.getShort();
+                applyCommand(seq, code, value);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (Exception e) {
+                log.warn("UDP仿真小车报文错误: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 最新优先：只执行比已执行序号更新的命令。
+     * 同一序号是停止命令的冗余副本，忽略；更旧的序号已被之后的命令取代，停止命令也不例外
+     */
+    private synchronized void applyCommand(int seq, byte code, int value) {
+        if (hasSeq && seq == lastSeq) {
+            duplicateCommands.incrementAndGet();
+            return;
+        }
+        if (hasSeq && !UdpPacketCodec.isNewer(seq, lastSeq)) {
+            staleCommandsDropped.incrementAndGet();
+            return;
+        }
+        lastSeq = seq;
+        hasSeq = true;
+
+        ControlCommand command = new ControlCommand();
+        command.setCommand(UdpPacketCodec.commandName(code));
+        command.setValue(value >= 0 ? String.valueOf(value) : null);
+        simulator.applyCommand(command);
+        commandsApplied.incrementAndGet();
+    }
+
+    private void stepAndReport() {
+        try {
+            long now = System.nanoTime();
+            simulator.advance(now - lastStepNanos, 50);
+            lastStepNanos = now;
+
+            SensorReading reading = simulator.readSensors();
+            ByteBuffer buf = ByteBuffer.allocate(UdpPacketCodec.MAX_PACKET_SIZE);
+            UdpPacketCodec.encodeSensor(buf, ++sensorSeq,
+                    (int) Math.round(reading.getFront()),
+                    (int) Math.round(reading.getLeft()),
+                    (int) Math.round(reading.getRight()),
+                    (float) simulator.getX(), (float) simulator.getY(),
+                    (float) Math.toDegrees(simulator.getHeading()), vehicleId);
+            buf.flip();
+            channel.send(buf, serverAddress);
+        } catch (Exception e) {
+            log.warn("UDP仿真小车上报失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 仿真小车统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("vehicleId", vehicleId);
+        stats.put("commandsApplied", commandsApplied.get());
+        stats.put("staleCommandsDropped", staleCommandsDropped.get());
+        stats.put("duplicateCommands", duplicateCommands.get());
+        return stats;
+    }
+}
@@ -0,0 +1,118 @@
+package com.intelligentcar.transport;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * UDP紧凑二进制报文编解码（大端序）
+ *
+ * 公共头部（8字节）：
+ * <pre>
+ * magic   2字节  'I''C'
+ * version 1字节  1
+ * type    1字节  1=命令（服务器->小车） 2=传感器（小车->服务器）
+ * seq     4字节  每辆车单调递增
+ * </pre>
+ * 命令报文：code(1) + value(2，无值为-1) + vehicleIdLen(1) + vehicleId(UTF-8)
+ * 传感器报文：front(2) + left(2) + right(2) + x(4,float) + y(4,float) + heading(4,float)
+ *           + vehicleIdLen(1) + vehicleId(UTF-8)
+ */
+public final class UdpPacketCodec {
+
+    public static final byte MAGIC_0 = 'I';
+    public static final byte MAGIC_1 = 'C';
+    public static final byte VERSION = 1;
+    public static final byte TYPE_COMMAND = 1;
+    public static final byte TYPE_SENSOR = 2;
+
+    public static final int MAX_PACKET_SIZE = 512;
+
+    private static final String[] COMMANDS = {
+            null, "FORWARD", "BACKWARD", "LEFT", "RIGHT", "STOP", "SPEED", "EMERGENCY_STOP"
+    };
+
+    private UdpPacketCodec() {
+    }
+
+    /**
+     * 命令名 -> 命令码，未知命令返回0
+     */
+    public static byte commandCode(String command) {
+        if (command != null) {
+            String cmd = command.toUpperCase();
+            for (int i = 1; i < COMMANDS.length; i++) {
+                if (COMMANDS[i].equals(cmd)) {
+                    return (byte) i;
+                }
+            }
+        }
+        return 0;
+    }
+
+    public static String commandName(byte code) {
+        return code > 0 && code < COMMANDS.length ? COMMANDS[code] : null;
+    }
+
+    /**
+     * 停止类命令（冗余发送、不受最新优先丢弃）
+     */
+    public static boolean isStop(byte code) {
+        return code == 5 || code == 7;
+    }
+
+    public static void encodeCommand(ByteBuffer buf, int seq, byte code, int value, String vehicleId) {
+        writeHeader(buf, TYPE_COMMAND, seq);
+        buf.put(code);
+        buf.putShort((short) value);
+        writeVehicleId(buf, vehicleId);
+    }
+
+    public static void encodeSensor(ByteBuffer buf, int seq, int front, int left, int right,
+                                    float x, float y, float heading, String vehicleId) {
+        writeHeader(buf, TYPE_SENSOR, seq);
+        buf.putShort((short) front);
+        buf.putShort((short) left);
+        buf.putShort((short) right);
+        buf.putFloat(x);
+        buf.putFloat(y);
+        buf.putFloat(heading);
+        writeVehicleId(buf, vehicleId);
+    }
+
+    /**
+     * 校验头部并返回报文类型，读位置停在seq之前，调用方接着用getInt()读seq。
+     * 非法报文返回-1，此时读位置不确定，报文应整个丢弃
+     */
+    public static int readHeader(ByteBuffer buf) {
+        if (buf.remaining() < 8 || buf.get() != MAGIC_0 || buf.get() != MAGIC_1 || buf.get() != VERSION) {
+            return -1;
+        }
+        return buf.get();
+    }
+
+    public static String readVehicleId(ByteBuffer buf) {
+        int len = buf.get() & 0xFF;
+        byte[] bytes = new byte[len];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeHeader(ByteBuffer buf, byte type, int seq) {
+        buf.put(MAGIC_0).put(MAGIC_1).put(VERSION).put(type);
+        buf.putInt(seq);
+    }
+
+    private static void writeVehicleId(ByteBuffer buf, String vehicleId) {
+        byte[] bytes = vehicleId.getBytes(StandardCharsets.UTF_8);
+        int len = Math.min(bytes.length, 255);
+        buf.put((byte) len);
+        buf.put(bytes, 0, len);
+    }
+
+    /**
+     * 序号比较（允许int回绕）：a比b新时返回true
+     */
+    public static boolean isNewer(int a, int b) {
+        return a - b > 0;
+    }
+}
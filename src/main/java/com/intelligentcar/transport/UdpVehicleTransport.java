@@ -0,0 +1,270 @@
+package com.intelligentcar.transport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.intelligentcar.logging.LogSampler;
+import com.intelligentcar.model.ControlCommand;
+import com.intelligentcar.service.CarControlService;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 可选的UDP小车传输通道
+ *
+ * 避免有损Wi-Fi上TCP队头阻塞带来的命令延迟：
+ * - 下行命令使用紧凑二进制报文，每辆车独立序号，小车端按最新优先丢弃过期的行驶命令
+ * - 停止/紧急停止按固定间隔冗余发送多份（同一序号，小车端幂等处理）
+ * - 上行传感器报文同样按序号最新优先，乱序到达的旧报文直接丢弃
+ *
+ * 通过CarControlService的命令监听器接入，只对配置在 car.transport.udp.vehicles 中的小车生效：
+ * 传感器报文必须来自该车配置的地址，未配置的小车或来源地址不符的报文计数后丢弃，
+ * 不会据此新建小车或改变下发地址。
+ */
+@Service
+public class UdpVehicleTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(UdpVehicleTransport.class);
+    private static final LogSampler SEND_ERROR_SAMPLER = new LogSampler(1, 5);
+
+    private final CarControlService carControlService;
+    private final boolean enabled;
+    private final String bindAddress;
+    private final int bindPort;
+    private final int stopRedundancy;
+    private final long stopRedundancyIntervalMs;
+    private final Map<String, SocketAddress> carAddresses = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicInteger> commandSeqs = new ConcurrentHashMap<>();
+    private final Map<String, Integer> lastSensorSeqs = new ConcurrentHashMap<>();
+
+    private DatagramChannel channel;
+    private Thread receiverThread;
+    private ScheduledExecutorService redundancyExecutor;
+
+    // 统计数据
+    private final AtomicLong packetsSent = new AtomicLong();
+    private final AtomicLong redundantSent = new AtomicLong();
+    private final AtomicLong sensorPacketsReceived = new AtomicLong();
+    private final AtomicLong staleSensorPackets = new AtomicLong();
+    private final AtomicLong malformedPackets = new AtomicLong();
+    private final AtomicLong rejectedPackets = new AtomicLong();
+
+    public UdpVehicleTransport(CarControlService carControlService,
+                               @Value("${car.transport.udp.enabled:false}") boolean enabled,
+                               @Value("${car.transport.udp.bind-address:127.0.0.1}") String bindAddress,
+                               @Value("${car.transport.udp.bind-port:9870}") int bindPort,
+                               @Value("${car.transport.udp.vehicles:}") String vehicles,
+                               @Value("${car.transport.udp.stop-redundancy:3}") int stopRedundancy,
+                               @Value("${car.transport.udp.stop-redundancy-interval-ms:5}") long stopRedundancyIntervalMs) {
+        this.carControlService = carControlService;
+        this.enabled = enabled;
+        this.bindAddress = bindAddress;
+        this.bindPort = bindPort;
+        this.stopRedundancy = Math.max(1, stopRedundancy);
+        this.stopRedundancyIntervalMs = stopRedundancyIntervalMs;
+        parseVehicles(vehicles);
+    }
+
+    /**
+     * 解析 "car-1=192.168.4.1:9871,car-2=192.168.4.2:9871"，格式不对的条目在启动时报错并指出该条目
+     */
+    private void parseVehicles(String vehicles) {
+        if (vehicles == null || vehicles.isBlank()) {
+            return;
+        }
+        for (String entry : vehicles.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] kv = entry.trim().split("=");
+            int colon = kv.length == 2 ? kv[1].lastIndexOf(':') : -1;
+            if (colon <= 0 || kv[0].isBlank()) {
+                throw invalidVehicle(entry, "应为 小车ID=地址:端口");
+            }
+            String host = kv[1].substring(0, colon).trim();
+            int port;
+            try {
+                port = Integer.parseInt(kv[1].substring(colon + 1).trim());
+            } catch (NumberFormatException e) {
+                throw invalidVehicle(entry, "端口不是数字");
+            }
+            if (host.isEmpty() || port < 1 || port > 65535) {
+                throw invalidVehicle(entry, "地址为空或端口不在1~65535");
+            }
+            carAddresses.put(kv[0].trim(), new InetSocketAddress(host, port));
+        }
+    }
+
+    private static IllegalArgumentException invalidVehicle(String entry, String reason) {
+        return new IllegalArgumentException("car.transport.udp.vehicles 条目无效 \"" + entry.trim() + "\": " + reason);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress(bindAddress, bindPort));
+
+        for (String vehicleId : carAddresses.keySet()) {
+            carControlService.registerVehicle(vehicleId);
+            carControlService.addCommandListener(vehicleId, command -> send(vehicleId, command));
+        }
+
+        redundancyExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "udp-stop-redundancy");
+            thread.setDaemon(true);
+            return thread;
+        });
+        receiverThread = new Thread(this::receiveLoop, "udp-vehicle-receiver");
+        receiverThread.setDaemon(true);
+        receiverThread.start();
+        log.info("UDP小车传输已启动，地址: {}:{}, 小车: {}", bindAddress, bindPort, carAddresses.keySet());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (redundancyExecutor != null) {
+            redundancyExecutor.shutdownNow();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * 下发命令：停止类命令冗余发送，其余发送一次
+     */
+    public void send(String vehicleId, ControlCommand command) {
+        SocketAddress address = carAddresses.get(vehicleId);
+        byte code = UdpPacketCodec.commandCode(command.getCommand());
+        if (address == null || code == 0) {
+            return;
+        }
+        int value = -1;
+        if (command.getValue() != null) {
+            try {
+                value = Integer.parseInt(command.getValue());
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        int seq = commandSeqs.computeIfAbsent(vehicleId, id -> new AtomicInteger()).incrementAndGet();
+        ByteBuffer buf = ByteBuffer.allocate(UdpPacketCodec.MAX_PACKET_SIZE);
+        UdpPacketCodec.encodeCommand(buf, seq, code, value, vehicleId);
+        buf.flip();
+
+        transmit(buf.duplicate(), address);
+        if (UdpPacketCodec.isStop(code)) {
+            for (int i = 1; i < stopRedundancy; i++) {
+                ByteBuffer copy = buf.duplicate();
+                redundancyExecutor.schedule(() -> {
+                    transmit(copy, address);
+                    redundantSent.incrementAndGet();
+                }, i * stopRedundancyIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void transmit(ByteBuffer buf, SocketAddress address) {
+        try {
+            channel.send(buf, address);
+            packetsSent.incrementAndGet();
+        } catch (IOException e) {
+            long skipped = SEND_ERROR_SAMPLER.acquire();
+            if (skipped >= 0) {
+                log.warn("UDP发送失败: {}{}", e.getMessage(), LogSampler.suffix(skipped));
+            }
+        }
+    }
+
+    /**
+     * 接收小车上行的传感器报文
+     */
+    private void receiveLoop() {
+        ByteBuffer buf = ByteBuffer.allocate(UdpPacketCodec.MAX_PACKET_SIZE);
+        while (channel.isOpen()) {
+            try {
+                buf.clear();
+                SocketAddress from = channel.receive(buf);
+                buf.flip();
+                handlePacket(buf, from);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (Exception e) {
+                malformedPackets.incrementAndGet();
+            }
+        }
+    }
+
+    private void handlePacket(ByteBuffer buf, SocketAddress from) {
+        if (UdpPacketCodec.readHeader(buf) != UdpPacketCodec.TYPE_SENSOR) {
+            malformedPackets.incrementAndGet();
+            return;
+        }
+        int seq = buf.getInt();
+        int front = buf.getShort();
+        int left = buf.getShort();
+        int right = buf.getShort();
+        float x = buf.getFloat();
+        float y = buf.getFloat();
+        float heading = buf.getFloat();
+        String vehicleId = UdpPacketCodec.readVehicleId(buf);
+
+        // 只接受已配置小车从其登记地址发来的报文
+        if (!from.equals(carAddresses.get(vehicleId))) {
+            rejectedPackets.incrementAndGet();
+            return;
+        }
+        sensorPacketsReceived.incrementAndGet();
+
+        // 最新优先：乱序到达的旧报文丢弃
+        Integer last = lastSensorSeqs.get(vehicleId);
+        if (last != null && !UdpPacketCodec.isNewer(seq, last)) {
+            staleSensorPackets.incrementAndGet();
+            return;
+        }
+        lastSensorSeqs.put(vehicleId, seq);
+
+        // 没有位姿时x为NaN，只更新距离
+        carControlService.updateTelemetry(vehicleId, front, left, right, x, y, heading);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * UDP传输统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("vehicles", carAddresses.keySet());
+        stats.put("packetsSent", packetsSent.get());
+        stats.put("redundantStopPackets", redundantSent.get());
+        stats.put("sensorPacketsReceived", sensorPacketsReceived.get());
+        stats.put("staleSensorPackets", staleSensorPackets.get());
+        stats.put("malformedPackets", malformedPackets.get());
+        stats.put("rejectedPackets", rejectedPackets.get());
+        return stats;
+    }
+}
@@ -1,33 +1,72 @@
 // src/main/java/com/intelligentcar/websocket/CarCommandHandler.java
 package com.intelligentcar.websocket;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 import org.springframework.stereotype.Component;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
+import com.intelligentcar.exception.CommandRejectedException;
+import com.intelligentcar.logging.LogSampler;
+import com.intelligentcar.metrics.CarMetrics;
 import com.intelligentcar.model.ControlCommand;
+import com.intelligentcar.service.AdmissionControlService;
 import com.intelligentcar.service.CarControlService;
+import com.intelligentcar.service.ClockOffsetEstimator;
+import com.intelligentcar.service.CommandDeadlinePolicy;
+import com.intelligentcar.service.SequenceWindow;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 
 public class CarCommandHandler extends TextWebSocketHandler {
 
-    private static final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private static final Logger log = LoggerFactory.getLogger(CarCommandHandler.class);
+    private static final LogSampler MESSAGE_SAMPLER = new LogSampler(5, 20);
+    private static final LogSampler ERROR_SAMPLER = new LogSampler(1, 5);
+
+    private static final String CLOCK_ATTRIBUTE = "clockOffset";
+    private static final String SEQUENCE_ATTRIBUTE = "sequenceWindow";
+
+    // screen() 的判定结果，null表示可以执行
+    private static final String STATUS_INVALID = "INVALID";
+    private static final String STATUS_WRONG_VEHICLE = "WRONG_VEHICLE";
+    private static final String STATUS_EXPIRED = "EXPIRED";
+
+    // 限流回复是固定内容，预先构造，洪泛时不再逐条序列化
+    private static final TypeReference<List<ControlCommand>> COMMAND_LIST = new TypeReference<>() {};
+
+    private static final TextMessage DRIVE_RATE_LIMITED =
+            new TextMessage("{\"type\":\"RATE_LIMITED\",\"kind\":\"DRIVE\"}");
+    private static final TextMessage QUERY_RATE_LIMITED =
+            new TextMessage("{\"type\":\"RATE_LIMITED\",\"kind\":\"QUERY\"}");
+
     private final CarControlService carControlService;
+    private final CommandDeadlinePolicy deadlinePolicy;
+    private final AdmissionControlService admissionControl;
+    private final CarMetrics metrics;
     private final ObjectMapper objectMapper;
 
-    public CarCommandHandler(CarControlService carControlService) {
+    public CarCommandHandler(CarControlService carControlService, CommandDeadlinePolicy deadlinePolicy,
+                             AdmissionControlService admissionControl, CarMetrics metrics) {
         this.carControlService = carControlService;
+        this.deadlinePolicy = deadlinePolicy;
+        this.admissionControl = admissionControl;
+        this.metrics = metrics;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
     }
@@ -35,16 +74,23 @@ public class CarCommandHandler extends TextWebSocketHandler {
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         String sessionId = session.getId();
-        sessions.put(sessionId, session);
-        carControlService.registerControlSession(sessionId, session);
+        String vehicleId = VehicleHandshakeInterceptor.vehicleIdOf(session);
+        // 连接时可通过 ?echo=true 订阅命令回显
+        String query = session.getUri() == null ? null : session.getUri().getQuery();
+        setCommandEcho(session, query != null && query.contains("echo=true"));
+        session.getAttributes().put(CLOCK_ATTRIBUTE, new ClockOffsetEstimator());
+        carControlService.registerControlSession(vehicleId, sessionId, session);
 
-        System.out.println("新的控制连接建立: " + sessionId + ", IP: " + session.getRemoteAddress());
+        log.info("新的控制连接建立: {}, 小车: {}, IP: {}", sessionId, vehicleId, session.getRemoteAddress());
 
         // 发送欢迎消息 - 使用 ObjectMapper 构建
         Map<String, Object> welcomeMsg = new HashMap<>();
         welcomeMsg.put("type", "WELCOME");
         welcomeMsg.put("message", "已连接到智能小车控制系统");
         welcomeMsg.put("sessionId", sessionId);
+        welcomeMsg.put("vehicleId", vehicleId);
+        // 带clientId重连时，客户端从该序号之后续发
+        welcomeMsg.put("highestContiguousSeq", sequenceOf(session).getHighestContiguous());
         welcomeMsg.put("timestamp", LocalDateTime.now());
 
         String welcomeJson = objectMapper.writeValueAsString(welcomeMsg);
@@ -52,51 +98,130 @@ public class CarCommandHandler extends TextWebSocketHandler {
 
         // 发送当前状态
         sendCurrentStatus(session);
+
+        // 首次时钟同步探测
+        sendPing(session);
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        long receivedNanos = System.nanoTime();
         String sessionId = session.getId();
         String payload = message.getPayload().trim(); // 注意：增加了 trim()
 
-        System.out.println("收到控制消息[" + sessionId + "]: " + payload);
+        if (log.isDebugEnabled()) {
+            long skipped = MESSAGE_SAMPLER.acquire();
+            if (skipped >= 0) {
+                log.debug("收到控制消息[{}]: {}{}", sessionId, payload, LogSampler.suffix(skipped));
+            }
+        }
 
         // === 新增：先处理纯文本指令 ===
+        if ("GET_STATUS".equals(payload) || "ECHO_ON".equals(payload) || "ECHO_OFF".equals(payload)) {
+            if (!admit(session, AdmissionControlService.Kind.QUERY, 1)) {
+                return;
+            }
+        }
         if ("GET_STATUS".equals(payload)) {
-            System.out.println("接收到状态查询请求，发送当前状态");
             sendCurrentStatus(session);
             return; // 处理完成，直接返回
         }
+        if ("ECHO_ON".equals(payload) || "ECHO_OFF".equals(payload)) {
+            setCommandEcho(session, "ECHO_ON".equals(payload));
+            sendAck(session, payload);
+            return;
+        }
         // === 处理结束 ===
 
+        long receivedAt = System.currentTimeMillis();
+        ClockOffsetEstimator clock = clockOf(session);
+
+        // 时钟同步应答
+        if (payload.contains("\"PONG\"")) {
+            JsonNode pong = objectMapper.readTree(payload);
+            if ("PONG".equals(pong.path("type").asText())) {
+                clock.addPingSample(pong.path("serverTime").asLong(), pong.path("clientTime").asLong(), receivedAt);
+                return;
+            }
+        }
+
+        // 一帧多条命令：整批原子执行，一个汇总确认，最多一次状态广播
+        if (payload.startsWith("[")) {
+            handleBatch(session, payload, clock, receivedAt, receivedNanos);
+            return;
+        }
+
+        // 准入控制尽量在JSON解析之前：不含STOP字样的一定是行驶命令，直接扣令牌；
+        // 含STOP字样的解析后再确认是否真是停止类命令
+        boolean mayBeStop = payload.contains("STOP");
+        if (!mayBeStop && !admit(session, AdmissionControlService.Kind.DRIVE, 1)) {
+            return;
+        }
+
         try {
             // 解析控制命令 (期望是JSON)
             ControlCommand command = objectMapper.readValue(payload, ControlCommand.class);
             command.setSessionId(sessionId);
 
-            if (!command.isValid()) {
+            if (mayBeStop) {
+                if (command.isStopCommand()) {
+                    admissionControl.recordExempt();
+                } else if (!admit(session, AdmissionControlService.Kind.DRIVE, 1)) {
+                    return;
+                }
+            }
+
+            String vehicleId = VehicleHandshakeInterceptor.vehicleIdOf(session);
+            SequenceWindow window = sequenceOf(session);
+            String verdict;
+            // 同一操作端的多条连接可能共用窗口，筛查、执行、登记在窗口锁内完成，同一序号不会执行两次
+            synchronized (window) {
+                verdict = screen(session, command, clock, window.copy(), receivedAt);
+                if (verdict == null) {
+                    // 被安全规则拒绝时抛出CommandRejectedException，序号不登记
+                    carControlService.executeCommand(command);
+                }
+                if ((verdict == null || SequenceWindow.Verdict.SUPERSEDED.name().equals(verdict))
+                        && command.getSeq() != null) {
+                    window.accept(command.getSeq());
+                }
+            }
+            if (STATUS_INVALID.equals(verdict)) {
                 sendError(session, "无效的命令: " + command.getCommand());
                 return;
             }
-
-            // 执行命令
-            carControlService.executeCommand(command.getCommand(), command.getValue());
+            if (STATUS_WRONG_VEHICLE.equals(verdict)) {
+                sendError(session, "命令目标小车与连接不一致: " + command.getVehicleId());
+                return;
+            }
+            if (STATUS_EXPIRED.equals(verdict)) {
+                sendExpired(session, command, receivedAt);
+                return;
+            }
+            if (verdict != null) {
+                // 重复和被取代的命令只回确认，不再执行
+                sendCommandAck(session, command, verdict, window);
+                return;
+            }
+            if (clock.needsPing(receivedAt, deadlinePolicy.getPingIntervalMs())) {
+                sendPing(session);
+            }
+            metrics.recordCommand(CarMetrics.TRANSPORT_WEBSOCKET, command.getCommand(), System.nanoTime() - receivedNanos);
 
             // 发送确认消息
-            Map<String, Object> ackMsg = new HashMap<>();
-            ackMsg.put("type", "ACK");
-            ackMsg.put("command", command.getCommand());
-            ackMsg.put("status", "EXECUTED");
-            ackMsg.put("timestamp", System.currentTimeMillis());
-
-            String ackJson = objectMapper.writeValueAsString(ackMsg);
-            session.sendMessage(new TextMessage(ackJson));
+            sendCommandAck(session, command, "EXECUTED", window);
+            metrics.recordAck(System.nanoTime() - receivedNanos);
 
             // 广播状态更新
-            broadcastStatusUpdate();
+            broadcastStatusUpdate(vehicleId);
 
+        } catch (CommandRejectedException e) {
+            sendError(session, "命令被拒绝: " + e.getMessage());
         } catch (Exception e) {
-            System.err.println("处理控制消息失败: " + e.getMessage());
+            long skipped = ERROR_SAMPLER.acquire();
+            if (skipped >= 0) {
+                log.warn("处理控制消息失败[{}]: {}{}", sessionId, e.getMessage(), LogSampler.suffix(skipped));
+            }
             // 更友好的错误提示：说明期望的格式
             if (e.getMessage().contains("Unrecognized token")) {
                 sendError(session, "消息格式错误，请发送JSON格式的控制命令。收到: " + payload);
@@ -109,15 +234,15 @@ public class CarCommandHandler extends TextWebSocketHandler {
     @Override
     public void afterConnectionClosed(WebSocketSession session, org.springframework.web.socket.CloseStatus status) throws Exception {
         String sessionId = session.getId();
-        sessions.remove(sessionId);
-        carControlService.removeControlSession(sessionId);
+        carControlService.removeControlSession(VehicleHandshakeInterceptor.vehicleIdOf(session), sessionId);
+        admissionControl.removeSession(sessionId);
 
-        System.out.println("控制连接关闭: " + sessionId + ", 原因: " + status.getReason() + ", 代码: " + status.getCode());
+        log.info("控制连接关闭: {}, 原因: {}, 代码: {}", sessionId, status.getReason(), status.getCode());
     }
 
     @Override
     public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
-        System.err.println("传输错误: " + session.getId() + " - " + exception.getMessage());
+        log.warn("传输错误: {} - {}", session.getId(), exception.getMessage());
         session.close();
     }
 
@@ -125,30 +250,268 @@ public class CarCommandHandler extends TextWebSocketHandler {
      * 发送当前状态
      */
     private void sendCurrentStatus(WebSocketSession session) throws IOException {
-        Map<String, Object> status = carControlService.getCurrentStatus().toMap();
+        String vehicleId = VehicleHandshakeInterceptor.vehicleIdOf(session);
+        Map<String, Object> status = carControlService.getCurrentStatus(vehicleId).toMap();
         status.put("type", "STATUS_UPDATE");
-        status.put("activeConnections", sessions.size());
+        status.put("vehicleId", vehicleId);
+        status.put("activeConnections", carControlService.getControlSessions(vehicleId).size());
 
         String statusJson = objectMapper.writeValueAsString(status);
         session.sendMessage(new TextMessage(statusJson));
     }
 
     /**
-     * 广播状态更新
+     * 向该车的控制连接广播状态更新
      */
-    private void broadcastStatusUpdate() throws IOException {
-        Map<String, Object> status = carControlService.getCurrentStatus().toMap();
+    private void broadcastStatusUpdate(String vehicleId) throws IOException {
+        long start = System.nanoTime();
+        Map<String, Object> status = carControlService.getCurrentStatus(vehicleId).toMap();
         status.put("type", "BROADCAST_STATUS");
+        status.put("vehicleId", vehicleId);
         status.put("timestamp", LocalDateTime.now());
 
         String statusJson = objectMapper.writeValueAsString(status);
         TextMessage message = new TextMessage(statusJson);
 
-        for (WebSocketSession session : sessions.values()) {
+        for (WebSocketSession session : carControlService.getControlSessions(vehicleId)) {
             if (session.isOpen()) {
-                session.sendMessage(message);
+                try {
+                    session.sendMessage(message);
+                } catch (IOException | SessionLimitExceededException e) {
+                    // 慢客户端已被会话包装关闭，继续广播给其他操作端
+                    long skipped = ERROR_SAMPLER.acquire();
+                    if (skipped >= 0) {
+                        log.warn("广播状态失败[{}]: {}{}", session.getId(), e.getMessage(), LogSampler.suffix(skipped));
+                    }
+                }
             }
         }
+        metrics.recordControlBroadcast(System.nanoTime() - start);
+    }
+
+    /**
+     * 确认控制命令，带上最大连续已处理序号供客户端断线续发
+     */
+    private void sendCommandAck(WebSocketSession session, ControlCommand command, String status,
+                                SequenceWindow window) throws IOException {
+        Map<String, Object> ackMsg = new HashMap<>();
+        ackMsg.put("type", "ACK");
+        ackMsg.put("command", command.getCommand());
+        ackMsg.put("vehicleId", command.getVehicleId());
+        ackMsg.put("status", status);
+        if (command.getSeq() != null) {
+            ackMsg.put("seq", command.getSeq());
+        }
+        ackMsg.put("highestContiguousSeq", window.getHighestContiguous());
+        ackMsg.put("timestamp", System.currentTimeMillis());
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(ackMsg)));
+    }
+
+    /**
+     * 发送时钟同步探测，客户端以PONG带回serverTime和自身时间
+     */
+    private void sendPing(WebSocketSession session) throws IOException {
+        long now = System.currentTimeMillis();
+        clockOf(session).markPingSent(now);
+        Map<String, Object> pingMsg = new HashMap<>();
+        pingMsg.put("type", "PING");
+        pingMsg.put("serverTime", now);
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(pingMsg)));
+    }
+
+    /**
+     * 通知客户端命令因过期被丢弃
+     */
+    private void sendExpired(WebSocketSession session, ControlCommand command, long receivedAt) throws IOException {
+        Map<String, Object> expiredMsg = new HashMap<>();
+        expiredMsg.put("type", "EXPIRED");
+        expiredMsg.put("command", command.getCommand());
+        expiredMsg.put("lateMs", receivedAt - command.getExpiresAt());
+        expiredMsg.put("timestamp", System.currentTimeMillis());
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(expiredMsg)));
+    }
+
+    /**
+     * 批量命令：先逐条筛查（无效或跨车则整批拒绝，重复、被取代和过期的跳过），
+     * 再在小车锁内按顺序原子执行
+     */
+    private void handleBatch(WebSocketSession session, String payload, ClockOffsetEstimator clock,
+                             long receivedAt, long receivedNanos) throws IOException {
+        List<ControlCommand> commands;
+        try {
+            commands = objectMapper.readValue(payload, COMMAND_LIST);
+        } catch (Exception e) {
+            sendError(session, "批量命令格式错误: " + e.getMessage());
+            return;
+        }
+        if (commands.isEmpty() || commands.size() > CarControlService.MAX_BATCH_SIZE) {
+            sendError(session, "批量命令条数应为1~" + CarControlService.MAX_BATCH_SIZE);
+            return;
+        }
+
+        // 无效或跨车的命令使整批被拒，在登记序号之前检查，拒绝的批次可原样重发
+        String vehicleId = VehicleHandshakeInterceptor.vehicleIdOf(session);
+        int drivePermits = 0;
+        for (int i = 0; i < commands.size(); i++) {
+            ControlCommand command = commands.get(i);
+            if (!command.isValid()
+                    || (command.getVehicleId() != null && !command.getVehicleId().equals(vehicleId))) {
+                sendError(session, "批量命令被拒绝，第" + (i + 1) + "条无效: " + command.getCommand());
+                return;
+            }
+            if (!command.isStopCommand()) {
+                drivePermits++;
+            }
+        }
+        int maxPermits = admissionControl.getMaxPermits(AdmissionControlService.Kind.DRIVE);
+        if (drivePermits > maxPermits) {
+            sendError(session, "批量行驶命令最多" + maxPermits + "条");
+            return;
+        }
+        if (drivePermits > 0 && !admit(session, AdmissionControlService.Kind.DRIVE, drivePermits)) {
+            return;
+        }
+
+        SequenceWindow window = sequenceOf(session);
+        List<ControlCommand> accepted = new ArrayList<>(commands.size());
+        List<Map<String, Object>> results = new ArrayList<>(commands.size());
+        // 执行成功或被取代的序号，整批执行成功后才登记到窗口
+        List<Long> settled = new ArrayList<>(commands.size());
+        try {
+            synchronized (window) {
+                // 在副本上逐条试算，批内的重复和乱序也能判出来
+                SequenceWindow trial = window.copy();
+                for (ControlCommand command : commands) {
+                    command.setSessionId(session.getId());
+                    String verdict = screen(session, command, clock, trial, receivedAt);
+                    if (verdict == null) {
+                        accepted.add(command);
+                    }
+                    if ((verdict == null || SequenceWindow.Verdict.SUPERSEDED.name().equals(verdict))
+                            && command.getSeq() != null) {
+                        settled.add(command.getSeq());
+                    }
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("command", command.getCommand());
+                    result.put("seq", command.getSeq());
+                    result.put("status", verdict == null ? "EXECUTED" : verdict);
+                    results.add(result);
+                }
+                if (!accepted.isEmpty()) {
+                    carControlService.executeBatch(vehicleId, accepted);
+                }
+                for (Long seq : settled) {
+                    window.accept(seq);
+                }
+            }
+            if (!accepted.isEmpty()) {
+                metrics.recordCommand(CarMetrics.TRANSPORT_WEBSOCKET, "BATCH", System.nanoTime() - receivedNanos);
+            }
+        } catch (CommandRejectedException e) {
+            sendError(session, "批量命令被拒绝: " + e.getMessage());
+            return;
+        }
+
+        Map<String, Object> ackMsg = new HashMap<>();
+        ackMsg.put("type", "ACK");
+        ackMsg.put("batch", true);
+        ackMsg.put("vehicleId", vehicleId);
+        ackMsg.put("executed", accepted.size());
+        ackMsg.put("results", results);
+        ackMsg.put("highestContiguousSeq", window.getHighestContiguous());
+        ackMsg.put("timestamp", System.currentTimeMillis());
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(ackMsg)));
+        metrics.recordAck(System.nanoTime() - receivedNanos);
+
+        if (!accepted.isEmpty()) {
+            broadcastStatusUpdate(vehicleId);
+        }
+    }
+
+    /**
+     * 执行前筛查：有效性、目标小车、序号窗口、截止时间。返回null表示可以执行
+     *
+     * window是试算用的副本，真实窗口由调用方在命令执行之后登记
+     */
+    private String screen(WebSocketSession session, ControlCommand command, ClockOffsetEstimator clock,
+                          SequenceWindow window, long receivedAt) {
+        if (!command.isValid()) {
+            return STATUS_INVALID;
+        }
+
+        // 会话绑定到路径中的小车，不允许跨车下发
+        String vehicleId = VehicleHandshakeInterceptor.vehicleIdOf(session);
+        if (command.getVehicleId() != null && !command.getVehicleId().equals(vehicleId)) {
+            return STATUS_WRONG_VEHICLE;
+        }
+        command.setVehicleId(vehicleId);
+
+        // 序号去重：被取代的停止命令仍然执行
+        if (command.getSeq() != null) {
+            SequenceWindow.Verdict verdict = window.accept(command.getSeq());
+            if (verdict != SequenceWindow.Verdict.NEW
+                    && !(verdict == SequenceWindow.Verdict.SUPERSEDED && command.isStopCommand())) {
+                return verdict.name();
+            }
+        }
+
+        // 过期的行驶命令直接丢弃，停止类命令始终执行
+        if (command.getTimestamp() != null) {
+            clock.addCommandSample(command.getTimestamp(), receivedAt);
+        }
+        deadlinePolicy.assignDeadline(command, clock, receivedAt);
+        if (deadlinePolicy.shouldDiscard(command, receivedAt)) {
+            return STATUS_EXPIRED;
+        }
+        return null;
+    }
+
+    /**
+     * 准入检查，超出配额时回复限流消息
+     */
+    private boolean admit(WebSocketSession session, AdmissionControlService.Kind kind, int permits) throws IOException {
+        if (admissionControl.tryAdmit(session.getId(), VehicleHandshakeInterceptor.vehicleIdOf(session), kind, permits)) {
+            return true;
+        }
+        session.sendMessage(kind == AdmissionControlService.Kind.DRIVE ? DRIVE_RATE_LIMITED : QUERY_RATE_LIMITED);
+        return false;
+    }
+
+    /**
+     * 带clientId的连接使用小车上下文里按操作端保存的窗口，重连后序号接续；
+     * 没有clientId时窗口只在本会话内有效
+     */
+    private SequenceWindow sequenceOf(WebSocketSession session) {
+        String clientId = VehicleHandshakeInterceptor.clientIdOf(session);
+        if (clientId != null) {
+            return carControlService.getSequenceWindow(VehicleHandshakeInterceptor.vehicleIdOf(session), clientId);
+        }
+        return (SequenceWindow) session.getAttributes()
+                .computeIfAbsent(SEQUENCE_ATTRIBUTE, k -> new SequenceWindow());
+    }
+
+    private ClockOffsetEstimator clockOf(WebSocketSession session) {
+        return (ClockOffsetEstimator) session.getAttributes()
+                .computeIfAbsent(CLOCK_ATTRIBUTE, k -> new ClockOffsetEstimator());
+    }
+
+    /**
+     * 设置是否接收命令回显
+     */
+    private void setCommandEcho(WebSocketSession session, boolean enabled) {
+        session.getAttributes().put(CarControlService.COMMAND_ECHO_ATTRIBUTE, enabled);
+    }
+
+    /**
+     * 确认纯文本指令
+     */
+    private void sendAck(WebSocketSession session, String command) throws IOException {
+        Map<String, Object> ackMsg = new HashMap<>();
+        ackMsg.put("type", "ACK");
+        ackMsg.put("command", command);
+        ackMsg.put("status", "EXECUTED");
+        ackMsg.put("timestamp", System.currentTimeMillis());
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(ackMsg)));
     }
 
     /**
@@ -169,6 +532,6 @@ public class CarCommandHandler extends TextWebSocketHandler {
      * 获取活动连接数
      */
     public int getActiveConnections() {
-        return sessions.size();
+        return carControlService.getActiveConnections();
     }
 }
\ No newline at end of file
@@ -1,32 +1,42 @@
 // src/main/java/com/intelligentcar/websocket/CarStatusHandler.java
 package com.intelligentcar.websocket;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
+import com.intelligentcar.logging.LogSampler;
+import com.intelligentcar.metrics.CarMetrics;
 import com.intelligentcar.service.CarControlService;
 import com.intelligentcar.model.CarStatus;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 
 public class CarStatusHandler extends TextWebSocketHandler {
 
-    private static final Map<String, WebSocketSession> statusSessions = new ConcurrentHashMap<>();
+    private static final Logger log = LoggerFactory.getLogger(CarStatusHandler.class);
+    private static final LogSampler MESSAGE_SAMPLER = new LogSampler(5, 20);
+    private static final LogSampler SEND_ERROR_SAMPLER = new LogSampler(1, 5);
+
     private final CarControlService carControlService;
+    private final CarMetrics metrics;
     private final ObjectMapper objectMapper;
 
-    public CarStatusHandler(CarControlService carControlService) {
+    public CarStatusHandler(CarControlService carControlService, CarMetrics metrics) {
         this.carControlService = carControlService;
+        this.metrics = metrics;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
     }
@@ -34,14 +44,16 @@ public class CarStatusHandler extends TextWebSocketHandler {
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         String sessionId = session.getId();
-        statusSessions.put(sessionId, session);
+        String vehicleId = VehicleHandshakeInterceptor.vehicleIdOf(session);
+        carControlService.registerStatusSession(vehicleId, sessionId, session);
 
-        System.out.println("新的状态监听连接建立: " + sessionId);
+        log.info("新的状态监听连接建立: {}, 小车: {}", sessionId, vehicleId);
 
         // 发送欢迎消息 - 使用 ObjectMapper
         Map<String, Object> welcomeMsg = new HashMap<>();
         welcomeMsg.put("type", "STATUS_WELCOME");
         welcomeMsg.put("message", "已连接到状态更新服务");
+        welcomeMsg.put("vehicleId", vehicleId);
         welcomeMsg.put("timestamp", LocalDateTime.now());
 
         String welcomeJson = objectMapper.writeValueAsString(welcomeMsg);
@@ -54,7 +66,12 @@ public class CarStatusHandler extends TextWebSocketHandler {
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
         String payload = message.getPayload();
-        System.out.println("状态监听消息: " + payload);
+        if (log.isDebugEnabled()) {
+            long skipped = MESSAGE_SAMPLER.acquire();
+            if (skipped >= 0) {
+                log.debug("状态监听消息[{}]: {}{}", session.getId(), payload, LogSampler.suffix(skipped));
+            }
+        }
 
         if ("GET_STATUS".equals(payload)) {
             sendStatusUpdate(session);
@@ -64,17 +81,19 @@ public class CarStatusHandler extends TextWebSocketHandler {
     @Override
     public void afterConnectionClosed(WebSocketSession session, org.springframework.web.socket.CloseStatus status) throws Exception {
         String sessionId = session.getId();
-        statusSessions.remove(sessionId);
-        System.out.println("状态监听连接关闭: " + sessionId);
+        carControlService.removeStatusSession(VehicleHandshakeInterceptor.vehicleIdOf(session), sessionId);
+        log.info("状态监听连接关闭: {}", sessionId);
     }
 
     /**
      * 发送状态更新
      */
     private void sendStatusUpdate(WebSocketSession session) throws IOException {
-        CarStatus status = carControlService.getCurrentStatus();
+        String vehicleId = VehicleHandshakeInterceptor.vehicleIdOf(session);
+        CarStatus status = carControlService.getCurrentStatus(vehicleId);
         Map<String, Object> statusMap = status.toMap();
         statusMap.put("type", "STATUS_UPDATE");
+        statusMap.put("vehicleId", vehicleId);
         statusMap.put("timestamp", LocalDateTime.now());
 
         String statusJson = objectMapper.writeValueAsString(statusMap);
@@ -82,30 +101,38 @@ public class CarStatusHandler extends TextWebSocketHandler {
     }
 
     /**
-     * 广播状态更新给所有监听客户端
+     * 广播状态更新给该车的所有监听客户端
      */
-    public void broadcastStatus() {
+    public void broadcastStatus(String vehicleId) {
+        long start = System.nanoTime();
         try {
-            CarStatus status = carControlService.getCurrentStatus();
+            Collection<WebSocketSession> listeners = carControlService.getStatusSessions(vehicleId);
+            CarStatus status = carControlService.getCurrentStatus(vehicleId);
             Map<String, Object> statusMap = status.toMap();
             statusMap.put("type", "STATUS_BROADCAST");
+            statusMap.put("vehicleId", vehicleId);
             statusMap.put("timestamp", LocalDateTime.now());
-            statusMap.put("activeListeners", statusSessions.size());
+            statusMap.put("activeListeners", listeners.size());
 
             String statusJson = objectMapper.writeValueAsString(statusMap);
             TextMessage message = new TextMessage(statusJson);
 
-            for (WebSocketSession session : statusSessions.values()) {
+            for (WebSocketSession session : listeners) {
                 if (session.isOpen()) {
                     try {
                         session.sendMessage(message);
-                    } catch (IOException e) {
-                        System.err.println("发送状态更新失败: " + e.getMessage());
+                    } catch (IOException | SessionLimitExceededException e) {
+                        long skipped = SEND_ERROR_SAMPLER.acquire();
+                        if (skipped >= 0) {
+                            log.warn("发送状态更新失败[{}]: {}{}", session.getId(), e.getMessage(),
+                                    LogSampler.suffix(skipped));
+                        }
                     }
                 }
             }
+            metrics.recordStatusBroadcast(System.nanoTime() - start);
         } catch (Exception e) {
-            System.err.println("准备状态更新失败: " + e.getMessage());
+            log.error("准备状态更新失败[{}]", vehicleId, e);
         }
     }
 
@@ -113,6 +140,10 @@ public class CarStatusHandler extends TextWebSocketHandler {
      * 获取状态监听连接数
      */
     public int getStatusListenerCount() {
-        return statusSessions.size();
+        int count = 0;
+        for (String vehicleId : carControlService.getVehicleIds()) {
+            count += carControlService.getStatusSessions(vehicleId).size();
+        }
+        return count;
     }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.intelligentcar.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.intelligentcar.logging.LogSampler;
+import com.intelligentcar.service.CarControlService;
+import com.intelligentcar.service.DeviceSessionRegistry;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 小车硬件设备通道（/ws/device/{vehicleId}）
+ *
+ * 设备上行消息：
+ * - {"type":"ACK","seq":n}                         确认命令
+ * - {"type":"SENSOR","front":f,"left":l,"right":r} 上报传感器数据
+ */
+public class DeviceCommandHandler extends TextWebSocketHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceCommandHandler.class);
+    private static final LogSampler ERROR_SAMPLER = new LogSampler(1, 5);
+
+    private final CarControlService carControlService;
+    private final DeviceSessionRegistry deviceSessionRegistry;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public DeviceCommandHandler(CarControlService carControlService, DeviceSessionRegistry deviceSessionRegistry) {
+        this.carControlService = carControlService;
+        this.deviceSessionRegistry = deviceSessionRegistry;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        String vehicleId = VehicleHandshakeInterceptor.vehicleIdOf(session);
+        // 握手检查之后仍可能有两条连接同时到达，后登记的关闭
+        WebSocketSession device = deviceSessionRegistry.registerDevice(vehicleId, session);
+        if (device == null) {
+            log.warn("小车设备已在线，拒绝新连接: {}, IP: {}", vehicleId, session.getRemoteAddress());
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("device already connected"));
+            return;
+        }
+        carControlService.registerVehicle(vehicleId);
+        log.info("小车设备连接建立: {}, IP: {}", vehicleId, session.getRemoteAddress());
+
+        Map<String, Object> welcomeMsg = new HashMap<>();
+        welcomeMsg.put("type", "DEVICE_WELCOME");
+        welcomeMsg.put("vehicleId", vehicleId);
+        welcomeMsg.put("timestamp", System.currentTimeMillis());
+        // 经包装会话发送，与命令下发共用同一个发送队列
+        device.sendMessage(new TextMessage(objectMapper.writeValueAsString(welcomeMsg)));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        String vehicleId = VehicleHandshakeInterceptor.vehicleIdOf(session);
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(message.getPayload());
+        } catch (Exception e) {
+            long skipped = ERROR_SAMPLER.acquire();
+            if (skipped >= 0) {
+                log.warn("设备消息格式错误[{}]: {}{}", vehicleId, e.getMessage(), LogSampler.suffix(skipped));
+            }
+            return;
+        }
+
+        String type = node.path("type").asText();
+        switch (type) {
+            case "ACK":
+                deviceSessionRegistry.acknowledge(vehicleId, node.path("seq").asLong(-1));
+                break;
+            case "SENSOR":
+                carControlService.updateSensorData(vehicleId,
+                        node.path("front").asInt(),
+                        node.path("left").asInt(),
+                        node.path("right").asInt());
+                break;
+            default:
+                long skipped = ERROR_SAMPLER.acquire();
+                if (skipped >= 0) {
+                    log.warn("未知设备消息类型[{}]: {}{}", vehicleId, type, LogSampler.suffix(skipped));
+                }
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+        String vehicleId = VehicleHandshakeInterceptor.vehicleIdOf(session);
+        deviceSessionRegistry.removeDevice(vehicleId, session);
+        log.info("小车设备连接关闭: {}, 代码: {}", vehicleId, status.getCode());
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+        log.warn("设备传输错误: {} - {}", session.getId(), exception.getMessage());
+        session.close();
+    }
+}
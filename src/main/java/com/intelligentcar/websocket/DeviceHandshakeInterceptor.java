@@ -0,0 +1,74 @@
+package com.intelligentcar.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.intelligentcar.logging.LogSampler;
+import com.intelligentcar.service.DeviceSessionRegistry;
+
+import java.util.Map;
+
+/**
+ * 设备连接握手校验，排在VehicleHandshakeInterceptor之后（需要已解析的小车ID）
+ *
+ * 令牌取自 Authorization: Bearer 头，或查询参数 token（不便设置请求头的设备固件）。
+ * 令牌不符返回401；该车已有设备在线返回409，保留现有连接。
+ */
+public class DeviceHandshakeInterceptor implements HandshakeInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceHandshakeInterceptor.class);
+    private static final LogSampler REJECT_SAMPLER = new LogSampler(1, 5);
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final DeviceSessionRegistry deviceSessionRegistry;
+
+    public DeviceHandshakeInterceptor(DeviceSessionRegistry deviceSessionRegistry) {
+        this.deviceSessionRegistry = deviceSessionRegistry;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String vehicleId = String.valueOf(attributes.get(VehicleHandshakeInterceptor.VEHICLE_ID_ATTRIBUTE));
+        if (!deviceSessionRegistry.authenticate(vehicleId, tokenOf(request))) {
+            reject(response, HttpStatus.UNAUTHORIZED, vehicleId, request);
+            return false;
+        }
+        if (deviceSessionRegistry.isDeviceConnected(vehicleId)) {
+            reject(response, HttpStatus.CONFLICT, vehicleId, request);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private static String tokenOf(ServerHttpRequest request) {
+        String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.startsWith(BEARER_PREFIX)) {
+            return authorization.substring(BEARER_PREFIX.length()).trim();
+        }
+        return UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("token");
+    }
+
+    private static void reject(ServerHttpResponse response, HttpStatus status, String vehicleId,
+                               ServerHttpRequest request) {
+        response.setStatusCode(status);
+        long skipped = REJECT_SAMPLER.acquire();
+        if (skipped >= 0) {
+            log.warn("拒绝设备连接[{}]: {}, IP: {}{}", vehicleId, status.value(), request.getRemoteAddress(),
+                    LogSampler.suffix(skipped));
+        }
+    }
+}
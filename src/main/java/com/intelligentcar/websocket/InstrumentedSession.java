@@ -0,0 +1,79 @@
+package com.intelligentcar.websocket;
+
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import com.intelligentcar.metrics.SessionStats;
+import com.intelligentcar.scheduler.SessionTask;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 登记在SessionRegistry中的会话包装，统计出站消息
+ *
+ * sendsInFlight是此刻正在这个会话上调用sendMessage的线程数（在途发送数），不是缓冲队列长度。
+ * 排队和串行化由内层的ConcurrentWebSocketSessionDecorator负责：其他线程正在写时消息只入队，
+ * 这次调用很快返回，记下的发送耗时只是入队耗时。
+ * 字节数取消息的payload长度，文本消息按字符计（JSON基本是ASCII），不为统计再编码一遍。
+ */
+public class InstrumentedSession extends WebSocketSessionDecorator {
+
+    private final SessionStats stats;
+    private final SessionLifecycleDecorator owner;
+    // 绑定在会话上的周期任务（心跳、推帧），会话移除时统一取消
+    private final Set<SessionTask> tasks = ConcurrentHashMap.newKeySet();
+    private volatile boolean released;
+
+    InstrumentedSession(WebSocketSession delegate, SessionStats stats, SessionLifecycleDecorator owner) {
+        super(delegate);
+        this.stats = stats;
+        this.owner = owner;
+    }
+
+    public SessionStats getStats() {
+        return stats;
+    }
+
+    SessionLifecycleDecorator getOwner() {
+        return owner;
+    }
+
+    void bind(SessionTask task) {
+        tasks.add(task);
+        // 会话已被移除时不再保留新任务
+        if (released && tasks.remove(task)) {
+            task.cancel();
+        }
+    }
+
+    void cancelTasks() {
+        released = true;
+        for (SessionTask task : tasks) {
+            task.cancel();
+        }
+        tasks.clear();
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        long start = stats.beginSend();
+        boolean success = false;
+        try {
+            super.sendMessage(message);
+            success = true;
+        } finally {
+            stats.endSend(start, payloadLength(message), success);
+        }
+    }
+
+    static int payloadLength(WebSocketMessage<?> message) {
+        Object payload = message.getPayload();
+        if (payload instanceof CharSequence text) {
+            return text.length();
+        }
+        return message.getPayloadLength();
+    }
+}
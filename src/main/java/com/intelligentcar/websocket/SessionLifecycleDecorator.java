@@ -0,0 +1,77 @@
+package com.intelligentcar.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+/**
+ * 把会话登记到SessionRegistry的处理器包装
+ *
+ * 连接建立时把会话包成InstrumentedSession再交给实际处理器，之后的回调都传同一个包装对象，
+ * 处理器保存和广播时用的就是它，出站消息因此都被计数，处理器本身不用改。
+ * 会话被驱逐时由登记表调用release()回调处理器的关闭逻辑；之后容器再报告连接关闭时，
+ * 会话已不在登记表中，不会重复回调。
+ */
+public class SessionLifecycleDecorator extends WebSocketHandlerDecorator {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionLifecycleDecorator.class);
+
+    private final SessionRegistry registry;
+    private final String endpoint;
+
+    public SessionLifecycleDecorator(WebSocketHandler delegate, SessionRegistry registry, String endpoint) {
+        super(delegate);
+        this.registry = registry;
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        super.afterConnectionEstablished(registry.open(endpoint, session, this));
+    }
+
+    @Override
+    public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+        InstrumentedSession instrumented = registry.get(session.getId());
+        if (instrumented == null) {
+            super.handleMessage(session, message);
+            return;
+        }
+        if (message instanceof PongMessage) {
+            instrumented.getStats().recordPong();
+        } else {
+            instrumented.getStats().recordInbound(InstrumentedSession.payloadLength(message));
+        }
+        super.handleMessage(instrumented, message);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+        InstrumentedSession instrumented = registry.get(session.getId());
+        super.handleTransportError(instrumented != null ? instrumented : session, exception);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        InstrumentedSession instrumented = registry.remove(session.getId());
+        if (instrumented != null) {
+            super.afterConnectionClosed(instrumented, closeStatus);
+        }
+    }
+
+    /**
+     * 会话被登记表驱逐时回调处理器的关闭逻辑
+     */
+    void release(InstrumentedSession instrumented, CloseStatus closeStatus) {
+        try {
+            super.afterConnectionClosed(instrumented, closeStatus);
+        } catch (Exception e) {
+            log.warn("释放会话失败[{}]: {}", instrumented.getId(), e.getMessage());
+        }
+    }
+}
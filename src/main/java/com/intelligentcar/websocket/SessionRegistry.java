@@ -0,0 +1,197 @@
+package com.intelligentcar.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import com.intelligentcar.metrics.SessionStats;
+import com.intelligentcar.scheduler.SessionScheduler;
+import com.intelligentcar.scheduler.SessionTask;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 操作端会话登记表（控制、状态、视频共用）
+ *
+ * 会话的生命周期只由这里管理：连接建立时登记，关闭或被驱逐时移除。各小车的控制/状态会话表
+ * 只是按车分组的广播索引，由处理器在连接建立和关闭回调里维护。
+ *
+ * 会话上的周期任务（心跳检测、推帧）通过这里在SessionScheduler上登记，与会话绑定，
+ * 会话关闭或被驱逐时一并取消。
+ *
+ * 心跳和空闲检测：每个会话一个周期为心跳周期的检测任务——
+ * 超过心跳周期没有收到任何消息就发协议层Ping（浏览器自动回Pong），超过空闲超时就驱逐。
+ * 发送成功不代表对端还在（内核缓冲区会先吃下数据），所以只看入站时间。
+ * 驱逐时先回调处理器的连接关闭逻辑释放推流任务和缓冲，再关闭底层连接。
+ *
+ * 登记时底层会话先包一层ConcurrentWebSocketSessionDecorator：广播、命令回显、推帧和Ping
+ * 可以从不同线程并发发送，由它串行化并排队；单次发送超过发送时限或排队字节数超过缓冲上限的
+ * 慢客户端会被直接关闭，不会拖住广播线程，也不会无限占用内存。
+ */
+@Component
+public class SessionRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionRegistry.class);
+
+    public static final String ENDPOINT_CONTROL = "control";
+    public static final String ENDPOINT_STATUS = "status";
+    public static final String ENDPOINT_VIDEO = "video";
+
+    private static final CloseStatus IDLE_TIMEOUT = CloseStatus.SESSION_NOT_RELIABLE.withReason("idle timeout");
+
+    private final Map<String, InstrumentedSession> sessions = new ConcurrentHashMap<>();
+    private final long heartbeatIntervalMs;
+    private final long idleTimeoutMs;
+    private final int sendTimeLimitMs;
+    private final int sendBufferSizeLimit;
+    private final SessionScheduler scheduler;
+
+    private final AtomicLong pingCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public SessionRegistry(SessionScheduler scheduler,
+                           @Value("${car.session.heartbeat-interval-ms:15000}") long heartbeatIntervalMs,
+                           @Value("${car.session.idle-timeout-ms:45000}") long idleTimeoutMs,
+                           @Value("${car.session.send-time-limit-ms:2000}") int sendTimeLimitMs,
+                           @Value("${car.session.send-buffer-size-limit:524288}") int sendBufferSizeLimit) {
+        this.scheduler = scheduler;
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        this.idleTimeoutMs = Math.max(idleTimeoutMs, heartbeatIntervalMs);
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+    }
+
+    /**
+     * 登记新会话，返回包装后的会话
+     */
+    InstrumentedSession open(String endpoint, WebSocketSession session, SessionLifecycleDecorator owner) {
+        String remote = session.getRemoteAddress() == null ? null : session.getRemoteAddress().toString();
+        SessionStats stats = new SessionStats(session.getId(), endpoint,
+                VehicleHandshakeInterceptor.vehicleIdOf(session), remote);
+        WebSocketSession bounded = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, sendBufferSizeLimit);
+        InstrumentedSession instrumented = new InstrumentedSession(bounded, stats, owner);
+        sessions.put(session.getId(), instrumented);
+        instrumented.bind(scheduler.scheduleAtFixedRate(() -> checkLiveness(instrumented),
+                heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS));
+        return instrumented;
+    }
+
+    /**
+     * 移除会话并取消其定时任务，已被移除时返回null
+     */
+    InstrumentedSession remove(String sessionId) {
+        InstrumentedSession instrumented = sessions.remove(sessionId);
+        if (instrumented != null) {
+            instrumented.cancelTasks();
+        }
+        return instrumented;
+    }
+
+    /**
+     * 在会话上登记固定频率任务，会话关闭或被驱逐时自动取消
+     */
+    public SessionTask scheduleAtFixedRate(WebSocketSession session, Runnable task, long periodMs) {
+        SessionTask handle = scheduler.scheduleAtFixedRate(task, 0, periodMs, TimeUnit.MILLISECONDS);
+        InstrumentedSession instrumented = sessions.get(session.getId());
+        if (instrumented != null) {
+            instrumented.bind(handle);
+        }
+        return handle;
+    }
+
+    public InstrumentedSession get(String sessionId) {
+        return sessions.get(sessionId);
+    }
+
+    public SessionStats getStats(String sessionId) {
+        InstrumentedSession instrumented = sessions.get(sessionId);
+        return instrumented == null ? null : instrumented.getStats();
+    }
+
+    /**
+     * 某个端点的活动会话
+     */
+    public List<InstrumentedSession> getSessions(String endpoint) {
+        List<InstrumentedSession> result = new ArrayList<>();
+        for (InstrumentedSession instrumented : sessions.values()) {
+            if (endpoint == null || endpoint.equals(instrumented.getStats().getEndpoint())) {
+                result.add(instrumented);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 所有活动会话的诊断快照，可按端点过滤，按连接时间排序
+     */
+    public List<Map<String, Object>> snapshot(String endpoint) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (InstrumentedSession instrumented : getSessions(endpoint)) {
+            result.add(instrumented.getStats().snapshot());
+        }
+        result.sort(Comparator.comparing(map -> (String) map.get("connectedAt")));
+        return result;
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public long getPingCount() {
+        return pingCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    private void checkLiveness(InstrumentedSession instrumented) {
+        if (sessions.get(instrumented.getId()) != instrumented) {
+            return;
+        }
+        if (!instrumented.isOpen()) {
+            evict(instrumented, "连接已断开", CloseStatus.SESSION_NOT_RELIABLE);
+            return;
+        }
+        long idleMs = System.currentTimeMillis() - instrumented.getStats().getLastInboundMillis();
+        if (idleMs >= idleTimeoutMs) {
+            evict(instrumented, "空闲 " + idleMs + "ms", IDLE_TIMEOUT);
+            return;
+        }
+        if (idleMs >= heartbeatIntervalMs) {
+            try {
+                instrumented.getDelegate().sendMessage(new PingMessage());
+                pingCount.incrementAndGet();
+            } catch (IOException | SessionLimitExceededException e) {
+                evict(instrumented, "心跳发送失败: " + e.getMessage(), CloseStatus.SESSION_NOT_RELIABLE);
+            }
+        }
+    }
+
+    private void evict(InstrumentedSession instrumented, String reason, CloseStatus status) {
+        if (remove(instrumented.getId()) == null) {
+            return;
+        }
+        evictionCount.incrementAndGet();
+        log.info("驱逐会话[{}] {}: {}", instrumented.getStats().getEndpoint(), instrumented.getId(), reason);
+        instrumented.getOwner().release(instrumented, status);
+        try {
+            instrumented.getDelegate().close(status);
+        } catch (IOException | RuntimeException e) {
+            log.debug("关闭被驱逐的会话失败[{}]: {}", instrumented.getId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.intelligentcar.websocket;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.intelligentcar.service.CarControlService;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 从WebSocket路径中解析小车ID
+ *
+ * /ws/control/car-2 -> car-2；/ws/control 没有小车段时为默认小车。
+ * 解析结果放入会话属性 vehicleId。
+ * 查询参数 clientId（操作端自己生成并持久保存的标识）放入会话属性 clientId，
+ * 用于跨重连识别同一操作端；格式不合法时忽略。
+ * 传入CarControlService时只接受已登记的小车，未知小车返回404，不会因连接而新建小车。
+ */
+public class VehicleHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String VEHICLE_ID_ATTRIBUTE = "vehicleId";
+    public static final String CLIENT_ID_ATTRIBUTE = "clientId";
+
+    private static final Pattern CLIENT_ID_PATTERN = Pattern.compile("[A-Za-z0-9_.:-]{1,64}");
+
+    private final String basePath;
+    private final CarControlService carControlService;
+
+    /**
+     * 不检查小车是否已登记（设备连接：注册时才登记小车）
+     */
+    public VehicleHandshakeInterceptor(String basePath) {
+        this(basePath, null);
+    }
+
+    public VehicleHandshakeInterceptor(String basePath, CarControlService carControlService) {
+        this.basePath = basePath;
+        this.carControlService = carControlService;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        String path = request.getURI().getPath();
+        String vehicleId = null;
+        int index = path.indexOf(basePath);
+        if (index >= 0) {
+            String rest = path.substring(index + basePath.length());
+            if (rest.startsWith("/") && rest.length() > 1) {
+                vehicleId = rest.substring(1);
+            }
+        }
+        String resolved = CarControlService.resolveVehicleId(vehicleId);
+        if (carControlService != null && !carControlService.hasVehicle(resolved)) {
+            response.setStatusCode(HttpStatus.NOT_FOUND);
+            return false;
+        }
+        attributes.put(VEHICLE_ID_ATTRIBUTE, resolved);
+        String clientId = UriComponentsBuilder.fromUri(request.getURI()).build()
+                .getQueryParams().getFirst(CLIENT_ID_ATTRIBUTE);
+        if (clientId != null && CLIENT_ID_PATTERN.matcher(clientId).matches()) {
+            attributes.put(CLIENT_ID_ATTRIBUTE, clientId);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    /**
+     * 读取会话所属的小车ID
+     */
+    public static String vehicleIdOf(WebSocketSession session) {
+        Object vehicleId = session.getAttributes().get(VEHICLE_ID_ATTRIBUTE);
+        return CarControlService.resolveVehicleId(vehicleId == null ? null : vehicleId.toString());
+    }
+
+    /**
+     * 读取会话的操作端标识，握手时没有带则为null
+     */
+    public static String clientIdOf(WebSocketSession session) {
+        Object clientId = session.getAttributes().get(CLIENT_ID_ATTRIBUTE);
+        return clientId == null ? null : clientId.toString();
+    }
+}
@@ -1,34 +1,80 @@
 // src/main/java/com/intelligentcar/websocket/VideoStreamHandler.java
 package com.intelligentcar.websocket;
 
+import com.intelligentcar.logging.LogSampler;
+import com.intelligentcar.metrics.CarMetrics;
+import com.intelligentcar.metrics.SessionStats;
+import com.intelligentcar.scheduler.SessionTask;
 import com.intelligentcar.service.SimulatedVideoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
 public class VideoStreamHandler extends TextWebSocketHandler {
 
+    private static final Logger log = LoggerFactory.getLogger(VideoStreamHandler.class);
+    private static final LogSampler SEND_ERROR_SAMPLER = new LogSampler(1, 5);
+
+    // 推帧间隔（约15fps）
+    private static final long FRAME_INTERVAL_MS = 66;
+
     @Autowired
     private SimulatedVideoService videoService;
 
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(10);
-    private final ConcurrentHashMap<String, AtomicBoolean> sessionStreamingMap = new ConcurrentHashMap<>();
+    @Autowired
+    private CarMetrics metrics;
+
+    @Autowired
+    private SessionRegistry sessionRegistry;
+
+
+    // 推流状态挂在会话属性上，随会话一起释放
+    private static final String STREAM_ATTRIBUTE = "videoStream";
+
+    /**
+     * 单个会话的推流状态
+     */
+    private static final class VideoStream {
+        final AtomicBoolean streaming = new AtomicBoolean(false);
+        // 推流轮次，每次停止加一；停止时已在执行的旧任务不会再推帧，也不会停掉新一轮推流
+        final AtomicInteger round = new AtomicInteger();
+        volatile SessionTask task;
+        // 会话诊断计数，未登记的会话为null
+        final SessionStats stats;
+        // 上一次推帧时刻，用于统计因发送过慢而错过的帧
+        long lastFrameNanos;
+
+        VideoStream(SessionStats stats) {
+            this.stats = stats;
+        }
+
+        void frameDropped(CarMetrics metrics, long frames) {
+            for (long i = 0; i < frames; i++) {
+                metrics.recordFrameDropped();
+            }
+            if (stats != null) {
+                stats.recordFrameDropped(frames);
+            }
+        }
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        System.out.println("视频WebSocket连接建立: " + session.getId());
+        log.info("视频WebSocket连接建立: {}", session.getId());
 
         // 为每个会话创建一个流状态
-        sessionStreamingMap.put(session.getId(), new AtomicBoolean(false));
+        SessionStats stats = session instanceof InstrumentedSession instrumented ? instrumented.getStats() : null;
+        session.getAttributes().put(STREAM_ATTRIBUTE, new VideoStream(stats));
 
         // 发送欢迎消息
         session.sendMessage(new TextMessage(
@@ -56,43 +102,107 @@ public class VideoStreamHandler extends TextWebSocketHandler {
         }
     }
 
+    private static VideoStream streamOf(WebSocketSession session) {
+        return (VideoStream) session.getAttributes().get(STREAM_ATTRIBUTE);
+    }
+
+    /**
+     * 开始推流。重复的start不会再建任务
+     */
     private void startSendingFrames(WebSocketSession session) {
-        AtomicBoolean isStreaming = sessionStreamingMap.get(session.getId());
-        if (isStreaming != null && !isStreaming.get()) {
-            isStreaming.set(true);
-
-            scheduler.scheduleAtFixedRate(() -> {
-                if (isStreaming.get() && session.isOpen()) {
-                    try {
-                        // 生成带传感器数据的视频帧
-                        String frameData = videoService.generateFrameWithSensorData();
-                        session.sendMessage(new TextMessage(frameData));
-                    } catch (IOException e) {
-                        System.err.println("发送视频帧失败: " + e.getMessage());
-                        isStreaming.set(false);
-                    }
+        VideoStream stream = streamOf(session);
+        if (stream != null && stream.streaming.compareAndSet(false, true)) {
+            int round = stream.round.get();
+            stream.lastFrameNanos = 0;
+            // 推帧任务绑定在会话上，会话关闭或被驱逐时由登记表取消
+            stream.task = sessionRegistry.scheduleAtFixedRate(session, () -> {
+                if (stream.round.get() == round && session.isOpen()) {
+                    sendFrame(session, stream, round);
                 }
-            }, 0, 66, TimeUnit.MILLISECONDS); // 约15fps
+            }, FRAME_INTERVAL_MS);
+        }
+    }
+
+    /**
+     * 推送一帧。上一帧发送超时时调度器跳过错过的周期，跳过的周期计为丢帧
+     */
+    private void sendFrame(WebSocketSession session, VideoStream stream, int round) {
+        long now = System.nanoTime();
+        if (stream.lastFrameNanos != 0) {
+            long missed = (now - stream.lastFrameNanos) / TimeUnit.MILLISECONDS.toNanos(FRAME_INTERVAL_MS) - 1;
+            if (missed > 0) {
+                stream.frameDropped(metrics, missed);
+            }
+        }
+        stream.lastFrameNanos = now;
+        try {
+            // 生成带传感器数据的视频帧
+            String frameData = videoService.generateFrameWithSensorData();
+            long sendStart = System.nanoTime();
+            session.sendMessage(new TextMessage(frameData));
+            metrics.recordFrameSend(System.nanoTime() - sendStart);
+        } catch (IOException | SessionLimitExceededException e) {
+            long skipped = SEND_ERROR_SAMPLER.acquire();
+            if (skipped >= 0) {
+                log.warn("发送视频帧失败[{}]: {}{}", session.getId(), e.getMessage(), LogSampler.suffix(skipped));
+            }
+            stream.frameDropped(metrics, 1);
+            stopSendingFrames(stream, round);
         }
     }
 
     private void stopSendingFrames(WebSocketSession session) {
-        AtomicBoolean isStreaming = sessionStreamingMap.get(session.getId());
-        if (isStreaming != null) {
-            isStreaming.set(false);
+        VideoStream stream = streamOf(session);
+        if (stream != null) {
+            stopSendingFrames(stream, stream.round.get());
+        }
+    }
+
+    /**
+     * 停止指定轮次的推流并取消其任务。先换轮次、取消任务，最后才放开streaming，
+     * 之后的start建的新任务不会被这里取消
+     */
+    private static void stopSendingFrames(VideoStream stream, int round) {
+        if (stream.round.compareAndSet(round, round + 1)) {
+            SessionTask task = stream.task;
+            if (task != null) {
+                task.cancel();
+            }
+            stream.streaming.set(false);
         }
     }
 
+    /**
+     * 正在推流的会话数
+     */
+    public int getStreamingCount() {
+        int count = 0;
+        for (WebSocketSession session : sessionRegistry.getSessions(SessionRegistry.ENDPOINT_VIDEO)) {
+            VideoStream stream = streamOf(session);
+            if (stream != null && stream.streaming.get()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 视频连接数
+     */
+    public int getSessionCount() {
+        return sessionRegistry.getSessions(SessionRegistry.ENDPOINT_VIDEO).size();
+    }
+
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-        System.out.println("视频WebSocket连接关闭: " + session.getId());
+        log.info("视频WebSocket连接关闭: {}", session.getId());
         stopSendingFrames(session);
-        sessionStreamingMap.remove(session.getId());
+        session.getAttributes().remove(STREAM_ATTRIBUTE);
     }
 
     @Override
     public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
-        System.err.println("视频WebSocket传输错误: " + exception.getMessage());
+        log.warn("视频WebSocket传输错误[{}]: {}", session.getId(), exception.getMessage());
         stopSendingFrames(session);
     }
 
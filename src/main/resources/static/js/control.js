@@ -38,6 +38,8 @@ class CarController {
     connectControlSocket() {
         const wsUrl = `ws://${window.location.host}/ws/control`;
         this.controlSocket = new WebSocket(wsUrl);
+        // 序号按会话计，新连接从1重新开始
+        this.commandSeq = 0;
 
         this.controlSocket.onopen = (event) => {
             console.log('控制连接已建立');
@@ -287,6 +289,19 @@ class CarController {
                 console.error('服务器错误:', data.message);
                 this.showNotification(`错误: ${data.message}`, 'error');
                 break;
+
+            case 'PING':
+                // 回应时钟同步探测，服务器据此估算时钟偏移
+                this.controlSocket.send(JSON.stringify({
+                    type: 'PONG',
+                    serverTime: data.serverTime,
+                    clientTime: Date.now()
+                }));
+                break;
+
+            case 'EXPIRED':
+                console.warn('命令已过期被丢弃:', data.command, data.lateMs + 'ms');
+                break;
         }
     }
 
@@ -381,6 +396,7 @@ class CarController {
             this.controlSocket.send(JSON.stringify({
                 command: command,
                 value: value,
+                seq: ++this.commandSeq,
                 timestamp: Date.now()
             }));
             console.log('发送指令:', command);
@@ -0,0 +1,80 @@
+package com.intelligentcar.journal;
+
+import com.intelligentcar.model.CarStatus;
+import com.intelligentcar.model.ControlCommand;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommandJournalTest {
+
+    @Test
+    void recordsSurviveSegmentRollAndStopForEveryPolicy(@TempDir Path dir) throws IOException {
+        for (FsyncPolicy policy : FsyncPolicy.values()) {
+            Path policyDir = dir.resolve(policy.name());
+            // 1MB的段，约1万条滚动一次
+            CommandJournal journal = new CommandJournal(true, policyDir.toString(), 1, policy, 5);
+            journal.start();
+            int count = 25_000;
+            for (int i = 1; i <= count; i++) {
+                journal.append(command(i), status(i));
+            }
+            journal.stop();
+
+            Map<String, Object> stats = journal.getStats();
+            assertThat((long) stats.get("segmentsOpened")).as(policy.name()).isGreaterThan(1);
+            assertThat(stats.get("failures")).as(policy.name()).isEqualTo(0L);
+            if (policy != FsyncPolicy.NONE) {
+                assertThat((long) stats.get("forces")).as(policy.name()).isPositive();
+            }
+
+            try (JournalReader reader = new JournalReader(policyDir)) {
+                long expected = 1;
+                JournalRecord record;
+                while ((record = reader.next()) != null) {
+                    assertThat(record.getSeq()).as(policy.name()).isEqualTo(expected);
+                    assertThat(record.getStatusVersion()).isEqualTo(expected);
+                    expected++;
+                }
+                assertThat(expected - 1).as(policy.name()).isEqualTo(count);
+            }
+        }
+    }
+
+    @Test
+    void appendAfterStopIsIgnored(@TempDir Path dir) throws IOException {
+        CommandJournal journal = new CommandJournal(true, dir.toString(), 1, FsyncPolicy.GROUP, 5);
+        journal.start();
+        journal.append(command(1), status(1));
+        journal.stop();
+        journal.append(command(2), status(2));
+
+        try (JournalReader reader = new JournalReader(dir)) {
+            assertThat(reader.next().getSeq()).isEqualTo(1);
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    private static ControlCommand command(long seq) {
+        ControlCommand command = new ControlCommand();
+        command.setVehicleId("car-1");
+        command.setCommand("FORWARD");
+        command.setSource("WEB");
+        command.setSessionId("s-1");
+        command.setSeq(seq);
+        return command;
+    }
+
+    private static CarStatus status(long version) {
+        CarStatus status = new CarStatus();
+        status.setVersion(version);
+        status.setDirection("FORWARD");
+        status.setSpeed(50);
+        return status;
+    }
+}
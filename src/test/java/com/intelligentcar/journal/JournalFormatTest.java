@@ -0,0 +1,195 @@
+package com.intelligentcar.journal;
+
+import com.intelligentcar.model.CarStatus;
+import com.intelligentcar.model.ControlCommand;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JournalFormatTest {
+
+    private final CRC32 crc = new CRC32();
+
+    @Test
+    void recordRoundTrips() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        ControlCommand command = command("car-2", "SPEED", "60", 42L);
+        CarStatus status = status(7, 60, "FORWARD", 12.5, -3.25, 1.5);
+        write(buffer, 1_700_000_000_000L, 123_456_789L, command, status);
+
+        buffer.flip();
+        JournalRecord record = JournalFormat.readRecord(buffer, crc);
+
+        assertThat(record).isNotNull();
+        assertThat(record.getWallTimeMillis()).isEqualTo(1_700_000_000_000L);
+        assertThat(record.getMonotonicNanos()).isEqualTo(123_456_789L);
+        assertThat(record.getStatusVersion()).isEqualTo(7);
+        assertThat(record.getVehicleId()).isEqualTo("car-2");
+        assertThat(record.getCommand()).isEqualTo("SPEED");
+        assertThat(record.getValue()).isEqualTo("60");
+        assertThat(record.getSource()).isEqualTo("WEB");
+        assertThat(record.getSessionId()).isEqualTo("会话-1");
+        assertThat(record.getSeq()).isEqualTo(42);
+        assertThat(record.getSpeed()).isEqualTo(60);
+        assertThat(record.getDirection()).isEqualTo("FORWARD");
+        assertThat(record.getPositionX()).isEqualTo(12.5);
+        assertThat(record.getPositionY()).isEqualTo(-3.25);
+        assertThat(record.getHeading()).isEqualTo(1.5);
+        assertThat(buffer.hasRemaining()).isFalse();
+    }
+
+    @Test
+    void nullFieldsRoundTrip() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        ControlCommand command = command("car-1", "STOP", null, null);
+        command.setSource(null);
+        command.setSessionId(null);
+        CarStatus status = status(1, 0, null, null, null, null);
+        write(buffer, 1, 2, command, status);
+
+        buffer.flip();
+        JournalRecord record = JournalFormat.readRecord(buffer, crc);
+
+        assertThat(record).isNotNull();
+        assertThat(record.getValue()).isNull();
+        assertThat(record.getSource()).isNull();
+        assertThat(record.getSessionId()).isNull();
+        assertThat(record.getDirection()).isNull();
+        assertThat(record.getSeq()).isEqualTo(-1);
+        assertThat(record.getPositionX()).isNaN();
+        assertThat(record.getHeading()).isNaN();
+    }
+
+    @Test
+    void consecutiveRecordsReadInOrderAndStopAtZeroLength() {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        for (int i = 1; i <= 3; i++) {
+            write(buffer, i, i, command("car-1", "FORWARD", null, (long) i), status(i, 50, "FORWARD", 0.0, 0.0, 0.0));
+        }
+        // 映射文件未写部分全为0
+        buffer.position(0);
+
+        for (int i = 1; i <= 3; i++) {
+            JournalRecord record = JournalFormat.readRecord(buffer, crc);
+            assertThat(record).isNotNull();
+            assertThat(record.getSeq()).isEqualTo(i);
+        }
+        assertThat(JournalFormat.readRecord(buffer, crc)).isNull();
+    }
+
+    @Test
+    void tornTailWithBadChecksumIsDropped() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        write(buffer, 1, 1, command("car-1", "FORWARD", null, 1L), status(1, 50, "FORWARD", 0.0, 0.0, 0.0));
+        int tornStart = buffer.position();
+        write(buffer, 2, 2, command("car-1", "LEFT", null, 2L), status(2, 50, "LEFT", 0.0, 0.0, 0.0));
+        // 长度已写入但记录体只落了一部分
+        int end = buffer.position();
+        for (int i = tornStart + JournalFormat.RECORD_HEADER_SIZE + 20; i < end; i++) {
+            buffer.put(i, (byte) 0);
+        }
+        buffer.flip();
+
+        assertThat(JournalFormat.readRecord(buffer, crc)).isNotNull();
+        assertThat(JournalFormat.readRecord(buffer, crc)).isNull();
+        // 读位置停在损坏记录之前
+        assertThat(buffer.position()).isEqualTo(tornStart);
+    }
+
+    @Test
+    void tornTailCutShortOfItsLengthIsDropped() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        write(buffer, 1, 1, command("car-1", "FORWARD", null, 1L), status(1, 50, "FORWARD", 0.0, 0.0, 0.0));
+        int tornStart = buffer.position();
+        write(buffer, 2, 2, command("car-1", "LEFT", null, 2L), status(2, 50, "LEFT", 0.0, 0.0, 0.0));
+        // 文件在记录中间截断
+        buffer.flip();
+        buffer.limit(buffer.limit() - 5);
+
+        assertThat(JournalFormat.readRecord(buffer, crc)).isNotNull();
+        assertThat(JournalFormat.readRecord(buffer, crc)).isNull();
+        assertThat(buffer.position()).isEqualTo(tornStart);
+    }
+
+    @Test
+    void tornHeaderIsDropped() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        write(buffer, 1, 1, command("car-1", "FORWARD", null, 1L), status(1, 50, "FORWARD", 0.0, 0.0, 0.0));
+        buffer.putShort((short) 7);
+        buffer.flip();
+
+        assertThat(JournalFormat.readRecord(buffer, crc)).isNotNull();
+        assertThat(JournalFormat.readRecord(buffer, crc)).isNull();
+    }
+
+    @Test
+    void segmentHeaderIsChecked() {
+        ByteBuffer buffer = ByteBuffer.allocate(JournalFormat.SEGMENT_HEADER_SIZE);
+        assertThat(JournalFormat.checkSegmentHeader(buffer)).isFalse();
+
+        JournalFormat.writeSegmentHeader(buffer, 1234);
+        assertThat(JournalFormat.checkSegmentHeader(buffer)).isTrue();
+
+        buffer.putShort(4, (short) (JournalFormat.VERSION + 1));
+        assertThat(JournalFormat.checkSegmentHeader(buffer)).isFalse();
+    }
+
+    @Test
+    void readerReturnsRecordsUpToTornTail(@TempDir Path dir) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        JournalFormat.writeSegmentHeader(buffer, 1234);
+        buffer.position(JournalFormat.SEGMENT_HEADER_SIZE);
+        write(buffer, 1, 1, command("car-1", "FORWARD", null, 1L), status(1, 50, "FORWARD", 0.0, 0.0, 0.0));
+        write(buffer, 2, 2, command("car-1", "STOP", null, 2L), status(2, 0, "STOP", 0.0, 0.0, 0.0));
+        int tornEnd = buffer.position() - 3;
+        Files.write(dir.resolve(JournalFormat.segmentName(0)), Arrays.copyOf(buffer.array(), tornEnd));
+
+        try (JournalReader reader = new JournalReader(dir)) {
+            JournalRecord first = reader.next();
+            assertThat(first).isNotNull();
+            assertThat(first.getCommand()).isEqualTo("FORWARD");
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    private void write(ByteBuffer buffer, long wallMillis, long monoNanos, ControlCommand command, CarStatus status) {
+        byte[][] strings = {
+                JournalFormat.utf8(command.getVehicleId()),
+                JournalFormat.utf8(command.getCommand()),
+                JournalFormat.utf8(command.getValue()),
+                JournalFormat.utf8(command.getSource()),
+                JournalFormat.utf8(command.getSessionId()),
+                JournalFormat.utf8(status.getDirection())};
+        JournalFormat.writeRecord(buffer, crc, wallMillis, monoNanos, command, status, strings);
+    }
+
+    private static ControlCommand command(String vehicleId, String name, String value, Long seq) {
+        ControlCommand command = new ControlCommand();
+        command.setVehicleId(vehicleId);
+        command.setCommand(name);
+        command.setValue(value);
+        command.setSource("WEB");
+        command.setSessionId("会话-1");
+        command.setSeq(seq);
+        return command;
+    }
+
+    private static CarStatus status(long version, int speed, String direction, Double x, Double y, Double heading) {
+        CarStatus status = new CarStatus();
+        status.setVersion(version);
+        status.setSpeed(speed);
+        status.setDirection(direction);
+        status.setPositionX(x);
+        status.setPositionY(y);
+        status.setHeading(heading);
+        return status;
+    }
+}
@@ -0,0 +1,198 @@
+package com.intelligentcar.mapping;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OccupancyGridTest {
+
+    private static final int TILE = OccupancyGrid.TILE_SIZE;
+
+    @Test
+    void hitMarksEndCellOccupiedAndPathFree() {
+        // 1cm一格，从(0.5, 0.5)沿X轴测到10cm
+        OccupancyGrid grid = grid(16);
+        grid.integrateRay(0.5, 0.5, 0, 10, 100);
+
+        byte[] cells = grid.encodeTile(0, 0);
+        for (int x = 0; x < 10; x++) {
+            assertThat(cell(cells, x, 0)).as("x=%d", x).isLessThan(127);
+        }
+        assertThat(cell(cells, 10, 0)).isGreaterThan(127);
+        assertThat(cell(cells, 11, 0)).isEqualTo(OccupancyGrid.UNKNOWN_CELL);
+        assertThat(cell(cells, 0, 1)).isEqualTo(OccupancyGrid.UNKNOWN_CELL);
+        assertThat(grid.getCellsUpdated()).isEqualTo(11);
+    }
+
+    @Test
+    void readingAtMaxRangeIsAllFree() {
+        OccupancyGrid grid = grid(16);
+        grid.integrateRay(0.5, 0.5, Math.PI / 2, 400, 20);
+
+        byte[] cells = grid.encodeTile(0, 0);
+        for (int y = 0; y <= 20; y++) {
+            assertThat(cell(cells, 0, y)).as("y=%d", y).isLessThan(127);
+        }
+        assertThat(cell(cells, 0, 21)).isEqualTo(OccupancyGrid.UNKNOWN_CELL);
+    }
+
+    @Test
+    void missingReadingIsIgnored() {
+        OccupancyGrid grid = grid(16);
+        grid.integrateRay(0.5, 0.5, 0, 0, 100);
+        grid.integrateRay(0.5, 0.5, 0, -1, 100);
+        assertThat(grid.getVersion()).isZero();
+        assertThat(grid.getTileCount()).isZero();
+    }
+
+    @Test
+    void diagonalRayVisitsContiguousCells() {
+        OccupancyGrid grid = grid(16);
+        grid.integrateRay(0.5, 0.5, Math.atan2(7, 13), Math.hypot(13, 7), 100);
+        byte[] cells = grid.encodeTile(0, 0);
+        // 终点格子占据，每一步只跨一条格线：共 13 + 7 + 1 个格子
+        assertThat(cell(cells, 13, 7)).isGreaterThan(127);
+        assertThat(grid.getCellsUpdated()).isEqualTo(21);
+        int known = 0;
+        for (byte value : cells) {
+            if ((value & 0xFF) != OccupancyGrid.UNKNOWN_CELL) {
+                known++;
+            }
+        }
+        assertThat(known).isEqualTo(21);
+    }
+
+    @Test
+    void clampedCellCanFlipBack() {
+        OccupancyGrid grid = grid(16);
+        for (int i = 0; i < 100; i++) {
+            grid.integrateRay(0.5, 0.5, 0, 5, 100);
+        }
+        // 对数几率封顶3.5
+        assertThat(cell(grid.encodeTile(0, 0), 5, 0)).isEqualTo(247);
+
+        // 障碍物移走：每次经过减0.4，9次就回到空闲一侧
+        for (int i = 0; i < 9; i++) {
+            grid.integrateRay(0.5, 0.5, 0, 30, 100);
+        }
+        assertThat(cell(grid.encodeTile(0, 0), 5, 0)).isLessThan(127);
+    }
+
+    @Test
+    void negativeCoordinatesLandInNegativeTiles() {
+        OccupancyGrid grid = grid(16);
+        grid.integrateRay(-0.5, -0.5, Math.PI, 3, 100);
+        assertThat(grid.encodeTile(0, 0)).isNull();
+        byte[] cells = grid.encodeTile(-1, -1);
+        // x=-4落在块内第60列，y=-1是第63行
+        assertThat(cell(cells, TILE - 4, TILE - 1)).isGreaterThan(127);
+        assertThat(cell(cells, TILE - 1, TILE - 1)).isLessThan(127);
+    }
+
+    @Test
+    void rayAcrossTileBoundaryAllocatesBothTiles() {
+        OccupancyGrid grid = grid(16);
+        grid.integrateRay(TILE - 2.5, 0.5, 0, 5, 100);
+        assertThat(grid.getTileCount()).isEqualTo(2);
+        assertThat(cell(grid.encodeTile(1, 0), 2, 0)).isGreaterThan(127);
+    }
+
+    @Test
+    void leastRecentlyUsedTileIsEvicted() {
+        OccupancyGrid grid = grid(2);
+        grid.integrateRay(0.5, 0.5, 0, 1, 100);
+        grid.integrateRay(TILE + 0.5, 0.5, 0, 1, 100);
+        // 再访问一次块0，块1变成最久未访问
+        grid.integrateRay(0.5, 0.5, 0, 1, 100);
+        grid.integrateRay(2 * TILE + 0.5, 0.5, 0, 1, 100);
+
+        assertThat(grid.getTileCount()).isEqualTo(2);
+        assertThat(grid.getEvictions()).isEqualTo(1);
+        assertThat(grid.encodeTile(0, 0)).isNotNull();
+        assertThat(grid.encodeTile(1, 0)).isNull();
+        assertThat(grid.encodeTile(2, 0)).isNotNull();
+    }
+
+    @Test
+    void deltaContainsOnlyTilesChangedSinceVersion() throws IOException {
+        OccupancyGrid grid = grid(16);
+        grid.integrateRay(0.5, 0.5, 0, 5, 100);
+        grid.integrateRay(TILE + 0.5, 0.5, 0, 5, 100);
+
+        Delta full = delta(grid, 0);
+        assertThat(full.version).isEqualTo(2).isEqualTo(grid.getVersion());
+        assertThat(full.tiles).containsOnlyKeys("0,0", "1,0");
+        assertThat(full.tiles.get("0,0")).isEqualTo(grid.encodeTile(0, 0));
+
+        grid.integrateRay(TILE + 0.5, 10.5, 0, 5, 100);
+        Delta incremental = delta(grid, full.version);
+        assertThat(incremental.version).isEqualTo(3);
+        assertThat(incremental.tiles).containsOnlyKeys("1,0");
+
+        assertThat(delta(grid, incremental.version).tiles).isEmpty();
+    }
+
+    @Test
+    void clearKeepsVersionMonotonic() throws IOException {
+        OccupancyGrid grid = grid(16);
+        grid.integrateRay(0.5, 0.5, 0, 5, 100);
+        long before = grid.getVersion();
+        grid.clear();
+        assertThat(grid.getVersion()).isGreaterThan(before);
+        assertThat(grid.getTileCount()).isZero();
+        assertThat(delta(grid, 0).tiles).isEmpty();
+    }
+
+    @Test
+    void invalidParametersAreRejected() {
+        assertThatThrownBy(() -> new OccupancyGrid(0, 16, 0.85f, 0.4f, 3.5f))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new OccupancyGrid(5, 0, 0.85f, 0.4f, 3.5f))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static OccupancyGrid grid(int maxTiles) {
+        return new OccupancyGrid(1, maxTiles, 0.85f, 0.4f, 3.5f);
+    }
+
+    private static int cell(byte[] cells, int x, int y) {
+        return cells[y * TILE + x] & 0xFF;
+    }
+
+    private static Delta delta(OccupancyGrid grid, long sinceVersion) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long returned = grid.writeDelta(sinceVersion, new DataOutputStream(bytes));
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertThat(in.readInt()).isEqualTo(OccupancyGrid.DELTA_MAGIC);
+        Delta delta = new Delta();
+        delta.version = in.readLong();
+        assertThat(delta.version).isEqualTo(returned);
+        assertThat(in.readFloat()).isEqualTo((float) grid.getResolution());
+        assertThat(in.readInt()).isEqualTo(TILE);
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String key = in.readInt() + "," + in.readInt();
+            assertThat(in.readLong()).isGreaterThan(sinceVersion);
+            byte[] cells = new byte[TILE * TILE];
+            in.readFully(cells);
+            delta.tiles.put(key, cells);
+        }
+        assertThat(in.available()).isZero();
+        return delta;
+    }
+
+    private static final class Delta {
+        long version;
+        final Map<String, byte[]> tiles = new HashMap<>();
+    }
+}
@@ -0,0 +1,137 @@
+package com.intelligentcar.scheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    // 10ms一格，8格一圈（80ms）
+    private final TimingWheel wheel = new TimingWheel("test-wheel", 10, TimeUnit.MILLISECONDS, 8, Runnable::run);
+
+    @AfterEach
+    void stopWheel() {
+        wheel.stop();
+    }
+
+    @Test
+    void firesNoEarlierThanTheDelay() throws InterruptedException {
+        wheel.start();
+        CountDownLatch fired = new CountDownLatch(1);
+        long scheduledAt = System.nanoTime();
+        long[] firedAt = new long[1];
+        wheel.newTimeout(() -> {
+            firedAt[0] = System.nanoTime();
+            fired.countDown();
+        }, 50, TimeUnit.MILLISECONDS);
+
+        assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(firedAt[0] - scheduledAt).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(wheel.getExpiredCount()).isEqualTo(1);
+        assertThat(wheel.getActiveCount()).isZero();
+    }
+
+    @Test
+    void delayLongerThanOneRevolutionWaitsForItsRound() throws InterruptedException {
+        wheel.start();
+        CountDownLatch fired = new CountDownLatch(1);
+        long scheduledAt = System.nanoTime();
+        long[] firedAt = new long[1];
+        // 250ms跨过三圈多
+        wheel.newTimeout(() -> {
+            firedAt[0] = System.nanoTime();
+            fired.countDown();
+        }, 250, TimeUnit.MILLISECONDS);
+
+        assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(firedAt[0] - scheduledAt).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(250));
+    }
+
+    @Test
+    void timeoutsInTheSameSlotFireInDeadlineOrder() throws InterruptedException {
+        wheel.start();
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch fired = new CountDownLatch(3);
+        // 20ms和100ms落在同一个槽（相差一圈），100ms的要等下一圈
+        wheel.newTimeout(() -> { order.add(100); fired.countDown(); }, 100, TimeUnit.MILLISECONDS);
+        wheel.newTimeout(() -> { order.add(20); fired.countDown(); }, 20, TimeUnit.MILLISECONDS);
+        wheel.newTimeout(() -> { order.add(60); fired.countDown(); }, 60, TimeUnit.MILLISECONDS);
+
+        assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactly(20, 60, 100);
+    }
+
+    @Test
+    void cancelledTimeoutNeverRuns() throws InterruptedException {
+        wheel.start();
+        AtomicInteger runs = new AtomicInteger();
+        TimingWheel.Timeout timeout = wheel.newTimeout(runs::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+        CountDownLatch later = new CountDownLatch(1);
+        wheel.newTimeout(later::countDown, 100, TimeUnit.MILLISECONDS);
+
+        assertThat(timeout.cancel()).isTrue();
+        assertThat(timeout.isCancelled()).isTrue();
+        assertThat(timeout.cancel()).isFalse();
+
+        assertThat(later.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(runs.get()).isZero();
+        assertThat(timeout.isExpired()).isFalse();
+        assertThat(wheel.getExpiredCount()).isEqualTo(1);
+        assertThat(wheel.getActiveCount()).isZero();
+    }
+
+    @Test
+    void expiredTimeoutCannotBeCancelled() throws InterruptedException {
+        wheel.start();
+        CountDownLatch fired = new CountDownLatch(1);
+        TimingWheel.Timeout timeout = wheel.newTimeout(fired::countDown, 0, TimeUnit.MILLISECONDS);
+
+        assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(timeout.isExpired()).isTrue();
+        assertThat(timeout.cancel()).isFalse();
+    }
+
+    @Test
+    void timeoutsScheduledBeforeStartFireAfterStart() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        wheel.newTimeout(fired::countDown, 10, TimeUnit.MILLISECONDS);
+        assertThat(wheel.getActiveCount()).isEqualTo(1);
+
+        wheel.start();
+        assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void rejectedExecutionDoesNotStopTheWheel() throws InterruptedException {
+        TimingWheel rejecting = new TimingWheel("test-rejecting", 10, TimeUnit.MILLISECONDS, 8, task -> {
+            if (task instanceof RejectMe) {
+                throw new RejectedExecutionException("full");
+            }
+            task.run();
+        });
+        rejecting.start();
+        try {
+            CountDownLatch fired = new CountDownLatch(1);
+            rejecting.newTimeout(new RejectMe(), 10, TimeUnit.MILLISECONDS);
+            rejecting.newTimeout(fired::countDown, 40, TimeUnit.MILLISECONDS);
+            assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+            assertThat(rejecting.getExpiredCount()).isEqualTo(2);
+        } finally {
+            rejecting.stop();
+        }
+    }
+
+    private static final class RejectMe implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.intelligentcar.sensor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class EmaFilterTest {
+
+    @Test
+    void firstSampleInitializesWithoutRampFromZero() {
+        EmaFilter filter = new EmaFilter(0.3);
+        assertThat(filter.update(200)).isEqualTo(200);
+    }
+
+    @Test
+    void movesAlphaOfTheWayTowardsEachSample() {
+        EmaFilter filter = new EmaFilter(0.25);
+        filter.update(100);
+        assertThat(filter.update(200)).isCloseTo(125, within(1e-9));
+        assertThat(filter.update(200)).isCloseTo(143.75, within(1e-9));
+    }
+
+    @Test
+    void alphaOneIsPassThrough() {
+        EmaFilter filter = new EmaFilter(1);
+        filter.update(10);
+        assertThat(filter.update(70)).isEqualTo(70);
+    }
+
+    @Test
+    void resetReinitializesFromNextSample() {
+        EmaFilter filter = new EmaFilter(0.3);
+        filter.update(100);
+        filter.reset();
+        assertThat(filter.update(40)).isEqualTo(40);
+    }
+
+    @Test
+    void alphaMustBeInUnitInterval() {
+        assertThatThrownBy(() -> new EmaFilter(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new EmaFilter(1.5)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
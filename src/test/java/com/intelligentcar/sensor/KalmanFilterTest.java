@@ -0,0 +1,69 @@
+package com.intelligentcar.sensor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class KalmanFilterTest {
+
+    @Test
+    void firstSampleIsTakenAsIs() {
+        assertThat(new KalmanFilter(4, 25).update(150)).isEqualTo(150);
+    }
+
+    @Test
+    void firstUpdateUsesPredictedCovariance() {
+        KalmanFilter filter = new KalmanFilter(4, 25);
+        filter.update(100);
+        // P = 25 + 4 = 29，K = 29 / (29 + 25)，误差54正好修正29
+        assertThat(filter.update(154)).isCloseTo(129, within(1e-9));
+    }
+
+    @Test
+    void gainSettlesToSteadyState() {
+        double q = 4;
+        double r = 25;
+        KalmanFilter filter = new KalmanFilter(q, r);
+        filter.update(0);
+        for (int i = 0; i < 200; i++) {
+            filter.update(0);
+        }
+        // 稳态预测方差P满足 P = P·R/(P+R) + Q，增益 K = P/(P+R)
+        double p = (q + Math.sqrt(q * q + 4 * q * r)) / 2;
+        double gain = p / (p + r);
+        assertThat(filter.update(100)).isCloseTo(100 * gain, within(1e-6));
+    }
+
+    @Test
+    void smoothsNoiseAroundConstantDistance() {
+        KalmanFilter filter = new KalmanFilter(4, 25);
+        Random random = new Random(3);
+        double worst = 0;
+        for (int i = 0; i < 500; i++) {
+            double estimate = filter.update(120 + random.nextGaussian() * 5);
+            if (i > 50) {
+                worst = Math.max(worst, Math.abs(estimate - 120));
+            }
+        }
+        // 单个读数的标准差是5cm，滤波后明显更稳
+        assertThat(worst).isLessThan(8);
+    }
+
+    @Test
+    void resetReinitializesFromNextSample() {
+        KalmanFilter filter = new KalmanFilter(4, 25);
+        filter.update(300);
+        filter.reset();
+        assertThat(filter.update(30)).isEqualTo(30);
+    }
+
+    @Test
+    void noiseMustBePositive() {
+        assertThatThrownBy(() -> new KalmanFilter(0, 25)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new KalmanFilter(4, -1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
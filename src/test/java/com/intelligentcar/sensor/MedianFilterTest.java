@@ -0,0 +1,91 @@
+package com.intelligentcar.sensor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MedianFilterTest {
+
+    @Test
+    void removesIsolatedSpike() {
+        MedianFilter filter = new MedianFilter(5);
+        double last = 0;
+        for (double sample : new double[] {100, 101, 400, 99, 100, 3, 101}) {
+            last = filter.update(sample);
+            assertThat(last).isBetween(99.0, 101.0);
+        }
+        assertThat(last).isEqualTo(100);
+    }
+
+    @Test
+    void warmUpUsesSamplesSeenSoFar() {
+        MedianFilter filter = new MedianFilter(5);
+        assertThat(filter.update(10)).isEqualTo(10);
+        // 偶数个样本取中间两个的平均
+        assertThat(filter.update(20)).isEqualTo(15);
+        assertThat(filter.update(90)).isEqualTo(20);
+        assertThat(filter.update(0)).isEqualTo(15);
+    }
+
+    @Test
+    void matchesSortedWindowOverLongRandomSequence() {
+        // 有序数组每步先删被挤出的旧值再插入新值；样本取值范围小，重复值多，覆盖删除时的相等查找
+        Random random = new Random(7);
+        for (int window = 1; window <= 7; window++) {
+            MedianFilter filter = new MedianFilter(window);
+            Deque<Double> recent = new ArrayDeque<>();
+            for (int i = 0; i < 2000; i++) {
+                double sample = random.nextInt(12) * 10;
+                recent.addLast(sample);
+                if (recent.size() > window) {
+                    recent.removeFirst();
+                }
+                assertThat(filter.update(sample)).as("window %d, sample %d", window, i).isEqualTo(median(recent));
+            }
+        }
+    }
+
+    @Test
+    void descendingAndAscendingRunsShiftWholeArray() {
+        // 新值比窗口内所有值都小/都大：插入点在两端，被删的旧值也在两端
+        MedianFilter filter = new MedianFilter(5);
+        Deque<Double> recent = new ArrayDeque<>();
+        for (int i = 0; i < 40; i++) {
+            double sample = i < 20 ? 1000 - i * 10 : i * 10;
+            recent.addLast(sample);
+            if (recent.size() > 5) {
+                recent.removeFirst();
+            }
+            assertThat(filter.update(sample)).as("sample %d", i).isEqualTo(median(recent));
+        }
+    }
+
+    @Test
+    void resetStartsOver() {
+        MedianFilter filter = new MedianFilter(3);
+        filter.update(500);
+        filter.update(500);
+        filter.update(500);
+        filter.reset();
+        assertThat(filter.update(20)).isEqualTo(20);
+        assertThat(filter.update(40)).isEqualTo(30);
+    }
+
+    @Test
+    void windowMustBePositive() {
+        assertThatThrownBy(() -> new MedianFilter(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static double median(Deque<Double> window) {
+        double[] values = window.stream().mapToDouble(Double::doubleValue).toArray();
+        Arrays.sort(values);
+        int mid = (values.length - 1) / 2;
+        return values.length % 2 == 1 ? values[mid] : (values[mid] + values[mid + 1]) / 2;
+    }
+}
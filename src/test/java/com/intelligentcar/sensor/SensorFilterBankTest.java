@@ -0,0 +1,57 @@
+package com.intelligentcar.sensor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SensorFilterBankTest {
+
+    @Test
+    void missingReadingPassesThroughWithoutEnteringFilter() {
+        SensorFilterBank bank = new SensorFilterBank(new MedianFilter(3), null, null);
+        bank.filterFront(100);
+        assertThat(bank.filterFront(0)).isZero();
+        assertThat(bank.filterFront(-1)).isEqualTo(-1);
+        // 0和-1没有进窗口，中值仍然只由有效读数决定
+        assertThat(bank.filterFront(100)).isEqualTo(100);
+    }
+
+    @Test
+    void channelsAreIndependentAndRounded() {
+        SensorFilterBank bank = new SensorFilterBank(null, new EmaFilter(0.5), new EmaFilter(0.5));
+        assertThat(bank.filterFront(37)).isEqualTo(37);
+        bank.filterLeft(10);
+        bank.filterRight(100);
+        // 10 + (15 - 10) / 2 = 12.5，四舍五入
+        assertThat(bank.filterLeft(15)).isEqualTo(13);
+        assertThat(bank.filterRight(100)).isEqualTo(100);
+    }
+
+    @Test
+    void resetClearsEveryChannel() {
+        SensorFilterBank bank = new SensorFilterBank(new MedianFilter(5), new EmaFilter(0.1), new KalmanFilter(4, 25));
+        bank.filterFront(300);
+        bank.filterLeft(300);
+        bank.filterRight(300);
+        bank.reset();
+        assertThat(bank.filterFront(20)).isEqualTo(20);
+        assertThat(bank.filterLeft(20)).isEqualTo(20);
+        assertThat(bank.filterRight(20)).isEqualTo(20);
+    }
+
+    @Test
+    void factoryBuildsIndependentBanksAndValidatesEagerly() {
+        SensorFilterFactory factory = new SensorFilterFactory(FilterType.MEDIAN, FilterType.NONE, FilterType.KALMAN,
+                3, 0.3, 4, 25);
+        SensorFilterBank a = factory.newBank();
+        SensorFilterBank b = factory.newBank();
+        a.filterFront(500);
+        a.filterFront(500);
+        assertThat(b.filterFront(40)).isEqualTo(40);
+        assertThat(a.filterLeft(77)).isEqualTo(77);
+
+        assertThatThrownBy(() -> new SensorFilterFactory(FilterType.MEDIAN, FilterType.EMA, FilterType.EMA,
+                5, 0, 4, 25)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
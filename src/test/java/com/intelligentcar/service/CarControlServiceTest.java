@@ -0,0 +1,139 @@
+package com.intelligentcar.service;
+
+import com.intelligentcar.exception.CommandRejectedException;
+import com.intelligentcar.exception.UnknownVehicleException;
+import com.intelligentcar.journal.CommandJournal;
+import com.intelligentcar.model.CarStatus;
+import com.intelligentcar.model.ControlCommand;
+import com.intelligentcar.sensor.FilterType;
+import com.intelligentcar.sensor.SensorFilterFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 批量命令：整批先推演和安全检查，任一条被拒绝时状态回滚、整批不执行
+ */
+class CarControlServiceTest {
+
+    private static final String VEHICLE = CarControlService.DEFAULT_VEHICLE_ID;
+
+    private final CommandJournal journal = mock(CommandJournal.class);
+    private final DeviceSessionRegistry devices = mock(DeviceSessionRegistry.class);
+    private final List<String> sent = new ArrayList<>();
+    private final List<String> executed = new ArrayList<>();
+    private final List<Long> statusVersions = new ArrayList<>();
+    private CarControlService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CarControlService(new SafetyEnvelope(100, 200, 100, 10, 10), devices, journal,
+                new SensorFilterFactory(FilterType.NONE, FilterType.NONE, FilterType.NONE, 5, 0.3, 4, 25));
+        service.addCommandListener(VEHICLE, command -> sent.add(describe(command)));
+        service.addExecutionObserver(command -> executed.add(describe(command)));
+        service.addStatusObserver((id, status) -> statusVersions.add(status.getVersion()));
+    }
+
+    @Test
+    void batchExecutesEveryCommandInOrder() {
+        long before = version();
+        service.executeBatch(VEHICLE, List.of(command("FORWARD"), command("LEFT"), command("SPEED", "70")));
+
+        assertThat(sent).containsExactly("FORWARD", "LEFT", "SPEED 70");
+        assertThat(executed).containsExactly("FORWARD", "LEFT", "SPEED 70");
+        // 每条命令各有自己的状态版本和日志记录
+        assertThat(statusVersions).containsExactly(before + 1, before + 2, before + 3);
+        verify(journal, times(3)).append(any(), any());
+        verify(devices, times(3)).send(any(), any());
+
+        CarStatus status = service.getCurrentStatus(VEHICLE);
+        assertThat(status.getDirection()).isEqualTo("LEFT");
+        assertThat(status.getSpeed()).isEqualTo(70);
+    }
+
+    @Test
+    void rejectedCommandRollsBackTheWholeBatch() {
+        // 前方30cm：速度50停得住（21.25cm），速度100停不住（45cm）
+        service.updateSensorData(VEHICLE, 30, 100, 100);
+        service.executeCommand(command("BACKWARD"));
+        // getCurrentStatus返回的是活动对象，先记下各字段
+        int speedBefore = service.getCurrentStatus(VEHICLE).getSpeed();
+        long versionBefore = version();
+        Object timestampBefore = service.getCurrentStatus(VEHICLE).getTimestamp();
+        sent.clear();
+        executed.clear();
+        statusVersions.clear();
+
+        // 第二条FORWARD通过，第三条SPEED要在推演出的FORWARD状态上检查
+        List<ControlCommand> batch = List.of(command("STOP"), command("FORWARD"), command("SPEED", "100"));
+        assertThatThrownBy(() -> service.executeBatch(VEHICLE, batch))
+                .isInstanceOf(CommandRejectedException.class);
+
+        CarStatus after = service.getCurrentStatus(VEHICLE);
+        assertThat(after.getDirection()).isEqualTo("BACKWARD");
+        assertThat(after.getSpeed()).isEqualTo(speedBefore).isEqualTo(CarControlService.DEFAULT_BACKWARD_SPEED);
+        assertThat(after.getVersion()).isEqualTo(versionBefore);
+        assertThat(after.getTimestamp()).isSameAs(timestampBefore);
+        assertThat(sent).isEmpty();
+        assertThat(executed).isEmpty();
+        assertThat(statusVersions).isEmpty();
+        // 只有批量之前的那条BACKWARD进了日志
+        verify(journal, times(1)).append(any(), any());
+    }
+
+    @Test
+    void batchAllowedByProjectedStateIsExecuted() {
+        service.updateSensorData(VEHICLE, 30, 100, 100);
+        service.executeBatch(VEHICLE, List.of(command("FORWARD"), command("SPEED", "40")));
+        assertThat(sent).containsExactly("FORWARD", "SPEED 40");
+        assertThat(service.getCurrentStatus(VEHICLE).getSpeed()).isEqualTo(40);
+    }
+
+    @Test
+    void oversizedBatchIsRejectedBeforeTouchingState() {
+        List<ControlCommand> batch = Collections.nCopies(CarControlService.MAX_BATCH_SIZE + 1, command("LEFT"));
+        long before = version();
+        assertThatThrownBy(() -> service.executeBatch(VEHICLE, batch))
+                .isInstanceOf(CommandRejectedException.class);
+        assertThat(version()).isEqualTo(before);
+        verify(journal, never()).append(any(), any());
+    }
+
+    @Test
+    void unknownVehicleIsNotCreated() {
+        assertThatThrownBy(() -> service.executeBatch("car-404", List.of(command("STOP"))))
+                .isInstanceOf(UnknownVehicleException.class);
+        assertThat(service.hasVehicle("car-404")).isFalse();
+    }
+
+    private long version() {
+        return service.readStatus(VEHICLE, CarStatus::getVersion);
+    }
+
+    private static String describe(ControlCommand command) {
+        return command.getValue() == null ? command.getCommand() : command.getCommand() + " " + command.getValue();
+    }
+
+    private static ControlCommand command(String name) {
+        return command(name, null);
+    }
+
+    private static ControlCommand command(String name, String value) {
+        ControlCommand command = new ControlCommand();
+        command.setVehicleId(VEHICLE);
+        command.setCommand(name);
+        command.setValue(value);
+        return command;
+    }
+}
@@ -0,0 +1,87 @@
+package com.intelligentcar.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClockOffsetEstimatorTest {
+
+    @Test
+    void noSamplesMeansZeroOffset() {
+        ClockOffsetEstimator clock = new ClockOffsetEstimator();
+        assertThat(clock.getOffset()).isZero();
+        assertThat(clock.getBestRtt()).isEqualTo(-1);
+        assertThat(clock.toServerTime(1234)).isEqualTo(1234);
+    }
+
+    @Test
+    void pingSampleAssumesSymmetricPath() {
+        ClockOffsetEstimator clock = new ClockOffsetEstimator();
+        // s0=1000，客户端在1010(服务器时间)时读到自己的时钟5010，s1=1020
+        clock.addPingSample(1_000, 5_010, 1_020);
+        assertThat(clock.hasPingSample()).isTrue();
+        assertThat(clock.getBestRtt()).isEqualTo(20);
+        assertThat(clock.getOffset()).isEqualTo(4_000);
+        assertThat(clock.toServerTime(9_000)).isEqualTo(5_000);
+    }
+
+    @Test
+    void keepsLowestRttSample() {
+        ClockOffsetEstimator clock = new ClockOffsetEstimator();
+        clock.addPingSample(1_000, 5_010, 1_020);
+        // RTT更大的样本误差上界更大，不替换
+        clock.addPingSample(2_000, 6_300, 2_200);
+        assertThat(clock.getOffset()).isEqualTo(4_000);
+        assertThat(clock.getBestRtt()).isEqualTo(20);
+
+        clock.addPingSample(3_000, 7_005, 3_010);
+        assertThat(clock.getBestRtt()).isEqualTo(10);
+        assertThat(clock.getOffset()).isEqualTo(4_000);
+    }
+
+    @Test
+    void staleSampleIsReplacedToTrackDrift() {
+        ClockOffsetEstimator clock = new ClockOffsetEstimator();
+        clock.addPingSample(1_000, 5_005, 1_010);
+        // 一分钟以后，时钟漂移了100ms，即使RTT更大也接受
+        clock.addPingSample(70_000, 74_125, 70_050);
+        assertThat(clock.getOffset()).isEqualTo(4_100);
+        assertThat(clock.getBestRtt()).isEqualTo(50);
+    }
+
+    @Test
+    void negativeRttIsIgnored() {
+        ClockOffsetEstimator clock = new ClockOffsetEstimator();
+        clock.addPingSample(1_000, 5_000, 999);
+        assertThat(clock.hasPingSample()).isFalse();
+    }
+
+    @Test
+    void passiveOffsetUsesLeastDelayedCommand() {
+        ClockOffsetEstimator clock = new ClockOffsetEstimator();
+        // 真实偏移4000，三条命令分别排队30、5、80ms
+        clock.addCommandSample(5_000, 1_030);
+        clock.addCommandSample(6_000, 2_005);
+        clock.addCommandSample(7_000, 3_080);
+        assertThat(clock.getOffset()).isEqualTo(3_995);
+
+        // 有PING样本后以PING为准
+        clock.addPingSample(4_000, 8_010, 4_020);
+        assertThat(clock.getOffset()).isEqualTo(4_000);
+    }
+
+    @Test
+    void pingIsRequestedOncePerInterval() {
+        ClockOffsetEstimator clock = new ClockOffsetEstimator();
+        assertThat(clock.needsPing(0, 10_000)).isTrue();
+        clock.markPingSent(0);
+        // 客户端不回PONG时也不会每条命令都探测
+        assertThat(clock.needsPing(5_000, 10_000)).isFalse();
+        assertThat(clock.needsPing(10_001, 10_000)).isTrue();
+
+        clock.markPingSent(10_001);
+        clock.addPingSample(10_001, 14_011, 10_021);
+        assertThat(clock.needsPing(20_010, 10_000)).isFalse();
+        assertThat(clock.needsPing(20_022, 10_000)).isTrue();
+    }
+}
@@ -0,0 +1,71 @@
+package com.intelligentcar.service;
+
+import com.intelligentcar.model.ControlCommand;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommandDeadlinePolicyTest {
+
+    private final CommandDeadlinePolicy policy = new CommandDeadlinePolicy(500, 10_000);
+
+    @Test
+    void deadlineStartsAtReceiveTimeWithoutClientTimestamp() {
+        ControlCommand command = command("FORWARD", null);
+        policy.assignDeadline(command, new ClockOffsetEstimator(), 10_000);
+        assertThat(command.getExpiresAt()).isEqualTo(10_500);
+    }
+
+    @Test
+    void clientTimestampIsConvertedToServerClock() {
+        // 客户端时钟比服务器快2秒，往返20ms
+        ClockOffsetEstimator clock = new ClockOffsetEstimator();
+        clock.addPingSample(1_000, 3_010, 1_020);
+
+        ControlCommand command = command("FORWARD", 12_000L);
+        policy.assignDeadline(command, clock, 10_100);
+        assertThat(command.getExpiresAt()).isEqualTo(10_000 + 500);
+
+        // 没有时钟估计时原样使用客户端时间戳
+        ControlCommand raw = command("FORWARD", 12_000L);
+        policy.assignDeadline(raw, null, 10_100);
+        assertThat(raw.getExpiresAt()).isEqualTo(12_500);
+    }
+
+    @Test
+    void expiredDriveCommandIsDiscardedAndCounted() {
+        ControlCommand command = command("left", null);
+        policy.assignDeadline(command, null, 1_000);
+
+        assertThat(policy.shouldDiscard(command, 1_500)).isFalse();
+        assertThat(policy.shouldDiscard(command, 1_501)).isTrue();
+        assertThat(policy.getExpiredTotal()).isEqualTo(1);
+        @SuppressWarnings("unchecked")
+        Map<String, Long> byCommand = (Map<String, Long>) policy.getStats().get("expiredByCommand");
+        assertThat(byCommand).containsEntry("LEFT", 1L);
+    }
+
+    @Test
+    void stopCommandsNeverExpire() {
+        for (String name : new String[] {"STOP", "EMERGENCY_STOP"}) {
+            ControlCommand command = command(name, null);
+            policy.assignDeadline(command, null, 1_000);
+            assertThat(policy.shouldDiscard(command, 60_000)).as(name).isFalse();
+        }
+        assertThat(policy.getExpiredTotal()).isZero();
+    }
+
+    @Test
+    void commandWithoutDeadlineIsKept() {
+        assertThat(policy.shouldDiscard(command("FORWARD", null), Long.MAX_VALUE)).isFalse();
+    }
+
+    private static ControlCommand command(String name, Long timestamp) {
+        ControlCommand command = new ControlCommand();
+        command.setCommand(name);
+        command.setTimestamp(timestamp);
+        return command;
+    }
+}
@@ -0,0 +1,165 @@
+package com.intelligentcar.service;
+
+import com.intelligentcar.model.ControlCommand;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeviceSessionRegistryTest {
+
+    private static final String VEHICLE = "car-2";
+
+    private DeviceSessionRegistry registry;
+
+    @AfterEach
+    void tearDown() {
+        if (registry != null) {
+            registry.stop();
+        }
+    }
+
+    @Test
+    void commandsCarryIncreasingSeqAndAckClearsThem() throws Exception {
+        registry = new DeviceSessionRegistry(100, 20, 5, "", 1000, 65536);
+        WebSocketSession device = device("d-1");
+        assertThat(registry.registerDevice(VEHICLE, device)).isNotNull();
+
+        assertThat(registry.send(VEHICLE, command("FORWARD"))).isEqualTo(1);
+        assertThat(registry.send(VEHICLE, command("STOP"))).isEqualTo(2);
+        assertThat(registry.getPendingCount(VEHICLE)).isEqualTo(2);
+
+        List<String> sent = sentPayloads(device, 2);
+        assertThat(sent.get(0)).contains("\"type\":\"COMMAND\"").contains("\"seq\":1").contains("FORWARD");
+        assertThat(sent.get(1)).contains("\"seq\":2").contains("STOP");
+
+        registry.acknowledge(VEHICLE, 1);
+        // 重复确认和未知序号不影响计数
+        registry.acknowledge(VEHICLE, 1);
+        registry.acknowledge(VEHICLE, 99);
+        assertThat(registry.getPendingCount(VEHICLE)).isEqualTo(1);
+        assertThat(registry.getAckedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void vehicleWithoutDeviceDoesNotQueue() {
+        registry = new DeviceSessionRegistry(100, 20, 5, "", 1000, 65536);
+        assertThat(registry.send(VEHICLE, command("FORWARD"))).isEqualTo(-1);
+        assertThat(registry.getTotalPending()).isZero();
+        assertThat(registry.isDeviceConnected(VEHICLE)).isFalse();
+    }
+
+    @Test
+    void secondDeviceIsRejectedUntilFirstCloses() {
+        registry = new DeviceSessionRegistry(100, 20, 5, "", 1000, 65536);
+        WebSocketSession first = device("d-1");
+        WebSocketSession second = device("d-2");
+        assertThat(registry.registerDevice(VEHICLE, first)).isNotNull();
+        assertThat(registry.registerDevice(VEHICLE, second)).isNull();
+
+        when(first.isOpen()).thenReturn(false);
+        assertThat(registry.registerDevice(VEHICLE, second)).isNotNull();
+        assertThat(registry.isDeviceConnected(VEHICLE)).isTrue();
+    }
+
+    @Test
+    void disconnectDropsPendingOnlyForCurrentDevice() {
+        registry = new DeviceSessionRegistry(100, 20, 5, "", 1000, 65536);
+        WebSocketSession current = device("d-1");
+        registry.registerDevice(VEHICLE, current);
+        registry.send(VEHICLE, command("FORWARD"));
+        registry.send(VEHICLE, command("LEFT"));
+
+        // 被拒绝的连接关闭时不能清掉当前设备
+        registry.removeDevice(VEHICLE, device("d-2"));
+        assertThat(registry.getPendingCount(VEHICLE)).isEqualTo(2);
+
+        registry.removeDevice(VEHICLE, current);
+        assertThat(registry.getPendingCount(VEHICLE)).isZero();
+        assertThat(registry.getDroppedCount()).isEqualTo(2);
+        assertThat(registry.send(VEHICLE, command("STOP"))).isEqualTo(-1);
+    }
+
+    @Test
+    void unackedCommandIsRetransmittedThenDropped() throws Exception {
+        registry = new DeviceSessionRegistry(20, 5, 2, "", 1000, 65536);
+        registry.start();
+        WebSocketSession device = device("d-1");
+        registry.registerDevice(VEHICLE, device);
+
+        long seq = registry.send(VEHICLE, command("FORWARD"));
+        awaitTrue(() -> registry.getDroppedCount() == 1);
+
+        // 首发一次 + 重传maxRetries次，序号不变
+        assertThat(registry.getRetransmitCount()).isEqualTo(2);
+        assertThat(registry.getPendingCount(VEHICLE)).isZero();
+        assertThat(sentPayloads(device, 3)).allSatisfy(json -> assertThat(json).contains("\"seq\":" + seq));
+    }
+
+    @Test
+    void ackedCommandIsNotRetransmitted() throws Exception {
+        registry = new DeviceSessionRegistry(20, 5, 2, "", 1000, 65536);
+        registry.start();
+        WebSocketSession device = device("d-1");
+        registry.registerDevice(VEHICLE, device);
+
+        registry.acknowledge(VEHICLE, registry.send(VEHICLE, command("FORWARD")));
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        assertThat(registry.getRetransmitCount()).isZero();
+        assertThat(registry.getDroppedCount()).isZero();
+        verify(device, times(1)).sendMessage(any());
+    }
+
+    @Test
+    void onlyConfiguredTokensAuthenticate() {
+        registry = new DeviceSessionRegistry(100, 20, 5, "car-2=secret, car-3 = other ,broken", 1000, 65536);
+        assertThat(registry.authenticate("car-2", "secret")).isTrue();
+        assertThat(registry.authenticate("car-3", "other")).isTrue();
+        assertThat(registry.authenticate("car-2", "other")).isFalse();
+        assertThat(registry.authenticate("car-2", null)).isFalse();
+        // 未配置令牌的小车一律拒绝
+        assertThat(registry.authenticate("car-1", "")).isFalse();
+        assertThat(registry.authenticate("broken", "")).isFalse();
+    }
+
+    private static WebSocketSession device(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+
+    private static List<String> sentPayloads(WebSocketSession device, int count) throws Exception {
+        ArgumentCaptor<TextMessage> captor = ArgumentCaptor.forClass(TextMessage.class);
+        verify(device, times(count)).sendMessage(captor.capture());
+        return captor.getAllValues().stream().map(TextMessage::getPayload).toList();
+    }
+
+    private static ControlCommand command(String name) {
+        ControlCommand command = new ControlCommand();
+        command.setVehicleId(VEHICLE);
+        command.setCommand(name);
+        return command;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("等待超时").isLessThan(deadline);
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+    }
+}
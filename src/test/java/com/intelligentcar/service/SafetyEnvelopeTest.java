@@ -0,0 +1,106 @@
+package com.intelligentcar.service;
+
+import com.intelligentcar.model.CarStatus;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SafetyEnvelopeTest {
+
+    // 与application.properties默认值相同：100cm/s、200cm/s²、100ms、余量10cm、最低限速10
+    private final SafetyEnvelope envelope = new SafetyEnvelope(100, 200, 100, 10, 10);
+
+    @Test
+    void stoppingDistanceIsReactionPlusBrakingPlusMargin() {
+        assertThat(envelope.stoppingDistanceCm(0)).isCloseTo(10, within(1e-9));
+        // 50cm/s: 5 + 6.25 + 10
+        assertThat(envelope.stoppingDistanceCm(50)).isCloseTo(21.25, within(1e-9));
+        // 100cm/s: 10 + 25 + 10
+        assertThat(envelope.stoppingDistanceCm(100)).isCloseTo(45, within(1e-9));
+    }
+
+    @Test
+    void negativeSpeedCountsAsStopped() {
+        assertThat(envelope.stoppingDistanceCm(-20)).isEqualTo(envelope.stoppingDistanceCm(0));
+    }
+
+    @Test
+    void zeroDistanceMeansNoReadingAndDoesNotLimit() {
+        assertThat(envelope.maxSafeSpeed(0)).isEqualTo(100);
+        assertThat(envelope.maxSafeSpeed(-1)).isEqualTo(100);
+        assertThat(envelope.isForwardAllowed(100, 0)).isTrue();
+    }
+
+    @Test
+    void contactDistanceBlocksForward() {
+        // 贴墙时传感器报1cm（SensorReading.CONTACT_DISTANCE_CM）
+        assertThat(envelope.maxSafeSpeed(1)).isZero();
+        assertThat(envelope.isForwardAllowed(1, 1)).isFalse();
+    }
+
+    @Test
+    void distanceWithinMarginAllowsNoSpeed() {
+        assertThat(envelope.maxSafeSpeed(5)).isZero();
+        assertThat(envelope.maxSafeSpeed(10)).isZero();
+        assertThat(envelope.isForwardAllowed(10, 10)).isFalse();
+    }
+
+    @Test
+    void farObstacleAllowsFullSpeed() {
+        assertThat(envelope.maxSafeSpeed(1000)).isEqualTo(100);
+        assertThat(envelope.isForwardAllowed(100, 1000)).isTrue();
+    }
+
+    @Test
+    void maxSafeSpeedStopsWithinDistance() {
+        int previous = 0;
+        for (int distance = 1; distance <= 200; distance++) {
+            int speed = envelope.maxSafeSpeed(distance);
+            assertThat(speed).as("distance %d", distance).isGreaterThanOrEqualTo(previous);
+            if (distance > 10) {
+                assertThat(envelope.stoppingDistanceCm(speed)).as("distance %d", distance)
+                        .isLessThanOrEqualTo(distance);
+            }
+            if (speed < 100) {
+                // 再快1%就停不住
+                assertThat(envelope.stoppingDistanceCm(speed + 1)).as("distance %d", distance)
+                        .isGreaterThan(distance);
+            }
+            previous = speed;
+        }
+    }
+
+    @Test
+    void forwardAllowedMatchesStoppingDistance() {
+        for (int speed = 0; speed <= 100; speed += 5) {
+            int enough = (int) Math.ceil(envelope.stoppingDistanceCm(speed)) + 1;
+            assertThat(envelope.isForwardAllowed(speed, enough)).as("speed %d", speed).isTrue();
+        }
+        assertThat(envelope.isForwardAllowed(50, 20)).isFalse();
+        assertThat(envelope.isForwardAllowed(50, 22)).isTrue();
+    }
+
+    @Test
+    void safetyUsesTheNearerOfRawAndFilteredDistance() {
+        // 障碍物突然出现：原始读数已经很近，中值滤波值还没跟上
+        assertThat(SafetyEnvelope.frontDistanceForSafety(front(15, 120))).isEqualTo(15);
+        // 单个远距离毛刺被滤掉
+        assertThat(SafetyEnvelope.frontDistanceForSafety(front(400, 30))).isEqualTo(30);
+    }
+
+    @Test
+    void missingReadingFallsBackToTheOtherValue() {
+        assertThat(SafetyEnvelope.frontDistanceForSafety(front(0, 40))).isEqualTo(40);
+        assertThat(SafetyEnvelope.frontDistanceForSafety(front(25, 0))).isEqualTo(25);
+        assertThat(SafetyEnvelope.frontDistanceForSafety(front(0, 0))).isZero();
+        assertThat(SafetyEnvelope.frontDistanceForSafety(front(null, null))).isZero();
+    }
+
+    private static CarStatus front(Integer raw, Integer filtered) {
+        CarStatus status = new CarStatus();
+        status.setRawFrontDistance(raw);
+        status.setFrontDistance(filtered);
+        return status;
+    }
+}
@@ -0,0 +1,117 @@
+package com.intelligentcar.service;
+
+import com.intelligentcar.service.SequenceWindow.Verdict;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SequenceWindowTest {
+
+    private final SequenceWindow window = new SequenceWindow();
+
+    @Test
+    void inOrderSequencesAreNew() {
+        for (long seq = 1; seq <= 5; seq++) {
+            assertThat(window.accept(seq)).isEqualTo(Verdict.NEW);
+        }
+        assertThat(window.getHighest()).isEqualTo(5);
+        assertThat(window.getHighestContiguous()).isEqualTo(5);
+    }
+
+    @Test
+    void repeatedSequenceIsDuplicate() {
+        window.accept(1);
+        window.accept(2);
+        assertThat(window.accept(2)).isEqualTo(Verdict.DUPLICATE);
+        assertThat(window.accept(1)).isEqualTo(Verdict.DUPLICATE);
+    }
+
+    @Test
+    void lateSequenceIsSupersededOnceAndClosesTheGap() {
+        window.accept(1);
+        window.accept(3);
+        assertThat(window.getHighestContiguous()).isEqualTo(1);
+
+        assertThat(window.accept(2)).isEqualTo(Verdict.SUPERSEDED);
+        assertThat(window.getHighestContiguous()).isEqualTo(3);
+        assertThat(window.accept(2)).isEqualTo(Verdict.DUPLICATE);
+    }
+
+    @Test
+    void windowEdgeIsSixtyFourSequences() {
+        window.accept(100);
+        // 右沿往前63个仍在窗口内
+        assertThat(window.accept(100 - (SequenceWindow.WINDOW_SIZE - 1))).isEqualTo(Verdict.SUPERSEDED);
+        assertThat(window.accept(100 - SequenceWindow.WINDOW_SIZE)).isEqualTo(Verdict.STALE);
+        assertThat(window.accept(1)).isEqualTo(Verdict.STALE);
+    }
+
+    @Test
+    void contiguousSkipsHolesThatSlideOutOfTheWindow() {
+        window.accept(1);
+        window.accept(200);
+        assertThat(window.getHighestContiguous()).isEqualTo(200 - SequenceWindow.WINDOW_SIZE);
+
+        // 窗口里只剩200，其余空洞补齐后连续序号追到右沿
+        for (long seq = 200 - SequenceWindow.WINDOW_SIZE + 1; seq < 200; seq++) {
+            assertThat(window.accept(seq)).isEqualTo(Verdict.SUPERSEDED);
+        }
+        assertThat(window.getHighestContiguous()).isEqualTo(200);
+    }
+
+    @Test
+    void bitmapWrapsAroundAcrossManyWindows() {
+        // 右沿多次整圈移过64位位图，每个序号都只接受一次
+        for (long seq = 1; seq <= 1000; seq += 2) {
+            assertThat(window.accept(seq + 1)).as("seq %d", seq + 1).isEqualTo(Verdict.NEW);
+            assertThat(window.accept(seq)).as("seq %d", seq).isEqualTo(Verdict.SUPERSEDED);
+            assertThat(window.accept(seq + 1)).as("seq %d", seq + 1).isEqualTo(Verdict.DUPLICATE);
+            assertThat(window.getHighestContiguous()).isEqualTo(seq + 1);
+        }
+    }
+
+    @Test
+    void shiftByExactlyTheWindowSizeClearsTheBitmap() {
+        window.accept(10);
+        window.accept(9);
+        long next = 10 + SequenceWindow.WINDOW_SIZE;
+        assertThat(window.accept(next)).isEqualTo(Verdict.NEW);
+        // 旧位不能随移位残留到新窗口
+        assertThat(window.accept(next - 1)).isEqualTo(Verdict.SUPERSEDED);
+        assertThat(window.accept(11)).isEqualTo(Verdict.SUPERSEDED);
+        assertThat(window.accept(10)).isEqualTo(Verdict.STALE);
+    }
+
+    @Test
+    void sequencesBelowOneAreStaleAndLeaveTheWindowUntouched() {
+        window.accept(5);
+        assertThat(window.accept(0)).isEqualTo(Verdict.STALE);
+        assertThat(window.accept(-1)).isEqualTo(Verdict.STALE);
+        assertThat(window.accept(Long.MIN_VALUE)).isEqualTo(Verdict.STALE);
+
+        assertThat(window.getHighest()).isEqualTo(5);
+        for (long seq = 1; seq < 5; seq++) {
+            assertThat(window.accept(seq)).as("seq %d", seq).isEqualTo(Verdict.SUPERSEDED);
+        }
+    }
+
+    @Test
+    void veryLargeSequencesStillSlide() {
+        long base = Long.MAX_VALUE - 10;
+        assertThat(window.accept(base)).isEqualTo(Verdict.NEW);
+        assertThat(window.accept(Long.MAX_VALUE)).isEqualTo(Verdict.NEW);
+        assertThat(window.accept(base + 1)).isEqualTo(Verdict.SUPERSEDED);
+        assertThat(window.accept(1)).isEqualTo(Verdict.STALE);
+    }
+
+    @Test
+    void copyIsIndependent() {
+        window.accept(1);
+        SequenceWindow trial = window.copy();
+        assertThat(trial.accept(2)).isEqualTo(Verdict.NEW);
+
+        assertThat(window.getHighest()).isEqualTo(1);
+        assertThat(window.accept(2)).isEqualTo(Verdict.NEW);
+        assertThat(trial.accept(1)).isEqualTo(Verdict.DUPLICATE);
+    }
+}
@@ -0,0 +1,317 @@
+package com.intelligentcar.service;
+
+import com.intelligentcar.exception.UnknownVehicleException;
+import com.intelligentcar.model.CarStatus;
+import com.intelligentcar.scheduler.SessionScheduler;
+import com.intelligentcar.scheduler.SessionTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedConstruction;
+import org.mockito.invocation.Invocation;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockConstruction;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 状态SSE版本环：新连接快照、增量推送、Last-Event-ID续传和环被覆盖后的快照回退
+ */
+class StatusStreamServiceTest {
+
+    private static final String VEHICLE = "car-1";
+    private static final Pattern EVENT = Pattern.compile("id: (\\d+)\nevent: (\\w+)\n");
+
+    private final CarControlService carControlService = mock(CarControlService.class);
+    private final SessionScheduler sessionScheduler = mock(SessionScheduler.class);
+    private final CarStatus status = new CarStatus();
+    private final Map<ResponseBodyEmitter, Runnable> deliveries = new HashMap<>();
+    private final Map<ResponseBodyEmitter, SessionTask> tasks = new HashMap<>();
+    private final Map<ResponseBodyEmitter, Runnable> completions = new HashMap<>();
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<SessionTask> scheduledTasks = new ArrayList<>();
+    private MockedConstruction<ResponseBodyEmitter> emitters;
+    private BiConsumer<String, CarStatus> statusObserver;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        status.setVersion(1);
+        when(carControlService.hasVehicle(VEHICLE)).thenReturn(true);
+        when(carControlService.readStatus(eq(VEHICLE), any())).thenAnswer(invocation ->
+                ((Function<CarStatus, Object>) invocation.getArgument(1)).apply(status));
+        when(sessionScheduler.scheduleAtFixedRate(any(), anyLong(), anyLong(), any(TimeUnit.class)))
+                .thenAnswer(invocation -> {
+                    SessionTask task = mock(SessionTask.class);
+                    scheduled.add(invocation.getArgument(0));
+                    scheduledTasks.add(task);
+                    return task;
+                });
+        emitters = mockConstruction(ResponseBodyEmitter.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        emitters.close();
+    }
+
+    @Test
+    void newSubscriberGetsRetryHintAndSnapshot() throws IOException {
+        StatusStreamService service = newService(256, 3000, 20, 15000);
+        ResponseBodyEmitter emitter = subscribe(service, null);
+
+        String sent = deliver(emitter);
+        assertThat(sent).startsWith("retry: 3000\n\n");
+        assertThat(events(sent)).containsExactly("1 snapshot");
+        assertThat(sent).contains("\"vehicleId\":\"car-1\"");
+        assertThat(service.getSnapshotCount()).isEqualTo(1);
+
+        // 没有新版本、未到保活时间时不写
+        assertThat(deliver(emitter)).isEmpty();
+    }
+
+    @Test
+    void liveSubscriberGetsEachNewVersionOnceInOneWrite() throws IOException {
+        StatusStreamService service = newService(256, 3000, 20, 15000);
+        ResponseBodyEmitter emitter = subscribe(service, null);
+        deliver(emitter);
+
+        clearInvocations(emitter);
+        publish(2);
+        publish(3);
+        // 状态变化只进环，由推送任务写出
+        assertThat(writes(emitter)).isZero();
+        String sent = deliver(emitter);
+        assertThat(events(sent)).containsExactly("2 status", "3 status");
+        assertThat(writes(emitter)).isEqualTo(1);
+
+        publish(4);
+        assertThat(events(deliver(emitter))).containsExactly("4 status");
+        assertThat(service.getSnapshotCount()).isEqualTo(1);
+    }
+
+    @Test
+    void resumeWithinRingSendsOnlyMissedVersions() throws IOException {
+        StatusStreamService service = newService(256, 3000, 20, 15000);
+        subscribe(service, null);
+        for (long version = 2; version <= 5; version++) {
+            publish(version);
+        }
+
+        ResponseBodyEmitter resumed = subscribe(service, "3");
+        String sent = deliver(resumed);
+
+        assertThat(sent).startsWith("retry: 3000\n\n");
+        assertThat(events(sent)).containsExactly("4 status", "5 status");
+        assertThat(service.getResumedCount()).isEqualTo(1);
+        assertThat(service.getSnapshotCount()).isZero();
+    }
+
+    @Test
+    void resumeAtLatestVersionSendsNothingButTheRetryHint() throws IOException {
+        StatusStreamService service = newService(256, 3000, 20, 15000);
+        subscribe(service, null);
+        publish(2);
+
+        String sent = deliver(subscribe(service, "2"));
+        assertThat(sent).isEqualTo("retry: 3000\n\n");
+        assertThat(service.getResumedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void resumeFromOverwrittenVersionFallsBackToSnapshot() throws IOException {
+        // 重连间隔只有两个遥测周期，环保持4个版本
+        StatusStreamService service = newService(4, 20, 20, 15000);
+        subscribe(service, null);
+        for (long version = 2; version <= 10; version++) {
+            publish(version);
+        }
+
+        assertThat(events(deliver(subscribe(service, "5")))).containsExactly("10 snapshot");
+        // 环里是7~10，游标6紧挨最老版本，仍可续传
+        assertThat(events(deliver(subscribe(service, "6")))).containsExactly("7 status", "8 status", "9 status", "10 status");
+        assertThat(service.getSnapshotCount()).isEqualTo(1);
+        assertThat(service.getResumedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidOrFutureEventIdFallsBackToSnapshot() throws IOException {
+        StatusStreamService service = newService(256, 3000, 20, 15000);
+        subscribe(service, null);
+        publish(2);
+
+        // 服务重启前的版本号可能比当前的大
+        assertThat(events(deliver(subscribe(service, "999")))).containsExactly("2 snapshot");
+        assertThat(events(deliver(subscribe(service, "abc")))).containsExactly("2 snapshot");
+        assertThat(events(deliver(subscribe(service, " ")))).containsExactly("2 snapshot");
+        assertThat(service.getResumedCount()).isZero();
+    }
+
+    @Test
+    void subscriberFallingBehindAWholeRingGetsSnapshot() throws IOException {
+        StatusStreamService service = newService(4, 20, 20, 15000);
+        ResponseBodyEmitter emitter = subscribe(service, null);
+        deliver(emitter);
+
+        for (long version = 2; version <= 10; version++) {
+            publish(version);
+        }
+        assertThat(events(deliver(emitter))).containsExactly("10 snapshot");
+
+        publish(11);
+        assertThat(events(deliver(emitter))).containsExactly("11 status");
+    }
+
+    @Test
+    void ringCoversTwoRetryIntervalsOfTelemetry() throws IOException {
+        // 配置的环只有4，但3秒重连、20ms遥测要求至少300个版本
+        StatusStreamService service = newService(4, 3000, 20, 15000);
+        subscribe(service, null);
+        for (long version = 2; version <= 300; version++) {
+            publish(version);
+        }
+
+        List<String> events = events(deliver(subscribe(service, "1")));
+        assertThat(events).hasSize(299);
+        assertThat(events.get(0)).isEqualTo("2 status");
+        assertThat(events.get(298)).isEqualTo("300 status");
+        assertThat(service.getSnapshotCount()).isZero();
+    }
+
+    @Test
+    void ringKeepsRecordingWhileNobodyIsSubscribed() throws IOException {
+        StatusStreamService service = newService(256, 3000, 20, 15000);
+        ResponseBodyEmitter first = subscribe(service, null);
+        deliver(first);
+        disconnect(first);
+        assertThat(service.getSubscriberCount()).isZero();
+
+        publish(2);
+        publish(3);
+        assertThat(events(deliver(subscribe(service, "1")))).containsExactly("2 status", "3 status");
+    }
+
+    @Test
+    void idleSubscriberGetsKeepalive() throws IOException {
+        StatusStreamService service = newService(256, 3000, 20, 0);
+        ResponseBodyEmitter emitter = subscribe(service, null);
+        deliver(emitter);
+
+        assertThat(deliver(emitter)).isEqualTo(": keepalive\n\n");
+    }
+
+    @Test
+    void failedWriteRemovesSubscriberAndCancelsItsTask() throws IOException {
+        StatusStreamService service = newService(256, 3000, 20, 15000);
+        ResponseBodyEmitter emitter = subscribe(service, null);
+        IOException broken = new IOException("broken pipe");
+        doThrow(broken).when(emitter).send(any(), any(MediaType.class));
+
+        deliveries.get(emitter).run();
+
+        assertThat(service.getSubscriberCount()).isZero();
+        verify(tasks.get(emitter)).cancel();
+        verify(emitter).completeWithError(broken);
+    }
+
+    @Test
+    void unknownVehicleIsRejectedWithoutCreatingARing() {
+        StatusStreamService service = newService(256, 3000, 20, 15000);
+
+        assertThatThrownBy(() -> service.subscribe("car-9", null)).isInstanceOf(UnknownVehicleException.class);
+        assertThat(service.getSubscriberCount()).isZero();
+        assertThat(scheduled).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private StatusStreamService newService(int ringSize, long retryMs, long telemetryMs, long keepaliveMs) {
+        StatusStreamService service = new StatusStreamService(carControlService, sessionScheduler,
+                ringSize, 100, keepaliveMs, retryMs, telemetryMs);
+        ArgumentCaptor<BiConsumer<String, CarStatus>> observer = ArgumentCaptor.forClass(BiConsumer.class);
+        verify(carControlService).addStatusObserver(observer.capture());
+        statusObserver = observer.getValue();
+        return service;
+    }
+
+    private ResponseBodyEmitter subscribe(StatusStreamService service, String lastEventId) {
+        ResponseBodyEmitter emitter = service.subscribe(VEHICLE, lastEventId);
+        deliveries.put(emitter, scheduled.get(scheduled.size() - 1));
+        tasks.put(emitter, scheduledTasks.get(scheduledTasks.size() - 1));
+        ArgumentCaptor<Runnable> completion = ArgumentCaptor.forClass(Runnable.class);
+        verify(emitter).onCompletion(completion.capture());
+        completions.put(emitter, completion.getValue());
+        return emitter;
+    }
+
+    /**
+     * 模拟小车锁内的状态变化通知
+     */
+    private void publish(long version) {
+        status.setVersion(version);
+        statusObserver.accept(VEHICLE, status);
+    }
+
+    /**
+     * 跑一次订阅者的推送任务，返回这次写出的内容
+     */
+    private String deliver(ResponseBodyEmitter emitter) {
+        clearInvocations(emitter);
+        deliveries.get(emitter).run();
+        StringBuilder sent = new StringBuilder();
+        for (Invocation invocation : mockingDetails(emitter).getInvocations()) {
+            if ("send".equals(invocation.getMethod().getName())) {
+                sent.append(new String((byte[]) invocation.getArgument(0), StandardCharsets.UTF_8));
+            }
+        }
+        return sent.toString();
+    }
+
+    private static long writes(ResponseBodyEmitter emitter) {
+        return mockingDetails(emitter).getInvocations().stream()
+                .filter(invocation -> "send".equals(invocation.getMethod().getName()))
+                .count();
+    }
+
+    /**
+     * 断开连接：触发订阅时登记的onCompletion回调
+     */
+    private void disconnect(ResponseBodyEmitter emitter) {
+        completions.get(emitter).run();
+    }
+
+    /**
+     * 按顺序提取"版本 事件类型"
+     */
+    private static List<String> events(String sent) {
+        List<String> events = new ArrayList<>();
+        Matcher matcher = EVENT.matcher(sent);
+        while (matcher.find()) {
+            events.add(matcher.group(1) + " " + matcher.group(2));
+        }
+        return events;
+    }
+}
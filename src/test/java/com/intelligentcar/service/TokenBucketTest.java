@@ -0,0 +1,108 @@
+package com.intelligentcar.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    @Test
+    void fullBucketAllowsBurstThenRejects() {
+        // 每秒1个，测试期间不会补充
+        TokenBucket bucket = new TokenBucket(1, 5);
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.tryAcquire()).as("token %d", i).isTrue();
+        }
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void refillsAtConfiguredRate() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(20, 1);
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+
+        // 发放间隔50ms
+        TimeUnit.MILLISECONDS.sleep(120);
+        assertThat(bucket.tryAcquire()).isTrue();
+        // 桶容量为1，空闲期间最多攒一个
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void multiplePermitsAreAllOrNothing() {
+        TokenBucket bucket = new TokenBucket(1, 5);
+        assertThat(bucket.tryAcquire(3)).isTrue();
+        assertThat(bucket.tryAcquire(3)).isFalse();
+        // 失败的请求不扣令牌
+        assertThat(bucket.tryAcquire(2)).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void eachPermitCostsAFullInterval() {
+        TokenBucket bucket = new TokenBucket(1, 10);
+        // 两批各5个正好取空，10个令牌的桶不会放行第三批
+        assertThat(bucket.tryAcquire(5)).isTrue();
+        assertThat(bucket.tryAcquire(5)).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void requestLargerThanBurstIsRejectedWithoutTakingTokens() {
+        TokenBucket bucket = new TokenBucket(1, 5);
+        assertThat(bucket.getBurst()).isEqualTo(5);
+        assertThat(bucket.tryAcquire(6)).isFalse();
+        assertThat(bucket.tryAcquire(100)).isFalse();
+        assertThat(bucket.tryAcquire(5)).isTrue();
+    }
+
+    @Test
+    void releaseReturnsAcquiredPermits() {
+        TokenBucket bucket = new TokenBucket(1, 5);
+        assertThat(bucket.tryAcquire(5)).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+
+        bucket.release(2);
+        assertThat(bucket.tryAcquire(2)).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void concurrentAcquiresNeverExceedBurst() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 100);
+        int threads = 8;
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < 1000; i++) {
+                        if (bucket.tryAcquire()) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        }
+        // 测试期间最多补充几个
+        assertThat(granted.get()).isBetween(100, 110);
+    }
+}
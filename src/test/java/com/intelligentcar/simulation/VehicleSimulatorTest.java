@@ -0,0 +1,190 @@
+package com.intelligentcar.simulation;
+
+import com.intelligentcar.model.ControlCommand;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class VehicleSimulatorTest {
+
+    // 10ms步长，默认参数：最大速度100cm/s、加速度150、制动200、紧急制动400、转弯半径30、爬行速度15、车身半径10
+    private static final long STEP_NANOS = 10_000_000L;
+
+    // 没有障碍物的场地
+    private static final DistanceField OPEN = (x, y, angle, maxRange) -> maxRange;
+
+    @Test
+    void forwardAcceleratesAtLimitUpToDefaultSpeed() {
+        VehicleSimulator sim = simulator(OPEN);
+        sim.applyCommand(command("FORWARD"));
+
+        sim.step();
+        assertThat(sim.getVelocity()).isCloseTo(1.5, within(1e-9));
+
+        sim.runFor(1);
+        // 默认前进速度50%，即50cm/s
+        assertThat(sim.getVelocity()).isCloseTo(50, within(1e-9));
+        assertThat(sim.getX()).isPositive();
+        assertThat(sim.getY()).isCloseTo(0, within(1e-9));
+        assertThat(sim.toCarStatus().getSpeed()).isEqualTo(50);
+        assertThat(sim.toCarStatus().getDirection()).isEqualTo("FORWARD");
+    }
+
+    @Test
+    void speedCommandChangesTargetAndIsClamped() {
+        VehicleSimulator sim = simulator(OPEN);
+        sim.applyCommand(command("FORWARD"));
+        sim.applyCommand(command("SPEED", "80"));
+        sim.runFor(1);
+        assertThat(sim.getVelocity()).isCloseTo(80, within(1e-9));
+        // SPEED不改变方向
+        assertThat(sim.toCarStatus().getDirection()).isEqualTo("FORWARD");
+
+        sim.applyCommand(command("SPEED", "150"));
+        sim.runFor(1);
+        assertThat(sim.getVelocity()).isCloseTo(100, within(1e-9));
+    }
+
+    @Test
+    void emergencyStopBrakesHarderThanStop() {
+        VehicleSimulator normal = cruising();
+        VehicleSimulator emergency = cruising();
+
+        normal.applyCommand(command("STOP"));
+        emergency.applyCommand(command("EMERGENCY_STOP"));
+        normal.step();
+        emergency.step();
+        assertThat(normal.getVelocity()).isCloseTo(48, within(1e-9));
+        assertThat(emergency.getVelocity()).isCloseTo(46, within(1e-9));
+
+        normal.runFor(0.5);
+        emergency.runFor(0.5);
+        assertThat(normal.getVelocity()).isZero();
+        assertThat(emergency.getVelocity()).isZero();
+        assertThat(emergency.toCarStatus().getDirection()).isEqualTo("STOP");
+    }
+
+    @Test
+    void backwardMovesAgainstHeading() {
+        VehicleSimulator sim = simulator(OPEN);
+        sim.applyCommand(command("BACKWARD"));
+        sim.runFor(1);
+        assertThat(sim.getVelocity()).isCloseTo(-30, within(1e-9));
+        assertThat(sim.getX()).isNegative();
+    }
+
+    @Test
+    void turningFromRestCrawlsAndYawsAtVelocityOverRadius() {
+        VehicleSimulator sim = simulator(OPEN);
+        sim.applyCommand(command("LEFT"));
+        sim.runFor(1);
+        assertThat(sim.getVelocity()).isCloseTo(15, within(1e-9));
+        // 角速度15/30=0.5rad/s，前0.1s在加速，少转约0.025rad
+        assertThat(sim.getHeading()).isCloseTo(0.475, within(0.005));
+
+        VehicleSimulator right = simulator(OPEN);
+        right.applyCommand(command("RIGHT"));
+        right.runFor(1);
+        assertThat(right.getHeading()).isCloseTo(-sim.getHeading(), within(1e-9));
+    }
+
+    @Test
+    void advanceConsumesWallClockInFixedSteps() {
+        VehicleSimulator sim = simulator(OPEN);
+        assertThat(sim.advance(25_000_000L, 10)).isEqualTo(2);
+        // 累加器剩5ms，再来5ms凑满一步
+        assertThat(sim.advance(5_000_000L, 10)).isEqualTo(1);
+        assertThat(sim.getStepCount()).isEqualTo(3);
+        assertThat(sim.getSimTimeNanos()).isEqualTo(3 * STEP_NANOS);
+
+        // 落后太多时只追maxSteps步，剩余时间丢弃
+        assertThat(sim.advance(1_000_000_000L, 3)).isEqualTo(3);
+        assertThat(sim.advance(5_000_000L, 10)).isZero();
+    }
+
+    @Test
+    void collisionStopsAtContactPoint() {
+        // x=100处的一堵墙
+        DistanceField wall = (x, y, angle, maxRange) -> {
+            double dx = Math.cos(angle);
+            return dx > 1e-9 ? Math.min(maxRange, (100 - x) / dx) : maxRange;
+        };
+        VehicleSimulator sim = simulator(wall);
+        sim.applyCommand(command("FORWARD"));
+        sim.runFor(5);
+
+        assertThat(sim.getVelocity()).isZero();
+        assertThat(sim.getCollisionCount()).isPositive();
+        // 车身半径10，停在墙前10cm
+        assertThat(sim.getX()).isCloseTo(90, within(1e-6));
+    }
+
+    @Test
+    void sameInputsGiveSameTrajectory() {
+        VehicleSimulator a = simulator(OPEN);
+        VehicleSimulator b = simulator(OPEN);
+        for (VehicleSimulator sim : new VehicleSimulator[] {a, b}) {
+            sim.applyCommand(command("FORWARD"));
+            sim.runFor(0.7);
+            sim.applyCommand(command("LEFT"));
+            sim.runFor(1.3);
+        }
+        assertThat(a.getX()).isEqualTo(b.getX());
+        assertThat(a.getY()).isEqualTo(b.getY());
+        assertThat(a.getHeading()).isEqualTo(b.getHeading());
+    }
+
+    @Test
+    void sensorsMeasureFromBodyEdge() {
+        World world = World.builder(1000, 1000).build();
+        VehicleSimulator sim = new VehicleSimulator(VehicleParameters.defaults(), world, STEP_NANOS);
+        sim.reset(700, 500, 0);
+        SensorReading reading = sim.readSensors();
+        // 车身半径10
+        assertThat(reading.getFront()).isCloseTo(290, within(1e-9));
+        // 超出量程400时报量程
+        assertThat(reading.getLeft()).isCloseTo(400, within(1e-9));
+        assertThat(reading.getRight()).isCloseTo(400, within(1e-9));
+    }
+
+    @Test
+    void contactReportsMinimumPositiveDistance() {
+        World world = World.builder(1000, 1000).circle(500, 500, 30).build();
+        VehicleSimulator sim = new VehicleSimulator(VehicleParameters.defaults(), world, STEP_NANOS);
+        // 贴住圆形障碍物，以及车心已在障碍物内
+        for (double x : new double[] {460, 480}) {
+            sim.reset(x, 500, 0);
+            SensorReading reading = sim.readSensors();
+            assertThat(reading.getFront()).as("x=%s", x).isEqualTo(SensorReading.CONTACT_DISTANCE_CM);
+            assertThat(sim.toCarStatus().getFrontDistance()).isPositive();
+        }
+        // 贴墙
+        sim.reset(5, 500, Math.PI);
+        assertThat(sim.readSensors().getFront()).isEqualTo(SensorReading.CONTACT_DISTANCE_CM);
+    }
+
+    private static VehicleSimulator cruising() {
+        VehicleSimulator sim = simulator(OPEN);
+        sim.applyCommand(command("FORWARD"));
+        sim.runFor(1);
+        return sim;
+    }
+
+    private static VehicleSimulator simulator(DistanceField field) {
+        VehicleSimulator sim = new VehicleSimulator(VehicleParameters.defaults(), field, STEP_NANOS);
+        sim.reset(0, 0, 0);
+        return sim;
+    }
+
+    private static ControlCommand command(String name) {
+        return command(name, null);
+    }
+
+    private static ControlCommand command(String name, String value) {
+        ControlCommand command = new ControlCommand();
+        command.setCommand(name);
+        command.setValue(value);
+        return command;
+    }
+}
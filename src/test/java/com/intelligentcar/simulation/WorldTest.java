@@ -0,0 +1,164 @@
+package com.intelligentcar.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class WorldTest {
+
+    @Test
+    void raycastHitsBorderWalls() {
+        World world = World.builder(1000, 500).build();
+        assertThat(world.raycast(100, 100, 0, 5000)).isCloseTo(900, within(1e-9));
+        assertThat(world.raycast(100, 100, Math.PI, 5000)).isCloseTo(100, within(1e-9));
+        assertThat(world.raycast(100, 100, Math.PI / 2, 5000)).isCloseTo(400, within(1e-9));
+        assertThat(world.raycast(100, 100, -Math.PI / 2, 5000)).isCloseTo(100, within(1e-9));
+        // 45°打到上边墙
+        assertThat(world.raycast(100, 100, Math.PI / 4, 5000)).isCloseTo(400 * Math.sqrt(2), within(1e-9));
+    }
+
+    @Test
+    void missReturnsMaxRange() {
+        World world = World.builder(1000, 1000).border(false).circle(800, 800, 20).build();
+        assertThat(world.raycast(100, 100, 0, 300)).isEqualTo(300);
+        // 障碍物在量程之外
+        assertThat(world.raycast(100, 800, 0, 500)).isEqualTo(500);
+    }
+
+    @Test
+    void raycastHitsCirclesAndBoxes() {
+        World world = World.builder(1000, 1000).border(false)
+                .circle(500, 100, 50)
+                .box(300, 400, 100, 100)
+                .build();
+        assertThat(world.raycast(100, 100, 0, 1000)).isCloseTo(350, within(1e-9));
+        assertThat(world.raycast(100, 450, 0, 1000)).isCloseTo(200, within(1e-9));
+        // 从方块另一侧射回来打到右边
+        assertThat(world.raycast(900, 450, Math.PI, 1000)).isCloseTo(500, within(1e-9));
+    }
+
+    @Test
+    void originInsideCircleIsImmediateHit() {
+        World world = World.builder(1000, 1000).circle(500, 500, 50).build();
+        assertThat(world.raycast(510, 500, 0, 1000)).isZero();
+    }
+
+    @Test
+    void gridTraversalMatchesSingleCellScan() {
+        // 同样的几何体，一个细网格、一个只有一个格子（等价于逐个求交）
+        Random random = new Random(42);
+        World.Builder fine = World.builder(2000, 1500).cellSize(37);
+        World.Builder flat = World.builder(2000, 1500).cellSize(5000);
+        for (int i = 0; i < 60; i++) {
+            double x1 = random.nextDouble() * 2000, y1 = random.nextDouble() * 1500;
+            double x2 = x1 + random.nextGaussian() * 150, y2 = y1 + random.nextGaussian() * 150;
+            fine.wall(x1, y1, x2, y2);
+            flat.wall(x1, y1, x2, y2);
+            double cx = random.nextDouble() * 2000, cy = random.nextDouble() * 1500, r = 5 + random.nextDouble() * 40;
+            fine.circle(cx, cy, r);
+            flat.circle(cx, cy, r);
+        }
+        World indexed = fine.build();
+        World scanned = flat.build();
+
+        for (int i = 0; i < 5000; i++) {
+            double x = random.nextDouble() * 2000;
+            double y = random.nextDouble() * 1500;
+            double angle = random.nextDouble() * 2 * Math.PI - Math.PI;
+            assertThat(indexed.raycast(x, y, angle, 800))
+                    .as("ray %d", i)
+                    .isCloseTo(scanned.raycast(x, y, angle, 800), within(1e-9));
+        }
+        // 轴向射线走stepX/stepY为0的分支
+        for (double angle : new double[] {0, Math.PI / 2, Math.PI, -Math.PI / 2}) {
+            assertThat(indexed.raycast(1000, 750, angle, 2000))
+                    .isCloseTo(scanned.raycast(1000, 750, angle, 2000), within(1e-9));
+        }
+    }
+
+    @Test
+    void insideObstacleChecksBoxesAndCircles() {
+        World world = World.builder(1000, 1000).box(100, 100, 50, 50).circle(500, 500, 20).build();
+        assertThat(world.isInsideObstacle(120, 130)).isTrue();
+        assertThat(world.isInsideObstacle(510, 505)).isTrue();
+        assertThat(world.isInsideObstacle(300, 300)).isFalse();
+        // 只有围墙的区域不算障碍物内部
+        assertThat(world.isInsideObstacle(1, 1)).isFalse();
+    }
+
+    @Test
+    void visitRectReportsEachShapeOnce() {
+        // 跨多个格子的长墙和圆
+        World world = World.builder(1000, 1000).border(false).cellSize(50)
+                .wall(0, 500, 1000, 500)
+                .circle(200, 200, 120)
+                .circle(900, 900, 10)
+                .build();
+        List<String> seen = new ArrayList<>();
+        world.visitRect(0, 0, 600, 600, new World.ShapeVisitor() {
+            @Override
+            public void segment(double x1, double y1, double x2, double y2) {
+                seen.add("wall");
+            }
+
+            @Override
+            public void circle(double cx, double cy, double r) {
+                seen.add("circle@" + (int) cx);
+            }
+        });
+        assertThat(seen).containsExactlyInAnyOrder("wall", "circle@200");
+    }
+
+    @Test
+    void loaderParsesDirectives() throws IOException {
+        World world = load("""
+                # 测试场地
+                size 800 600
+                cell 40
+                start 100 100 90
+                wall 0 300 400 300   # 中间的墙
+                box 500 100 50 50
+                circle 600 400 30
+                """);
+        assertThat(world.getWidth()).isEqualTo(800);
+        assertThat(world.getCellSize()).isEqualTo(40);
+        // 4面围墙 + 1堵墙 + 方块4条边
+        assertThat(world.getSegmentCount()).isEqualTo(9);
+        assertThat(world.getCircleCount()).isEqualTo(1);
+        assertThat(world.getStartPose()).containsExactly(100, 100, Math.PI / 2);
+        assertThat(world.raycast(100, 100, Math.PI / 2, 1000)).isCloseTo(200, within(1e-9));
+    }
+
+    @Test
+    void loaderRejectsBadFiles() {
+        assertThatThrownBy(() -> load("wall 0 0 1 1\n")).isInstanceOf(IOException.class).hasMessageContaining("size");
+        assertThatThrownBy(() -> load("size 100 100\nwall 0 0 x 1\n")).isInstanceOf(IOException.class)
+                .hasMessageContaining("第2行");
+        assertThatThrownBy(() -> load("size 100 100\nteleport 1 2\n")).isInstanceOf(IOException.class)
+                .hasMessageContaining("teleport");
+        assertThatThrownBy(() -> load("# 空文件\n")).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void defaultWorldLoads() throws IOException {
+        World world = WorldLoader.load(getClass().getResourceAsStream("/worlds/default.world"));
+        assertThat(world.getSegmentCount()).isGreaterThanOrEqualTo(4);
+        double[] start = world.getStartPose();
+        if (start != null) {
+            assertThat(world.isInsideObstacle(start[0], start[1])).isFalse();
+        }
+    }
+
+    private static World load(String text) throws IOException {
+        return WorldLoader.load(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+}
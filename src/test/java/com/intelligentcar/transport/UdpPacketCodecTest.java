@@ -0,0 +1,112 @@
+package com.intelligentcar.transport;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UdpPacketCodecTest {
+
+    @Test
+    void commandPacketRoundTrips() {
+        ByteBuffer buf = ByteBuffer.allocate(UdpPacketCodec.MAX_PACKET_SIZE);
+        UdpPacketCodec.encodeCommand(buf, 17, UdpPacketCodec.commandCode("speed"), 75, "car-2");
+        buf.flip();
+
+        assertThat(UdpPacketCodec.readHeader(buf)).isEqualTo(UdpPacketCodec.TYPE_COMMAND);
+        assertThat(buf.getInt()).isEqualTo(17);
+        assertThat(UdpPacketCodec.commandName(buf.get())).isEqualTo("SPEED");
+        assertThat(buf.getShort()).isEqualTo((short) 75);
+        assertThat(UdpPacketCodec.readVehicleId(buf)).isEqualTo("car-2");
+        assertThat(buf.hasRemaining()).isFalse();
+    }
+
+    @Test
+    void commandWithoutValueCarriesMinusOne() {
+        ByteBuffer buf = ByteBuffer.allocate(UdpPacketCodec.MAX_PACKET_SIZE);
+        UdpPacketCodec.encodeCommand(buf, 1, UdpPacketCodec.commandCode("STOP"), -1, "car-1");
+        buf.flip();
+
+        UdpPacketCodec.readHeader(buf);
+        buf.getInt();
+        assertThat(UdpPacketCodec.isStop(buf.get())).isTrue();
+        assertThat(buf.getShort()).isEqualTo((short) -1);
+    }
+
+    @Test
+    void sensorPacketRoundTrips() {
+        ByteBuffer buf = ByteBuffer.allocate(UdpPacketCodec.MAX_PACKET_SIZE);
+        UdpPacketCodec.encodeSensor(buf, Integer.MAX_VALUE, 120, 35, 400, 12.5f, -8.25f, 1.75f, "小车-1");
+        buf.flip();
+
+        assertThat(UdpPacketCodec.readHeader(buf)).isEqualTo(UdpPacketCodec.TYPE_SENSOR);
+        assertThat(buf.getInt()).isEqualTo(Integer.MAX_VALUE);
+        assertThat(buf.getShort()).isEqualTo((short) 120);
+        assertThat(buf.getShort()).isEqualTo((short) 35);
+        assertThat(buf.getShort()).isEqualTo((short) 400);
+        assertThat(buf.getFloat()).isEqualTo(12.5f);
+        assertThat(buf.getFloat()).isEqualTo(-8.25f);
+        assertThat(buf.getFloat()).isEqualTo(1.75f);
+        assertThat(UdpPacketCodec.readVehicleId(buf)).isEqualTo("小车-1");
+        assertThat(buf.hasRemaining()).isFalse();
+    }
+
+    @Test
+    void headerIsBigEndianWithMagicAndVersion() {
+        ByteBuffer buf = ByteBuffer.allocate(UdpPacketCodec.MAX_PACKET_SIZE);
+        UdpPacketCodec.encodeCommand(buf, 0x01020304, UdpPacketCodec.commandCode("FORWARD"), -1, "c");
+        byte[] bytes = new byte[buf.position()];
+        buf.flip();
+        buf.get(bytes);
+
+        assertThat(bytes).startsWith('I', 'C', UdpPacketCodec.VERSION, UdpPacketCodec.TYPE_COMMAND, 1, 2, 3, 4);
+        // 头部8 + 命令码1 + 值2 + ID长度1 + ID
+        assertThat(bytes).hasSize(8 + 1 + 2 + 1 + 1);
+    }
+
+    @Test
+    void invalidHeadersAreRejected() {
+        assertThat(UdpPacketCodec.readHeader(ByteBuffer.wrap(new byte[] {'I', 'C', 1, 2}))).isEqualTo(-1);
+        assertThat(UdpPacketCodec.readHeader(ByteBuffer.wrap(new byte[] {'X', 'C', 1, 2, 0, 0, 0, 1}))).isEqualTo(-1);
+        assertThat(UdpPacketCodec.readHeader(ByteBuffer.wrap(new byte[] {'I', 'C', 9, 2, 0, 0, 0, 1}))).isEqualTo(-1);
+    }
+
+    @Test
+    void longVehicleIdIsTruncatedTo255Bytes() {
+        String id = "v".repeat(300);
+        ByteBuffer buf = ByteBuffer.allocate(UdpPacketCodec.MAX_PACKET_SIZE);
+        UdpPacketCodec.encodeCommand(buf, 1, UdpPacketCodec.commandCode("STOP"), -1, id);
+        buf.flip();
+
+        UdpPacketCodec.readHeader(buf);
+        buf.position(buf.position() + 4 + 1 + 2);
+        assertThat(UdpPacketCodec.readVehicleId(buf)).isEqualTo("v".repeat(255));
+    }
+
+    @Test
+    void commandCodesMapBothWays() {
+        for (String name : new String[] {"FORWARD", "BACKWARD", "LEFT", "RIGHT", "STOP", "SPEED", "EMERGENCY_STOP"}) {
+            byte code = UdpPacketCodec.commandCode(name);
+            assertThat(code).as(name).isPositive();
+            assertThat(UdpPacketCodec.commandName(code)).isEqualTo(name);
+        }
+        assertThat(UdpPacketCodec.commandCode("JUMP")).isZero();
+        assertThat(UdpPacketCodec.commandCode(null)).isZero();
+        assertThat(UdpPacketCodec.commandName((byte) 0)).isNull();
+        assertThat(UdpPacketCodec.commandName((byte) 99)).isNull();
+        assertThat(UdpPacketCodec.isStop(UdpPacketCodec.commandCode("EMERGENCY_STOP"))).isTrue();
+        assertThat(UdpPacketCodec.isStop(UdpPacketCodec.commandCode("FORWARD"))).isFalse();
+    }
+
+    @Test
+    void sequenceComparisonSurvivesIntWraparound() {
+        assertThat(UdpPacketCodec.isNewer(2, 1)).isTrue();
+        assertThat(UdpPacketCodec.isNewer(1, 2)).isFalse();
+        assertThat(UdpPacketCodec.isNewer(5, 5)).isFalse();
+        // 回绕后的小序号仍比回绕前的大序号新
+        assertThat(UdpPacketCodec.isNewer(Integer.MIN_VALUE, Integer.MAX_VALUE)).isTrue();
+        assertThat(UdpPacketCodec.isNewer(Integer.MIN_VALUE + 10, Integer.MAX_VALUE - 10)).isTrue();
+        assertThat(UdpPacketCodec.isNewer(Integer.MAX_VALUE, Integer.MIN_VALUE)).isFalse();
+    }
+}
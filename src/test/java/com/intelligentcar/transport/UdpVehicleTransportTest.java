@@ -0,0 +1,35 @@
+package com.intelligentcar.transport;
+
+import com.intelligentcar.service.CarControlService;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class UdpVehicleTransportTest {
+
+    @Test
+    void parsesConfiguredVehicles() {
+        UdpVehicleTransport transport = transport(" car-1=192.168.4.1:9871, car-2 = 127.0.0.1:9872 ,");
+        assertThat(transport.getStats().get("vehicles")).isEqualTo(Set.of("car-1", "car-2"));
+    }
+
+    @Test
+    void malformedEntryFailsNamingTheEntry() {
+        // 缺'='、缺端口、端口非数字、端口越界、ID或地址为空
+        for (String entry : new String[] {"car-1", "car-1=192.168.4.1", "car-1=host:abc",
+                "car-1=host:70000", "car-1=host:0", "=host:9871", "car-1=:9871"}) {
+            assertThatThrownBy(() -> transport("car-0=127.0.0.1:9870," + entry))
+                    .as(entry)
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("\"" + entry + "\"");
+        }
+    }
+
+    private static UdpVehicleTransport transport(String vehicles) {
+        return new UdpVehicleTransport(mock(CarControlService.class), false, "127.0.0.1", 0, vehicles, 3, 5);
+    }
+}
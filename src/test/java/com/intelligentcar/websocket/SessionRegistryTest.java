@@ -0,0 +1,167 @@
+package com.intelligentcar.websocket;
+
+import com.intelligentcar.scheduler.SessionScheduler;
+import com.intelligentcar.scheduler.SessionTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 心跳和空闲驱逐：检测任务由测试手动触发，空闲时间按真实时钟计算
+ */
+class SessionRegistryTest {
+
+    private static final long HEARTBEAT_MS = 200;
+    private static final long IDLE_TIMEOUT_MS = 500;
+
+    private final SessionScheduler scheduler = mock(SessionScheduler.class);
+    private final WebSocketHandler handler = mock(WebSocketHandler.class);
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<SessionTask> tasks = new ArrayList<>();
+    private SessionRegistry registry;
+    private SessionLifecycleDecorator decorator;
+
+    @BeforeEach
+    void setUp() {
+        // 句柄预先建好：首次mock final类较慢，放在登记过程中会吃掉心跳周期
+        for (int i = 0; i < 4; i++) {
+            tasks.add(mock(SessionTask.class));
+        }
+        when(scheduler.scheduleAtFixedRate(any(), anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            scheduled.add(invocation.getArgument(0));
+            return tasks.get(scheduled.size() - 1);
+        });
+        registry = new SessionRegistry(scheduler, HEARTBEAT_MS, IDLE_TIMEOUT_MS, 1000, 65536);
+        decorator = new SessionLifecycleDecorator(handler, registry, SessionRegistry.ENDPOINT_CONTROL);
+    }
+
+    @Test
+    void livenessCheckRunsEveryHeartbeat() throws Exception {
+        open("s-1");
+        verify(scheduler).scheduleAtFixedRate(any(), eq(HEARTBEAT_MS), eq(HEARTBEAT_MS), eq(TimeUnit.MILLISECONDS));
+        assertThat(registry.getSessionCount()).isEqualTo(1);
+        assertThat(registry.getStats("s-1").getEndpoint()).isEqualTo(SessionRegistry.ENDPOINT_CONTROL);
+    }
+
+    @Test
+    void recentlyActiveSessionIsLeftAlone() throws Exception {
+        WebSocketSession raw = open("s-1");
+        check();
+        verify(raw, never()).sendMessage(any());
+        assertThat(registry.getPingCount()).isZero();
+        assertThat(registry.getSessionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void quietSessionIsPingedThenEvicted() throws Exception {
+        WebSocketSession raw = open("s-1");
+        InstrumentedSession instrumented = registry.get("s-1");
+
+        TimeUnit.MILLISECONDS.sleep(HEARTBEAT_MS + 50);
+        check();
+        verify(raw).sendMessage(any(PingMessage.class));
+        assertThat(registry.getPingCount()).isEqualTo(1);
+        assertThat(registry.getSessionCount()).isEqualTo(1);
+
+        TimeUnit.MILLISECONDS.sleep(IDLE_TIMEOUT_MS);
+        check();
+        assertThat(registry.getEvictionCount()).isEqualTo(1);
+        assertThat(registry.getSessionCount()).isZero();
+        // 先回调处理器释放资源，再关闭底层连接，绑定的任务一并取消
+        verify(handler).afterConnectionClosed(eq(instrumented), any());
+        verify(raw).close(any(CloseStatus.class));
+        verify(tasks.get(0)).cancel();
+
+        // 容器随后报告连接关闭，不会重复回调
+        decorator.afterConnectionClosed(raw, CloseStatus.NORMAL);
+        verify(handler, times(1)).afterConnectionClosed(any(), any());
+    }
+
+    @Test
+    void pongKeepsSessionAlive() throws Exception {
+        WebSocketSession raw = open("s-1");
+        // 累计超过空闲超时，但每个心跳周期都有Pong
+        for (int i = 0; i < 3; i++) {
+            TimeUnit.MILLISECONDS.sleep(HEARTBEAT_MS);
+            decorator.handleMessage(raw, new PongMessage());
+        }
+        check();
+        assertThat(registry.getEvictionCount()).isZero();
+        assertThat(registry.get("s-1").getStats().snapshot()).containsEntry("pongs", 3L);
+    }
+
+    @Test
+    void inboundMessageIsPassedOnWithTheWrappedSession() throws Exception {
+        WebSocketSession raw = open("s-1");
+        TextMessage message = new TextMessage("{\"command\":\"STOP\"}");
+        decorator.handleMessage(raw, message);
+        verify(handler).handleMessage(registry.get("s-1"), message);
+    }
+
+    @Test
+    void closedConnectionIsEvictedWithoutPing() throws Exception {
+        WebSocketSession raw = open("s-1");
+        when(raw.isOpen()).thenReturn(false);
+        check();
+        assertThat(registry.getEvictionCount()).isEqualTo(1);
+        verify(raw, never()).sendMessage(any());
+    }
+
+    @Test
+    void failedPingEvicts() throws Exception {
+        WebSocketSession raw = open("s-1");
+        doThrow(new IOException("broken pipe")).when(raw).sendMessage(any());
+        TimeUnit.MILLISECONDS.sleep(HEARTBEAT_MS + 50);
+        check();
+        assertThat(registry.getEvictionCount()).isEqualTo(1);
+        assertThat(registry.getSessionCount()).isZero();
+    }
+
+    @Test
+    void sessionTasksAreCancelledOnNormalClose() throws Exception {
+        WebSocketSession raw = open("s-1");
+        SessionTask frames = registry.scheduleAtFixedRate(registry.get("s-1"), () -> { }, 100);
+
+        decorator.afterConnectionClosed(raw, CloseStatus.NORMAL);
+        assertThat(registry.getSessionCount()).isZero();
+        verify(frames).cancel();
+        verify(tasks.get(0)).cancel();
+        assertThat(registry.getEvictionCount()).isZero();
+    }
+
+    private WebSocketSession open(String id) throws Exception {
+        WebSocketSession raw = mock(WebSocketSession.class);
+        when(raw.getId()).thenReturn(id);
+        when(raw.isOpen()).thenReturn(true);
+        when(raw.getAttributes()).thenReturn(new HashMap<>());
+        decorator.afterConnectionEstablished(raw);
+        return raw;
+    }
+
+    // 手动执行最近登记会话的心跳检测
+    private void check() {
+        scheduled.get(scheduled.size() - 1).run();
+    }
+}